@@ -28,7 +28,9 @@ public class JavaModelMarshaller implements CustomObjectMarshaller<JavaModel> {
 
   @Override
   public JavaModel read(WorkflowInputBuffer buffer, Class<? extends JavaModel> clazz) {
-    return new JavaModel(buffer.readObject());
+    return PersistentModel.class.isAssignableFrom(clazz)
+        ? new PersistentModel(buffer.readObject())
+        : new JavaModel(buffer.readObject());
   }
 
   @Override
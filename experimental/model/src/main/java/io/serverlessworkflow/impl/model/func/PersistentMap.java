@@ -0,0 +1,469 @@
+/*
+ * Copyright 2020-Present The Serverless Workflow Specification Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.serverlessworkflow.impl.model.func;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Immutable hash array mapped trie. {@link #plus(Object, Object)} and {@link #minus(Object)} return
+ * a new map that shares every node but the ones in the path to the modified key.
+ */
+public final class PersistentMap<K, V> extends AbstractMap<K, V> {
+
+  private static final int BITS = 5;
+  private static final int MASK = (1 << BITS) - 1;
+  private static final Object NOT_FOUND = new Object();
+
+  @SuppressWarnings("rawtypes")
+  private static final PersistentMap EMPTY =
+      new PersistentMap<>(new BitmapNode(0, 0, new Object[0]), 0);
+
+  private final Node root;
+  private final int size;
+
+  private PersistentMap(Node root, int size) {
+    this.root = root;
+    this.size = size;
+  }
+
+  @SuppressWarnings("unchecked")
+  public static <K, V> PersistentMap<K, V> empty() {
+    return EMPTY;
+  }
+
+  @SuppressWarnings("unchecked")
+  public static <K, V> PersistentMap<K, V> copyOf(Map<? extends K, ? extends V> map) {
+    if (map instanceof PersistentMap) {
+      return (PersistentMap<K, V>) map;
+    }
+    PersistentMap<K, V> result = empty();
+    for (Map.Entry<? extends K, ? extends V> entry : map.entrySet()) {
+      result = result.plus(entry.getKey(), entry.getValue());
+    }
+    return result;
+  }
+
+  public PersistentMap<K, V> plus(K key, V value) {
+    Change change = new Change();
+    Node newRoot = root.put(key, value, hash(key), 0, change);
+    return newRoot == root ? this : new PersistentMap<>(newRoot, change.added ? size + 1 : size);
+  }
+
+  public PersistentMap<K, V> minus(Object key) {
+    Change change = new Change();
+    Node newRoot = root.remove(key, hash(key), 0, change);
+    return newRoot == root ? this : new PersistentMap<>(newRoot, size - 1);
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public V get(Object key) {
+    Object value = root.find(key, hash(key), 0);
+    return value == NOT_FOUND ? null : (V) value;
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return root.find(key, hash(key), 0) != NOT_FOUND;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public Set<Entry<K, V>> entrySet() {
+    return new AbstractSet<>() {
+      @Override
+      public Iterator<Entry<K, V>> iterator() {
+        return new EntryIterator<>(root);
+      }
+
+      @Override
+      public int size() {
+        return size;
+      }
+    };
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    return obj == this || super.equals(obj);
+  }
+
+  @Override
+  public int hashCode() {
+    return super.hashCode();
+  }
+
+  private static int hash(Object key) {
+    int h = key == null ? 0 : key.hashCode();
+    return h ^ (h >>> 16);
+  }
+
+  private static int bit(int hash, int shift) {
+    return 1 << ((hash >>> shift) & MASK);
+  }
+
+  private static class Change {
+    private boolean added;
+  }
+
+  private abstract static class Node {
+
+    abstract Object find(Object key, int hash, int shift);
+
+    abstract Node put(Object key, Object value, int hash, int shift, Change change);
+
+    abstract Node remove(Object key, int hash, int shift, Change change);
+
+    abstract int entryCount();
+
+    abstract Object key(int index);
+
+    abstract Object value(int index);
+
+    abstract int nodeCount();
+
+    abstract Node node(int index);
+  }
+
+  /** Entries are stored inline at the beginning of the array, sub nodes at the end */
+  private static final class BitmapNode extends Node {
+    private final int dataMap;
+    private final int nodeMap;
+    private final Object[] content;
+
+    BitmapNode(int dataMap, int nodeMap, Object[] content) {
+      this.dataMap = dataMap;
+      this.nodeMap = nodeMap;
+      this.content = content;
+    }
+
+    @Override
+    Object find(Object key, int hash, int shift) {
+      int bit = bit(hash, shift);
+      if ((dataMap & bit) != 0) {
+        int index = dataIndex(bit);
+        return Objects.equals(content[2 * index], key) ? content[2 * index + 1] : NOT_FOUND;
+      } else if ((nodeMap & bit) != 0) {
+        return nodeAt(bit).find(key, hash, shift + BITS);
+      }
+      return NOT_FOUND;
+    }
+
+    @Override
+    Node put(Object key, Object value, int hash, int shift, Change change) {
+      int bit = bit(hash, shift);
+      if ((dataMap & bit) != 0) {
+        int index = dataIndex(bit);
+        Object currentKey = content[2 * index];
+        if (Objects.equals(currentKey, key)) {
+          if (content[2 * index + 1] == value) {
+            return this;
+          }
+          Object[] newContent = content.clone();
+          newContent[2 * index + 1] = value;
+          return new BitmapNode(dataMap, nodeMap, newContent);
+        }
+        change.added = true;
+        Node subNode =
+            merge(
+                currentKey,
+                content[2 * index + 1],
+                hash(currentKey),
+                key,
+                value,
+                hash,
+                shift + BITS);
+        return inlineToNode(bit, subNode);
+      } else if ((nodeMap & bit) != 0) {
+        Node subNode = nodeAt(bit);
+        Node newSubNode = subNode.put(key, value, hash, shift + BITS, change);
+        return newSubNode == subNode ? this : replaceNode(bit, newSubNode);
+      }
+      change.added = true;
+      int index = dataIndex(bit);
+      Object[] newContent = new Object[content.length + 2];
+      System.arraycopy(content, 0, newContent, 0, 2 * index);
+      newContent[2 * index] = key;
+      newContent[2 * index + 1] = value;
+      System.arraycopy(
+          content, 2 * index, newContent, 2 * index + 2, content.length - 2 * index);
+      return new BitmapNode(dataMap | bit, nodeMap, newContent);
+    }
+
+    @Override
+    Node remove(Object key, int hash, int shift, Change change) {
+      int bit = bit(hash, shift);
+      if ((dataMap & bit) != 0) {
+        int index = dataIndex(bit);
+        if (!Objects.equals(content[2 * index], key)) {
+          return this;
+        }
+        Object[] newContent = new Object[content.length - 2];
+        System.arraycopy(content, 0, newContent, 0, 2 * index);
+        System.arraycopy(
+            content, 2 * index + 2, newContent, 2 * index, content.length - 2 * index - 2);
+        return new BitmapNode(dataMap ^ bit, nodeMap, newContent);
+      } else if ((nodeMap & bit) != 0) {
+        Node subNode = nodeAt(bit);
+        Node newSubNode = subNode.remove(key, hash, shift + BITS, change);
+        if (newSubNode == subNode) {
+          return this;
+        } else if (newSubNode.nodeCount() == 0 && newSubNode.entryCount() <= 1) {
+          return nodeToInline(bit, newSubNode);
+        }
+        return replaceNode(bit, newSubNode);
+      }
+      return this;
+    }
+
+    private static Node merge(
+        Object key0, Object value0, int hash0, Object key1, Object value1, int hash1, int shift) {
+      if (shift >= Integer.SIZE) {
+        return new CollisionNode(new Object[] {key0, value0, key1, value1});
+      }
+      int bit0 = bit(hash0, shift);
+      int bit1 = bit(hash1, shift);
+      if (bit0 == bit1) {
+        return new BitmapNode(
+            0,
+            bit0,
+            new Object[] {merge(key0, value0, hash0, key1, value1, hash1, shift + BITS)});
+      }
+      return new BitmapNode(
+          bit0 | bit1,
+          0,
+          Integer.compareUnsigned(bit0, bit1) < 0
+              ? new Object[] {key0, value0, key1, value1}
+              : new Object[] {key1, value1, key0, value0});
+    }
+
+    private Node inlineToNode(int bit, Node subNode) {
+      int dataIndex = dataIndex(bit);
+      int nodePosition = content.length - 2 - nodeIndex(bit);
+      Object[] newContent = new Object[content.length - 1];
+      System.arraycopy(content, 0, newContent, 0, 2 * dataIndex);
+      System.arraycopy(
+          content, 2 * dataIndex + 2, newContent, 2 * dataIndex, nodePosition - 2 * dataIndex);
+      newContent[nodePosition] = subNode;
+      System.arraycopy(
+          content,
+          nodePosition + 2,
+          newContent,
+          nodePosition + 1,
+          content.length - nodePosition - 2);
+      return new BitmapNode(dataMap ^ bit, nodeMap | bit, newContent);
+    }
+
+    private Node nodeToInline(int bit, Node subNode) {
+      int nodePosition = content.length - 1 - nodeIndex(bit);
+      if (subNode.entryCount() == 0) {
+        Object[] newContent = new Object[content.length - 1];
+        System.arraycopy(content, 0, newContent, 0, nodePosition);
+        System.arraycopy(
+            content, nodePosition + 1, newContent, nodePosition, content.length - nodePosition - 1);
+        return new BitmapNode(dataMap, nodeMap ^ bit, newContent);
+      }
+      int dataIndex = dataIndex(bit);
+      Object[] newContent = new Object[content.length + 1];
+      System.arraycopy(content, 0, newContent, 0, 2 * dataIndex);
+      newContent[2 * dataIndex] = subNode.key(0);
+      newContent[2 * dataIndex + 1] = subNode.value(0);
+      System.arraycopy(
+          content, 2 * dataIndex, newContent, 2 * dataIndex + 2, nodePosition - 2 * dataIndex);
+      System.arraycopy(
+          content,
+          nodePosition + 1,
+          newContent,
+          nodePosition + 2,
+          content.length - nodePosition - 1);
+      return new BitmapNode(dataMap | bit, nodeMap ^ bit, newContent);
+    }
+
+    private Node replaceNode(int bit, Node subNode) {
+      Object[] newContent = content.clone();
+      newContent[content.length - 1 - nodeIndex(bit)] = subNode;
+      return new BitmapNode(dataMap, nodeMap, newContent);
+    }
+
+    private Node nodeAt(int bit) {
+      return (Node) content[content.length - 1 - nodeIndex(bit)];
+    }
+
+    private int dataIndex(int bit) {
+      return Integer.bitCount(dataMap & (bit - 1));
+    }
+
+    private int nodeIndex(int bit) {
+      return Integer.bitCount(nodeMap & (bit - 1));
+    }
+
+    @Override
+    int entryCount() {
+      return Integer.bitCount(dataMap);
+    }
+
+    @Override
+    Object key(int index) {
+      return content[2 * index];
+    }
+
+    @Override
+    Object value(int index) {
+      return content[2 * index + 1];
+    }
+
+    @Override
+    int nodeCount() {
+      return Integer.bitCount(nodeMap);
+    }
+
+    @Override
+    Node node(int index) {
+      return (Node) content[content.length - 1 - index];
+    }
+  }
+
+  /** Keys whose hashes are fully equal */
+  private static final class CollisionNode extends Node {
+    private final Object[] content;
+
+    CollisionNode(Object[] content) {
+      this.content = content;
+    }
+
+    @Override
+    Object find(Object key, int hash, int shift) {
+      int index = indexOf(key);
+      return index < 0 ? NOT_FOUND : content[index + 1];
+    }
+
+    @Override
+    Node put(Object key, Object value, int hash, int shift, Change change) {
+      int index = indexOf(key);
+      if (index >= 0) {
+        if (content[index + 1] == value) {
+          return this;
+        }
+        Object[] newContent = content.clone();
+        newContent[index + 1] = value;
+        return new CollisionNode(newContent);
+      }
+      change.added = true;
+      Object[] newContent = Arrays.copyOf(content, content.length + 2);
+      newContent[content.length] = key;
+      newContent[content.length + 1] = value;
+      return new CollisionNode(newContent);
+    }
+
+    @Override
+    Node remove(Object key, int hash, int shift, Change change) {
+      int index = indexOf(key);
+      if (index < 0) {
+        return this;
+      }
+      Object[] newContent = new Object[content.length - 2];
+      System.arraycopy(content, 0, newContent, 0, index);
+      System.arraycopy(content, index + 2, newContent, index, content.length - index - 2);
+      return new CollisionNode(newContent);
+    }
+
+    private int indexOf(Object key) {
+      for (int i = 0; i < content.length; i += 2) {
+        if (Objects.equals(content[i], key)) {
+          return i;
+        }
+      }
+      return -1;
+    }
+
+    @Override
+    int entryCount() {
+      return content.length / 2;
+    }
+
+    @Override
+    Object key(int index) {
+      return content[2 * index];
+    }
+
+    @Override
+    Object value(int index) {
+      return content[2 * index + 1];
+    }
+
+    @Override
+    int nodeCount() {
+      return 0;
+    }
+
+    @Override
+    Node node(int index) {
+      throw new IndexOutOfBoundsException(index);
+    }
+  }
+
+  private static class EntryIterator<K, V> implements Iterator<Entry<K, V>> {
+    private final Deque<Node> pending = new ArrayDeque<>();
+    private Node current;
+    private int index;
+
+    EntryIterator(Node root) {
+      start(root);
+    }
+
+    private void start(Node node) {
+      current = node;
+      index = 0;
+      for (int i = 0; i < node.nodeCount(); i++) {
+        pending.push(node.node(i));
+      }
+    }
+
+    @Override
+    public boolean hasNext() {
+      while (index >= current.entryCount()) {
+        if (pending.isEmpty()) {
+          return false;
+        }
+        start(pending.pop());
+      }
+      return true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Entry<K, V> next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      int i = index++;
+      return new SimpleImmutableEntry<>((K) current.key(i), (V) current.value(i));
+    }
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2020-Present The Serverless Workflow Specification Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.serverlessworkflow.impl.model.func;
+
+import io.serverlessworkflow.impl.WorkflowModel;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Java model whose maps and collections are stored as {@link PersistentMap} and {@link
+ * PersistentVector}. Those structures are never copied, so models derived from another one (task
+ * outputs, exported contexts, fork branches) share every value that did not change.
+ */
+public class PersistentModel extends JavaModel {
+
+  public PersistentModel(Object object) {
+    super(null);
+    setObject(persistent(object));
+  }
+
+  PersistentModel(Object object, Object previous) {
+    super(null);
+    setObject(persistent(object, previous));
+  }
+
+  static Object persistent(Object object) {
+    return persistent(object, null);
+  }
+
+  /**
+   * Converts the object into persistent structures, reusing from the previous value every entry or
+   * item that is equal
+   */
+  @SuppressWarnings("unchecked")
+  static Object persistent(Object object, Object previous) {
+    if (object instanceof WorkflowModel model) {
+      return persistent(model.asJavaObject(), previous);
+    } else if (object instanceof PersistentMap || object instanceof PersistentVector) {
+      return object;
+    } else if (object instanceof Map map) {
+      return persistentMap(
+          (Map<String, Object>) map,
+          previous instanceof PersistentMap prevMap ? prevMap : PersistentMap.empty());
+    } else if (object instanceof Collection col) {
+      return persistentVector(
+          col, previous instanceof PersistentVector prevVector ? prevVector : null);
+    } else {
+      return Objects.equals(object, previous) ? previous : object;
+    }
+  }
+
+  private static PersistentMap<String, Object> persistentMap(
+      Map<String, Object> map, PersistentMap<String, Object> previous) {
+    PersistentMap<String, Object> result = previous;
+    for (Map.Entry<String, Object> entry : map.entrySet()) {
+      result =
+          result.plus(entry.getKey(), persistent(entry.getValue(), previous.get(entry.getKey())));
+    }
+    if (result.size() > map.size()) {
+      for (String key : previous.keySet()) {
+        if (!map.containsKey(key)) {
+          result = result.minus(key);
+        }
+      }
+    }
+    return result;
+  }
+
+  private static PersistentVector<Object> persistentVector(
+      Collection<?> col, PersistentVector<Object> previous) {
+    // vectors cannot be shrunk, so the previous one is only reused if the new one is not shorter
+    PersistentVector<Object> result =
+        previous != null && previous.size() <= col.size() ? previous : PersistentVector.empty();
+    int index = 0;
+    for (Object item : col) {
+      Object prevItem = previous != null && index < previous.size() ? previous.get(index) : null;
+      Object value = persistent(item, prevItem);
+      result = index < result.size() ? result.with(index, value) : result.plus(value);
+      index++;
+    }
+    return result;
+  }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2020-Present The Serverless Workflow Specification Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.serverlessworkflow.impl.model.func;
+
+import io.serverlessworkflow.impl.WorkflowModel;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Model factory that creates {@link PersistentModel} instances. Values returned by filters are
+ * converted reusing the unchanged parts of the model the filter was applied to. It is not
+ * registered as a service, set it through {@code WorkflowApplication.Builder.withModelFactory}.
+ */
+public class PersistentModelFactory extends JavaModelFactory {
+
+  @Override
+  public WorkflowModel combine(Map<String, WorkflowModel> workflowVariables) {
+    return new PersistentModel(workflowVariables);
+  }
+
+  @Override
+  public WorkflowModel from(Map<String, Object> map) {
+    return new PersistentModel(map);
+  }
+
+  @Override
+  public WorkflowModel fromOther(Object obj) {
+    return new PersistentModel(obj);
+  }
+
+  @Override
+  public WorkflowModel fromAny(WorkflowModel prev, Object obj) {
+    return prev instanceof PersistentModel && (obj instanceof Map || obj instanceof Collection)
+        ? new PersistentModel(obj, prev.asJavaObject())
+        : fromAny(obj);
+  }
+}
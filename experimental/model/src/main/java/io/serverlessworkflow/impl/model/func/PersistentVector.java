@@ -0,0 +1,163 @@
+/*
+ * Copyright 2020-Present The Serverless Workflow Specification Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.serverlessworkflow.impl.model.func;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.RandomAccess;
+
+/**
+ * Immutable vector stored as a 32-way trie plus a tail array. {@link #plus(Object)} and {@link
+ * #with(int, Object)} return a new vector that shares every node but the ones in the path to the
+ * modified index.
+ */
+public final class PersistentVector<E> extends AbstractList<E> implements RandomAccess {
+
+  private static final int BITS = 5;
+  private static final int WIDTH = 1 << BITS;
+  private static final int MASK = WIDTH - 1;
+
+  @SuppressWarnings("rawtypes")
+  private static final PersistentVector EMPTY =
+      new PersistentVector<>(0, BITS, new Object[WIDTH], new Object[0]);
+
+  private final int size;
+  private final int shift;
+  private final Object[] root;
+  private final Object[] tail;
+
+  private PersistentVector(int size, int shift, Object[] root, Object[] tail) {
+    this.size = size;
+    this.shift = shift;
+    this.root = root;
+    this.tail = tail;
+  }
+
+  @SuppressWarnings("unchecked")
+  public static <E> PersistentVector<E> empty() {
+    return EMPTY;
+  }
+
+  @SuppressWarnings("unchecked")
+  public static <E> PersistentVector<E> copyOf(Collection<? extends E> collection) {
+    if (collection instanceof PersistentVector) {
+      return (PersistentVector<E>) collection;
+    }
+    PersistentVector<E> result = empty();
+    for (E item : collection) {
+      result = result.plus(item);
+    }
+    return result;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public E get(int index) {
+    return (E) leaf(index)[index & MASK];
+  }
+
+  public PersistentVector<E> plus(E item) {
+    if (size - tailOffset() < WIDTH) {
+      Object[] newTail = Arrays.copyOf(tail, tail.length + 1);
+      newTail[tail.length] = item;
+      return new PersistentVector<>(size + 1, shift, root, newTail);
+    }
+    Object[] newRoot;
+    int newShift = shift;
+    if ((size >>> BITS) > (1 << shift)) {
+      newRoot = new Object[WIDTH];
+      newRoot[0] = root;
+      newRoot[1] = newPath(shift, tail);
+      newShift += BITS;
+    } else {
+      newRoot = pushTail(shift, root, tail);
+    }
+    return new PersistentVector<>(size + 1, newShift, newRoot, new Object[] {item});
+  }
+
+  public PersistentVector<E> with(int index, E item) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException(index);
+    }
+    if (get(index) == item) {
+      return this;
+    } else if (index >= tailOffset()) {
+      Object[] newTail = tail.clone();
+      newTail[index & MASK] = item;
+      return new PersistentVector<>(size, shift, root, newTail);
+    }
+    return new PersistentVector<>(size, shift, assoc(shift, root, index, item), tail);
+  }
+
+  private int tailOffset() {
+    return size < WIDTH ? 0 : ((size - 1) >>> BITS) << BITS;
+  }
+
+  private Object[] leaf(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException(index);
+    }
+    if (index >= tailOffset()) {
+      return tail;
+    }
+    Object[] node = root;
+    for (int level = shift; level > 0; level -= BITS) {
+      node = (Object[]) node[(index >>> level) & MASK];
+    }
+    return node;
+  }
+
+  private Object[] pushTail(int level, Object[] parent, Object[] tailNode) {
+    int subIndex = ((size - 1) >>> level) & MASK;
+    Object[] result = parent.clone();
+    if (level == BITS) {
+      result[subIndex] = tailNode;
+    } else {
+      Object[] child = (Object[]) parent[subIndex];
+      result[subIndex] =
+          child != null
+              ? pushTail(level - BITS, child, tailNode)
+              : newPath(level - BITS, tailNode);
+    }
+    return result;
+  }
+
+  private static Object[] newPath(int level, Object[] node) {
+    if (level == 0) {
+      return node;
+    }
+    Object[] result = new Object[WIDTH];
+    result[0] = newPath(level - BITS, node);
+    return result;
+  }
+
+  private static Object[] assoc(int level, Object[] node, int index, Object item) {
+    Object[] result = node.clone();
+    if (level == 0) {
+      result[index & MASK] = item;
+    } else {
+      int subIndex = (index >>> level) & MASK;
+      result[subIndex] = assoc(level - BITS, (Object[]) node[subIndex], index, item);
+    }
+    return result;
+  }
+}
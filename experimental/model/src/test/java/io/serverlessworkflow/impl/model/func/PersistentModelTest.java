@@ -0,0 +1,73 @@
+/*
+ * Copyright 2020-Present The Serverless Workflow Specification Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.serverlessworkflow.impl.model.func;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.serverlessworkflow.impl.WorkflowModel;
+import io.serverlessworkflow.impl.marshaller.DefaultBufferFactory;
+import io.serverlessworkflow.impl.marshaller.WorkflowBufferFactory;
+import io.serverlessworkflow.impl.marshaller.WorkflowInputBuffer;
+import io.serverlessworkflow.impl.marshaller.WorkflowOutputBuffer;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class PersistentModelTest {
+
+  private final PersistentModelFactory factory = new PersistentModelFactory();
+
+  @Test
+  void testUnchangedValuesAreShared() {
+    WorkflowModel input =
+        factory.from(
+            Map.of("customer", Map.of("name", "John", "tags", List.of("a", "b")), "status", "new"));
+    Map<String, Object> inputMap = input.asMap().orElseThrow();
+
+    Map<String, Object> output = new HashMap<>(inputMap);
+    output.put("customer", Map.of("name", "John", "tags", List.of("a", "b")));
+    output.put("status", "done");
+    Map<String, Object> outputMap = factory.fromAny(input, output).asMap().orElseThrow();
+
+    assertThat(outputMap).containsEntry("status", "done");
+    assertThat(outputMap.get("customer")).isSameAs(inputMap.get("customer"));
+    assertThat(inputMap).containsEntry("status", "new");
+  }
+
+  @Test
+  void testCombineSharesBranches() {
+    WorkflowModel branch = factory.from(Map.of("items", List.of(1, 2, 3)));
+    WorkflowModel combined = factory.combine(Map.of("branch", branch));
+    assertThat(combined.asMap().orElseThrow().get("branch")).isSameAs(branch.asJavaObject());
+  }
+
+  @Test
+  void testMarshallUnmarshall() {
+    WorkflowModel model = factory.from(Map.of("name", "John", "items", List.of(1, 2, 3)));
+    WorkflowBufferFactory bufferFactory = DefaultBufferFactory.factory();
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    try (WorkflowOutputBuffer writer = bufferFactory.output(output)) {
+      writer.writeObject(model);
+    }
+    try (WorkflowInputBuffer reader =
+        bufferFactory.input(new ByteArrayInputStream(output.toByteArray()))) {
+      assertThat(reader.readObject()).isEqualTo(model);
+    }
+  }
+}
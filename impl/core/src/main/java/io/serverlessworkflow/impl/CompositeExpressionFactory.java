@@ -17,8 +17,10 @@ package io.serverlessworkflow.impl;
 
 import io.cloudevents.CloudEventData;
 import io.serverlessworkflow.api.types.TaskBase;
+import io.serverlessworkflow.impl.expressions.EqualityPredicate;
 import io.serverlessworkflow.impl.expressions.ExpressionDescriptor;
 import io.serverlessworkflow.impl.expressions.ExpressionFactory;
+import io.serverlessworkflow.impl.expressions.ExpressionProfiler;
 import java.time.OffsetDateTime;
 import java.util.Collection;
 import java.util.Map;
@@ -28,9 +30,16 @@ import java.util.function.Function;
 class CompositeExpressionFactory implements ExpressionFactory {
 
   private final Collection<ExpressionFactory> exprFactories;
+  private final Optional<ExpressionProfiler> profiler;
 
   public CompositeExpressionFactory(Collection<ExpressionFactory> exprFactories) {
+    this(exprFactories, Optional.empty());
+  }
+
+  public CompositeExpressionFactory(
+      Collection<ExpressionFactory> exprFactories, Optional<ExpressionProfiler> profiler) {
     this.exprFactories = exprFactories;
+    this.profiler = profiler;
   }
 
   private <T> T processFactories(
@@ -46,49 +55,68 @@ class CompositeExpressionFactory implements ExpressionFactory {
 
   @Override
   public WorkflowValueResolver<String> resolveString(ExpressionDescriptor desc) {
-    return processFactories(desc, f -> f.resolveString(desc));
+    return profile(desc, processFactories(desc, f -> f.resolveString(desc)));
   }
 
   @Override
   public WorkflowValueResolver<Object> resolveValue(ExpressionDescriptor desc) {
-    return processFactories(desc, f -> f.resolveValue(desc));
+    return profile(desc, processFactories(desc, f -> f.resolveValue(desc)));
   }
 
   @Override
   public WorkflowValueResolver<OffsetDateTime> resolveDate(ExpressionDescriptor desc) {
-    return processFactories(desc, f -> f.resolveDate(desc));
+    return profile(desc, processFactories(desc, f -> f.resolveDate(desc)));
   }
 
   @Override
   public WorkflowValueResolver<CloudEventData> resolveCE(ExpressionDescriptor desc) {
-    return processFactories(desc, f -> f.resolveCE(desc));
+    return profile(desc, processFactories(desc, f -> f.resolveCE(desc)));
   }
 
   @Override
   public WorkflowValueResolver<Map<String, Object>> resolveMap(ExpressionDescriptor desc) {
-    return processFactories(desc, f -> f.resolveMap(desc));
+    return profile(desc, processFactories(desc, f -> f.resolveMap(desc)));
   }
 
   @Override
   public WorkflowValueResolver<Collection<?>> resolveCollection(ExpressionDescriptor desc) {
-    return processFactories(desc, f -> f.resolveCollection(desc));
+    return profile(desc, processFactories(desc, f -> f.resolveCollection(desc)));
   }
 
   @Override
   public WorkflowFilter buildFilter(ExpressionDescriptor desc, WorkflowModelFactory modelFactory) {
-    return processFactories(desc, f -> f.buildFilter(desc, modelFactory));
+    WorkflowFilter filter = processFactories(desc, f -> f.buildFilter(desc, modelFactory));
+    return profiler.map(p -> p.profile(desc, filter)).orElse(filter);
   }
 
   @Override
   public WorkflowPredicate buildPredicate(ExpressionDescriptor desc) {
-    return processFactories(desc, f -> f.buildPredicate(desc));
+    WorkflowPredicate predicate = processFactories(desc, f -> f.buildPredicate(desc));
+    return profiler.map(p -> p.profile(desc, predicate)).orElse(predicate);
   }
 
   @Override
   public Optional<WorkflowPredicate> buildIfFilter(TaskBase task) {
-    return exprFactories.stream()
-        .map(f -> f.buildIfFilter(task))
-        .flatMap(Optional::stream)
-        .findAny();
+    Optional<WorkflowPredicate> ifFilter =
+        exprFactories.stream().map(f -> f.buildIfFilter(task)).flatMap(Optional::stream).findAny();
+    return profiler.isPresent() && task.getIf() != null
+        ? ifFilter.map(p -> profiler.get().profile(ExpressionDescriptor.from(task.getIf()), p))
+        : ifFilter;
+  }
+
+  @Override
+  public Optional<EqualityPredicate> buildEqualityPredicate(ExpressionDescriptor desc) {
+    return processFactories(desc, f -> f.buildEqualityPredicate(desc))
+        .map(
+            p ->
+                new EqualityPredicate(
+                    p.path(),
+                    p.constant(),
+                    profile(ExpressionDescriptor.from(p.path()), p.resolver())));
+  }
+
+  private <T> WorkflowValueResolver<T> profile(
+      ExpressionDescriptor desc, WorkflowValueResolver<T> resolver) {
+    return profiler.map(p -> p.profile(desc, resolver)).orElse(resolver);
   }
 }
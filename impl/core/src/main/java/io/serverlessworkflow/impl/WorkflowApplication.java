@@ -37,6 +37,7 @@ import io.serverlessworkflow.impl.executors.CallableTaskProxyBuilder;
 import io.serverlessworkflow.impl.executors.DefaultTaskExecutorFactory;
 import io.serverlessworkflow.impl.executors.TaskExecutorFactory;
 import io.serverlessworkflow.impl.expressions.ExpressionFactory;
+import io.serverlessworkflow.impl.expressions.ExpressionProfiler;
 import io.serverlessworkflow.impl.expressions.RuntimeDescriptor;
 import io.serverlessworkflow.impl.lifecycle.WorkflowExecutionCompletableListener;
 import io.serverlessworkflow.impl.lifecycle.WorkflowExecutionListener;
@@ -102,10 +103,13 @@ public class WorkflowApplication implements AutoCloseable {
   private final CloudEventPredicateFactory cloudEventPredicateFactory;
   private final AllStrategyCorrelationInfoFactory allStrategyCorrelationInfoFactory;
   private final WorkflowLifeCycleCloudEventFactory lifeCycleCloudEventFactory;
+  private final Optional<ExpressionProfiler> expressionProfiler;
 
   private WorkflowApplication(Builder builder) {
     this.taskFactory = builder.taskFactory;
-    this.exprFactory = new CompositeExpressionFactory(builder.exprFactories);
+    this.expressionProfiler = Optional.ofNullable(builder.expressionProfiler);
+    this.exprFactory =
+        new CompositeExpressionFactory(builder.exprFactories, this.expressionProfiler);
     this.resourceLoaderFactory = builder.resourceLoaderFactory;
     this.schemaValidatorFactory = builder.schemaValidatorFactory;
     this.positionFactory = builder.positionFactory;
@@ -255,6 +259,7 @@ public class WorkflowApplication implements AutoCloseable {
     private CloudEventPredicateFactory cloudEventPredicateFactory;
     private AllStrategyCorrelationInfoFactory allStrategyCorrelationInfoFactory;
     private WorkflowLifeCycleCloudEventFactory lifeCycleCloudEventFactory;
+    private ExpressionProfiler expressionProfiler;
 
     private Builder() {
       ServiceLoader.load(NamedWorkflowAdditionalObject.class)
@@ -404,6 +409,11 @@ public class WorkflowApplication implements AutoCloseable {
       return this;
     }
 
+    public Builder withExpressionProfiler(ExpressionProfiler expressionProfiler) {
+      this.expressionProfiler = expressionProfiler;
+      return this;
+    }
+
     public WorkflowApplication build() {
 
       if (modelFactory == null) {
@@ -615,4 +625,8 @@ public class WorkflowApplication implements AutoCloseable {
   public WorkflowLifeCycleCloudEventFactory lifeCycleCloudEventFactory() {
     return lifeCycleCloudEventFactory;
   }
+
+  public Optional<ExpressionProfiler> expressionProfiler() {
+    return expressionProfiler;
+  }
 }
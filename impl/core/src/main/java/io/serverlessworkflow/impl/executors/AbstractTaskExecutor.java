@@ -124,6 +124,10 @@ public abstract class AbstractTaskExecutor<T extends TaskBase> implements TaskEx
       this.timeout = WorkflowUtils.getTaskTimeout(application, workflow, task);
     }
 
+    void ifFilter(WorkflowPredicate ifFilter) {
+      this.ifFilter = Optional.of(ifFilter);
+    }
+
     protected final TransitionInfoBuilder next(
         FlowDirective flowDirective, Map<String, TaskExecutorBuilder<?>> connections) {
       if (flowDirective == null) {
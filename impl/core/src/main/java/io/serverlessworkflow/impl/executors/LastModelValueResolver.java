@@ -0,0 +1,57 @@
+/*
+ * Copyright 2020-Present The Serverless Workflow Specification Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.serverlessworkflow.impl.executors;
+
+import io.serverlessworkflow.impl.TaskContext;
+import io.serverlessworkflow.impl.WorkflowContext;
+import io.serverlessworkflow.impl.WorkflowModel;
+import io.serverlessworkflow.impl.WorkflowValueResolver;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Remembers, per workflow instance, the value computed for the last model it was invoked with.
+ * Sibling tasks that are skipped pass their input model unchanged to the next one, so consecutive
+ * guards sharing this resolver evaluate the underlying expression only once. The remembered value
+ * is kept in the instance metadata, so it is released when the instance completes.
+ */
+class LastModelValueResolver implements WorkflowValueResolver<Object> {
+
+  private static final AtomicInteger counter = new AtomicInteger();
+
+  private final WorkflowValueResolver<Object> resolver;
+  private final String metadataKey;
+
+  private record LastValue(WorkflowModel model, Object value) {}
+
+  LastModelValueResolver(WorkflowValueResolver<Object> resolver) {
+    this.resolver = resolver;
+    this.metadataKey = "lastModelValue-" + counter.incrementAndGet();
+  }
+
+  @Override
+  public Object apply(WorkflowContext workflow, TaskContext task, WorkflowModel model) {
+    AtomicReference<LastValue> last =
+        workflow.instance().addMetadataIfAbsent(metadataKey, AtomicReference::new);
+    LastValue current = last.get();
+    if (current != null && current.model() == model) {
+      return current.value();
+    }
+    Object value = resolver.apply(workflow, task, model);
+    last.set(new LastValue(model, value));
+    return value;
+  }
+}
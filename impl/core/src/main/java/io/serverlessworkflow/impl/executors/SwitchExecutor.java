@@ -25,7 +25,11 @@ import io.serverlessworkflow.impl.WorkflowDefinition;
 import io.serverlessworkflow.impl.WorkflowMutablePosition;
 import io.serverlessworkflow.impl.WorkflowPredicate;
 import io.serverlessworkflow.impl.WorkflowUtils;
+import io.serverlessworkflow.impl.WorkflowValueResolver;
+import io.serverlessworkflow.impl.expressions.EqualityPredicate;
+import io.serverlessworkflow.impl.expressions.ExpressionDescriptor;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
@@ -36,11 +40,15 @@ public class SwitchExecutor extends AbstractTaskExecutor<SwitchTask> {
 
   private final Map<WorkflowPredicate, TransitionInfo> workflowFilters;
   private final TransitionInfo defaultTask;
+  private final Optional<WorkflowValueResolver<Object>> dispatchKey;
+  private final Map<Object, TransitionInfo> dispatchTable;
 
   public static class SwitchExecutorBuilder
       extends AbstractTaskExecutorBuilder<SwitchTask, SwitchExecutor> {
-    private final Map<SwitchCase, WorkflowPredicate> workflowFilters = new HashMap<>();
-    private Map<WorkflowPredicate, TransitionInfoBuilder> switchFilters = new HashMap<>();
+    private final Map<SwitchCase, WorkflowPredicate> workflowFilters = new LinkedHashMap<>();
+    private final Map<SwitchCase, EqualityPredicate> equalityFilters = new LinkedHashMap<>();
+    private Map<WorkflowPredicate, TransitionInfoBuilder> switchFilters = new LinkedHashMap<>();
+    private Map<Object, TransitionInfoBuilder> dispatchTable = new HashMap<>();
     private FlowDirective defaultDirective;
     private TransitionInfoBuilder defaultTask;
 
@@ -53,6 +61,10 @@ public class SwitchExecutor extends AbstractTaskExecutor<SwitchTask> {
             .ifPresentOrElse(
                 f -> workflowFilters.put(switchCase, f),
                 () -> defaultDirective = switchCase.getThen());
+        buildEqualityFilter(switchCase).ifPresent(f -> equalityFilters.put(switchCase, f));
+      }
+      if (!isDispatchable()) {
+        equalityFilters.clear();
       }
     }
 
@@ -62,12 +74,35 @@ public class SwitchExecutor extends AbstractTaskExecutor<SwitchTask> {
           : Optional.empty();
     }
 
+    protected Optional<EqualityPredicate> buildEqualityFilter(SwitchCase switchCase) {
+      return switchCase.getWhen() != null
+          ? application
+              .expressionFactory()
+              .buildEqualityPredicate(ExpressionDescriptor.from(switchCase.getWhen()))
+          : Optional.empty();
+    }
+
+    // a dispatch table is only used when every case compares the same path against a constant
+    private boolean isDispatchable() {
+      return workflowFilters.size() > 1
+          && equalityFilters.keySet().equals(workflowFilters.keySet())
+          && equalityFilters.values().stream().map(EqualityPredicate::path).distinct().count()
+              == 1;
+    }
+
     @Override
     public void connect(Map<String, TaskExecutorBuilder<?>> connections) {
       this.switchFilters =
           this.workflowFilters.entrySet().stream()
               .collect(
-                  Collectors.toMap(Entry::getValue, e -> next(e.getKey().getThen(), connections)));
+                  Collectors.toMap(
+                      Entry::getValue,
+                      e -> next(e.getKey().getThen(), connections),
+                      (a, b) -> a,
+                      LinkedHashMap::new));
+      // first matching case wins, as in the sequential evaluation
+      equalityFilters.forEach(
+          (k, v) -> dispatchTable.putIfAbsent(v.constant(), next(k.getThen(), connections)));
       this.defaultTask = next(defaultDirective, connections);
     }
 
@@ -90,13 +125,29 @@ public class SwitchExecutor extends AbstractTaskExecutor<SwitchTask> {
     this.defaultTask = TransitionInfo.build(builder.defaultTask);
     this.workflowFilters =
         builder.switchFilters.entrySet().stream()
-            .collect(Collectors.toMap(Entry::getKey, e -> TransitionInfo.build(e.getValue())));
+            .collect(
+                Collectors.toMap(
+                    Entry::getKey,
+                    e -> TransitionInfo.build(e.getValue()),
+                    (a, b) -> a,
+                    LinkedHashMap::new));
+    this.dispatchKey =
+        builder.equalityFilters.values().stream().findFirst().map(EqualityPredicate::resolver);
+    Map<Object, TransitionInfo> table = new HashMap<>();
+    builder.dispatchTable.forEach((k, v) -> table.put(k, TransitionInfo.build(v)));
+    this.dispatchTable = table;
   }
 
   @Override
   protected CompletableFuture<TaskContext> execute(
       WorkflowContext workflow, TaskContext taskContext) {
     CompletableFuture<TaskContext> future = CompletableFuture.completedFuture(taskContext);
+    if (dispatchKey.isPresent()) {
+      TransitionInfo transition =
+          dispatchTable.getOrDefault(
+              dispatchKey.get().apply(workflow, taskContext, taskContext.input()), defaultTask);
+      return future.thenApply(t -> t.transition(transition));
+    }
     for (Entry<WorkflowPredicate, TransitionInfo> entry : workflowFilters.entrySet()) {
       if (entry.getKey().test(workflow, taskContext, taskContext.input())) {
         return future.thenApply(t -> t.transition(entry.getValue()));
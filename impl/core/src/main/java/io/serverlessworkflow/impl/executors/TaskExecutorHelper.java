@@ -17,15 +17,25 @@ package io.serverlessworkflow.impl.executors;
 
 import io.serverlessworkflow.api.types.TaskItem;
 import io.serverlessworkflow.impl.TaskContext;
+import io.serverlessworkflow.impl.WorkflowApplication;
 import io.serverlessworkflow.impl.WorkflowContext;
 import io.serverlessworkflow.impl.WorkflowDefinition;
 import io.serverlessworkflow.impl.WorkflowModel;
 import io.serverlessworkflow.impl.WorkflowMutablePosition;
+import io.serverlessworkflow.impl.WorkflowPredicate;
 import io.serverlessworkflow.impl.WorkflowStatus;
+import io.serverlessworkflow.impl.WorkflowValueResolver;
+import io.serverlessworkflow.impl.executors.AbstractTaskExecutor.AbstractTaskExecutorBuilder;
+import io.serverlessworkflow.impl.expressions.EqualityPredicate;
+import io.serverlessworkflow.impl.expressions.ExpressionDescriptor;
+import io.serverlessworkflow.impl.expressions.ExpressionFactory;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
@@ -102,6 +112,47 @@ public class TaskExecutorHelper {
       executors.put(item.getName(), taskExecutorBuilder);
       position.back().back();
     }
+    shareIfFilters(executors.values(), definition.application());
     return executors;
   }
+
+  // sibling if guards comparing the same path against a constant evaluate that path only once.
+  // The shared guards replace the ones already built, so they are profiled the same way
+  private static void shareIfFilters(
+      Collection<TaskExecutorBuilder<?>> builders, WorkflowApplication application) {
+    ExpressionFactory factory = application.expressionFactory();
+    Map<String, Map<AbstractTaskExecutorBuilder<?, ?>, EqualityPredicate>> groups =
+        new HashMap<>();
+    for (TaskExecutorBuilder<?> builder : builders) {
+      if (builder instanceof AbstractTaskExecutorBuilder<?, ?> taskBuilder
+          && taskBuilder.task.getIf() != null) {
+        factory
+            .buildEqualityPredicate(ExpressionDescriptor.from(taskBuilder.task.getIf()))
+            .ifPresent(
+                p ->
+                    groups
+                        .computeIfAbsent(p.path(), k -> new LinkedHashMap<>())
+                        .put(taskBuilder, p));
+      }
+    }
+    for (Map<AbstractTaskExecutorBuilder<?, ?>, EqualityPredicate> group : groups.values()) {
+      if (group.size() > 1) {
+        WorkflowValueResolver<Object> resolver =
+            new LastModelValueResolver(group.values().iterator().next().resolver());
+        group.forEach(
+            (builder, p) -> {
+              WorkflowPredicate ifFilter =
+                  (w, t, m) -> Objects.equals(resolver.apply(w, t, m), p.constant());
+              builder.ifFilter(
+                  application
+                      .expressionProfiler()
+                      .map(
+                          profiler ->
+                              profiler.profile(
+                                  ExpressionDescriptor.from(builder.task.getIf()), ifFilter))
+                      .orElse(ifFilter));
+            });
+      }
+    }
+  }
 }
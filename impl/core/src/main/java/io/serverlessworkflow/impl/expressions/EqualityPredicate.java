@@ -0,0 +1,29 @@
+/*
+ * Copyright 2020-Present The Serverless Workflow Specification Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.serverlessworkflow.impl.expressions;
+
+import io.serverlessworkflow.impl.WorkflowValueResolver;
+
+/**
+ * Predicate of the form {@code path == constant}. Predicates sharing the same path can be
+ * evaluated together by resolving the path once and looking up its value in a table of constants.
+ *
+ * @param path the path expression, as written in the predicate
+ * @param constant the constant, normalized the same way as the values returned by the resolver
+ * @param resolver returns the (normalized) value of the path expression
+ */
+public record EqualityPredicate(
+    String path, Object constant, WorkflowValueResolver<Object> resolver) {}
@@ -53,4 +53,8 @@ public interface ExpressionFactory {
   WorkflowPredicate buildPredicate(ExpressionDescriptor desc);
 
   Optional<WorkflowPredicate> buildIfFilter(TaskBase task);
+
+  default Optional<EqualityPredicate> buildEqualityPredicate(ExpressionDescriptor desc) {
+    return Optional.empty();
+  }
 }
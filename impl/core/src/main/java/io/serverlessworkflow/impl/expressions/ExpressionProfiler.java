@@ -0,0 +1,149 @@
+/*
+ * Copyright 2020-Present The Serverless Workflow Specification Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.serverlessworkflow.impl.expressions;
+
+import io.serverlessworkflow.impl.TaskContext;
+import io.serverlessworkflow.impl.WorkflowContext;
+import io.serverlessworkflow.impl.WorkflowDefinitionId;
+import io.serverlessworkflow.impl.WorkflowFilter;
+import io.serverlessworkflow.impl.WorkflowPredicate;
+import io.serverlessworkflow.impl.WorkflowValueResolver;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Collects per expression execution statistics (invocation count, cumulative and max evaluation
+ * time and an estimate of the bytes allocated by the evaluating thread). Allocations are only
+ * measured if thread allocated memory measurement is enabled in the JVM, which is usually the
+ * default; the profiler never changes that setting.
+ *
+ * <p>Statistics are keyed by workflow definition, task position and expression text. Profiling is
+ * opt-in, register an instance through {@link
+ * io.serverlessworkflow.impl.WorkflowApplication.Builder#withExpressionProfiler(ExpressionProfiler)}
+ */
+public class ExpressionProfiler {
+
+  private static final String NO_POSITION = "";
+
+  private final Map<ExpressionProfileKey, ProfileCounter> counters = new ConcurrentHashMap<>();
+  private final AllocationMeter allocationMeter;
+
+  public ExpressionProfiler() {
+    this(true);
+  }
+
+  public ExpressionProfiler(boolean trackAllocations) {
+    this.allocationMeter = trackAllocations ? AllocationMeter.create() : AllocationMeter.NONE;
+  }
+
+  public <T> WorkflowValueResolver<T> profile(
+      ExpressionDescriptor desc, WorkflowValueResolver<T> resolver) {
+    String expression = describe(desc);
+    return (w, t, m) -> measure(w, t, expression, () -> resolver.apply(w, t, m));
+  }
+
+  public WorkflowFilter profile(ExpressionDescriptor desc, WorkflowFilter filter) {
+    String expression = describe(desc);
+    return (w, t, m) -> measure(w, t, expression, () -> filter.apply(w, t, m));
+  }
+
+  public WorkflowPredicate profile(ExpressionDescriptor desc, WorkflowPredicate predicate) {
+    String expression = describe(desc);
+    return (w, t, m) -> measure(w, t, expression, () -> predicate.test(w, t, m));
+  }
+
+  public Map<ExpressionProfileKey, ExpressionProfile> snapshot() {
+    return counters.entrySet().stream()
+        .collect(Collectors.toUnmodifiableMap(Map.Entry::getKey, e -> e.getValue().snapshot()));
+  }
+
+  public Map<ExpressionProfileKey, ExpressionProfile> snapshot(WorkflowDefinitionId definitionId) {
+    return counters.entrySet().stream()
+        .filter(e -> definitionId.equals(e.getKey().definitionId()))
+        .collect(Collectors.toUnmodifiableMap(Map.Entry::getKey, e -> e.getValue().snapshot()));
+  }
+
+  public void reset() {
+    counters.clear();
+  }
+
+  private <T> T measure(
+      WorkflowContext workflow, TaskContext task, String expression, Supplier<T> evaluation) {
+    long allocatedBefore = allocationMeter.allocatedBytes();
+    long start = System.nanoTime();
+    try {
+      return evaluation.get();
+    } finally {
+      long elapsed = System.nanoTime() - start;
+      long allocated = Math.max(0, allocationMeter.allocatedBytes() - allocatedBefore);
+      counters
+          .computeIfAbsent(key(workflow, task, expression), k -> new ProfileCounter())
+          .record(elapsed, allocated);
+    }
+  }
+
+  private static ExpressionProfileKey key(
+      WorkflowContext workflow, TaskContext task, String expression) {
+    return new ExpressionProfileKey(
+        workflow != null ? workflow.definition().id() : null,
+        task != null ? task.position().jsonPointer() : NO_POSITION,
+        expression);
+  }
+
+  private static String describe(ExpressionDescriptor desc) {
+    return desc.asString() != null ? desc.asString() : String.valueOf(desc.asObject());
+  }
+
+  private static class ProfileCounter {
+    private final LongAdder invocations = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+    private final LongAdder allocatedBytes = new LongAdder();
+
+    void record(long nanos, long allocated) {
+      invocations.increment();
+      totalNanos.add(nanos);
+      maxNanos.accumulate(nanos);
+      allocatedBytes.add(allocated);
+    }
+
+    ExpressionProfile snapshot() {
+      return new ExpressionProfile(
+          invocations.sum(), totalNanos.sum(), maxNanos.get(), allocatedBytes.sum());
+    }
+  }
+
+  private interface AllocationMeter {
+
+    AllocationMeter NONE = () -> 0;
+
+    long allocatedBytes();
+
+    static AllocationMeter create() {
+      // the JVM wide setting is left as configured, allocations are not measured if disabled
+      return ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+              && bean.isThreadAllocatedMemorySupported()
+              && bean.isThreadAllocatedMemoryEnabled()
+          ? bean::getCurrentThreadAllocatedBytes
+          : NONE;
+    }
+  }
+}
@@ -21,13 +21,15 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 public abstract class AbstractInputBuffer implements WorkflowInputBuffer {
-  private final Collection<CustomObjectMarshaller> customMarshallers;
-  private final Map<Class<?>, CustomObjectMarshaller> marshallerMap = new ConcurrentHashMap<>();
+  private final CustomObjectMarshallers customMarshallers;
 
   protected AbstractInputBuffer(Collection<CustomObjectMarshaller> customMarshallers) {
+    this(new CustomObjectMarshallers(customMarshallers));
+  }
+
+  protected AbstractInputBuffer(CustomObjectMarshallers customMarshallers) {
     this.customMarshallers = customMarshallers;
   }
 
@@ -127,22 +129,19 @@ public abstract class AbstractInputBuffer implements WorkflowInputBuffer {
   protected Class<?> readClass() {
     String className = readString();
     try {
-      return Class.forName(className);
+      return loadClass(className);
     } catch (ClassNotFoundException ex) {
       throw new IllegalStateException(ex);
     }
   }
 
   protected Class<?> loadClass(String className) throws ClassNotFoundException {
-    return Class.forName(className);
+    return customMarshallers.loadClass(className);
   }
 
   @SuppressWarnings("unchecked")
   protected Object readCustomObject() {
     Class<?> objectClass = readClass();
-    return marshallerMap
-        .computeIfAbsent(
-            objectClass, o -> MarshallingUtils.getCustomMarshaller(customMarshallers, o))
-        .read(this, objectClass);
+    return customMarshallers.marshaller(objectClass).read(this, objectClass);
   }
 }
@@ -21,14 +21,16 @@ import java.time.Instant;
 import java.time.OffsetDateTime;
 import java.util.Collection;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 public abstract class AbstractOutputBuffer implements WorkflowOutputBuffer {
 
-  private final Collection<CustomObjectMarshaller> customMarshallers;
-  private final Map<Class, CustomObjectMarshaller> marshallerMap = new ConcurrentHashMap<>();
+  private final CustomObjectMarshallers customMarshallers;
 
   protected AbstractOutputBuffer(Collection<CustomObjectMarshaller> customMarshallers) {
+    this(new CustomObjectMarshallers(customMarshallers));
+  }
+
+  protected AbstractOutputBuffer(CustomObjectMarshallers customMarshallers) {
     this.customMarshallers = customMarshallers;
   }
 
@@ -129,9 +131,7 @@ public abstract class AbstractOutputBuffer implements WorkflowOutputBuffer {
   @SuppressWarnings({"rawtypes", "unchecked"})
   protected void writeCustomObject(Object object) {
     Class<?> objectClass = object.getClass();
-    CustomObjectMarshaller marshaller =
-        marshallerMap.computeIfAbsent(
-            objectClass, o -> MarshallingUtils.getCustomMarshaller(customMarshallers, o));
+    CustomObjectMarshaller marshaller = customMarshallers.marshaller(objectClass);
     writeClass(objectClass);
     marshaller.write(this, marshaller.getObjectClass().cast(object));
   }
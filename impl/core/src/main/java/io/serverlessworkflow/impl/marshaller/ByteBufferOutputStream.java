@@ -0,0 +1,84 @@
+/*
+ * Copyright 2020-Present The Serverless Workflow Specification Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.serverlessworkflow.impl.marshaller;
+
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/** Output stream writing into a growable, heap or direct, {@link ByteBuffer} */
+public class ByteBufferOutputStream extends OutputStream {
+
+  private final boolean direct;
+  private ByteBuffer buffer;
+
+  public ByteBufferOutputStream(int initialCapacity, boolean direct) {
+    this.direct = direct;
+    this.buffer = allocate(initialCapacity);
+  }
+
+  @Override
+  public void write(int b) {
+    ensureCapacity(1);
+    buffer.put((byte) b);
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) {
+    ensureCapacity(len);
+    buffer.put(b, off, len);
+  }
+
+  /** Read only view of the bytes written so far, valid until the stream is written or reset */
+  public ByteBuffer toByteBuffer() {
+    return buffer.asReadOnlyBuffer().flip();
+  }
+
+  public byte[] toByteArray() {
+    byte[] bytes = new byte[buffer.position()];
+    buffer.get(0, bytes);
+    return bytes;
+  }
+
+  public int size() {
+    return buffer.position();
+  }
+
+  public int capacity() {
+    return buffer.capacity();
+  }
+
+  public void reset() {
+    buffer.clear();
+  }
+
+  @Override
+  public void close() {
+    // nothing to release, the buffer might still be read
+  }
+
+  private void ensureCapacity(int length) {
+    if (buffer.remaining() < length) {
+      int required = buffer.position() + length;
+      ByteBuffer newBuffer = allocate(Math.max(required, buffer.capacity() << 1));
+      newBuffer.put(buffer.flip());
+      buffer = newBuffer;
+    }
+  }
+
+  private ByteBuffer allocate(int capacity) {
+    return direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+  }
+}
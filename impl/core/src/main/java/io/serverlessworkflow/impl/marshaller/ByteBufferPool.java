@@ -0,0 +1,88 @@
+/*
+ * Copyright 2020-Present The Serverless Workflow Specification Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.serverlessworkflow.impl.marshaller;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool of {@link ByteBufferOutputStream}, so marshalling a record does not allocate (and grow) a
+ * new byte array every time. Streams that grew over the maximum retained capacity are discarded
+ * when released, as well as those exceeding the maximum pool size.
+ */
+public class ByteBufferPool {
+
+  private static final int DEFAULT_INITIAL_CAPACITY = 1024;
+  private static final int DEFAULT_MAX_RETAINED_CAPACITY = 1024 * 1024;
+  private static final int DEFAULT_MAX_POOLED = 64;
+
+  private static class HeapPoolHolder {
+    private static final ByteBufferPool instance = new ByteBufferPool(false);
+  }
+
+  private static class DirectPoolHolder {
+    private static final ByteBufferPool instance = new ByteBufferPool(true);
+  }
+
+  public static ByteBufferPool heap() {
+    return HeapPoolHolder.instance;
+  }
+
+  public static ByteBufferPool direct() {
+    return DirectPoolHolder.instance;
+  }
+
+  private final boolean direct;
+  private final int initialCapacity;
+  private final int maxRetainedCapacity;
+  private final int maxPooled;
+  private final Queue<ByteBufferOutputStream> pool = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger pooled = new AtomicInteger();
+
+  public ByteBufferPool(boolean direct) {
+    this(direct, DEFAULT_INITIAL_CAPACITY, DEFAULT_MAX_RETAINED_CAPACITY, DEFAULT_MAX_POOLED);
+  }
+
+  public ByteBufferPool(
+      boolean direct, int initialCapacity, int maxRetainedCapacity, int maxPooled) {
+    this.direct = direct;
+    this.initialCapacity = initialCapacity;
+    this.maxRetainedCapacity = maxRetainedCapacity;
+    this.maxPooled = maxPooled;
+  }
+
+  public ByteBufferOutputStream acquire() {
+    ByteBufferOutputStream stream = pool.poll();
+    if (stream == null) {
+      return new ByteBufferOutputStream(initialCapacity, direct);
+    }
+    pooled.decrementAndGet();
+    return stream;
+  }
+
+  public void release(ByteBufferOutputStream stream) {
+    if (stream.capacity() > maxRetainedCapacity) {
+      return;
+    }
+    if (pooled.incrementAndGet() > maxPooled) {
+      pooled.decrementAndGet();
+      return;
+    }
+    stream.reset();
+    pool.offer(stream);
+  }
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright 2020-Present The Serverless Workflow Specification Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.serverlessworkflow.impl.marshaller;
+
+/** Constants and helpers shared by {@link CompactOutputBuffer} and {@link CompactInputBuffer} */
+class CompactFormat {
+
+  private CompactFormat() {}
+
+  /** Strings longer than this are written inline rather than added to the buffer dictionary */
+  static final int MAX_INTERNED_LENGTH = 64;
+
+  static final int INLINE_STRING = 0;
+  static final int NEW_STRING = 1;
+  static final int FIRST_STRING_REF = 2;
+
+  static final int NEW_CLASS = 0;
+  static final int FIRST_CLASS_REF = 1;
+}
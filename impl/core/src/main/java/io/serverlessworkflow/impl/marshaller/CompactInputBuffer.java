@@ -0,0 +1,217 @@
+/*
+ * Copyright 2020-Present The Serverless Workflow Specification Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.serverlessworkflow.impl.marshaller;
+
+import static io.serverlessworkflow.impl.marshaller.CompactFormat.FIRST_CLASS_REF;
+import static io.serverlessworkflow.impl.marshaller.CompactFormat.FIRST_STRING_REF;
+import static io.serverlessworkflow.impl.marshaller.CompactFormat.INLINE_STRING;
+import static io.serverlessworkflow.impl.marshaller.CompactFormat.NEW_CLASS;
+import static io.serverlessworkflow.impl.marshaller.CompactFormat.NEW_STRING;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/** Reads the encoding written by {@link CompactOutputBuffer} */
+public class CompactInputBuffer extends AbstractInputBuffer {
+
+  private final InputStream input;
+  private final List<String> strings = new ArrayList<>();
+  private final List<Class<?>> classes = new ArrayList<>();
+  private final Map<Class<?>, Integer> enumCounts = new HashMap<>();
+
+  public CompactInputBuffer(InputStream input, Collection<CustomObjectMarshaller> marshallers) {
+    super(marshallers);
+    this.input = input;
+  }
+
+  public CompactInputBuffer(InputStream input, CustomObjectMarshallers marshallers) {
+    super(marshallers);
+    this.input = input;
+  }
+
+  @Override
+  public String readString() {
+    int header = readVarInt();
+    switch (header) {
+      case INLINE_STRING:
+        return readUTF8();
+      case NEW_STRING:
+        String text = readUTF8();
+        strings.add(text);
+        return text;
+      default:
+        return strings.get(header - FIRST_STRING_REF);
+    }
+  }
+
+  @Override
+  public <T extends Enum<T>> T readEnum(Class<T> enumClass) {
+    T[] constants = enumClass.getEnumConstants();
+    // constants appended after the buffer was written are fine, removed ones are not
+    Integer count = enumCounts.get(enumClass);
+    if (count == null) {
+      count = readVarInt();
+      if (count > constants.length) {
+        throw new IllegalStateException(
+            "Enum "
+                + enumClass.getName()
+                + " was written with "
+                + count
+                + " constants, but only "
+                + constants.length
+                + " are known");
+      }
+      enumCounts.put(enumClass, count);
+    }
+    int ordinal = readVarInt();
+    if (ordinal >= count) {
+      throw new IllegalStateException(
+          "Ordinal "
+              + ordinal
+              + " is out of the "
+              + count
+              + " constants of enum "
+              + enumClass.getName());
+    }
+    return constants[ordinal];
+  }
+
+  @Override
+  protected Class<?> readClass() {
+    int header = readVarInt();
+    if (header != NEW_CLASS) {
+      return classes.get(header - FIRST_CLASS_REF);
+    }
+    try {
+      Class<?> objectClass = loadClass(readUTF8());
+      classes.add(objectClass);
+      return objectClass;
+    } catch (ClassNotFoundException ex) {
+      throw new IllegalStateException(ex);
+    }
+  }
+
+  @Override
+  public int readInt() {
+    int value = readVarInt();
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  @Override
+  public short readShort() {
+    return (short) readInt();
+  }
+
+  @Override
+  public long readLong() {
+    long value = 0;
+    int shift = 0;
+    long b;
+    do {
+      b = read();
+      value |= (b & 0x7F) << shift;
+      shift += 7;
+    } while ((b & 0x80) != 0);
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  @Override
+  public float readFloat() {
+    int bits = 0;
+    for (int i = 0; i < 4; i++) {
+      bits = (bits << 8) | read();
+    }
+    return Float.intBitsToFloat(bits);
+  }
+
+  @Override
+  public double readDouble() {
+    long bits = 0;
+    for (int i = 0; i < 8; i++) {
+      bits = (bits << 8) | read();
+    }
+    return Double.longBitsToDouble(bits);
+  }
+
+  @Override
+  public boolean readBoolean() {
+    return read() != 0;
+  }
+
+  @Override
+  public byte readByte() {
+    return (byte) read();
+  }
+
+  @Override
+  public byte[] readBytes() {
+    int length = readVarInt();
+    try {
+      byte[] bytes = input.readNBytes(length);
+      if (bytes.length < length) {
+        throw new EOFException();
+      }
+      return bytes;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  @Override
+  public void close() {
+    try {
+      input.close();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private String readUTF8() {
+    return new String(readBytes(), StandardCharsets.UTF_8);
+  }
+
+  private int readVarInt() {
+    int value = 0;
+    int shift = 0;
+    int b;
+    do {
+      b = read();
+      value |= (b & 0x7F) << shift;
+      shift += 7;
+    } while ((b & 0x80) != 0);
+    return value;
+  }
+
+  private int read() {
+    try {
+      int b = input.read();
+      if (b < 0) {
+        throw new EOFException();
+      }
+      return b;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright 2020-Present The Serverless Workflow Specification Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.serverlessworkflow.impl.marshaller;
+
+import static io.serverlessworkflow.impl.marshaller.CompactFormat.FIRST_CLASS_REF;
+import static io.serverlessworkflow.impl.marshaller.CompactFormat.FIRST_STRING_REF;
+import static io.serverlessworkflow.impl.marshaller.CompactFormat.INLINE_STRING;
+import static io.serverlessworkflow.impl.marshaller.CompactFormat.MAX_INTERNED_LENGTH;
+import static io.serverlessworkflow.impl.marshaller.CompactFormat.NEW_CLASS;
+import static io.serverlessworkflow.impl.marshaller.CompactFormat.NEW_STRING;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Output buffer using a compact encoding: integers are zigzag varints, strings are length prefixed
+ * utf-8 with no size limit, enums are written as ordinals (preceded, the first time an enum class
+ * is written, by its number of constants, so enums must only evolve by appending constants) and
+ * repeated short strings and class names are written as back-references to a per buffer
+ * dictionary.
+ */
+public class CompactOutputBuffer extends AbstractOutputBuffer {
+
+  private final OutputStream output;
+  private final Map<String, Integer> strings = new HashMap<>();
+  private final Map<Class<?>, Integer> classes = new HashMap<>();
+  private final Set<Class<?>> enums = new HashSet<>();
+
+  public CompactOutputBuffer(
+      OutputStream output, Collection<CustomObjectMarshaller> customMarshallers) {
+    super(customMarshallers);
+    this.output = output;
+  }
+
+  public CompactOutputBuffer(OutputStream output, CustomObjectMarshallers customMarshallers) {
+    super(customMarshallers);
+    this.output = output;
+  }
+
+  @Override
+  public WorkflowOutputBuffer writeString(String text) {
+    if (text.length() > MAX_INTERNED_LENGTH) {
+      writeVarInt(INLINE_STRING);
+      writeUTF8(text);
+    } else {
+      Integer index = strings.get(text);
+      if (index == null) {
+        strings.put(text, strings.size());
+        writeVarInt(NEW_STRING);
+        writeUTF8(text);
+      } else {
+        writeVarInt(FIRST_STRING_REF + index);
+      }
+    }
+    return this;
+  }
+
+  @Override
+  public <T extends Enum<T>> WorkflowOutputBuffer writeEnum(T value) {
+    Class<?> enumClass = value.getDeclaringClass();
+    if (enums.add(enumClass)) {
+      writeVarInt(enumClass.getEnumConstants().length);
+    }
+    writeVarInt(value.ordinal());
+    return this;
+  }
+
+  @Override
+  protected void writeClass(Class<?> objectClass) {
+    Integer index = classes.get(objectClass);
+    if (index == null) {
+      classes.put(objectClass, classes.size());
+      writeVarInt(NEW_CLASS);
+      writeUTF8(objectClass.getCanonicalName());
+    } else {
+      writeVarInt(FIRST_CLASS_REF + index);
+    }
+  }
+
+  @Override
+  public WorkflowOutputBuffer writeInt(int number) {
+    writeVarInt((number << 1) ^ (number >> 31));
+    return this;
+  }
+
+  @Override
+  public WorkflowOutputBuffer writeShort(short number) {
+    return writeInt(number);
+  }
+
+  @Override
+  public WorkflowOutputBuffer writeLong(long number) {
+    long value = (number << 1) ^ (number >> 63);
+    while ((value & ~0x7FL) != 0) {
+      write((int) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    write((int) value);
+    return this;
+  }
+
+  @Override
+  public WorkflowOutputBuffer writeFloat(float number) {
+    int bits = Float.floatToIntBits(number);
+    for (int shift = 24; shift >= 0; shift -= 8) {
+      write(bits >>> shift);
+    }
+    return this;
+  }
+
+  @Override
+  public WorkflowOutputBuffer writeDouble(double number) {
+    long bits = Double.doubleToLongBits(number);
+    for (int shift = 56; shift >= 0; shift -= 8) {
+      write((int) (bits >>> shift));
+    }
+    return this;
+  }
+
+  @Override
+  public WorkflowOutputBuffer writeBoolean(boolean bool) {
+    write(bool ? 1 : 0);
+    return this;
+  }
+
+  @Override
+  public WorkflowOutputBuffer writeByte(byte one) {
+    write(one);
+    return this;
+  }
+
+  @Override
+  public WorkflowOutputBuffer writeBytes(byte[] bytes) {
+    return writeBytes(bytes, 0, bytes.length);
+  }
+
+  @Override
+  public WorkflowOutputBuffer writeBytes(byte[] bytes, int offset, int length) {
+    writeVarInt(length);
+    write(bytes, offset, length);
+    return this;
+  }
+
+  @Override
+  public void close() {
+    try {
+      output.close();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private void writeUTF8(String text) {
+    writeBytes(text.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private void writeVarInt(int value) {
+    while ((value & ~0x7F) != 0) {
+      write((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    write(value);
+  }
+
+  private void write(int b) {
+    try {
+      output.write(b);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private void write(byte[] bytes, int offset, int length) {
+    try {
+      output.write(bytes, offset, length);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2020-Present The Serverless Workflow Specification Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.serverlessworkflow.impl.marshaller;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves the {@link CustomObjectMarshaller} of a class and the class of a marshalled class name.
+ * Both resolutions are cached, so an instance is meant to be shared by every buffer created by a
+ * {@link WorkflowBufferFactory}.
+ */
+public class CustomObjectMarshallers {
+
+  private final Collection<CustomObjectMarshaller> marshallers;
+  private final Map<String, Class<?>> classes = new ConcurrentHashMap<>();
+
+  @SuppressWarnings("rawtypes")
+  private final ClassValue<CustomObjectMarshaller> marshallerByClass =
+      new ClassValue<>() {
+        @Override
+        protected CustomObjectMarshaller computeValue(Class<?> type) {
+          return MarshallingUtils.getCustomMarshaller(marshallers, type);
+        }
+      };
+
+  /**
+   * @param marshallers Priority sorted collection of marshallers
+   */
+  public CustomObjectMarshallers(Collection<CustomObjectMarshaller> marshallers) {
+    this.marshallers = marshallers;
+  }
+
+  @SuppressWarnings("rawtypes")
+  public CustomObjectMarshaller marshaller(Class<?> objectClass) {
+    return marshallerByClass.get(objectClass);
+  }
+
+  public Class<?> loadClass(String className) throws ClassNotFoundException {
+    Class<?> objectClass = classes.get(className);
+    if (objectClass == null) {
+      objectClass = Class.forName(className);
+      classes.put(className, objectClass);
+    }
+    return objectClass;
+  }
+}
@@ -22,7 +22,8 @@ import java.util.ServiceLoader;
 
 public class DefaultBufferFactory implements WorkflowBufferFactory {
 
-  private final Collection<CustomObjectMarshaller> marshallers;
+  private final CustomObjectMarshallers marshallers;
+  private final ByteBufferPool bufferPool;
 
   private static class DefaultBufferFactoryHolder {
     private static DefaultBufferFactory instance =
@@ -38,7 +39,27 @@ public class DefaultBufferFactory implements WorkflowBufferFactory {
   }
 
   protected DefaultBufferFactory(Collection<CustomObjectMarshaller> marshallers) {
+    this(marshallers, ByteBufferPool.heap());
+  }
+
+  protected DefaultBufferFactory(
+      Collection<CustomObjectMarshaller> marshallers, ByteBufferPool bufferPool) {
+    this(new CustomObjectMarshallers(marshallers), bufferPool);
+  }
+
+  private DefaultBufferFactory(CustomObjectMarshallers marshallers, ByteBufferPool bufferPool) {
     this.marshallers = marshallers;
+    this.bufferPool = bufferPool;
+  }
+
+  /** Returns a factory with the same marshallers, using the given pool, e.g. a direct one */
+  public DefaultBufferFactory withBufferPool(ByteBufferPool bufferPool) {
+    return new DefaultBufferFactory(marshallers, bufferPool);
+  }
+
+  @Override
+  public ByteBufferPool bufferPool() {
+    return bufferPool;
   }
 
   @Override
@@ -50,4 +71,14 @@ public class DefaultBufferFactory implements WorkflowBufferFactory {
   public WorkflowOutputBuffer output(OutputStream output) {
     return new DefaultOutputBuffer(output, marshallers);
   }
+
+  @Override
+  public WorkflowInputBuffer compactInput(InputStream input) {
+    return new CompactInputBuffer(input, marshallers);
+  }
+
+  @Override
+  public WorkflowOutputBuffer compactOutput(OutputStream output) {
+    return new CompactOutputBuffer(output, marshallers);
+  }
 }
@@ -30,6 +30,11 @@ public class DefaultInputBuffer extends AbstractInputBuffer {
     input = new DataInputStream(in);
   }
 
+  public DefaultInputBuffer(InputStream in, CustomObjectMarshallers marshallers) {
+    super(marshallers);
+    input = new DataInputStream(in);
+  }
+
   @Override
   public String readString() {
     try {
@@ -78,7 +83,7 @@ public class DefaultInputBuffer extends AbstractInputBuffer {
   @Override
   public double readDouble() {
     try {
-      return input.readFloat();
+      return input.readDouble();
     } catch (IOException e) {
       throw new UncheckedIOException(e);
     }
@@ -31,6 +31,11 @@ public class DefaultOutputBuffer extends AbstractOutputBuffer {
     output = new DataOutputStream(out);
   }
 
+  public DefaultOutputBuffer(OutputStream out, CustomObjectMarshallers customMarshallers) {
+    super(customMarshallers);
+    output = new DataOutputStream(out);
+  }
+
   @Override
   public WorkflowOutputBuffer writeString(String text) {
     try {
@@ -122,6 +127,17 @@ public class DefaultOutputBuffer extends AbstractOutputBuffer {
     return this;
   }
 
+  @Override
+  public WorkflowOutputBuffer writeBytes(byte[] bytes, int offset, int length) {
+    try {
+      writeInt(length);
+      output.write(bytes, offset, length);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return this;
+  }
+
   @Override
   public void close() {
     try {
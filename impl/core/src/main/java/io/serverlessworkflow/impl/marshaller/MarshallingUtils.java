@@ -19,11 +19,11 @@ import io.cloudevents.CloudEvent;
 import io.cloudevents.core.builder.CloudEventBuilder;
 import io.serverlessworkflow.impl.WorkflowModel;
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.lang.reflect.Modifier;
 import java.net.URI;
+import java.nio.ByteBuffer;
 import java.time.Instant;
 import java.time.OffsetDateTime;
 import java.util.ArrayList;
@@ -87,13 +87,8 @@ public class MarshallingUtils {
   }
 
   public static byte[] writeCloudEventExtensions(WorkflowBufferFactory factory, CloudEvent event) {
-    try (ByteArrayOutputStream bytesOut = new ByteArrayOutputStream();
-        WorkflowOutputBuffer out = factory.output(bytesOut)) {
-      writeCloudEventExtensions(out, event);
-      return bytesOut.toByteArray();
-    } catch (IOException e) {
-      throw new UncheckedIOException(e);
-    }
+    return factory.output(
+        out -> writeCloudEventExtensions(out, event), MarshallingUtils::toByteArray);
   }
 
   public static void writeCloudEventExtensions(WorkflowOutputBuffer out, CloudEvent event) {
@@ -186,13 +181,16 @@ public class MarshallingUtils {
     return readValue(factory, value, b -> b.readEnum(enumClass));
   }
 
+  /** Copies the remaining bytes of the buffer, without modifying its position */
+  public static byte[] toByteArray(ByteBuffer buffer) {
+    byte[] bytes = new byte[buffer.remaining()];
+    buffer.get(buffer.position(), bytes);
+    return bytes;
+  }
+
   private static <T> byte[] writeValue(
       WorkflowBufferFactory factory, T value, BiConsumer<WorkflowOutputBuffer, T> valueConsumer) {
-    ByteArrayOutputStream bytesOut = new ByteArrayOutputStream();
-    try (WorkflowOutputBuffer buffer = factory.output(bytesOut)) {
-      valueConsumer.accept(buffer, value);
-    }
-    return bytesOut.toByteArray();
+    return factory.output(b -> valueConsumer.accept(b, value), MarshallingUtils::toByteArray);
   }
 
   private static <T> T readValue(
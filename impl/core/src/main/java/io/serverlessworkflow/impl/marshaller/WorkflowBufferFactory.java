@@ -17,10 +17,70 @@ package io.serverlessworkflow.impl.marshaller;
 
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 public interface WorkflowBufferFactory {
 
   WorkflowInputBuffer input(InputStream input);
 
   WorkflowOutputBuffer output(OutputStream output);
+
+  /**
+   * Input buffer for data written by {@link #compactOutput(OutputStream)}. Factories with no
+   * compact encoding use the regular one.
+   */
+  default WorkflowInputBuffer compactInput(InputStream input) {
+    return input(input);
+  }
+
+  /** Output buffer favouring encoded size, see {@link CompactOutputBuffer} */
+  default WorkflowOutputBuffer compactOutput(OutputStream output) {
+    return output(output);
+  }
+
+  default WorkflowInputBuffer input(ByteBuffer input) {
+    return input(new ByteBufferInputStream(input));
+  }
+
+  default WorkflowInputBuffer compactInput(ByteBuffer input) {
+    return compactInput(new ByteBufferInputStream(input));
+  }
+
+  /** Pool providing the byte buffers used by the writer/consumer output methods */
+  default ByteBufferPool bufferPool() {
+    return ByteBufferPool.heap();
+  }
+
+  /**
+   * Invokes the writer with an output buffer backed by a pooled byte buffer and passes the written
+   * bytes to the consumer. The byte buffer is returned to the pool, and therefore it should not be
+   * used, once the consumer returns.
+   */
+  default <T> T output(Consumer<WorkflowOutputBuffer> writer, Function<ByteBuffer, T> consumer) {
+    return pooledOutput(this::output, writer, consumer);
+  }
+
+  /** Same as {@link #output(Consumer, Function)}, but using the compact encoding */
+  default <T> T compactOutput(
+      Consumer<WorkflowOutputBuffer> writer, Function<ByteBuffer, T> consumer) {
+    return pooledOutput(this::compactOutput, writer, consumer);
+  }
+
+  private <T> T pooledOutput(
+      Function<OutputStream, WorkflowOutputBuffer> bufferFactory,
+      Consumer<WorkflowOutputBuffer> writer,
+      Function<ByteBuffer, T> consumer) {
+    ByteBufferPool pool = bufferPool();
+    ByteBufferOutputStream bytes = pool.acquire();
+    try {
+      try (WorkflowOutputBuffer buffer = bufferFactory.apply(bytes)) {
+        writer.accept(buffer);
+      }
+      return consumer.apply(bytes.toByteBuffer());
+    } finally {
+      pool.release(bytes);
+    }
+  }
 }
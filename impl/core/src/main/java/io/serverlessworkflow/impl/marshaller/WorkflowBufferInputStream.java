@@ -0,0 +1,80 @@
+/*
+ * Copyright 2020-Present The Serverless Workflow Specification Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.serverlessworkflow.impl.marshaller;
+
+import java.io.InputStream;
+
+/**
+ * Reads the chunks written by {@link WorkflowBufferOutputStream}. Closing the stream skips any
+ * unread chunk, leaving the buffer positioned after the stream data. Closing the stream does not
+ * close the buffer.
+ */
+public class WorkflowBufferInputStream extends InputStream {
+
+  private static final byte[] EMPTY = new byte[0];
+
+  private final WorkflowInputBuffer buffer;
+  private byte[] chunk = EMPTY;
+  private int position;
+  private boolean finished;
+
+  public WorkflowBufferInputStream(WorkflowInputBuffer buffer) {
+    this.buffer = buffer;
+  }
+
+  @Override
+  public int read() {
+    return nextChunk() ? chunk[position++] & 0xff : -1;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) {
+    if (len == 0) {
+      return 0;
+    }
+    if (!nextChunk()) {
+      return -1;
+    }
+    int read = Math.min(len, chunk.length - position);
+    System.arraycopy(chunk, position, b, off, read);
+    position += read;
+    return read;
+  }
+
+  @Override
+  public int available() {
+    return chunk.length - position;
+  }
+
+  @Override
+  public void close() {
+    while (nextChunk()) {
+      position = chunk.length;
+    }
+  }
+
+  private boolean nextChunk() {
+    if (position < chunk.length) {
+      return true;
+    }
+    if (!finished) {
+      chunk = buffer.readBytes();
+      position = 0;
+      finished = chunk.length == 0;
+    }
+    return !finished;
+  }
+}
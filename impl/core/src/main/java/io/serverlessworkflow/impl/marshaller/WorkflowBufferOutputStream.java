@@ -0,0 +1,59 @@
+/*
+ * Copyright 2020-Present The Serverless Workflow Specification Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.serverlessworkflow.impl.marshaller;
+
+import java.io.OutputStream;
+
+/**
+ * Exposes a {@link WorkflowOutputBuffer} as an {@link OutputStream}. Data is written as a sequence
+ * of length prefixed chunks, terminated by an empty one when the stream is closed, so it can be
+ * read back with {@link WorkflowBufferInputStream} without knowing the total length in advance.
+ * Closing the stream does not close the buffer.
+ */
+public class WorkflowBufferOutputStream extends OutputStream {
+
+  private static final byte[] END = new byte[0];
+
+  private final WorkflowOutputBuffer buffer;
+  private boolean closed;
+
+  public WorkflowBufferOutputStream(WorkflowOutputBuffer buffer) {
+    this.buffer = buffer;
+  }
+
+  @Override
+  public void write(int b) {
+    write(new byte[] {(byte) b}, 0, 1);
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) {
+    if (closed) {
+      throw new IllegalStateException("Stream is already closed");
+    }
+    if (len > 0) {
+      buffer.writeBytes(b, off, len);
+    }
+  }
+
+  @Override
+  public void close() {
+    if (!closed) {
+      closed = true;
+      buffer.writeBytes(END);
+    }
+  }
+}
@@ -18,6 +18,7 @@ package io.serverlessworkflow.impl.marshaller;
 import java.net.URI;
 import java.time.Instant;
 import java.time.OffsetDateTime;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Map;
 
@@ -41,6 +42,10 @@ public interface WorkflowOutputBuffer extends AutoCloseable {
 
   WorkflowOutputBuffer writeBytes(byte[] bytes);
 
+  default WorkflowOutputBuffer writeBytes(byte[] bytes, int offset, int length) {
+    return writeBytes(Arrays.copyOfRange(bytes, offset, offset + length));
+  }
+
   WorkflowOutputBuffer writeInstant(Instant instant);
 
   default WorkflowOutputBuffer writeOffsetDateTime(OffsetDateTime time) {
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2020-Present The Serverless Workflow Specification Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.serverlessworkflow.impl.marshaller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class ByteBufferPoolTest {
+
+  @Test
+  void testPooledOutput() {
+    ByteBufferPool pool = new ByteBufferPool(true, 4, 1024, 1);
+    WorkflowBufferFactory factory = DefaultBufferFactory.factory().withBufferPool(pool);
+    Map<String, Object> value = Map.of("name", "Javierito", "count", 3);
+    ByteBuffer[] used = new ByteBuffer[2];
+    byte[] bytes =
+        factory.compactOutput(
+            out -> out.writeObject(value),
+            buffer -> {
+              used[0] = buffer;
+              return MarshallingUtils.toByteArray(buffer);
+            });
+    assertThat(used[0].isDirect()).isTrue();
+    try (WorkflowInputBuffer in = factory.compactInput(ByteBuffer.wrap(bytes))) {
+      assertThat(in.readObject()).isEqualTo(value);
+    }
+    Object read =
+        factory.output(
+            out -> out.writeString("Javierito"),
+            buffer -> {
+              used[1] = buffer;
+              try (WorkflowInputBuffer in = factory.input(buffer)) {
+                return in.readString();
+              }
+            });
+    assertThat(read).isEqualTo("Javierito");
+    assertThat(used[1].position()).isZero();
+  }
+
+  @Test
+  void testReuse() {
+    ByteBufferPool pool = new ByteBufferPool(false, 4, 16, 1);
+    ByteBufferOutputStream first = pool.acquire();
+    first.write(new byte[] {1, 2, 3, 4, 5, 6}, 0, 6);
+    assertThat(first.toByteArray()).containsExactly(1, 2, 3, 4, 5, 6);
+    pool.release(first);
+    ByteBufferOutputStream second = pool.acquire();
+    assertThat(second).isSameAs(first);
+    assertThat(second.size()).isZero();
+    second.write(new byte[32], 0, 32);
+    pool.release(second);
+    assertThat(pool.acquire()).isNotSameAs(second);
+  }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2020-Present The Serverless Workflow Specification Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.serverlessworkflow.impl.marshaller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.Test;
+
+class CompactBufferTest {
+
+  @Test
+  void testPrimitives() {
+    byte[] bytes =
+        write(
+            out ->
+                out.writeInt(0)
+                    .writeInt(-1)
+                    .writeInt(Integer.MAX_VALUE)
+                    .writeInt(Integer.MIN_VALUE)
+                    .writeShort((short) -300)
+                    .writeLong(Long.MIN_VALUE)
+                    .writeLong(1234567890123L)
+                    .writeFloat(1.5f)
+                    .writeDouble(-2.25)
+                    .writeBoolean(true)
+                    .writeByte((byte) -7)
+                    .writeInstant(Instant.ofEpochMilli(1700000000000L))
+                    .writeURI(URI.create("http://localhost")));
+    try (WorkflowInputBuffer in = input(bytes)) {
+      assertThat(in.readInt()).isZero();
+      assertThat(in.readInt()).isEqualTo(-1);
+      assertThat(in.readInt()).isEqualTo(Integer.MAX_VALUE);
+      assertThat(in.readInt()).isEqualTo(Integer.MIN_VALUE);
+      assertThat(in.readShort()).isEqualTo((short) -300);
+      assertThat(in.readLong()).isEqualTo(Long.MIN_VALUE);
+      assertThat(in.readLong()).isEqualTo(1234567890123L);
+      assertThat(in.readFloat()).isEqualTo(1.5f);
+      assertThat(in.readDouble()).isEqualTo(-2.25);
+      assertThat(in.readBoolean()).isTrue();
+      assertThat(in.readByte()).isEqualTo((byte) -7);
+      assertThat(in.readInstant()).isEqualTo(Instant.ofEpochMilli(1700000000000L));
+      assertThat(in.readURI()).isEqualTo(URI.create("http://localhost"));
+    }
+  }
+
+  @Test
+  void testStringsAndEnums() {
+    String longText = "ñ".repeat(70000);
+    byte[] bytes =
+        write(
+            out ->
+                out.writeString("name")
+                    .writeString(longText)
+                    .writeString("name")
+                    .writeEnum(TaskStatus.RETRIED)
+                    .writeEnum(TaskStatus.COMPLETED));
+    try (WorkflowInputBuffer in = input(bytes)) {
+      assertThat(in.readString()).isEqualTo("name");
+      assertThat(in.readString()).isEqualTo(longText);
+      assertThat(in.readString()).isEqualTo("name");
+      assertThat(in.readEnum(TaskStatus.class)).isEqualTo(TaskStatus.RETRIED);
+      assertThat(in.readEnum(TaskStatus.class)).isEqualTo(TaskStatus.COMPLETED);
+    }
+  }
+
+  @Test
+  void testAppendedEnumConstants() {
+    byte[] bytes = write(out -> out.writeEnum(Before.SECOND).writeEnum(Before.FIRST));
+    try (WorkflowInputBuffer in = input(bytes)) {
+      assertThat(in.readEnum(After.class)).isEqualTo(After.SECOND);
+      assertThat(in.readEnum(After.class)).isEqualTo(After.FIRST);
+    }
+  }
+
+  @Test
+  void testRemovedEnumConstants() {
+    byte[] bytes = write(out -> out.writeEnum(After.FIRST));
+    try (WorkflowInputBuffer in = input(bytes)) {
+      assertThatThrownBy(() -> in.readEnum(Before.class))
+          .isInstanceOf(IllegalStateException.class);
+    }
+  }
+
+  @Test
+  void testRepeatedKeysAreSmaller() {
+    List<Object> items = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      Map<String, Object> item = new LinkedHashMap<>();
+      item.put("identifier", i);
+      item.put("description", "item " + i);
+      items.add(item);
+    }
+    byte[] compact = write(out -> out.writeObject(items));
+    ByteArrayOutputStream regular = new ByteArrayOutputStream();
+    try (WorkflowOutputBuffer out = DefaultBufferFactory.factory().output(regular)) {
+      out.writeObject(items);
+    }
+    assertThat(compact.length).isLessThan(regular.size() / 2);
+    try (WorkflowInputBuffer in = input(compact)) {
+      assertThat(in.readObject()).isEqualTo(items);
+    }
+  }
+
+  private static byte[] write(Consumer<WorkflowOutputBuffer> writer) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (WorkflowOutputBuffer out = DefaultBufferFactory.factory().compactOutput(bytes)) {
+      writer.accept(out);
+    }
+    return bytes.toByteArray();
+  }
+
+  private static WorkflowInputBuffer input(byte[] bytes) {
+    return DefaultBufferFactory.factory().compactInput(new ByteArrayInputStream(bytes));
+  }
+
+  private enum Before {
+    FIRST,
+    SECOND
+  }
+
+  private enum After {
+    FIRST,
+    SECOND,
+    THIRD
+  }
+}
@@ -77,4 +77,22 @@ class MarshallingUtilsTest {
     assertThat(MarshallingUtils.getCustomMarshaller(marshallers, serializable.getClass()))
         .isEqualTo(serializableMarshaller);
   }
+
+  @Test
+  void testCachedResolution() throws ClassNotFoundException {
+    CustomObjectMarshaller personMarshaller = Mockito.spy(CustomObjectMarshaller.class);
+    Mockito.when(personMarshaller.getObjectClass()).thenReturn(Person.class);
+    CustomObjectMarshaller objectMarshaller = Mockito.spy(CustomObjectMarshaller.class);
+    Mockito.when(objectMarshaller.priority()).thenReturn(1);
+    Mockito.when(objectMarshaller.getObjectClass()).thenReturn(Object.class);
+    CustomObjectMarshallers marshallers =
+        new CustomObjectMarshallers(List.of(personMarshaller, objectMarshaller));
+
+    assertThat(marshallers.marshaller(Employee.class)).isEqualTo(personMarshaller);
+    assertThat(marshallers.marshaller(NonSerializableClass.class)).isEqualTo(objectMarshaller);
+    Mockito.clearInvocations(personMarshaller, objectMarshaller);
+    assertThat(marshallers.marshaller(Employee.class)).isEqualTo(personMarshaller);
+    Mockito.verify(personMarshaller, Mockito.never()).getObjectClass();
+    assertThat(marshallers.loadClass(Person.class.getName())).isEqualTo(Person.class);
+  }
 }
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2020-Present The Serverless Workflow Specification Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.serverlessworkflow.impl.expressions.jq;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * jq expression translated by {@link JQParser} into a tree of specialized closures, which is
+ * evaluated without creating a jackson-jq scope and is subject to JIT inlining.
+ *
+ * <p>Only a subset of jq is supported: paths, object and array construction, comparisons, boolean
+ * operators, alternative operator, conditionals, arithmetic, string interpolation and the <code>
+ * select</code>,
+ * <code>map</code>, <code>not</code>, <code>length</code>, <code>keys</code>, <code>tostring
+ * </code> and <code>empty</code> builtins.
+ */
+public class JQCompiledExpression {
+
+  private final String expr;
+  private final JQNode node;
+
+  private JQCompiledExpression(String expr, JQNode node) {
+    this.expr = expr;
+    this.node = node;
+  }
+
+  public static Optional<JQCompiledExpression> compile(String expr) {
+    return JQParser.parse(expr).map(node -> new JQCompiledExpression(expr, node));
+  }
+
+  /**
+   * Evaluates the expression. Returns null if the expression does not emit any value and an array
+   * if it emits more than one, consistently with {@link JQExpression}. Since supported constructs
+   * are side effect free, on failure callers might safely fall back to the interpreter to get the
+   * proper error.
+   */
+  public JsonNode eval(JsonNode input) {
+    ResultCollector collector = new ResultCollector();
+    node.apply(input, collector);
+    return collector.result;
+  }
+
+  public String expression() {
+    return expr;
+  }
+
+  @Override
+  public String toString() {
+    return "JQCompiledExpression [expr=" + expr + "]";
+  }
+
+  private static class ResultCollector implements Consumer<JsonNode> {
+    private JsonNode result;
+    private boolean arrayCreated;
+
+    @Override
+    public void accept(JsonNode out) {
+      if (result == null) {
+        result = out;
+      } else if (!arrayCreated) {
+        result = JQValues.factory.arrayNode().add(result).add(out);
+        arrayCreated = true;
+      } else {
+        ((ArrayNode) result).add(out);
+      }
+    }
+  }
+}
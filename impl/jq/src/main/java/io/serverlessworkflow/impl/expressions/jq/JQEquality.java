@@ -0,0 +1,108 @@
+/*
+ * Copyright 2020-Present The Serverless Workflow Specification Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.serverlessworkflow.impl.expressions.jq;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import io.serverlessworkflow.impl.jackson.JsonUtils;
+import java.io.IOException;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/** Recognizes jq predicates of the form {@code .path == constant} (or the reverse) */
+record JQEquality(String path, Object constant) {
+
+  private static final Pattern PATH =
+      Pattern.compile(
+          "\\.|\\.(?:[A-Za-z_]\\w*|(?=\\[))"
+              + "(?:\\.[A-Za-z_]\\w*|\\[\\s*(?:\"(?:[^\"\\\\]|\\\\.)*\"|-?\\d+)\\s*\\])*");
+
+  private static final Object NOT_SCALAR = new Object();
+
+  static Optional<JQEquality> parse(String expr) {
+    int operator = operatorIndex(expr);
+    if (operator < 0) {
+      return Optional.empty();
+    }
+    String left = expr.substring(0, operator).trim();
+    String right = expr.substring(operator + 2).trim();
+    if (PATH.matcher(left).matches()) {
+      return equality(left, right);
+    } else if (PATH.matcher(right).matches()) {
+      return equality(right, left);
+    }
+    return Optional.empty();
+  }
+
+  /** Normalizes a json value so that two values are equal for jq iff their keys are equal */
+  static Object key(Object value) {
+    if (!(value instanceof JsonNode node) || node.isNull() || node.isMissingNode()) {
+      return null;
+    } else if (node.isTextual()) {
+      return node.textValue();
+    } else if (node.isBoolean()) {
+      return node.booleanValue();
+    } else if (node.isNumber()) {
+      // jq numbers are doubles, also, 0.0 must be equal to -0.0
+      return node.doubleValue() + 0.0;
+    } else {
+      return NOT_SCALAR;
+    }
+  }
+
+  // returns the position of the only == operator outside string literals, or -1
+  private static int operatorIndex(String expr) {
+    int result = -1;
+    boolean inString = false;
+    for (int i = 0; i < expr.length() - 1; i++) {
+      char c = expr.charAt(i);
+      if (inString) {
+        if (c == '\\') {
+          i++;
+        } else if (c == '"') {
+          inString = false;
+        }
+      } else if (c == '"') {
+        inString = true;
+      } else if (c == '=' && expr.charAt(i + 1) == '=') {
+        if (result >= 0) {
+          return -1;
+        }
+        result = i++;
+      }
+    }
+    return result;
+  }
+
+  private static Optional<JQEquality> equality(String path, String literal) {
+    if (literal.isEmpty() || literal.startsWith(".")) {
+      return Optional.empty();
+    }
+    try {
+      Object constant =
+          key(
+              JsonUtils.mapper()
+                  .reader()
+                  .with(DeserializationFeature.FAIL_ON_TRAILING_TOKENS)
+                  .readTree(literal));
+      return constant == NOT_SCALAR
+          ? Optional.empty()
+          : Optional.of(new JQEquality(path, constant));
+    } catch (IOException e) {
+      return Optional.empty();
+    }
+  }
+}
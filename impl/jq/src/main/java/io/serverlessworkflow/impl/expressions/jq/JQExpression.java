@@ -31,6 +31,8 @@ import io.serverlessworkflow.impl.expressions.WorkflowDescriptor;
 import io.serverlessworkflow.impl.jackson.FunctionJsonNode;
 import io.serverlessworkflow.impl.jackson.JsonUtils;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
 import net.thisptr.jackson.jq.Output;
 import net.thisptr.jackson.jq.Scope;
@@ -43,18 +45,40 @@ public class JQExpression implements ObjectExpression {
   private final Supplier<Scope> scope;
   private final String expr;
   private final net.thisptr.jackson.jq.Expression internalExpr;
+  private final int compileThreshold;
+  private final AtomicInteger evaluations = new AtomicInteger();
+  private volatile Optional<JQCompiledExpression> compiledExpr;
 
   public JQExpression(Supplier<Scope> scope, String expr, Version version)
       throws JsonQueryException {
+    this(scope, expr, version, -1);
+  }
+
+  /**
+   * @param compileThreshold number of interpreted evaluations after which the expression is
+   *     compiled, if it belongs to the subset supported by {@link JQCompiledExpression}. A
+   *     negative value disables compilation.
+   */
+  public JQExpression(Supplier<Scope> scope, String expr, Version version, int compileThreshold)
+      throws JsonQueryException {
     this.expr = expr;
     this.scope = scope;
     this.internalExpr = ExpressionParser.compile(expr, version);
+    this.compileThreshold = compileThreshold;
   }
 
   @Override
   public Object eval(WorkflowContext workflow, TaskContext task, WorkflowModel model) {
-    JsonNodeOutput output = new JsonNodeOutput();
     JsonNode node = modelToJson(model);
+    Optional<JQCompiledExpression> compiled = compiled();
+    if (compiled.isPresent()) {
+      try {
+        return compiled.get().eval(node);
+      } catch (RuntimeException e) {
+        // let the interpreter evaluate it and report the error, if any
+      }
+    }
+    JsonNodeOutput output = new JsonNodeOutput();
     try {
       internalExpr.apply(createScope(workflow, task), node, output);
       return output.getResult();
@@ -68,6 +92,23 @@ public class JQExpression implements ObjectExpression {
     }
   }
 
+  private Optional<JQCompiledExpression> compiled() {
+    Optional<JQCompiledExpression> result = compiledExpr;
+    if (result == null) {
+      if (compileThreshold < 0 || evaluations.getAndIncrement() < compileThreshold) {
+        return Optional.empty();
+      }
+      result = JQCompiledExpression.compile(expr);
+      compiledExpr = result;
+    }
+    return result;
+  }
+
+  boolean isCompiled() {
+    Optional<JQCompiledExpression> result = compiledExpr;
+    return result != null && result.isPresent();
+  }
+
   private static class JsonNodeOutput implements Output {
     private JsonNode result;
     private boolean arrayCreated;
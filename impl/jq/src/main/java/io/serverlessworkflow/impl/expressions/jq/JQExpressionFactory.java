@@ -17,6 +17,8 @@ package io.serverlessworkflow.impl.expressions.jq;
 
 import io.cloudevents.CloudEventData;
 import io.cloudevents.jackson.JsonCloudEventData;
+import io.serverlessworkflow.impl.expressions.EqualityPredicate;
+import io.serverlessworkflow.impl.expressions.ExpressionDescriptor;
 import io.serverlessworkflow.impl.expressions.ExpressionUtils;
 import io.serverlessworkflow.impl.expressions.ObjectExpression;
 import io.serverlessworkflow.impl.expressions.ObjectExpressionFactory;
@@ -25,22 +27,47 @@ import java.time.OffsetDateTime;
 import java.util.Collection;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.function.Supplier;
 import net.thisptr.jackson.jq.BuiltinFunctionLoader;
 import net.thisptr.jackson.jq.Scope;
 import net.thisptr.jackson.jq.Versions;
 import net.thisptr.jackson.jq.exception.JsonQueryException;
 
+/**
+ * Expression factory for jq. Compilation of hot expressions (see {@link JQCompiledExpression}) is
+ * opt-in: it is enabled by passing a non negative threshold to {@link #JQExpressionFactory(int)}
+ * or, for the instance loaded as a service, through the {@link #COMPILE_THRESHOLD_PROPERTY} system
+ * property.
+ */
 public class JQExpressionFactory extends ObjectExpressionFactory {
 
+  public static final String COMPILE_THRESHOLD_PROPERTY =
+      "io.serverlessworkflow.impl.expressions.jq.compileThreshold";
+
   private final Supplier<Scope> scopeSupplier;
+  private final int compileThreshold;
 
   public JQExpressionFactory() {
-    this(new DefaultScopeSupplier());
+    this(Integer.getInteger(COMPILE_THRESHOLD_PROPERTY, -1));
   }
 
+  /**
+   * @param compileThreshold number of interpreted evaluations after which an expression is
+   *     compiled. A negative value disables compilation.
+   */
+  public JQExpressionFactory(int compileThreshold) {
+    this(new DefaultScopeSupplier(), compileThreshold);
+  }
+
+  // a custom scope might redefine builtin functions, so compilation is disabled
   public JQExpressionFactory(Supplier<Scope> scopeSupplier) {
+    this(scopeSupplier, -1);
+  }
+
+  public JQExpressionFactory(Supplier<Scope> scopeSupplier, int compileThreshold) {
     this.scopeSupplier = Objects.requireNonNull(scopeSupplier, "scopeSupplier must be not null");
+    this.compileThreshold = compileThreshold;
   }
 
   private static class DefaultScopeSupplier implements Supplier<Scope> {
@@ -62,12 +89,26 @@ public class JQExpressionFactory extends ObjectExpressionFactory {
   @Override
   public ObjectExpression buildExpression(String expression) {
     try {
-      return new JQExpression(scopeSupplier, ExpressionUtils.trimExpr(expression), Versions.JQ_1_6);
+      return new JQExpression(
+          scopeSupplier, ExpressionUtils.trimExpr(expression), Versions.JQ_1_6, compileThreshold);
     } catch (JsonQueryException e) {
       throw new IllegalArgumentException(e);
     }
   }
 
+  @Override
+  public Optional<EqualityPredicate> buildEqualityPredicate(ExpressionDescriptor desc) {
+    return desc.asString() == null
+        ? Optional.empty()
+        : JQEquality.parse(ExpressionUtils.trimExpr(desc.asString()))
+            .map(
+                e -> {
+                  ObjectExpression path = buildExpression(e.path());
+                  return new EqualityPredicate(
+                      e.path(), e.constant(), (w, t, m) -> JQEquality.key(path.eval(w, t, m)));
+                });
+  }
+
   @Override
   protected boolean toBoolean(Object eval) {
     return JsonUtils.convertValue(eval, Boolean.class);
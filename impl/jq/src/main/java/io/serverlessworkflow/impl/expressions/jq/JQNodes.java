@@ -0,0 +1,238 @@
+/*
+ * Copyright 2020-Present The Serverless Workflow Specification Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.serverlessworkflow.impl.expressions.jq;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+/** Factory of the compiled nodes, one per supported jq construct. */
+class JQNodes {
+
+  private JQNodes() {}
+
+  private static final JQNode IDENTITY = (in, out) -> out.accept(in);
+  private static final JQNode EMPTY = (in, out) -> {};
+
+  static JQNode identity() {
+    return IDENTITY;
+  }
+
+  static JQNode empty() {
+    return EMPTY;
+  }
+
+  static JQNode constant(JsonNode value) {
+    return (in, out) -> out.accept(value);
+  }
+
+  static JQNode pipe(JQNode left, JQNode right) {
+    if (left == IDENTITY) {
+      return right;
+    } else if (right == IDENTITY) {
+      return left;
+    }
+    return (in, out) -> left.apply(in, v -> right.apply(v, out));
+  }
+
+  static JQNode comma(JQNode left, JQNode right) {
+    return (in, out) -> {
+      left.apply(in, out);
+      right.apply(in, out);
+    };
+  }
+
+  static JQNode map(JQNode node, UnaryOperator<JsonNode> function) {
+    return (in, out) -> node.apply(in, v -> out.accept(function.apply(v)));
+  }
+
+  static JQNode index(JQNode target, JQNode key) {
+    if (target == IDENTITY) {
+      return (in, out) -> key.apply(in, k -> out.accept(JQValues.index(in, k)));
+    }
+    // index expression is evaluated against the term input, not against the term output
+    return (in, out) -> key.apply(in, k -> target.apply(in, t -> out.accept(JQValues.index(t, k))));
+  }
+
+  static JQNode iterate(JQNode target) {
+    return (in, out) -> target.apply(in, t -> JQValues.iterate(t, out));
+  }
+
+  static JQNode optional(JQNode node) {
+    return (in, out) -> {
+      List<JsonNode> values = new ArrayList<>();
+      try {
+        node.apply(in, values::add);
+      } catch (JQEvaluationException e) {
+        // errors are suppressed, values emitted before the error are kept
+      }
+      values.forEach(out);
+    };
+  }
+
+  static JQNode binary(JQNode left, JQNode right, BinaryOperator<JsonNode> operator) {
+    return (in, out) -> right.apply(in, r -> left.apply(in, l -> out.accept(operator.apply(l, r))));
+  }
+
+  static JQNode and(JQNode left, JQNode right) {
+    return (in, out) ->
+        left.apply(
+            in,
+            l -> {
+              if (JQValues.isTruthy(l)) {
+                right.apply(in, r -> out.accept(JQValues.bool(JQValues.isTruthy(r))));
+              } else {
+                out.accept(JQValues.bool(false));
+              }
+            });
+  }
+
+  static JQNode or(JQNode left, JQNode right) {
+    return (in, out) ->
+        left.apply(
+            in,
+            l -> {
+              if (JQValues.isTruthy(l)) {
+                out.accept(JQValues.bool(true));
+              } else {
+                right.apply(in, r -> out.accept(JQValues.bool(JQValues.isTruthy(r))));
+              }
+            });
+  }
+
+  static JQNode alternative(JQNode left, JQNode right) {
+    return (in, out) -> {
+      List<JsonNode> values = new ArrayList<>();
+      try {
+        left.apply(
+            in,
+            v -> {
+              if (JQValues.isTruthy(v)) {
+                values.add(v);
+              }
+            });
+      } catch (JQEvaluationException e) {
+        // errors on the left side are handled as no value
+      }
+      if (values.isEmpty()) {
+        right.apply(in, out);
+      } else {
+        values.forEach(out);
+      }
+    };
+  }
+
+  static JQNode select(JQNode condition) {
+    return (in, out) ->
+        condition.apply(
+            in,
+            c -> {
+              if (JQValues.isTruthy(c)) {
+                out.accept(in);
+              }
+            });
+  }
+
+  static JQNode conditional(JQNode condition, JQNode then, JQNode otherwise) {
+    return (in, out) ->
+        condition.apply(in, c -> (JQValues.isTruthy(c) ? then : otherwise).apply(in, out));
+  }
+
+  static JQNode collect(JQNode node) {
+    return (in, out) -> {
+      ArrayNode array = JQValues.factory.arrayNode();
+      node.apply(in, array::add);
+      out.accept(array);
+    };
+  }
+
+  static JQNode object(List<JQNode> keys, List<JQNode> values) {
+    JQNode[] keyNodes = keys.toArray(JQNode[]::new);
+    JQNode[] valueNodes = values.toArray(JQNode[]::new);
+    return (in, out) -> {
+      List<List<Entry>> entries = new ArrayList<>(keyNodes.length);
+      boolean singleValued = true;
+      for (int i = 0; i < keyNodes.length; i++) {
+        List<Entry> candidates = new ArrayList<>(1);
+        JQNode valueNode = valueNodes[i];
+        keyNodes[i].apply(
+            in, k -> valueNode.apply(in, v -> candidates.add(new Entry(fieldName(k), v))));
+        if (candidates.isEmpty()) {
+          return;
+        }
+        singleValued &= candidates.size() == 1;
+        entries.add(candidates);
+      }
+      if (singleValued) {
+        ObjectNode result = JQValues.factory.objectNode();
+        entries.forEach(e -> result.set(e.get(0).name(), e.get(0).value()));
+        out.accept(result);
+      } else {
+        buildObjects(out, entries, 0, JQValues.factory.objectNode());
+      }
+    };
+  }
+
+  private record Entry(String name, JsonNode value) {}
+
+  private static String fieldName(JsonNode key) {
+    if (!key.isTextual()) {
+      throw new JQEvaluationException("Object keys must be strings, got " + JQValues.typeName(key));
+    }
+    return key.textValue();
+  }
+
+  private static void buildObjects(
+      Consumer<JsonNode> out, List<List<Entry>> entries, int index, ObjectNode current) {
+    if (index == entries.size()) {
+      out.accept(current);
+      return;
+    }
+    for (Entry entry : entries.get(index)) {
+      ObjectNode next = JQValues.factory.objectNode();
+      next.setAll(current);
+      next.set(entry.name(), entry.value());
+      buildObjects(out, entries, index + 1, next);
+    }
+  }
+
+  static JQNode concat(List<JQNode> parts) {
+    JQNode[] partNodes = parts.toArray(JQNode[]::new);
+    return (in, out) -> concat(in, out, partNodes, 0, new StringBuilder());
+  }
+
+  private static void concat(
+      JsonNode in, Consumer<JsonNode> out, JQNode[] parts, int index, StringBuilder current) {
+    if (index == parts.length) {
+      out.accept(TextNode.valueOf(current.toString()));
+      return;
+    }
+    parts[index].apply(
+        in,
+        v -> {
+          int length = current.length();
+          current.append(v.textValue());
+          concat(in, out, parts, index + 1, current);
+          current.setLength(length);
+        });
+  }
+}
@@ -0,0 +1,511 @@
+/*
+ * Copyright 2020-Present The Serverless Workflow Specification Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.serverlessworkflow.impl.expressions.jq;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.BooleanNode;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.BinaryOperator;
+import java.util.function.IntPredicate;
+
+/**
+ * Recursive descent parser for the subset of jq supported by {@link JQCompiledExpression}. Any
+ * construct out of that subset (variables, function definitions, reductions, assignments,
+ * formats...) makes the parser give up, so the expression keeps being evaluated by jackson-jq.
+ */
+class JQParser {
+
+  private static class UnsupportedExpression extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    UnsupportedExpression() {
+      super(null, null, false, false);
+    }
+  }
+
+  private final String src;
+  private int pos;
+
+  private JQParser(String src) {
+    this.src = src;
+  }
+
+  static Optional<JQNode> parse(String expr) {
+    JQParser parser = new JQParser(expr);
+    try {
+      JQNode node = parser.parsePipe();
+      parser.skipWhitespace();
+      return parser.pos == expr.length() ? Optional.of(node) : Optional.empty();
+    } catch (UnsupportedExpression e) {
+      return Optional.empty();
+    }
+  }
+
+  private JQNode parsePipe() {
+    JQNode left = parseComma();
+    if (accept("|")) {
+      return JQNodes.pipe(left, parsePipe());
+    }
+    return left;
+  }
+
+  private JQNode parseComma() {
+    JQNode left = parseAlternative();
+    while (accept(",")) {
+      left = JQNodes.comma(left, parseAlternative());
+    }
+    return left;
+  }
+
+  private JQNode parseAlternative() {
+    JQNode left = parseOr();
+    if (accept("//")) {
+      return JQNodes.alternative(left, parseAlternative());
+    }
+    return left;
+  }
+
+  private JQNode parseOr() {
+    JQNode left = parseAnd();
+    while (acceptKeyword("or")) {
+      left = JQNodes.or(left, parseAnd());
+    }
+    return left;
+  }
+
+  private JQNode parseAnd() {
+    JQNode left = parseComparison();
+    while (acceptKeyword("and")) {
+      left = JQNodes.and(left, parseComparison());
+    }
+    return left;
+  }
+
+  private JQNode parseComparison() {
+    JQNode left = parseAdditive();
+    if (accept("==")) {
+      return compare(left, c -> c == 0);
+    } else if (accept("!=")) {
+      return compare(left, c -> c != 0);
+    } else if (accept("<=")) {
+      return compare(left, c -> c <= 0);
+    } else if (accept(">=")) {
+      return compare(left, c -> c >= 0);
+    } else if (accept("<")) {
+      return compare(left, c -> c < 0);
+    } else if (accept(">")) {
+      return compare(left, c -> c > 0);
+    }
+    return left;
+  }
+
+  private JQNode compare(JQNode left, IntPredicate test) {
+    return JQNodes.binary(
+        left, parseAdditive(), (l, r) -> JQValues.bool(test.test(JQValues.compare(l, r))));
+  }
+
+  private JQNode parseAdditive() {
+    JQNode left = parseMultiplicative();
+    while (true) {
+      if (accept("+")) {
+        left = JQNodes.binary(left, parseMultiplicative(), JQValues::add);
+      } else if (accept("-")) {
+        left = JQNodes.binary(left, parseMultiplicative(), JQValues::subtract);
+      } else {
+        return left;
+      }
+    }
+  }
+
+  private JQNode parseMultiplicative() {
+    JQNode left = parseUnary();
+    while (true) {
+      BinaryOperator<JsonNode> operator;
+      if (accept("*")) {
+        operator = JQValues::multiply;
+      } else if (!lookingAt("//") && accept("/")) {
+        operator = JQValues::divide;
+      } else if (accept("%")) {
+        operator = JQValues::modulo;
+      } else {
+        return left;
+      }
+      left = JQNodes.binary(left, parseUnary(), operator);
+    }
+  }
+
+  private JQNode parseUnary() {
+    if (accept("-")) {
+      return JQNodes.map(parsePostfix(), JQValues::negate);
+    }
+    return parsePostfix();
+  }
+
+  private JQNode parsePostfix() {
+    JQNode term = parsePrimary();
+    while (true) {
+      skipWhitespace();
+      if (lookingAt(".") && pos + 1 < src.length()) {
+        char next = src.charAt(pos + 1);
+        if (isIdentifierStart(next)) {
+          pos++;
+          term = JQNodes.index(term, JQNodes.constant(TextNode.valueOf(identifier())));
+        } else if (next == '"') {
+          pos++;
+          term = JQNodes.index(term, parseString());
+        } else {
+          return term;
+        }
+      } else if (accept("[")) {
+        if (accept("]")) {
+          term = JQNodes.iterate(term);
+        } else {
+          JQNode index = parsePipe();
+          expect("]");
+          term = JQNodes.index(term, index);
+        }
+      } else if (accept("?")) {
+        term = JQNodes.optional(term);
+      } else {
+        return term;
+      }
+    }
+  }
+
+  private JQNode parsePrimary() {
+    skipWhitespace();
+    if (pos >= src.length()) {
+      throw new UnsupportedExpression();
+    }
+    char c = src.charAt(pos);
+    if (c == '.') {
+      pos++;
+      if (pos < src.length()) {
+        char next = src.charAt(pos);
+        if (isIdentifierStart(next)) {
+          return JQNodes.index(
+              JQNodes.identity(), JQNodes.constant(TextNode.valueOf(identifier())));
+        } else if (next == '"') {
+          return JQNodes.index(JQNodes.identity(), parseString());
+        } else if (next == '.' || Character.isDigit(next)) {
+          throw new UnsupportedExpression();
+        }
+      }
+      return JQNodes.identity();
+    } else if (Character.isDigit(c)) {
+      return JQNodes.constant(number());
+    } else if (c == '"') {
+      return parseString();
+    } else if (c == '(') {
+      pos++;
+      JQNode node = parsePipe();
+      expect(")");
+      return node;
+    } else if (c == '[') {
+      pos++;
+      if (accept("]")) {
+        return JQNodes.collect(JQNodes.empty());
+      }
+      JQNode node = parsePipe();
+      expect("]");
+      return JQNodes.collect(node);
+    } else if (c == '{') {
+      pos++;
+      return parseObject();
+    } else if (isIdentifierStart(c)) {
+      return parseFunction(identifier());
+    }
+    throw new UnsupportedExpression();
+  }
+
+  private JQNode parseFunction(String name) {
+    if (lookingAt("::")) {
+      throw new UnsupportedExpression();
+    }
+    switch (name) {
+      case "true":
+        return JQNodes.constant(BooleanNode.TRUE);
+      case "false":
+        return JQNodes.constant(BooleanNode.FALSE);
+      case "null":
+        return JQNodes.constant(NullNode.instance);
+      case "not":
+        return noArgs(JQNodes.map(JQNodes.identity(), v -> JQValues.bool(!JQValues.isTruthy(v))));
+      case "length":
+        return noArgs(JQNodes.map(JQNodes.identity(), JQValues::length));
+      case "keys":
+        return noArgs(JQNodes.map(JQNodes.identity(), JQValues::keys));
+      case "tostring":
+        return noArgs(
+            JQNodes.map(JQNodes.identity(), v -> TextNode.valueOf(JQValues.toText(v))));
+      case "empty":
+        return noArgs(JQNodes.empty());
+      case "if":
+        return parseConditional();
+      case "select":
+        return JQNodes.select(singleArg());
+      case "map":
+        return JQNodes.collect(JQNodes.pipe(JQNodes.iterate(JQNodes.identity()), singleArg()));
+      default:
+        throw new UnsupportedExpression();
+    }
+  }
+
+  private JQNode parseConditional() {
+    JQNode condition = parsePipe();
+    expectKeyword("then");
+    JQNode then = parsePipe();
+    JQNode otherwise;
+    if (acceptKeyword("elif")) {
+      otherwise = parseConditional();
+      return JQNodes.conditional(condition, then, otherwise);
+    } else if (acceptKeyword("else")) {
+      otherwise = parsePipe();
+    } else {
+      otherwise = JQNodes.identity();
+    }
+    expectKeyword("end");
+    return JQNodes.conditional(condition, then, otherwise);
+  }
+
+  private JQNode noArgs(JQNode node) {
+    skipWhitespace();
+    if (lookingAt("(")) {
+      throw new UnsupportedExpression();
+    }
+    return node;
+  }
+
+  private JQNode singleArg() {
+    expect("(");
+    JQNode arg = parsePipe();
+    expect(")");
+    return arg;
+  }
+
+  private JQNode parseObject() {
+    List<JQNode> keys = new ArrayList<>();
+    List<JQNode> values = new ArrayList<>();
+    if (!accept("}")) {
+      do {
+        skipWhitespace();
+        if (pos >= src.length()) {
+          throw new UnsupportedExpression();
+        }
+        char c = src.charAt(pos);
+        JQNode key;
+        if (isIdentifierStart(c)) {
+          key = JQNodes.constant(TextNode.valueOf(identifier()));
+        } else if (c == '"') {
+          key = parseString();
+        } else if (c == '(') {
+          pos++;
+          key = parsePipe();
+          expect(")");
+          expect(":");
+          keys.add(key);
+          values.add(parseObjectValue());
+          continue;
+        } else {
+          throw new UnsupportedExpression();
+        }
+        keys.add(key);
+        values.add(accept(":") ? parseObjectValue() : JQNodes.index(JQNodes.identity(), key));
+      } while (accept(","));
+      expect("}");
+    }
+    return JQNodes.object(keys, values);
+  }
+
+  private JQNode parseObjectValue() {
+    JQNode value = parseAlternative();
+    while (!lookingAt("|=") && accept("|")) {
+      value = JQNodes.pipe(value, parseAlternative());
+    }
+    return value;
+  }
+
+  private JQNode parseString() {
+    expect("\"");
+    List<JQNode> parts = new ArrayList<>();
+    StringBuilder sb = new StringBuilder();
+    while (true) {
+      if (pos >= src.length()) {
+        throw new UnsupportedExpression();
+      }
+      char c = src.charAt(pos++);
+      if (c == '"') {
+        break;
+      } else if (c == '\\') {
+        if (pos >= src.length()) {
+          throw new UnsupportedExpression();
+        }
+        char escaped = src.charAt(pos++);
+        switch (escaped) {
+          case '"':
+          case '\\':
+          case '/':
+            sb.append(escaped);
+            break;
+          case 'b':
+            sb.append('\b');
+            break;
+          case 'f':
+            sb.append('\f');
+            break;
+          case 'n':
+            sb.append('\n');
+            break;
+          case 'r':
+            sb.append('\r');
+            break;
+          case 't':
+            sb.append('\t');
+            break;
+          case 'u':
+            if (pos + 4 > src.length()) {
+              throw new UnsupportedExpression();
+            }
+            try {
+              sb.append((char) Integer.parseInt(src.substring(pos, pos + 4), 16));
+            } catch (NumberFormatException e) {
+              throw new UnsupportedExpression();
+            }
+            pos += 4;
+            break;
+          case '(':
+            if (sb.length() > 0) {
+              parts.add(JQNodes.constant(TextNode.valueOf(sb.toString())));
+              sb.setLength(0);
+            }
+            parts.add(
+                JQNodes.map(parsePipe(), v -> TextNode.valueOf(JQValues.toText(v))));
+            expect(")");
+            break;
+          default:
+            throw new UnsupportedExpression();
+        }
+      } else {
+        sb.append(c);
+      }
+    }
+    if (parts.isEmpty()) {
+      return JQNodes.constant(TextNode.valueOf(sb.toString()));
+    }
+    if (sb.length() > 0) {
+      parts.add(JQNodes.constant(TextNode.valueOf(sb.toString())));
+    }
+    return JQNodes.concat(parts);
+  }
+
+  private JsonNode number() {
+    int start = pos;
+    while (pos < src.length() && Character.isDigit(src.charAt(pos))) {
+      pos++;
+    }
+    if (pos < src.length() && src.charAt(pos) == '.') {
+      pos++;
+      while (pos < src.length() && Character.isDigit(src.charAt(pos))) {
+        pos++;
+      }
+    }
+    if (pos < src.length() && (src.charAt(pos) == 'e' || src.charAt(pos) == 'E')) {
+      pos++;
+      if (pos < src.length() && (src.charAt(pos) == '+' || src.charAt(pos) == '-')) {
+        pos++;
+      }
+      while (pos < src.length() && Character.isDigit(src.charAt(pos))) {
+        pos++;
+      }
+    }
+    try {
+      return JQValues.number(Double.parseDouble(src.substring(start, pos)));
+    } catch (NumberFormatException e) {
+      throw new UnsupportedExpression();
+    }
+  }
+
+  private String identifier() {
+    int start = pos;
+    while (pos < src.length() && isIdentifierPart(src.charAt(pos))) {
+      pos++;
+    }
+    return src.substring(start, pos);
+  }
+
+  private static boolean isIdentifierStart(char c) {
+    return Character.isLetter(c) && c < 128 || c == '_';
+  }
+
+  private static boolean isIdentifierPart(char c) {
+    return isIdentifierStart(c) || Character.isDigit(c);
+  }
+
+  private boolean acceptKeyword(String keyword) {
+    skipWhitespace();
+    int end = pos + keyword.length();
+    if (src.startsWith(keyword, pos)
+        && (end == src.length() || !isIdentifierPart(src.charAt(end)))) {
+      pos = end;
+      return true;
+    }
+    return false;
+  }
+
+  private void expectKeyword(String keyword) {
+    if (!acceptKeyword(keyword)) {
+      throw new UnsupportedExpression();
+    }
+  }
+
+  private boolean lookingAt(String token) {
+    skipWhitespace();
+    return src.startsWith(token, pos);
+  }
+
+  private boolean accept(String token) {
+    if (lookingAt(token)) {
+      pos += token.length();
+      return true;
+    }
+    return false;
+  }
+
+  private void expect(String token) {
+    if (!accept(token)) {
+      throw new UnsupportedExpression();
+    }
+  }
+
+  private void skipWhitespace() {
+    while (pos < src.length()) {
+      char c = src.charAt(pos);
+      if (Character.isWhitespace(c)) {
+        pos++;
+      } else if (c == '#') {
+        while (pos < src.length() && src.charAt(pos) != '\n') {
+          pos++;
+        }
+      } else {
+        break;
+      }
+    }
+  }
+}
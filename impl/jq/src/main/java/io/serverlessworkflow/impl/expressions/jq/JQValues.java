@@ -0,0 +1,314 @@
+/*
+ * Copyright 2020-Present The Serverless Workflow Specification Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.serverlessworkflow.impl.expressions.jq;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.BooleanNode;
+import com.fasterxml.jackson.databind.node.DoubleNode;
+import com.fasterxml.jackson.databind.node.IntNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.LongNode;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+
+/** jq value semantics (truthiness, ordering, indexing and arithmetic) over Jackson nodes */
+class JQValues {
+
+  private JQValues() {}
+
+  static final JsonNodeFactory factory = JsonNodeFactory.instance;
+
+  static boolean isTruthy(JsonNode node) {
+    return !isNull(node) && !(node.isBoolean() && !node.booleanValue());
+  }
+
+  static boolean isNull(JsonNode node) {
+    return node == null || node.isNull() || node.isMissingNode();
+  }
+
+  static JsonNode bool(boolean value) {
+    return BooleanNode.valueOf(value);
+  }
+
+  static JsonNode number(double value) {
+    if (value == (long) value) {
+      long longValue = (long) value;
+      return longValue == (int) longValue
+          ? IntNode.valueOf((int) longValue)
+          : LongNode.valueOf(longValue);
+    }
+    return DoubleNode.valueOf(value);
+  }
+
+  static String typeName(JsonNode node) {
+    if (isNull(node)) {
+      return "null";
+    } else if (node.isBoolean()) {
+      return "boolean";
+    } else if (node.isNumber()) {
+      return "number";
+    } else if (node.isTextual()) {
+      return "string";
+    } else if (node.isArray()) {
+      return "array";
+    } else if (node.isObject()) {
+      return "object";
+    }
+    throw new JQEvaluationException("Unsupported json node " + node.getNodeType());
+  }
+
+  static JsonNode index(JsonNode target, JsonNode key) {
+    if (key.isTextual()) {
+      if (isNull(target)) {
+        return NullNode.instance;
+      } else if (target.isObject()) {
+        JsonNode value = target.get(key.textValue());
+        return value == null ? NullNode.instance : value;
+      }
+    } else if (key.isNumber()) {
+      if (isNull(target)) {
+        return NullNode.instance;
+      } else if (target.isArray()) {
+        int index = (int) Math.floor(key.doubleValue());
+        if (index < 0) {
+          index += target.size();
+        }
+        JsonNode value = index < 0 ? null : target.get(index);
+        return value == null ? NullNode.instance : value;
+      }
+    }
+    throw new JQEvaluationException(
+        "Cannot index " + typeName(target) + " with " + typeName(key) + " " + key);
+  }
+
+  static void iterate(JsonNode target, Consumer<JsonNode> output) {
+    if (target.isArray() || target.isObject()) {
+      Iterator<JsonNode> iter = target.elements();
+      while (iter.hasNext()) {
+        output.accept(iter.next());
+      }
+    } else {
+      throw new JQEvaluationException("Cannot iterate over " + typeName(target));
+    }
+  }
+
+  static JsonNode add(JsonNode lhs, JsonNode rhs) {
+    if (isNull(lhs)) {
+      return rhs;
+    } else if (isNull(rhs)) {
+      return lhs;
+    } else if (lhs.isNumber() && rhs.isNumber()) {
+      return number(lhs.doubleValue() + rhs.doubleValue());
+    } else if (lhs.isTextual() && rhs.isTextual()) {
+      return TextNode.valueOf(lhs.textValue() + rhs.textValue());
+    } else if (lhs.isArray() && rhs.isArray()) {
+      // container nodes might be views other than ArrayNode or ObjectNode
+      ArrayNode result = factory.arrayNode(lhs.size() + rhs.size());
+      lhs.forEach(result::add);
+      rhs.forEach(result::add);
+      return result;
+    } else if (lhs.isObject() && rhs.isObject()) {
+      ObjectNode result = factory.objectNode();
+      lhs.properties().forEach(e -> result.set(e.getKey(), e.getValue()));
+      rhs.properties().forEach(e -> result.set(e.getKey(), e.getValue()));
+      return result;
+    }
+    throw incompatible(lhs, rhs, "added");
+  }
+
+  static JsonNode subtract(JsonNode lhs, JsonNode rhs) {
+    if (lhs.isNumber() && rhs.isNumber()) {
+      return number(lhs.doubleValue() - rhs.doubleValue());
+    } else if (lhs.isArray() && rhs.isArray()) {
+      ArrayNode result = factory.arrayNode();
+      for (JsonNode item : lhs) {
+        if (!contains(rhs, item)) {
+          result.add(item);
+        }
+      }
+      return result;
+    }
+    throw incompatible(lhs, rhs, "subtracted");
+  }
+
+  static JsonNode multiply(JsonNode lhs, JsonNode rhs) {
+    if (lhs.isNumber() && rhs.isNumber()) {
+      return number(lhs.doubleValue() * rhs.doubleValue());
+    }
+    throw incompatible(lhs, rhs, "multiplied");
+  }
+
+  static JsonNode divide(JsonNode lhs, JsonNode rhs) {
+    if (lhs.isNumber() && rhs.isNumber()) {
+      if (rhs.doubleValue() == 0) {
+        throw divisionByZero(lhs, rhs);
+      }
+      return number(lhs.doubleValue() / rhs.doubleValue());
+    }
+    throw incompatible(lhs, rhs, "divided");
+  }
+
+  static JsonNode modulo(JsonNode lhs, JsonNode rhs) {
+    if (lhs.isNumber() && rhs.isNumber()) {
+      long divisor = (long) rhs.doubleValue();
+      if (divisor == 0) {
+        throw divisionByZero(lhs, rhs);
+      }
+      return number((long) lhs.doubleValue() % divisor);
+    }
+    throw incompatible(lhs, rhs, "divided");
+  }
+
+  static JsonNode negate(JsonNode value) {
+    if (value.isNumber()) {
+      return number(-value.doubleValue());
+    }
+    throw new JQEvaluationException(typeName(value) + " (" + value + ") cannot be negated");
+  }
+
+  static JsonNode length(JsonNode value) {
+    if (isNull(value)) {
+      return IntNode.valueOf(0);
+    } else if (value.isNumber()) {
+      return number(Math.abs(value.doubleValue()));
+    } else if (value.isTextual()) {
+      String text = value.textValue();
+      return IntNode.valueOf(text.codePointCount(0, text.length()));
+    } else if (value.isArray() || value.isObject()) {
+      return IntNode.valueOf(value.size());
+    }
+    throw new JQEvaluationException(typeName(value) + " (" + value + ") has no length");
+  }
+
+  static JsonNode keys(JsonNode value) {
+    ArrayNode result = factory.arrayNode(value.size());
+    if (value.isObject()) {
+      List<String> names = new ArrayList<>(value.size());
+      value.fieldNames().forEachRemaining(names::add);
+      Collections.sort(names);
+      names.forEach(result::add);
+    } else if (value.isArray()) {
+      for (int i = 0; i < value.size(); i++) {
+        result.add(i);
+      }
+    } else {
+      throw new JQEvaluationException(typeName(value) + " (" + value + ") has no keys");
+    }
+    return result;
+  }
+
+  static String toText(JsonNode value) {
+    return value.isTextual() ? value.textValue() : value.toString();
+  }
+
+  static boolean equals(JsonNode lhs, JsonNode rhs) {
+    return compare(lhs, rhs) == 0;
+  }
+
+  static int compare(JsonNode lhs, JsonNode rhs) {
+    int result = Integer.compare(typeOrder(lhs), typeOrder(rhs));
+    if (result != 0) {
+      return result;
+    }
+    if (lhs.isNumber()) {
+      double l = lhs.doubleValue();
+      double r = rhs.doubleValue();
+      return l < r ? -1 : l > r ? 1 : 0;
+    } else if (lhs.isTextual()) {
+      return lhs.textValue().compareTo(rhs.textValue());
+    } else if (lhs.isArray()) {
+      return compareArrays(lhs, rhs);
+    } else if (lhs.isObject()) {
+      result = compareArrays(keys(lhs), keys(rhs));
+      if (result != 0) {
+        return result;
+      }
+      Iterator<String> names = lhs.fieldNames();
+      List<String> sorted = new ArrayList<>(lhs.size());
+      names.forEachRemaining(sorted::add);
+      Collections.sort(sorted);
+      for (String name : sorted) {
+        result = compare(lhs.get(name), rhs.get(name));
+        if (result != 0) {
+          return result;
+        }
+      }
+    }
+    return 0;
+  }
+
+  private static int compareArrays(JsonNode lhs, JsonNode rhs) {
+    int size = Math.min(lhs.size(), rhs.size());
+    for (int i = 0; i < size; i++) {
+      int result = compare(lhs.get(i), rhs.get(i));
+      if (result != 0) {
+        return result;
+      }
+    }
+    return Integer.compare(lhs.size(), rhs.size());
+  }
+
+  private static int typeOrder(JsonNode node) {
+    if (isNull(node)) {
+      return 0;
+    } else if (node.isBoolean()) {
+      return node.booleanValue() ? 2 : 1;
+    } else if (node.isNumber()) {
+      return 3;
+    } else if (node.isTextual()) {
+      return 4;
+    } else if (node.isArray()) {
+      return 5;
+    } else if (node.isObject()) {
+      return 6;
+    }
+    throw new JQEvaluationException("Unsupported json node " + node.getNodeType());
+  }
+
+  private static boolean contains(JsonNode array, JsonNode item) {
+    for (JsonNode candidate : array) {
+      if (equals(candidate, item)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static JQEvaluationException divisionByZero(JsonNode lhs, JsonNode rhs) {
+    return new JQEvaluationException(
+        lhs + " and " + rhs + " cannot be divided because the divisor is zero");
+  }
+
+  private static JQEvaluationException incompatible(JsonNode lhs, JsonNode rhs, String operation) {
+    return new JQEvaluationException(
+        typeName(lhs)
+            + " ("
+            + lhs
+            + ") and "
+            + typeName(rhs)
+            + " ("
+            + rhs
+            + ") cannot be "
+            + operation);
+  }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2020-Present The Serverless Workflow Specification Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.serverlessworkflow.impl.expressions.jq;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import io.serverlessworkflow.impl.jackson.JsonUtils;
+import java.util.ArrayList;
+import java.util.List;
+import net.thisptr.jackson.jq.BuiltinFunctionLoader;
+import net.thisptr.jackson.jq.Scope;
+import net.thisptr.jackson.jq.Versions;
+import net.thisptr.jackson.jq.exception.JsonQueryException;
+import net.thisptr.jackson.jq.internal.javacc.ExpressionParser;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class JQCompiledExpressionTest {
+
+  private static Scope scope;
+  private static JsonNode input;
+
+  @BeforeAll
+  static void init() throws JsonProcessingException {
+    scope = Scope.newEmptyScope();
+    BuiltinFunctionLoader.getInstance().loadFunctions(Versions.JQ_1_6, scope);
+    input =
+        JsonUtils.mapper()
+            .readTree(
+                "{\"order\":{\"items\":[{\"sku\":\"a\",\"qty\":2,\"price\":1.5},"
+                    + "{\"sku\":\"b\",\"qty\":0,\"price\":3}]},\"name\":\"John\","
+                    + "\"count\":5,\"enabled\":true,\"missing\":null}");
+  }
+
+  @ParameterizedTest
+  @ValueSource(
+      strings = {
+        ".",
+        ".name",
+        ".order.items[0].sku",
+        ".order.items[-1]",
+        ".order.items[].sku",
+        ".[\"name\"]",
+        ".missing.field",
+        ".name.field?",
+        "[.order.items[] | .qty * .price]",
+        ".order.items | map(select(.qty > 0))",
+        ".order.items | map(.sku) | length",
+        "{name, total: (.count + 2), \"enabled\": .enabled}",
+        "{(.name): .count}",
+        "\"Hello \\(.name), you have \\(.count) items\"",
+        ".count > 3 and .name == \"John\"",
+        ".missing or .enabled | not",
+        ".missing // \"default\"",
+        ".count % 3, .count / 2, .count - 1",
+        "if .count > 10 then \"big\" elif .count > 1 then \"medium\" else \"small\" end",
+        "keys",
+        "[1, 2, 3] - [2]",
+        "{a: 1} + {b: 2}",
+        "1 == 1.0",
+        "[.order.items[].qty] | length",
+        "empty",
+        ".name | tostring"
+      })
+  void testCompiledMatchesInterpreted(String expr) throws JsonQueryException {
+    String expected = interpret(expr);
+    assertThat(JQCompiledExpression.compile(expr))
+        .hasValueSatisfying(c -> assertThat(String.valueOf(c.eval(input))).isEqualTo(expected));
+  }
+
+  @ParameterizedTest
+  @ValueSource(
+      strings = {
+        "$input.name",
+        ".name |= \"other\"",
+        "reduce .order.items[] as $item (0; . + $item.qty)",
+        ".. | numbers",
+        "@base64",
+        ".order.items[0:1]",
+        "to_entries"
+      })
+  void testUnsupported(String expr) {
+    assertThat(JQCompiledExpression.compile(expr)).isEmpty();
+  }
+
+  private static String interpret(String expr) throws JsonQueryException {
+    List<JsonNode> results = new ArrayList<>();
+    ExpressionParser.compile(expr, Versions.JQ_1_6)
+        .apply(Scope.newChildScope(scope), input, results::add);
+    return String.valueOf(
+        results.isEmpty()
+            ? null
+            : results.size() == 1 ? results.get(0) : JsonUtils.mapper().valueToTree(results));
+  }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2020-Present The Serverless Workflow Specification Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.serverlessworkflow.impl.expressions.jq;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.node.DoubleNode;
+import com.fasterxml.jackson.databind.node.IntNode;
+import com.fasterxml.jackson.databind.node.NullNode;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class JQEqualityTest {
+
+  @Test
+  void testEquality() {
+    assertThat(JQEquality.parse(".orderType == \"electronic\""))
+        .contains(new JQEquality(".orderType", "electronic"));
+    assertThat(JQEquality.parse("1 == .order.items[0]"))
+        .contains(new JQEquality(".order.items[0]", 1.0));
+    assertThat(JQEquality.parse(".[\"a == b\"] == null"))
+        .contains(new JQEquality(".[\"a == b\"]", null));
+  }
+
+  @Test
+  void testKey() {
+    assertThat(JQEquality.key(IntNode.valueOf(1))).isEqualTo(JQEquality.key(DoubleNode.valueOf(1)));
+    assertThat(JQEquality.key(DoubleNode.valueOf(-0.0))).isEqualTo(0.0);
+    assertThat(JQEquality.key(NullNode.instance)).isNull();
+  }
+
+  @ParameterizedTest
+  @ValueSource(
+      strings = {
+        ".a == 1 + 1",
+        ".a == 1 and .b == 2",
+        ".a == .b",
+        ".a == [1]",
+        ".a != 1",
+        ".a? == 1",
+        ".a == \"\\(.b)\""
+      })
+  void testNotEquality(String expr) {
+    assertThat(JQEquality.parse(expr)).isEmpty();
+  }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2020-Present The Serverless Workflow Specification Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.serverlessworkflow.impl.expressions.jq;
+
+import static io.serverlessworkflow.impl.WorkflowUtils.loadFirst;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.serverlessworkflow.impl.WorkflowModel;
+import io.serverlessworkflow.impl.WorkflowModelFactory;
+import java.util.Map;
+import net.thisptr.jackson.jq.BuiltinFunctionLoader;
+import net.thisptr.jackson.jq.Scope;
+import net.thisptr.jackson.jq.Versions;
+import net.thisptr.jackson.jq.exception.JsonQueryException;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class JQExpressionCompilationTest {
+
+  private static Scope scope;
+  private static WorkflowModel model;
+
+  @BeforeAll
+  static void init() {
+    scope = Scope.newEmptyScope();
+    BuiltinFunctionLoader.getInstance().loadFunctions(Versions.JQ_1_6, scope);
+    model =
+        loadFirst(WorkflowModelFactory.class)
+            .orElseThrow()
+            .fromAny(Map.of("name", "John", "count", 5));
+  }
+
+  @Test
+  void testCompiledAfterThreshold() throws JsonQueryException {
+    JQExpression expr = new JQExpression(() -> scope, ".count + 1", Versions.JQ_1_6, 2);
+    for (int i = 0; i < 2; i++) {
+      assertThat(expr.eval(null, null, model).toString()).isEqualTo("6");
+      assertThat(expr.isCompiled()).isFalse();
+    }
+    assertThat(expr.eval(null, null, model).toString()).isEqualTo("6");
+    assertThat(expr.isCompiled()).isTrue();
+    assertThat(expr.eval(null, null, model).toString()).isEqualTo("6");
+  }
+
+  @Test
+  void testUnsupportedStaysInterpreted() throws JsonQueryException {
+    JQExpression expr = new JQExpression(() -> scope, "to_entries | length", Versions.JQ_1_6, 0);
+    for (int i = 0; i < 3; i++) {
+      assertThat(expr.eval(null, null, model).toString()).isEqualTo("2");
+    }
+    assertThat(expr.isCompiled()).isFalse();
+  }
+
+  @Test
+  void testCompilationDisabledByDefault() {
+    JQExpression expr = (JQExpression) new JQExpressionFactory().buildExpression("${.name}");
+    for (int i = 0; i < 10; i++) {
+      assertThat(expr.eval(null, null, model).toString()).isEqualTo("\"John\"");
+    }
+    assertThat(expr.isCompiled()).isFalse();
+  }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2020-Present The Serverless Workflow Specification Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.serverlessworkflow.impl.jackson;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Tells whether a java value can be shared without copying, that is, whether neither the value nor
+ * any value it contains can be modified through it. Only the immutable and unmodifiable jdk
+ * collections are recognized.
+ */
+class ImmutableJavaValues {
+
+  private static final Set<Class<?>> IMMUTABLE_VALUES =
+      Set.of(
+          String.class,
+          Boolean.class,
+          Character.class,
+          Byte.class,
+          Short.class,
+          Integer.class,
+          Long.class,
+          Float.class,
+          Double.class,
+          BigInteger.class,
+          BigDecimal.class);
+
+  private static final Set<Class<?>> IMMUTABLE_MAPS =
+      classesOf(
+          Map.of(),
+          Map.of("a", 1),
+          Map.of("a", 1, "b", 2),
+          Collections.emptyMap(),
+          Collections.singletonMap("a", 1),
+          Collections.unmodifiableMap(new HashMap<>()),
+          Collections.unmodifiableSortedMap(new TreeMap<>()),
+          Collections.unmodifiableNavigableMap(new TreeMap<>()));
+
+  private static final Set<Class<?>> IMMUTABLE_LISTS =
+      classesOf(
+          List.of(),
+          List.of(1),
+          List.of(1, 2, 3),
+          Stream.of(1).toList(),
+          Collections.emptyList(),
+          Collections.singletonList(1),
+          Collections.unmodifiableList(new ArrayList<>()),
+          Collections.unmodifiableList(new LinkedList<>()));
+
+  static boolean isImmutable(Object value) {
+    if (value == null || value instanceof Enum || IMMUTABLE_VALUES.contains(value.getClass())) {
+      return true;
+    } else if (value instanceof Map<?, ?> map) {
+      return IMMUTABLE_MAPS.contains(map.getClass())
+          && map.values().stream().allMatch(ImmutableJavaValues::isImmutable);
+    } else if (value instanceof List<?> list) {
+      return IMMUTABLE_LISTS.contains(list.getClass())
+          && list.stream().allMatch(ImmutableJavaValues::isImmutable);
+    }
+    return false;
+  }
+
+  // several factory methods might return instances of the same class
+  private static Set<Class<?>> classesOf(Object... samples) {
+    return Stream.of(samples).map(Object::getClass).collect(Collectors.toUnmodifiableSet());
+  }
+
+  private ImmutableJavaValues() {}
+}
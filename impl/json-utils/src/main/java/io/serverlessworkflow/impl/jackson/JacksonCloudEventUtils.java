@@ -52,7 +52,7 @@ public class JacksonCloudEventUtils {
     try {
       return data instanceof JsonCloudEventData
           ? ((JsonCloudEventData) data).getNode()
-          : JsonUtils.mapper().readTree(data.toBytes());
+          : JsonUtils.fromValidJsonBytes(data.toBytes());
     } catch (IOException io) {
       throw new UncheckedIOException(io);
     }
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2020-Present The Serverless Workflow Specification Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.serverlessworkflow.impl.jackson;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Array node backed by a java list. Items are converted on first access and the source list is
+ * detached (fully converted) the first time the node is modified.
+ */
+class JavaListJsonNode extends ArrayNode {
+
+  private static final long serialVersionUID = 1L;
+
+  private final transient LazyList list;
+
+  JavaListJsonNode(List<?> source) {
+    this(new LazyList(source));
+  }
+
+  private JavaListJsonNode(LazyList list) {
+    super(JsonNodeFactory.instance, list);
+    this.list = list;
+  }
+
+  /** Returns the source list, or null if this node or any of its converted items changed */
+  List<?> source() {
+    if (list.source == null) {
+      return null;
+    }
+    for (JsonNode item : list.items) {
+      if (item != null && !JavaMapJsonNode.isView(item)) {
+        return null;
+      }
+    }
+    return list.source;
+  }
+
+  private static class LazyList extends AbstractList<JsonNode> {
+
+    private List<?> source;
+    private JsonNode[] items;
+    private List<JsonNode> converted;
+
+    LazyList(List<?> source) {
+      this.source = source;
+      this.items = new JsonNode[source.size()];
+    }
+
+    @Override
+    public JsonNode get(int index) {
+      if (source == null) {
+        return converted.get(index);
+      }
+      JsonNode value = items[index];
+      if (value == null) {
+        value = items[index] = JsonUtils.fromJavaValue(source.get(index));
+      }
+      return value;
+    }
+
+    @Override
+    public int size() {
+      return source == null ? converted.size() : items.length;
+    }
+
+    @Override
+    public JsonNode set(int index, JsonNode element) {
+      return detach().set(index, element);
+    }
+
+    @Override
+    public void add(int index, JsonNode element) {
+      detach().add(index, element);
+    }
+
+    @Override
+    public JsonNode remove(int index) {
+      return detach().remove(index);
+    }
+
+    @Override
+    public void clear() {
+      source = null;
+      items = null;
+      converted = new ArrayList<>();
+    }
+
+    private List<JsonNode> detach() {
+      if (source != null) {
+        List<JsonNode> result = new ArrayList<>(items.length + 1);
+        for (int i = 0; i < items.length; i++) {
+          result.add(get(i));
+        }
+        converted = result;
+        source = null;
+        items = null;
+      }
+      return converted;
+    }
+  }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2020-Present The Serverless Workflow Specification Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.serverlessworkflow.impl.jackson;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.util.AbstractMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Object node backed by a java map. Values are converted on first access and the source map is
+ * detached (fully converted) the first time the node is iterated or modified.
+ */
+class JavaMapJsonNode extends ObjectNode {
+
+  private static final long serialVersionUID = 1L;
+
+  JavaMapJsonNode(Map<String, ?> source) {
+    super(JsonNodeFactory.instance, new LazyMap(source));
+  }
+
+  /** Returns the source map, or null if this node or any of its converted children changed */
+  Map<String, ?> source() {
+    LazyMap map = (LazyMap) _children;
+    return map.source != null && map.converted.values().stream().allMatch(JavaMapJsonNode::isView)
+        ? map.source
+        : null;
+  }
+
+  static boolean isView(JsonNode node) {
+    if (node instanceof JavaMapJsonNode map) {
+      return map.source() != null;
+    } else if (node instanceof JavaListJsonNode list) {
+      return list.source() != null;
+    } else {
+      return !node.isContainerNode();
+    }
+  }
+
+  private static class LazyMap extends AbstractMap<String, JsonNode> {
+
+    private Map<String, ?> source;
+    private Map<String, JsonNode> converted = new HashMap<>();
+
+    LazyMap(Map<String, ?> source) {
+      this.source = source;
+    }
+
+    @Override
+    public JsonNode get(Object key) {
+      if (source == null) {
+        return converted.get(key);
+      }
+      JsonNode value = converted.get(key);
+      if (value == null && source.containsKey(key)) {
+        value = JsonUtils.fromJavaValue(source.get(key));
+        converted.put((String) key, value);
+      }
+      return value;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+      return source == null ? converted.containsKey(key) : source.containsKey(key);
+    }
+
+    @Override
+    public int size() {
+      return source == null ? converted.size() : source.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+      return size() == 0;
+    }
+
+    @Override
+    public JsonNode put(String key, JsonNode value) {
+      return detach().put(key, value);
+    }
+
+    @Override
+    public JsonNode remove(Object key) {
+      return detach().remove(key);
+    }
+
+    @Override
+    public void clear() {
+      source = null;
+      converted.clear();
+    }
+
+    @Override
+    public Set<String> keySet() {
+      return detach().keySet();
+    }
+
+    @Override
+    public Set<Entry<String, JsonNode>> entrySet() {
+      return detach().entrySet();
+    }
+
+    private Map<String, JsonNode> detach() {
+      if (source != null) {
+        Map<String, JsonNode> result = new LinkedHashMap<>();
+        for (Entry<String, ?> entry : source.entrySet()) {
+          JsonNode value = converted.get(entry.getKey());
+          result.put(
+              entry.getKey(), value == null ? JsonUtils.fromJavaValue(entry.getValue()) : value);
+        }
+        converted = result;
+        source = null;
+      }
+      return converted;
+    }
+  }
+}
@@ -15,6 +15,7 @@
  */
 package io.serverlessworkflow.impl.jackson;
 
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -27,6 +28,7 @@ import com.fasterxml.jackson.databind.node.DoubleNode;
 import com.fasterxml.jackson.databind.node.FloatNode;
 import com.fasterxml.jackson.databind.node.IntNode;
 import com.fasterxml.jackson.databind.node.LongNode;
+import com.fasterxml.jackson.databind.node.MissingNode;
 import com.fasterxml.jackson.databind.node.NullNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.fasterxml.jackson.databind.node.ShortNode;
@@ -41,10 +43,12 @@ import java.time.Instant;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
@@ -125,8 +129,8 @@ public class JsonUtils {
       return BinaryNode.valueOf((byte[]) value);
     } else if (value instanceof Collection) {
       return mapToArray((Collection<?>) value);
-    } else if (value instanceof Map) {
-      return mapToNode((Map<String, Object>) value);
+    } else if (value instanceof Map map && hasStringKeys(map)) {
+      return mapToNode((Map<String, Object>) map);
     } else if (value instanceof WorkflowModel model) {
       return modelToJson(model);
     } else if (value instanceof CloudEvent ce) {
@@ -141,7 +145,63 @@ public class JsonUtils {
   public static JsonNode modelToJson(WorkflowModel model) {
     return model == null
         ? NullNode.instance
-        : model.as(JsonNode.class).orElseGet(() -> JsonUtils.fromValue(model.asJavaObject()));
+        : model.as(JsonNode.class).orElseGet(() -> fromJavaValue(model.asJavaObject()));
+  }
+
+  /**
+   * Same as {@link #fromValue(Object)}, but maps with string keys and lists are not copied. The
+   * returned node is a view that converts the java items as they are accessed.
+   */
+  @SuppressWarnings("unchecked")
+  public static JsonNode fromJavaValue(Object value) {
+    if (value instanceof Map map && hasStringKeys(map)) {
+      return new JavaMapJsonNode((Map<String, ?>) map);
+    } else if (value instanceof List list) {
+      return new JavaListJsonNode(list);
+    } else {
+      return fromValue(value);
+    }
+  }
+
+  /**
+   * Returns a node for the given json bytes. Objects and arrays are not parsed until their fields
+   * or items are accessed, and are written back as the original bytes while they are unchanged.
+   */
+  public static JsonNode fromJsonBytes(byte[] bytes) {
+    return RawJson.value(bytes, 0, bytes.length);
+  }
+
+  /**
+   * Same as {@link #fromJsonBytes(byte[])}, but the bytes are checked to hold json with a single
+   * streaming pass, so malformed content fails here rather than when it is first accessed. Content
+   * after the first json value is ignored.
+   */
+  public static JsonNode fromValidJsonBytes(byte[] bytes) throws IOException {
+    int end;
+    try (JsonParser parser = mapper().createParser(bytes)) {
+      if (parser.nextToken() == null) {
+        return MissingNode.getInstance();
+      }
+      parser.skipChildren();
+      // scalar tokens are read lazily, so they must be finished before taking the offset
+      parser.finishToken();
+      end = (int) parser.currentLocation().getByteOffset();
+    }
+    return fromJsonBytes(end < bytes.length ? Arrays.copyOf(bytes, end) : bytes);
+  }
+
+  /** Returns the json bytes a node was created from, if it has not been changed since then */
+  public static Optional<byte[]> toJsonBytes(JsonNode node) {
+    if (node instanceof RawJsonObjectNode object && object.isUnchanged()) {
+      return Optional.of(bytes(object.bytes(), object.start(), object.end()));
+    } else if (node instanceof RawJsonArrayNode array && array.isUnchanged()) {
+      return Optional.of(bytes(array.bytes(), array.start(), array.end()));
+    }
+    return Optional.empty();
+  }
+
+  private static byte[] bytes(byte[] bytes, int start, int end) {
+    return start == 0 && end == bytes.length ? bytes : Arrays.copyOfRange(bytes, start, end);
   }
 
   public static Object toJavaValue(Object object) {
@@ -160,7 +220,24 @@ public class JsonUtils {
     return new TextNode(value);
   }
 
+  private static boolean hasStringKeys(Map<?, ?> map) {
+    for (Object key : map.keySet()) {
+      if (!(key instanceof String)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   private static Object toJavaValue(ObjectNode node) {
+    // the source is shared with the model the view was created from, so it is only returned when
+    // the caller cannot modify it
+    if (node instanceof JavaMapJsonNode view) {
+      Map<String, ?> source = view.source();
+      if (source != null && ImmutableJavaValues.isImmutable(source)) {
+        return source;
+      }
+    }
     Map<String, Object> result = new HashMap<>();
     node.properties()
         .iterator()
@@ -168,7 +245,14 @@ public class JsonUtils {
     return result;
   }
 
+  @SuppressWarnings("unchecked")
   private static Collection<Object> toJavaValue(ArrayNode node) {
+    if (node instanceof JavaListJsonNode view) {
+      List<?> source = view.source();
+      if (source != null && ImmutableJavaValues.isImmutable(source)) {
+        return (Collection<Object>) source;
+      }
+    }
     Collection<Object> result = new ArrayList<>();
     for (JsonNode item : node) {
       result.add(internalToJavaValue(item, JsonUtils::toJavaValue, JsonUtils::toJavaValue));
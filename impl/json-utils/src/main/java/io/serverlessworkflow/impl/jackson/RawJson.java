@@ -0,0 +1,105 @@
+/*
+ * Copyright 2020-Present The Serverless Workflow Specification Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.serverlessworkflow.impl.jackson;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.json.JsonGeneratorImpl;
+import com.fasterxml.jackson.databind.JsonNode;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/** Helpers for the json nodes backed by raw UTF-8 bytes that are parsed on demand */
+class RawJson {
+
+  private RawJson() {}
+
+  static JsonNode value(byte[] bytes, int start, int end) {
+    int first = firstToken(bytes, start, end);
+    while (end > first && Character.isWhitespace(bytes[end - 1])) {
+      end--;
+    }
+    if (first < end && bytes[first] == '{') {
+      return new RawJsonObjectNode(bytes, first, end);
+    } else if (first < end && bytes[first] == '[') {
+      return new RawJsonArrayNode(bytes, first, end);
+    }
+    try {
+      return JsonUtils.mapper().readTree(bytes, start, end - start);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  static boolean isUnchanged(JsonNode node) {
+    if (node instanceof RawJsonObjectNode object) {
+      return object.isUnchanged();
+    } else if (node instanceof RawJsonArrayNode array) {
+      return array.isUnchanged();
+    } else {
+      return !node.isContainerNode();
+    }
+  }
+
+  /**
+   * Scans the object or array starting at start, invoking the consumer with the start and end
+   * positions of every value, preceded, in the case of objects, by the field name
+   */
+  static void scan(byte[] bytes, int start, int end, FieldConsumer consumer) {
+    try (JsonParser parser = JsonUtils.mapper().createParser(bytes, start, end - start)) {
+      JsonToken endToken =
+          parser.nextToken() == JsonToken.START_OBJECT ? JsonToken.END_OBJECT : JsonToken.END_ARRAY;
+      JsonToken token;
+      while ((token = parser.nextToken()) != endToken) {
+        String name = null;
+        if (token == JsonToken.FIELD_NAME) {
+          name = parser.currentName();
+          parser.nextToken();
+        }
+        int valueStart = start + (int) parser.currentTokenLocation().getByteOffset();
+        parser.skipChildren();
+        parser.finishToken();
+        consumer.accept(name, valueStart, start + (int) parser.currentLocation().getByteOffset());
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /** Writes the raw bytes if the node is unchanged and the generator writes json text */
+  static boolean writeRaw(JsonNode node, byte[] bytes, int start, int end, JsonGenerator gen)
+      throws IOException {
+    if (gen instanceof JsonGeneratorImpl && gen.getPrettyPrinter() == null && isUnchanged(node)) {
+      gen.writeRawValue(new String(bytes, start, end - start, StandardCharsets.UTF_8));
+      return true;
+    }
+    return false;
+  }
+
+  @FunctionalInterface
+  interface FieldConsumer {
+    void accept(String name, int start, int end);
+  }
+
+  private static int firstToken(byte[] bytes, int start, int end) {
+    while (start < end && Character.isWhitespace(bytes[start])) {
+      start++;
+    }
+    return start;
+  }
+}
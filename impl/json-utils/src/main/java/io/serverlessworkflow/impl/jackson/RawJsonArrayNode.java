@@ -0,0 +1,178 @@
+/*
+ * Copyright 2020-Present The Serverless Workflow Specification Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.serverlessworkflow.impl.jackson;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Array node backed by raw json bytes. The positions of the items are indexed on first access,
+ * items are parsed when read and the node is fully parsed the first time it is modified.
+ */
+class RawJsonArrayNode extends ArrayNode {
+
+  private static final long serialVersionUID = 1L;
+
+  private final transient RawList list;
+
+  RawJsonArrayNode(byte[] bytes, int start, int end) {
+    this(new RawList(bytes, start, end));
+  }
+
+  private RawJsonArrayNode(RawList list) {
+    super(JsonNodeFactory.instance, list);
+    this.list = list;
+  }
+
+  boolean isUnchanged() {
+    if (list.detached != null) {
+      return false;
+    }
+    Index index = list.index;
+    if (index != null) {
+      for (int i = 0; i < index.items().length(); i++) {
+        JsonNode item = index.items().get(i);
+        if (item != null && !RawJson.isUnchanged(item)) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  byte[] bytes() {
+    return list.bytes;
+  }
+
+  int start() {
+    return list.start;
+  }
+
+  int end() {
+    return list.end;
+  }
+
+  @Override
+  public void serialize(JsonGenerator gen, SerializerProvider provider) throws IOException {
+    if (!RawJson.writeRaw(this, list.bytes, list.start, list.end, gen)) {
+      super.serialize(gen, provider);
+    }
+  }
+
+  private record Index(int[] positions, AtomicReferenceArray<JsonNode> items) {}
+
+  /**
+   * List view of the raw bytes. As with objects, the element index is built once and published
+   * through a volatile field, so concurrent readers share the same parsed elements.
+   */
+  private static class RawList extends AbstractList<JsonNode> {
+
+    private final byte[] bytes;
+    private final int start;
+    private final int end;
+    private volatile Index index;
+    private volatile List<JsonNode> detached;
+
+    RawList(byte[] bytes, int start, int end) {
+      this.bytes = bytes;
+      this.start = start;
+      this.end = end;
+    }
+
+    private Index index() {
+      Index result = index;
+      if (result == null) {
+        synchronized (this) {
+          result = index;
+          if (result == null) {
+            List<int[]> positions = new ArrayList<>();
+            RawJson.scan(bytes, start, end, (name, s, e) -> positions.add(new int[] {s, e}));
+            int[] flat = new int[positions.size() * 2];
+            for (int i = 0; i < positions.size(); i++) {
+              flat[2 * i] = positions.get(i)[0];
+              flat[2 * i + 1] = positions.get(i)[1];
+            }
+            index = result = new Index(flat, new AtomicReferenceArray<>(positions.size()));
+          }
+        }
+      }
+      return result;
+    }
+
+    @Override
+    public JsonNode get(int i) {
+      List<JsonNode> list = detached;
+      if (list != null) {
+        return list.get(i);
+      }
+      Index current = index();
+      JsonNode value = current.items().get(i);
+      if (value == null) {
+        int[] flat = current.positions();
+        current.items().compareAndSet(i, null, RawJson.value(bytes, flat[2 * i], flat[2 * i + 1]));
+        value = current.items().get(i);
+      }
+      return value;
+    }
+
+    @Override
+    public int size() {
+      List<JsonNode> list = detached;
+      return list != null ? list.size() : index().items().length();
+    }
+
+    @Override
+    public JsonNode set(int i, JsonNode element) {
+      return detach().set(i, element);
+    }
+
+    @Override
+    public void add(int i, JsonNode element) {
+      detach().add(i, element);
+    }
+
+    @Override
+    public JsonNode remove(int i) {
+      return detach().remove(i);
+    }
+
+    @Override
+    public synchronized void clear() {
+      detached = new ArrayList<>();
+    }
+
+    private synchronized List<JsonNode> detach() {
+      List<JsonNode> list = detached;
+      if (list == null) {
+        int size = size();
+        list = new ArrayList<>(size + 1);
+        for (int i = 0; i < size; i++) {
+          list.add(get(i));
+        }
+        detached = list;
+      }
+      return list;
+    }
+  }
+}
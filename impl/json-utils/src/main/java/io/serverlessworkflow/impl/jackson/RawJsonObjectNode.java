@@ -0,0 +1,274 @@
+/*
+ * Copyright 2020-Present The Serverless Workflow Specification Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.serverlessworkflow.impl.jackson;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Object node backed by raw json bytes. The positions of the fields are indexed on first access,
+ * field values are parsed when read and the node is fully parsed the first time it is modified.
+ */
+class RawJsonObjectNode extends ObjectNode {
+
+  private static final long serialVersionUID = 1L;
+
+  private final transient RawMap map;
+
+  RawJsonObjectNode(byte[] bytes, int start, int end) {
+    this(new RawMap(bytes, start, end));
+  }
+
+  private RawJsonObjectNode(RawMap map) {
+    super(JsonNodeFactory.instance, map);
+    this.map = map;
+  }
+
+  boolean isUnchanged() {
+    return map.detached == null && map.converted.values().stream().allMatch(RawJson::isUnchanged);
+  }
+
+  byte[] bytes() {
+    return map.bytes;
+  }
+
+  int start() {
+    return map.start;
+  }
+
+  int end() {
+    return map.end;
+  }
+
+  @Override
+  public void serialize(JsonGenerator gen, SerializerProvider provider) throws IOException {
+    if (!RawJson.writeRaw(this, map.bytes, map.start, map.end, gen)) {
+      super.serialize(gen, provider);
+    }
+  }
+
+  /**
+   * Map view of the raw bytes. Reads might happen concurrently (for example, fork branches reading
+   * the same input), so the field index is built once and published through a volatile field and
+   * parsed values are cached in a concurrent map. Mutations detach the map into a regular one.
+   */
+  private static class RawMap extends AbstractMap<String, JsonNode> {
+
+    private final byte[] bytes;
+    private final int start;
+    private final int end;
+    private final Map<String, JsonNode> converted = new ConcurrentHashMap<>();
+    private volatile Map<String, int[]> index;
+    private volatile Map<String, JsonNode> detached;
+
+    RawMap(byte[] bytes, int start, int end) {
+      this.bytes = bytes;
+      this.start = start;
+      this.end = end;
+    }
+
+    private Map<String, int[]> index() {
+      Map<String, int[]> result = index;
+      if (result == null) {
+        synchronized (this) {
+          result = index;
+          if (result == null) {
+            Map<String, int[]> positions = new LinkedHashMap<>();
+            RawJson.scan(bytes, start, end, (name, s, e) -> positions.put(name, new int[] {s, e}));
+            index = result = Collections.unmodifiableMap(positions);
+          }
+        }
+      }
+      return result;
+    }
+
+    @Override
+    public JsonNode get(Object key) {
+      Map<String, JsonNode> map = detached;
+      if (map != null) {
+        return map.get(key);
+      }
+      int[] position = index().get(key);
+      return position == null
+          ? null
+          : converted.computeIfAbsent(
+              (String) key, k -> RawJson.value(bytes, position[0], position[1]));
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+      Map<String, JsonNode> map = detached;
+      return map != null ? map.containsKey(key) : index().containsKey(key);
+    }
+
+    @Override
+    public int size() {
+      Map<String, JsonNode> map = detached;
+      return map != null ? map.size() : index().size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+      return size() == 0;
+    }
+
+    @Override
+    public JsonNode put(String key, JsonNode value) {
+      return detach().put(key, value);
+    }
+
+    @Override
+    public JsonNode remove(Object key) {
+      return detach().remove(key);
+    }
+
+    @Override
+    public synchronized void clear() {
+      detached = new LinkedHashMap<>();
+    }
+
+    @Override
+    public Set<String> keySet() {
+      return new AbstractSet<>() {
+        @Override
+        public Iterator<String> iterator() {
+          Map<String, JsonNode> map = detached;
+          return map != null ? map.keySet().iterator() : new RawIterator<>(k -> k);
+        }
+
+        @Override
+        public boolean contains(Object key) {
+          return containsKey(key);
+        }
+
+        @Override
+        public int size() {
+          return RawMap.this.size();
+        }
+      };
+    }
+
+    @Override
+    public Set<Entry<String, JsonNode>> entrySet() {
+      return new AbstractSet<>() {
+        @Override
+        public Iterator<Entry<String, JsonNode>> iterator() {
+          Map<String, JsonNode> map = detached;
+          return map != null ? map.entrySet().iterator() : new RawIterator<>(RawEntry::new);
+        }
+
+        @Override
+        public int size() {
+          return RawMap.this.size();
+        }
+      };
+    }
+
+    private synchronized Map<String, JsonNode> detach() {
+      Map<String, JsonNode> map = detached;
+      if (map == null) {
+        map = new LinkedHashMap<>();
+        for (String key : index().keySet()) {
+          map.put(key, get(key));
+        }
+        detached = map;
+      }
+      return map;
+    }
+
+    /** Iterates the field index without detaching, removals go through the map */
+    private class RawIterator<T> implements Iterator<T> {
+
+      private final Iterator<String> keys = index().keySet().iterator();
+      private final Function<String, T> mapper;
+      private String current;
+
+      RawIterator(Function<String, T> mapper) {
+        this.mapper = mapper;
+      }
+
+      @Override
+      public boolean hasNext() {
+        return keys.hasNext();
+      }
+
+      @Override
+      public T next() {
+        current = keys.next();
+        return mapper.apply(current);
+      }
+
+      @Override
+      public void remove() {
+        if (current == null) {
+          throw new IllegalStateException();
+        }
+        RawMap.this.remove(current);
+        current = null;
+      }
+    }
+
+    private class RawEntry implements Entry<String, JsonNode> {
+
+      private final String key;
+
+      RawEntry(String key) {
+        this.key = key;
+      }
+
+      @Override
+      public String getKey() {
+        return key;
+      }
+
+      @Override
+      public JsonNode getValue() {
+        return get(key);
+      }
+
+      @Override
+      public JsonNode setValue(JsonNode value) {
+        return put(key, value);
+      }
+
+      @Override
+      public boolean equals(Object o) {
+        return o instanceof Entry<?, ?> e
+            && key.equals(e.getKey())
+            && Objects.equals(getValue(), e.getValue());
+      }
+
+      @Override
+      public int hashCode() {
+        return key.hashCode() ^ Objects.hashCode(getValue());
+      }
+    }
+  }
+}
@@ -18,6 +18,7 @@ package io.serverlessworkflow.impl.jackson;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import com.fasterxml.jackson.databind.JsonNode;
@@ -26,6 +27,7 @@ import io.cloudevents.CloudEventData;
 import io.cloudevents.core.builder.CloudEventBuilder;
 import io.cloudevents.core.data.BytesCloudEventData;
 import io.cloudevents.jackson.JsonCloudEventData;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
 import org.junit.jupiter.api.Test;
@@ -137,6 +139,13 @@ public class JacksonCloudEventUtilsTest {
     assertEquals(rawJson.length, restoredData.toBytes().length);
   }
 
+  @Test
+  public void testMalformedDataIsRejected() {
+    CloudEventData data =
+        BytesCloudEventData.wrap("{\"draft\": \"Bullish".getBytes(StandardCharsets.UTF_8));
+    assertThrows(UncheckedIOException.class, () -> JacksonCloudEventUtils.toJsonNode(data));
+  }
+
   @Test
   public void testJsonUtilsIntegration() {
     CloudEvent originalEvent = createSampleEvent();
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2020-Present The Serverless Workflow Specification Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.serverlessworkflow.impl.jackson;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class JsonUtilsJavaValueTest {
+
+  @Test
+  void testViewReadsSource() throws Exception {
+    Map<String, Object> source = source();
+    JsonNode node = JsonUtils.fromJavaValue(source);
+    assertThat(node.get("name").asText()).isEqualTo("John");
+    assertThat(node.get("items").get(1).get("qty").asInt()).isEqualTo(2);
+    assertThat(node.get("missing")).isNull();
+    assertThat(node.size()).isEqualTo(2);
+    assertThat(node).isEqualTo(JsonUtils.mapper().readTree(JsonUtils.toString(node)));
+  }
+
+  @Test
+  void testImmutableSourceIsShared() {
+    Map<String, Object> source = Map.of("name", "John", "items", List.of(Map.of("qty", 1)));
+    JsonNode node = JsonUtils.fromJavaValue(source);
+    assertThat(node.get("items").get(0).get("qty").asInt()).isEqualTo(1);
+    assertThat(JsonUtils.toJavaValue(node)).isSameAs(source);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void testMutableSourceIsCopied() {
+    Map<String, Object> source = source();
+    JsonNode node = JsonUtils.fromJavaValue(source);
+    Object javaValue = JsonUtils.toJavaValue(node);
+    assertThat(javaValue).isNotSameAs(source).isEqualTo(source);
+    ((Map<String, Object>) javaValue).put("name", "Jane");
+    assertThat(source).isEqualTo(source());
+    // a mutable map nested into an immutable one cannot be shared either
+    Map<String, Object> nested = Map.of("items", new ArrayList<>(List.of(1, 2)));
+    assertThat(JsonUtils.toJavaValue(JsonUtils.fromJavaValue(nested)))
+        .isNotSameAs(nested)
+        .isEqualTo(nested);
+  }
+
+  @Test
+  void testNonStringKeys() {
+    Map<Integer, String> source = Map.of(1, "one");
+    assertThat(JsonUtils.fromJavaValue(source).get("1").asText()).isEqualTo("one");
+    assertThat(JsonUtils.fromValue(source).get("1").asText()).isEqualTo("one");
+  }
+
+  @Test
+  void testViewDoesNotModifySource() {
+    Map<String, Object> source = source();
+    JsonNode node = JsonUtils.fromJavaValue(source);
+    ((ObjectNode) node.get("items").get(0)).put("qty", 5);
+    ((ObjectNode) node).put("other", true);
+    assertThat(JsonUtils.toJavaValue(node))
+        .isEqualTo(
+            Map.of(
+                "name",
+                "John",
+                "items",
+                List.of(Map.of("qty", 5), Map.of("qty", 2)),
+                "other",
+                true));
+    assertThat(source).isEqualTo(source());
+  }
+
+  private static Map<String, Object> source() {
+    Map<String, Object> source = new LinkedHashMap<>();
+    source.put("name", "John");
+    source.put("items", List.of(Map.of("qty", 1), Map.of("qty", 2)));
+    return source;
+  }
+}
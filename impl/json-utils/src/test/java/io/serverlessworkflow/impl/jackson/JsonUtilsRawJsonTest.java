@@ -0,0 +1,146 @@
+/*
+ * Copyright 2020-Present The Serverless Workflow Specification Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.serverlessworkflow.impl.jackson;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+
+class JsonUtilsRawJsonTest {
+
+  private static final String JSON =
+      "{\"name\" : \"John\", \"items\":[{\"qty\":1},{\"qty\":2}], \"enabled\":true}";
+
+  private static final int FIELDS = 200;
+
+  @Test
+  void testUnchangedNodeIsWrittenAsIs() throws Exception {
+    byte[] bytes = JSON.getBytes(StandardCharsets.UTF_8);
+    JsonNode node = JsonUtils.fromJsonBytes(bytes);
+    assertThat(node.get("name").asText()).isEqualTo("John");
+    assertThat(node.get("items").get(1).get("qty").asInt()).isEqualTo(2);
+    assertThat(node.get("missing")).isNull();
+    assertThat(JsonUtils.toJsonBytes(node)).containsSame(bytes);
+    assertThat(JsonUtils.toJsonBytes(node.get("items")))
+        .hasValueSatisfying(
+            b ->
+                assertThat(new String(b, StandardCharsets.UTF_8))
+                    .isEqualTo("[{\"qty\":1},{\"qty\":2}]"));
+    assertThat(node).isEqualTo(JsonUtils.mapper().readTree(JSON));
+  }
+
+  @Test
+  void testModifiedNodeIsSerialized() throws Exception {
+    JsonNode node = JsonUtils.fromJsonBytes(JSON.getBytes(StandardCharsets.UTF_8));
+    ((ObjectNode) node.get("items").get(0)).put("qty", 5);
+    ((ArrayNode) node.get("items")).add(3);
+    assertThat(JsonUtils.toJsonBytes(node)).isEmpty();
+    assertThat(JsonUtils.mapper().readTree(JsonUtils.toString(node)))
+        .isEqualTo(
+            JsonUtils.mapper()
+                .readTree(
+                    "{\"name\":\"John\",\"items\":[{\"qty\":5},{\"qty\":2},3],\"enabled\":true}"));
+  }
+
+  @Test
+  void testConcurrentReadsShareParsedValues() throws Exception {
+    StringBuilder json = new StringBuilder("{");
+    for (int i = 0; i < FIELDS; i++) {
+      json.append(i == 0 ? "" : ",")
+          .append("\"field")
+          .append(i)
+          .append("\":{\"items\":[")
+          .append(i)
+          .append(",")
+          .append(i + 1)
+          .append("]}");
+    }
+    byte[] bytes = json.append("}").toString().getBytes(StandardCharsets.UTF_8);
+    int threads = 8;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      for (int round = 0; round < 20; round++) {
+        JsonNode node = JsonUtils.fromJsonBytes(bytes);
+        CyclicBarrier barrier = new CyclicBarrier(threads);
+        List<Future<List<JsonNode>>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+          boolean iterate = t % 2 == 0;
+          futures.add(executor.submit(() -> readAll(node, iterate, barrier)));
+        }
+        List<JsonNode> expected = futures.get(0).get();
+        assertThat(expected).hasSize(FIELDS);
+        for (Future<List<JsonNode>> future : futures) {
+          List<JsonNode> read = future.get();
+          for (int i = 0; i < FIELDS; i++) {
+            assertThat(read.get(i)).isSameAs(expected.get(i));
+            assertThat(read.get(i).intValue()).isEqualTo(i + 1);
+          }
+        }
+        assertThat(((RawJsonObjectNode) node).isUnchanged()).isTrue();
+        assertThat(JsonUtils.toJsonBytes(node)).containsSame(bytes);
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  void testRemoveWhileIterating() throws Exception {
+    JsonNode node = JsonUtils.fromJsonBytes(JSON.getBytes(StandardCharsets.UTF_8));
+    Iterator<String> names = node.fieldNames();
+    while (names.hasNext()) {
+      if (names.next().equals("items")) {
+        names.remove();
+      }
+    }
+    assertThat(JsonUtils.toJsonBytes(node)).isEmpty();
+    assertThat(node)
+        .isEqualTo(JsonUtils.mapper().readTree("{\"name\":\"John\",\"enabled\":true}"));
+  }
+
+  private static List<JsonNode> readAll(JsonNode node, boolean iterate, CyclicBarrier barrier)
+      throws Exception {
+    barrier.await();
+    List<JsonNode> read = new ArrayList<>();
+    if (iterate) {
+      node.properties().forEach(e -> read.add(e.getValue().get("items").get(1)));
+    } else {
+      for (int i = 0; i < FIELDS; i++) {
+        read.add(node.get("field" + i).get("items").get(1));
+      }
+    }
+    return read;
+  }
+
+  @Test
+  void testScalars() {
+    assertThat(JsonUtils.fromJsonBytes(" 12 ".getBytes(StandardCharsets.UTF_8)).intValue())
+        .isEqualTo(12);
+    assertThat(JsonUtils.fromJsonBytes("null".getBytes(StandardCharsets.UTF_8)).isNull()).isTrue();
+    assertThat(JsonUtils.fromJsonBytes("[]".getBytes(StandardCharsets.UTF_8)).size()).isZero();
+  }
+}
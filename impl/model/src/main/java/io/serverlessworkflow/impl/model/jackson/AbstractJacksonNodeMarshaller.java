@@ -0,0 +1,92 @@
+/*
+ * Copyright 2020-Present The Serverless Workflow Specification Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.serverlessworkflow.impl.model.jackson;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import io.serverlessworkflow.impl.jackson.JsonUtils;
+import io.serverlessworkflow.impl.marshaller.WorkflowBufferInputStream;
+import io.serverlessworkflow.impl.marshaller.WorkflowBufferOutputStream;
+import io.serverlessworkflow.impl.marshaller.WorkflowInputBuffer;
+import io.serverlessworkflow.impl.marshaller.WorkflowOutputBuffer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Optional;
+
+/**
+ * Marshaller for objects wrapping a json tree.
+ *
+ * <p>Records written as json text are a single non empty byte array, which is what previous
+ * versions wrote. Binary records start with an empty byte array (never produced by the json text
+ * encoding) followed by the {@link JacksonModelFormat} id, and the encoded tree is streamed into
+ * the buffer as a sequence of chunks.
+ */
+public abstract class AbstractJacksonNodeMarshaller<T> extends AbstractJacksonMarshaller<T> {
+
+  private static final byte[] BINARY_MARK = new byte[0];
+
+  private final JacksonModelFormat format;
+
+  protected AbstractJacksonNodeMarshaller() {
+    this(JacksonModelFormat.fromSystemProperty());
+  }
+
+  protected AbstractJacksonNodeMarshaller(JacksonModelFormat format) {
+    this.format = format;
+  }
+
+  protected abstract JsonNode toNode(T object);
+
+  protected abstract T fromNode(JsonNode node);
+
+  @Override
+  public void write(WorkflowOutputBuffer buffer, T object) {
+    JsonNode node = toNode(object);
+    // unchanged nodes read from json are cheaper to copy than to encode again
+    Optional<byte[]> jsonBytes = JsonUtils.toJsonBytes(node);
+    if (jsonBytes.isPresent()) {
+      buffer.writeBytes(jsonBytes.get());
+    } else if (format == JacksonModelFormat.JSON) {
+      super.write(buffer, object);
+    } else {
+      buffer.writeBytes(BINARY_MARK).writeByte(format.id());
+      try (OutputStream out = new WorkflowBufferOutputStream(buffer);
+          JsonGenerator generator = format.mapper().createGenerator(out)) {
+        generator.writeTree(node);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
+
+  @Override
+  public T read(WorkflowInputBuffer buffer, Class<? extends T> clazz) {
+    byte[] jsonBytes = buffer.readBytes();
+    if (jsonBytes.length > 0) {
+      return fromNode(JsonUtils.fromJsonBytes(jsonBytes));
+    }
+    JacksonModelFormat recordFormat = JacksonModelFormat.fromId(buffer.readByte());
+    try (InputStream in = new WorkflowBufferInputStream(buffer);
+        JsonParser parser = recordFormat.mapper().createParser(in)) {
+      return fromNode(recordFormat.mapper().readTree(parser));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
@@ -15,8 +15,27 @@
  */
 package io.serverlessworkflow.impl.model.jackson;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+
 public class JacksonModelCollectionMarshaller
-    extends AbstractJacksonMarshaller<JacksonModelCollection> {
+    extends AbstractJacksonNodeMarshaller<JacksonModelCollection> {
+
+  public JacksonModelCollectionMarshaller() {}
+
+  public JacksonModelCollectionMarshaller(JacksonModelFormat format) {
+    super(format);
+  }
+
+  @Override
+  protected JsonNode toNode(JacksonModelCollection object) {
+    return object.node;
+  }
+
+  @Override
+  protected JacksonModelCollection fromNode(JsonNode node) {
+    return new JacksonModelCollection((ArrayNode) node);
+  }
 
   @Override
   public Class<JacksonModelCollection> getObjectClass() {
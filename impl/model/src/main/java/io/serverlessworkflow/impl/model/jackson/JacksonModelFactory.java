@@ -15,7 +15,6 @@
  */
 package io.serverlessworkflow.impl.model.jackson;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.DoubleNode;
 import com.fasterxml.jackson.databind.node.FloatNode;
@@ -30,7 +29,9 @@ import io.serverlessworkflow.impl.WorkflowModelCollection;
 import io.serverlessworkflow.impl.WorkflowModelFactory;
 import io.serverlessworkflow.impl.jackson.JacksonCloudEventUtils;
 import io.serverlessworkflow.impl.jackson.JsonUtils;
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.OffsetDateTime;
 import java.util.Map;
 
@@ -88,12 +89,20 @@ public class JacksonModelFactory implements WorkflowModelFactory {
   @Override
   public WorkflowModel from(String value) {
     try {
-      return new JacksonModel(JsonUtils.mapper().readTree(value));
-    } catch (JsonProcessingException ex) {
+      return new JacksonModel(
+          isContainer(value)
+              ? JsonUtils.fromValidJsonBytes(value.getBytes(StandardCharsets.UTF_8))
+              : JsonUtils.mapper().readTree(value));
+    } catch (IOException ex) {
       return new JacksonModel(new TextNode(value));
     }
   }
 
+  private static boolean isContainer(String value) {
+    String trimmed = value.stripLeading();
+    return trimmed.startsWith("{") || trimmed.startsWith("[");
+  }
+
   @Override
   public WorkflowModel from(CloudEvent ce) {
     return new JacksonModel(JacksonCloudEventUtils.toJsonNode(ce));
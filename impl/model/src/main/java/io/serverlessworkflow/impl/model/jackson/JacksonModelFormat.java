@@ -0,0 +1,73 @@
+/*
+ * Copyright 2020-Present The Serverless Workflow Specification Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.serverlessworkflow.impl.model.jackson;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import io.serverlessworkflow.impl.jackson.JsonUtils;
+import java.util.Locale;
+
+/**
+ * Encoding used to marshal Jackson models. {@link #JSON} is the default one, since it is what
+ * previous versions read. The binary formats can be opted into through the {@value
+ * #FORMAT_PROPERTY} system property or the marshaller constructors, but records written with them
+ * can only be read by versions that support these formats.
+ */
+public enum JacksonModelFormat {
+  JSON((byte) 0, JsonUtils.mapper()),
+  SMILE(
+      (byte) 1,
+      JsonUtils.mapper()
+          .copyWith(
+              SmileFactory.builder()
+                  .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+                  .build())),
+  CBOR((byte) 2, JsonUtils.mapper().copyWith(new CBORFactory()));
+
+  public static final String FORMAT_PROPERTY = "io.serverlessworkflow.impl.model.jackson.format";
+
+  private final byte id;
+  private final ObjectMapper mapper;
+
+  private JacksonModelFormat(byte id, ObjectMapper mapper) {
+    this.id = id;
+    this.mapper = mapper;
+  }
+
+  public byte id() {
+    return id;
+  }
+
+  public ObjectMapper mapper() {
+    return mapper;
+  }
+
+  public static JacksonModelFormat fromId(byte id) {
+    for (JacksonModelFormat format : values()) {
+      if (format.id == id) {
+        return format;
+      }
+    }
+    throw new IllegalArgumentException("Unknown jackson model format " + id);
+  }
+
+  static JacksonModelFormat fromSystemProperty() {
+    String format = System.getProperty(FORMAT_PROPERTY);
+    return format == null ? JSON : valueOf(format.toUpperCase(Locale.ROOT));
+  }
+}
@@ -15,14 +15,25 @@
  */
 package io.serverlessworkflow.impl.model.jackson;
 
-import io.serverlessworkflow.impl.marshaller.WorkflowInputBuffer;
+import com.fasterxml.jackson.databind.JsonNode;
 
-public class JacksonModelMarshaller extends AbstractJacksonMarshaller<JacksonModel> {
+public class JacksonModelMarshaller extends AbstractJacksonNodeMarshaller<JacksonModel> {
+
+  public JacksonModelMarshaller() {}
+
+  public JacksonModelMarshaller(JacksonModelFormat format) {
+    super(format);
+  }
+
+  @Override
+  protected JsonNode toNode(JacksonModel object) {
+    return object.node;
+  }
 
   @Override
-  public JacksonModel read(WorkflowInputBuffer buffer, Class<? extends JacksonModel> clazz) {
-    JacksonModel model = super.read(buffer, clazz);
-    return model == null ? JacksonModel.NULL : model;
+  protected JacksonModel fromNode(JsonNode node) {
+    // objects and arrays read from json text are parsed on demand
+    return node == null || node.isNull() ? JacksonModel.NULL : new JacksonModel(node);
   }
 
   @Override
@@ -17,14 +17,21 @@ package io.serverlessworkflow.impl.model.jackson;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import com.fasterxml.jackson.databind.node.ArrayNode;
 import io.serverlessworkflow.impl.jackson.JsonUtils;
+import io.serverlessworkflow.impl.marshaller.CustomObjectMarshaller;
 import io.serverlessworkflow.impl.marshaller.DefaultBufferFactory;
+import io.serverlessworkflow.impl.marshaller.DefaultInputBuffer;
+import io.serverlessworkflow.impl.marshaller.DefaultOutputBuffer;
 import io.serverlessworkflow.impl.marshaller.WorkflowBufferFactory;
 import io.serverlessworkflow.impl.marshaller.WorkflowInputBuffer;
 import io.serverlessworkflow.impl.marshaller.WorkflowOutputBuffer;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.util.List;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
 
 class JacksonModelSerializationTest {
 
@@ -49,6 +56,42 @@ class JacksonModelSerializationTest {
     testMarshallUnMarshall(new JacksonModelCollection(JsonUtils.mapper().createArrayNode().add(1)));
   }
 
+  @ParameterizedTest
+  @EnumSource(JacksonModelFormat.class)
+  void testFormat(JacksonModelFormat format) {
+    ArrayNode items = JsonUtils.mapper().createArrayNode();
+    for (int i = 0; i < 5000; i++) {
+      items.add(JsonUtils.mapper().createObjectNode().put("name", "Mortadelo").put("index", i));
+    }
+    JacksonModel model =
+        new JacksonModel(
+            JsonUtils.mapper().createObjectNode().put("agency", "TIA").set("items", items));
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    try (WorkflowOutputBuffer writer = new DefaultOutputBuffer(output, marshallers(format))) {
+      writer.writeObject(model);
+      writer.writeObject(new JacksonModelCollection(items));
+      writer.writeInt(7);
+    }
+    // records are readable no matter the format the reader is configured with
+    ByteArrayInputStream input = new ByteArrayInputStream(output.toByteArray());
+    try (WorkflowInputBuffer reader =
+        new DefaultInputBuffer(input, marshallers(JacksonModelFormat.JSON))) {
+      assertThat(reader.readObject()).isEqualTo(model);
+      assertThat(reader.readObject()).isEqualTo(new JacksonModelCollection(items));
+      assertThat(reader.readInt()).isEqualTo(7);
+    }
+  }
+
+  @Test
+  void testJsonIsTheDefaultFormat() {
+    assertThat(JacksonModelFormat.fromSystemProperty()).isEqualTo(JacksonModelFormat.JSON);
+  }
+
+  private static List<CustomObjectMarshaller> marshallers(JacksonModelFormat format) {
+    return List.of(
+        new JacksonModelMarshaller(format), new JacksonModelCollectionMarshaller(format));
+  }
+
   private void testMarshallUnMarshall(Object object) {
     WorkflowBufferFactory factory = DefaultBufferFactory.factory();
     ByteArrayOutputStream output = new ByteArrayOutputStream();
@@ -20,15 +20,18 @@ import io.serverlessworkflow.impl.WorkflowDefinition;
 import io.serverlessworkflow.impl.WorkflowInstance;
 import io.serverlessworkflow.impl.events.EventRegistrationBuilder;
 import io.serverlessworkflow.impl.scheduler.AllStrategyCorrelationInfo;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -39,21 +42,36 @@ public abstract class AbstractAllStrategyCorrelationInfo implements AllStrategyC
 
   protected final WorkflowDefinition definition;
   private final PersistenceExecutor executor;
+  private final CorrelationCompactor compactor;
   private final Map<EventRegistrationBuilder, String> reg2IdMapping = new HashMap<>();
   private final Map<String, EventRegistrationBuilder> id2RegMapping = new HashMap<>();
+  private final Map<String, CorrelationRetention> retentions = new HashMap<>();
 
   private static final Logger logger =
       LoggerFactory.getLogger(AbstractAllStrategyCorrelationInfo.class);
 
   private int counter;
+  // events not correlated yet, by registration id and then by event id, as the store keys them, so
+  // a redelivered event is only counted once. They are loaded from the store on startup and then
+  // maintained incrementally. It is only accessed from the sequential correlation chain
+  private Map<String, Map<String, PendingEvent>> pendingEvents;
+  private int nonEmptyRegs;
+  private long retainedEvents;
   private CompletableFuture<Collection<Map<EventRegistrationBuilder, CloudEvent>>>
       completableFuture;
   private Consumer<Map<EventRegistrationBuilder, CloudEvent>> starter;
+  private ScheduledFuture<?> compaction;
 
   public AbstractAllStrategyCorrelationInfo(
       WorkflowDefinition definition, PersistenceExecutor executor) {
+    this(definition, executor, CorrelationCompactor.unbounded());
+  }
+
+  AbstractAllStrategyCorrelationInfo(
+      WorkflowDefinition definition, PersistenceExecutor executor, CorrelationCompactor compactor) {
     this.definition = definition;
     this.executor = executor;
+    this.compactor = compactor;
     this.completableFuture = CompletableFuture.completedFuture(List.of());
   }
 
@@ -71,9 +89,27 @@ public abstract class AbstractAllStrategyCorrelationInfo implements AllStrategyC
           String id = generateIdFromReg(reg);
           id2RegMapping.put(id, reg);
           reg2IdMapping.put(reg, id);
+          retentions.put(id, compactor.retention(reg));
         });
     this.starter = starter;
     queueCorrelation(operations -> startupCheck(operations), starter);
+    compaction = compactor.schedule(this::compact);
+  }
+
+  /**
+   * Queues the removal of the expired events, of the events exceeding the max count of their
+   * registration and of the processed markers whose event is gone, in transactions of at most the
+   * configured batch size
+   */
+  public void compact() {
+    queueCorrelation(operations -> compact(operations), starter);
+  }
+
+  @Override
+  public void close() {
+    if (compaction != null) {
+      compaction.cancel(false);
+    }
   }
 
   private void queueCorrelation(
@@ -86,6 +122,8 @@ public abstract class AbstractAllStrategyCorrelationInfo implements AllStrategyC
               .thenCompose(v -> executor.execute(() -> doTransaction(function), definition))
               .exceptionally(
                   ex -> {
+                    // the store transaction was rolled back, reload the index from it
+                    unloadPendingEvents();
                     logger.error(
                         "Exception processing correlation task for definition {}",
                         definition.id(),
@@ -100,15 +138,126 @@ public abstract class AbstractAllStrategyCorrelationInfo implements AllStrategyC
       CorrelationOperations operations, String reg, CloudEvent event) {
     logger.debug(
         "Received event {} for definition {} and registration {}", event, definition.id(), reg);
-    Map<String, Collection<CloudEvent>> events = initMap();
-    operations.retrieveEvents(events);
-    events.get(reg).add(event);
-    Collection<Map<EventRegistrationBuilder, CloudEvent>> result = checkCorrelation(events);
+    Collection<Map<EventRegistrationBuilder, CloudEvent>> result = new ArrayList<>();
+    if (pendingEvents == null) {
+      result.addAll(loadPendingEvents(operations));
+    }
+    Map<String, PendingEvent> regEvents = pendingEvents.get(reg);
+    if (regEvents.putIfAbsent(event.getId(), PendingEvent.of(event, Instant.now())) == null) {
+      retained(1);
+      if (regEvents.size() == 1) {
+        nonEmptyRegs++;
+      }
+    }
     operations.storeEvent(reg, event);
-    markProcessed(operations, result);
+    if (hasPendingRow()) {
+      Collection<Map<EventRegistrationBuilder, CloudEvent>> matched = List.of(pollPendingRow());
+      markProcessed(operations, matched);
+      result.addAll(matched);
+    } else if (regEvents.size() > retentions.get(reg).maxCount()) {
+      Iterator<String> iter = regEvents.keySet().iterator();
+      String evicted = iter.next();
+      iter.remove();
+      retained(-1);
+      operations.removeEvents(reg, List.of(evicted));
+      compactor.evicted(1);
+    }
     return result;
   }
 
+  private Collection<Map<EventRegistrationBuilder, CloudEvent>> compact(
+      CorrelationOperations operations) {
+    Collection<Map<EventRegistrationBuilder, CloudEvent>> result = new ArrayList<>();
+    if (pendingEvents == null) {
+      result.addAll(loadPendingEvents(operations));
+    }
+    Instant now = Instant.now();
+    int budget = compactor.batchSize();
+    long expired = 0;
+    long evicted = 0;
+    long purged = 0;
+    for (Entry<String, Map<String, PendingEvent>> item : pendingEvents.entrySet()) {
+      if (budget == 0) {
+        break;
+      }
+      CorrelationRetention retention = retentions.get(item.getKey());
+      Map<String, PendingEvent> regEvents = item.getValue();
+      int overflow = regEvents.size() - retention.maxCount();
+      Collection<String> removed = new ArrayList<>();
+      Iterator<Entry<String, PendingEvent>> iter = regEvents.entrySet().iterator();
+      while (iter.hasNext() && removed.size() < budget) {
+        Entry<String, PendingEvent> event = iter.next();
+        if (overflow > 0) {
+          overflow--;
+          evicted++;
+        } else if (retention.isExpired(event.getValue().receivedAt(), now)) {
+          expired++;
+        } else if (retention.timeToLive() == null) {
+          break;
+        } else {
+          continue;
+        }
+        removed.add(event.getKey());
+        iter.remove();
+      }
+      if (!removed.isEmpty()) {
+        if (regEvents.isEmpty()) {
+          nonEmptyRegs--;
+        }
+        retained(-removed.size());
+        operations.removeEvents(item.getKey(), removed);
+        budget -= removed.size();
+      }
+      if (budget > 0) {
+        int purgedMarkers = operations.purgeProcessed(item.getKey(), budget);
+        purged += purgedMarkers;
+        budget -= purgedMarkers;
+      }
+    }
+    logger.debug(
+        "Compacted correlation events for definition {}: {} expired, {} evicted, {} markers",
+        definition.id(),
+        expired,
+        evicted,
+        purged);
+    compactor.evicted(evicted);
+    compactor.compacted(expired, purged);
+    if (budget == 0) {
+      // the batch is full, there might be more to remove
+      compact();
+    }
+    return result;
+  }
+
+  private void retained(long delta) {
+    retainedEvents += delta;
+    compactor.retained(delta);
+  }
+
+  private boolean hasPendingRow() {
+    return !pendingEvents.isEmpty() && nonEmptyRegs == pendingEvents.size();
+  }
+
+  private Map<EventRegistrationBuilder, CloudEvent> pollPendingRow() {
+    Map<EventRegistrationBuilder, CloudEvent> row = new HashMap<>();
+    for (Entry<String, Map<String, PendingEvent>> item : pendingEvents.entrySet()) {
+      Iterator<PendingEvent> iter = item.getValue().values().iterator();
+      row.put(id2RegMapping.get(item.getKey()), iter.next().event());
+      iter.remove();
+      if (item.getValue().isEmpty()) {
+        nonEmptyRegs--;
+      }
+    }
+    retained(-row.size());
+    return row;
+  }
+
+  private void unloadPendingEvents() {
+    pendingEvents = null;
+    nonEmptyRegs = 0;
+    retained(-retainedEvents);
+  }
+
   private Map<String, Collection<CloudEvent>> initMap() {
     return id2RegMapping.keySet().stream()
         .collect(Collectors.toMap(k -> k, k -> new LinkedHashSet<>()));
@@ -118,36 +267,32 @@ public abstract class AbstractAllStrategyCorrelationInfo implements AllStrategyC
       CorrelationOperations operations) {
     logger.debug("Checking cloud events for definition {}", definition.id());
     operations.clearProcessed();
-    Map<String, Collection<CloudEvent>> events = initMap();
-    operations.retrieveEvents(events);
-    Collection<Map<EventRegistrationBuilder, CloudEvent>> result = checkCorrelation(events);
-    markProcessed(operations, result);
-    return result;
+    return loadPendingEvents(operations);
   }
 
-  private final Collection<Map<EventRegistrationBuilder, CloudEvent>> checkCorrelation(
-      Map<String, Collection<CloudEvent>> events) {
+  private Collection<Map<EventRegistrationBuilder, CloudEvent>> loadPendingEvents(
+      CorrelationOperations operations) {
+    Map<String, Collection<CloudEvent>> events = initMap();
+    operations.retrieveEvents(events);
     logger.debug("Stored CloudEvents for definition {} are {}", definition.id(), events);
-    Collection<Map<EventRegistrationBuilder, CloudEvent>> result = new ArrayList<>();
-    Map<String, Iterator<CloudEvent>> iteratingEvents =
-        events.entrySet().stream()
-            .collect(Collectors.toMap(Entry::getKey, e -> e.getValue().iterator()));
-    boolean notDone = true;
-    while (notDone) {
-      Map<EventRegistrationBuilder, CloudEvent> row = new HashMap<>();
-      for (Entry<String, Iterator<CloudEvent>> item : iteratingEvents.entrySet()) {
-        Iterator<CloudEvent> iter = item.getValue();
-        if (!iter.hasNext()) {
-          notDone = false;
-          break;
-        }
-        row.put(id2RegMapping.get(item.getKey()), iter.next());
-        iter.remove();
-      }
-      if (notDone) {
-        result.add(row);
+    unloadPendingEvents();
+    Instant now = Instant.now();
+    pendingEvents = new HashMap<>();
+    for (Entry<String, Collection<CloudEvent>> item : events.entrySet()) {
+      Map<String, PendingEvent> regEvents = new LinkedHashMap<>();
+      item.getValue()
+          .forEach(event -> regEvents.putIfAbsent(event.getId(), PendingEvent.of(event, now)));
+      pendingEvents.put(item.getKey(), regEvents);
+      if (!regEvents.isEmpty()) {
+        nonEmptyRegs++;
       }
+      retained(regEvents.size());
+    }
+    Collection<Map<EventRegistrationBuilder, CloudEvent>> result = new ArrayList<>();
+    while (hasPendingRow()) {
+      result.add(pollPendingRow());
     }
+    markProcessed(operations, result);
     return result;
   }
 
@@ -187,4 +332,10 @@ public abstract class AbstractAllStrategyCorrelationInfo implements AllStrategyC
     final String separator = ":";
     return definition.id().toString(separator) + separator + ++counter;
   }
+
+  private record PendingEvent(CloudEvent event, Instant receivedAt) {
+    static PendingEvent of(CloudEvent event, Instant now) {
+      return new PendingEvent(event, event.getTime() == null ? now : event.getTime().toInstant());
+    }
+  }
 }
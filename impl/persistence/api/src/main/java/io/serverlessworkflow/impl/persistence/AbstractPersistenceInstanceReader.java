@@ -17,6 +17,7 @@ package io.serverlessworkflow.impl.persistence;
 
 import io.serverlessworkflow.impl.WorkflowDefinition;
 import io.serverlessworkflow.impl.WorkflowInstance;
+import io.serverlessworkflow.impl.WorkflowStatus;
 import java.util.Optional;
 import java.util.stream.Stream;
 
@@ -31,6 +32,25 @@ public abstract class AbstractPersistenceInstanceReader implements PersistenceIn
         .map(v -> WorkflowPersistenceInstance.of(definition, v));
   }
 
+  protected final Stream<WorkflowInstance> scanByApplication(
+      PersistenceInstanceOperations operations,
+      WorkflowDefinition definition,
+      String applicationId) {
+    return operations
+        .scanByApplication(applicationId, definition)
+        .map(v -> WorkflowPersistenceInstance.of(definition, v));
+  }
+
+  protected final Stream<WorkflowInstance> scanByStatus(
+      PersistenceInstanceOperations operations,
+      WorkflowDefinition definition,
+      String applicationId,
+      WorkflowStatus status) {
+    return operations
+        .scanByStatus(applicationId, status, definition)
+        .map(v -> WorkflowPersistenceInstance.of(definition, v));
+  }
+
   protected final Optional<WorkflowInstance> find(
       PersistenceInstanceOperations operations, WorkflowDefinition definition, String instanceId) {
     return operations
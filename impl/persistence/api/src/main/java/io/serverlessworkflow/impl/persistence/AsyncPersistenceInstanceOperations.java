@@ -0,0 +1,46 @@
+/*
+ * Copyright 2020-Present The Serverless Workflow Specification Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.serverlessworkflow.impl.persistence;
+
+import io.serverlessworkflow.impl.TaskContextData;
+import io.serverlessworkflow.impl.WorkflowContextData;
+import io.serverlessworkflow.impl.WorkflowStatus;
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Non blocking counterpart of the write operations of {@link PersistenceInstanceOperations}. The
+ * returned stages might complete before the data is durable, which is only guaranteed once the
+ * transaction commit completes
+ */
+public interface AsyncPersistenceInstanceOperations {
+
+  CompletionStage<Void> writeInstanceData(WorkflowContextData workflowContext);
+
+  CompletionStage<Void> writeRetryTask(
+      WorkflowContextData workflowContext, TaskContextData taskContext);
+
+  CompletionStage<Void> writeCompletedTask(
+      WorkflowContextData workflowContext, TaskContextData taskContext);
+
+  CompletionStage<Void> writeStatus(WorkflowContextData workflowContext, WorkflowStatus status);
+
+  CompletionStage<Void> removeProcessInstance(WorkflowContextData workflowContext);
+
+  CompletionStage<Void> clearStatus(WorkflowContextData workflowContext);
+
+  CompletionStage<Void> removeCloudEvents(Map<String, String> ids);
+}
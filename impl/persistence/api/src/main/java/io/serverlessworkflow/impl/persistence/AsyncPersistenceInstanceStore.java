@@ -0,0 +1,36 @@
+/*
+ * Copyright 2020-Present The Serverless Workflow Specification Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.serverlessworkflow.impl.persistence;
+
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Store whose transactions do not block the caller, meant for stores with native asynchronous
+ * I/O. Blocking stores can be used through {@link #from(PersistenceInstanceStore,
+ * PersistenceExecutor)}
+ */
+public interface AsyncPersistenceInstanceStore extends AutoCloseable {
+
+  CompletionStage<AsyncPersistenceInstanceTransaction> begin();
+
+  @Override
+  default void close() {}
+
+  static AsyncPersistenceInstanceStore from(
+      PersistenceInstanceStore store, PersistenceExecutor executor) {
+    return new BlockingAsyncPersistenceInstanceStore(store, executor);
+  }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2020-Present The Serverless Workflow Specification Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.serverlessworkflow.impl.persistence;
+
+import io.serverlessworkflow.impl.TaskContextData;
+import io.serverlessworkflow.impl.WorkflowContextData;
+import io.serverlessworkflow.impl.WorkflowDefinition;
+import io.serverlessworkflow.impl.WorkflowDefinitionData;
+import io.serverlessworkflow.impl.WorkflowStatus;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writer that chains the operations on an {@link AsyncPersistenceInstanceStore}, so no thread is
+ * blocked while the store performs its I/O. A transaction is rolled back if any of its stages,
+ * including the commit, fails.
+ *
+ * <p>The lifecycle mapping is inherited from {@link AbstractPersistenceInstanceWriter}: the
+ * operations it performs are recorded and then applied, in order, to the asynchronous transaction.
+ */
+public class AsyncPersistenceInstanceWriter extends AbstractPersistenceInstanceWriter {
+
+  private static final Logger logger =
+      LoggerFactory.getLogger(AsyncPersistenceInstanceWriter.class);
+
+  private final AsyncPersistenceInstanceStore store;
+
+  protected AsyncPersistenceInstanceWriter(AsyncPersistenceInstanceStore store) {
+    this.store = store;
+  }
+
+  @Override
+  protected CompletableFuture<Void> doTransaction(
+      Consumer<PersistenceInstanceOperations> operation, WorkflowContextData context) {
+    RecordedOperations recorded = new RecordedOperations();
+    operation.accept(recorded);
+    WorkflowDefinitionData definition = context.definition();
+    return store
+        .begin()
+        .thenCompose(
+            t ->
+                recorded
+                    .apply(t)
+                    .thenCompose(v -> t.commit(definition))
+                    .handle(
+                        (v, ex) ->
+                            ex == null
+                                ? CompletableFuture.<Void>completedStage(null)
+                                : rollback(t, definition, ex))
+                    .thenCompose(Function.identity()))
+        .toCompletableFuture();
+  }
+
+  private CompletionStage<Void> rollback(
+      AsyncPersistenceInstanceTransaction transaction,
+      WorkflowDefinitionData definition,
+      Throwable ex) {
+    CompletionStage<Void> rollback;
+    try {
+      rollback = transaction.rollback(definition);
+    } catch (RuntimeException rollEx) {
+      rollback = CompletableFuture.failedStage(rollEx);
+    }
+    return rollback
+        .exceptionally(
+            rollEx -> {
+              logger.warn("Exception during rollback. Ignoring it", rollEx);
+              return null;
+            })
+        .thenCompose(v -> CompletableFuture.failedStage(ex));
+  }
+
+  /** Records the writes of the lifecycle mapping, reads are not expected there */
+  private static class RecordedOperations implements PersistenceInstanceOperations {
+
+    private final List<Function<AsyncPersistenceInstanceOperations, CompletionStage<Void>>>
+        operations = new ArrayList<>();
+
+    /** Applies the recorded operations one after the other, starting each once the previous ends */
+    CompletionStage<Void> apply(AsyncPersistenceInstanceOperations transaction) {
+      CompletionStage<Void> stage = CompletableFuture.completedStage(null);
+      for (Function<AsyncPersistenceInstanceOperations, CompletionStage<Void>> operation :
+          operations) {
+        stage = stage.thenCompose(v -> operation.apply(transaction));
+      }
+      return stage;
+    }
+
+    @Override
+    public void writeInstanceData(WorkflowContextData workflowContext) {
+      operations.add(t -> t.writeInstanceData(workflowContext));
+    }
+
+    @Override
+    public void writeRetryTask(WorkflowContextData workflowContext, TaskContextData taskContext) {
+      operations.add(t -> t.writeRetryTask(workflowContext, taskContext));
+    }
+
+    @Override
+    public void writeCompletedTask(
+        WorkflowContextData workflowContext, TaskContextData taskContext) {
+      operations.add(t -> t.writeCompletedTask(workflowContext, taskContext));
+    }
+
+    @Override
+    public void writeStatus(WorkflowContextData workflowContext, WorkflowStatus status) {
+      operations.add(t -> t.writeStatus(workflowContext, status));
+    }
+
+    @Override
+    public void removeProcessInstance(WorkflowContextData workflowContext) {
+      operations.add(t -> t.removeProcessInstance(workflowContext));
+    }
+
+    @Override
+    public void clearStatus(WorkflowContextData workflowContext) {
+      operations.add(t -> t.clearStatus(workflowContext));
+    }
+
+    @Override
+    public void removeCloudEvents(Map<String, String> ids) {
+      operations.add(t -> t.removeCloudEvents(ids));
+    }
+
+    @Override
+    public Stream<PersistenceWorkflowInfo> scanAll(
+        String applicationId, WorkflowDefinition definition) {
+      throw unsupportedRead();
+    }
+
+    @Override
+    public List<String> scanIds(
+        String applicationId, WorkflowDefinition definition, String afterId, int limit) {
+      throw unsupportedRead();
+    }
+
+    @Override
+    public Stream<PersistenceWorkflowInfo> scanByApplication(
+        String applicationId, WorkflowDefinition definition) {
+      throw unsupportedRead();
+    }
+
+    @Override
+    public Stream<PersistenceWorkflowInfo> scanByStatus(
+        String applicationId, WorkflowStatus status, WorkflowDefinition definition) {
+      throw unsupportedRead();
+    }
+
+    @Override
+    public Optional<PersistenceWorkflowInfo> readWorkflowInfo(
+        WorkflowDefinition definition, String instanceId) {
+      throw unsupportedRead();
+    }
+
+    private static UnsupportedOperationException unsupportedRead() {
+      return new UnsupportedOperationException("Asynchronous writers do not support reads");
+    }
+  }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2020-Present The Serverless Workflow Specification Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.serverlessworkflow.impl.persistence;
+
+import io.serverlessworkflow.impl.TaskContextData;
+import io.serverlessworkflow.impl.WorkflowContextData;
+import io.serverlessworkflow.impl.WorkflowDefinitionData;
+import io.serverlessworkflow.impl.WorkflowStatus;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Consumer;
+
+/**
+ * Adapts a blocking store to the asynchronous SPI. Operations are recorded and replayed, within a
+ * single store transaction, on the persistence executor when the transaction is committed, so
+ * there is one executor hop per transaction.
+ */
+class BlockingAsyncPersistenceInstanceStore implements AsyncPersistenceInstanceStore {
+
+  private static final CompletionStage<Void> DONE = CompletableFuture.completedStage(null);
+
+  private final PersistenceInstanceStore store;
+  private final PersistenceExecutor executor;
+
+  BlockingAsyncPersistenceInstanceStore(
+      PersistenceInstanceStore store, PersistenceExecutor executor) {
+    this.store = store;
+    this.executor = executor;
+  }
+
+  @Override
+  public CompletionStage<AsyncPersistenceInstanceTransaction> begin() {
+    return CompletableFuture.completedFuture(new RecordingTransaction());
+  }
+
+  @Override
+  public void close() {
+    executor.close();
+  }
+
+  private class RecordingTransaction implements AsyncPersistenceInstanceTransaction {
+
+    private final List<Consumer<PersistenceInstanceOperations>> operations = new ArrayList<>();
+    private WorkflowContextData context;
+
+    private CompletionStage<Void> record(
+        WorkflowContextData workflowContext, Consumer<PersistenceInstanceOperations> operation) {
+      if (workflowContext != null) {
+        context = workflowContext;
+      }
+      operations.add(operation);
+      return DONE;
+    }
+
+    @Override
+    public CompletionStage<Void> writeInstanceData(WorkflowContextData workflowContext) {
+      return record(workflowContext, t -> t.writeInstanceData(workflowContext));
+    }
+
+    @Override
+    public CompletionStage<Void> writeRetryTask(
+        WorkflowContextData workflowContext, TaskContextData taskContext) {
+      return record(workflowContext, t -> t.writeRetryTask(workflowContext, taskContext));
+    }
+
+    @Override
+    public CompletionStage<Void> writeCompletedTask(
+        WorkflowContextData workflowContext, TaskContextData taskContext) {
+      return record(workflowContext, t -> t.writeCompletedTask(workflowContext, taskContext));
+    }
+
+    @Override
+    public CompletionStage<Void> writeStatus(
+        WorkflowContextData workflowContext, WorkflowStatus status) {
+      return record(workflowContext, t -> t.writeStatus(workflowContext, status));
+    }
+
+    @Override
+    public CompletionStage<Void> removeProcessInstance(WorkflowContextData workflowContext) {
+      return record(workflowContext, t -> t.removeProcessInstance(workflowContext));
+    }
+
+    @Override
+    public CompletionStage<Void> clearStatus(WorkflowContextData workflowContext) {
+      return record(workflowContext, t -> t.clearStatus(workflowContext));
+    }
+
+    @Override
+    public CompletionStage<Void> removeCloudEvents(Map<String, String> ids) {
+      return record(null, t -> t.removeCloudEvents(ids));
+    }
+
+    @Override
+    public CompletionStage<Void> commit(WorkflowDefinitionData definition) {
+      if (operations.isEmpty()) {
+        return DONE;
+      }
+      Consumer<PersistenceInstanceOperations> replay = t -> operations.forEach(o -> o.accept(t));
+      Runnable runnable =
+          () -> DefaultPersistenceInstanceWriter.runInTransaction(store, replay, definition);
+      return context == null
+          ? executor.execute(runnable, definition)
+          : executor.execute(runnable, context);
+    }
+
+    @Override
+    public CompletionStage<Void> rollback(WorkflowDefinitionData definition) {
+      operations.clear();
+      return DONE;
+    }
+  }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2020-Present The Serverless Workflow Specification Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.serverlessworkflow.impl.persistence;
+
+import io.serverlessworkflow.api.types.DoTask;
+import io.serverlessworkflow.api.types.ForTask;
+import io.serverlessworkflow.api.types.ForkTask;
+import io.serverlessworkflow.api.types.RaiseTask;
+import io.serverlessworkflow.api.types.SetTask;
+import io.serverlessworkflow.api.types.SwitchTask;
+import io.serverlessworkflow.api.types.TaskBase;
+import io.serverlessworkflow.api.types.TaskItem;
+import io.serverlessworkflow.api.types.TryTask;
+import io.serverlessworkflow.impl.WorkflowInstance;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+class CheckpointPolicies {
+
+  private CheckpointPolicies() {}
+
+  private static final String METADATA_PREFIX = "CheckpointPolicy";
+  private static final AtomicInteger metadataCounter = new AtomicInteger();
+
+  static final CheckpointPolicy ALWAYS = (workflow, task) -> true;
+
+  static final CheckpointPolicy SIDE_EFFECTS = (workflow, task) -> hasSideEffects(task.task());
+
+  // flow tasks containing side effects are persisted too, otherwise the whole flow, including
+  // the side effects already persisted within it, is executed again on restore
+  private static boolean hasSideEffects(TaskBase task) {
+    if (task instanceof DoTask doTask) {
+      return hasSideEffects(doTask.getDo());
+    } else if (task instanceof ForTask forTask) {
+      return hasSideEffects(forTask.getDo());
+    } else if (task instanceof ForkTask forkTask) {
+      return hasSideEffects(forkTask.getFork().getBranches());
+    } else if (task instanceof TryTask tryTask) {
+      return hasSideEffects(tryTask.getTry())
+          || (tryTask.getCatch() != null && hasSideEffects(tryTask.getCatch().getDo()));
+    }
+    return !(task instanceof SetTask || task instanceof SwitchTask || task instanceof RaiseTask);
+  }
+
+  private static boolean hasSideEffects(List<TaskItem> items) {
+    return items != null
+        && items.stream().anyMatch(item -> hasSideEffects((TaskBase) item.getTask().get()));
+  }
+
+  static CheckpointPolicy everyTasks(int count) {
+    if (count < 1) {
+      throw new IllegalArgumentException("Task count must be positive: " + count);
+    }
+    String key = metadataKey();
+    return (workflow, task) -> {
+      // instances that cannot hold metadata are always persisted
+      if (!(workflow.instanceData() instanceof WorkflowInstance instance)) {
+        return true;
+      }
+      return hasSideEffects(task.task())
+          || instance.addMetadataIfAbsent(key, AtomicInteger::new).incrementAndGet() % count == 0;
+    };
+  }
+
+  static CheckpointPolicy interval(Duration interval) {
+    long millis = interval.toMillis();
+    String key = metadataKey();
+    return (workflow, task) -> {
+      if (!(workflow.instanceData() instanceof WorkflowInstance instance)) {
+        return true;
+      }
+      AtomicLong last =
+          instance.addMetadataIfAbsent(
+              key, () -> new AtomicLong(instance.startedAt().toEpochMilli()));
+      long now = System.currentTimeMillis();
+      if (hasSideEffects(task.task())) {
+        last.set(now);
+        return true;
+      }
+      long previous = last.get();
+      return now - previous >= millis && last.compareAndSet(previous, now);
+    };
+  }
+
+  // every stateful policy keeps its own per instance state
+  private static String metadataKey() {
+    return METADATA_PREFIX + metadataCounter.incrementAndGet();
+  }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2020-Present The Serverless Workflow Specification Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.serverlessworkflow.impl.persistence;
+
+import io.serverlessworkflow.impl.TaskContextData;
+import io.serverlessworkflow.impl.WorkflowContextData;
+import java.time.Duration;
+
+/**
+ * Decides whether the completion of a task is persisted. Tasks whose completion is not persisted
+ * are executed again when the instance is restored, so policies should only skip tasks without
+ * external effects.
+ */
+@FunctionalInterface
+public interface CheckpointPolicy {
+
+  boolean isCheckpoint(WorkflowContextData workflowContext, TaskContextData taskContext);
+
+  /**
+   * Both policies are always evaluated, so stateful policies (see {@link #everyTasks(int)} and
+   * {@link #interval(Duration)}) keep track of every task
+   */
+  default CheckpointPolicy or(CheckpointPolicy other) {
+    return (workflow, task) -> isCheckpoint(workflow, task) | other.isCheckpoint(workflow, task);
+  }
+
+  /** Persists every completed task, which is the default */
+  static CheckpointPolicy always() {
+    return CheckpointPolicies.ALWAYS;
+  }
+
+  /**
+   * Persists the tasks that might have external effects or might suspend the instance: call, emit,
+   * run, listen and wait tasks, plus any task type not known by this policy, and the completion of
+   * flow tasks (do, for, fork and try) containing any of them. Set, switch and raise tasks and the
+   * completion of flow tasks containing only those are not persisted.
+   */
+  static CheckpointPolicy sideEffects() {
+    return CheckpointPolicies.SIDE_EFFECTS;
+  }
+
+  /**
+   * Persists one of every {@code count} completed tasks of an instance. Tasks persisted by {@link
+   * #sideEffects()} are always persisted and not counted.
+   */
+  static CheckpointPolicy everyTasks(int count) {
+    return CheckpointPolicies.everyTasks(count);
+  }
+
+  /**
+   * Persists the first task completed once {@code interval} has elapsed since the previous
+   * checkpoint (or since the instance was started) of an instance. Tasks persisted by {@link
+   * #sideEffects()} are always persisted.
+   */
+  static CheckpointPolicy interval(Duration interval) {
+    return CheckpointPolicies.interval(interval);
+  }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2020-Present The Serverless Workflow Specification Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.serverlessworkflow.impl.persistence;
+
+import io.serverlessworkflow.impl.events.EventRegistrationBuilder;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Retention settings and counters shared by the correlation infos of a factory. If a compaction
+ * interval is set, it owns the thread that periodically triggers their compaction.
+ */
+class CorrelationCompactor implements AutoCloseable {
+
+  static final int DEFAULT_BATCH_SIZE = 500;
+
+  private final Function<EventRegistrationBuilder, CorrelationRetention> retention;
+  private final Duration interval;
+  private final int batchSize;
+  private final ScheduledExecutorService service;
+
+  private final LongAdder retained = new LongAdder();
+  private final LongAdder expired = new LongAdder();
+  private final LongAdder evicted = new LongAdder();
+  private final LongAdder purged = new LongAdder();
+  private final LongAdder compactions = new LongAdder();
+
+  CorrelationCompactor(
+      Function<EventRegistrationBuilder, CorrelationRetention> retention,
+      Duration interval,
+      int batchSize) {
+    if (batchSize < 1) {
+      throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+    }
+    this.retention = retention;
+    this.interval = interval;
+    this.batchSize = batchSize;
+    this.service =
+        interval == null
+            ? null
+            : Executors.newSingleThreadScheduledExecutor(
+                r -> {
+                  Thread thread = new Thread(r, "correlation-compactor");
+                  thread.setDaemon(true);
+                  return thread;
+                });
+  }
+
+  static CorrelationCompactor unbounded() {
+    return new CorrelationCompactor(
+        reg -> CorrelationRetention.unbounded(), null, DEFAULT_BATCH_SIZE);
+  }
+
+  CorrelationRetention retention(EventRegistrationBuilder reg) {
+    return retention.apply(reg);
+  }
+
+  int batchSize() {
+    return batchSize;
+  }
+
+  ScheduledFuture<?> schedule(Runnable compaction) {
+    if (service == null) {
+      return null;
+    }
+    long millis = interval.toMillis();
+    return service.scheduleWithFixedDelay(compaction, millis, millis, TimeUnit.MILLISECONDS);
+  }
+
+  void retained(long delta) {
+    retained.add(delta);
+  }
+
+  void compacted(long expiredEvents, long purgedMarkers) {
+    expired.add(expiredEvents);
+    purged.add(purgedMarkers);
+    compactions.increment();
+  }
+
+  void evicted(long evictedEvents) {
+    evicted.add(evictedEvents);
+  }
+
+  CorrelationEventStats stats() {
+    return new CorrelationEventStats(
+        retained.sum(), expired.sum(), evicted.sum(), purged.sum(), compactions.sum());
+  }
+
+  @Override
+  public void close() {
+    if (service != null) {
+      service.shutdownNow();
+    }
+  }
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright 2020-Present The Serverless Workflow Specification Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.serverlessworkflow.impl.persistence;
+
+/**
+ * Counters of the stored correlation events, aggregated over the definitions of a factory
+ *
+ * @param retainedEvents events currently waiting to be correlated
+ * @param expiredEvents events removed because their time to live elapsed
+ * @param evictedEvents events removed because their registration exceeded its max count
+ * @param purgedMarkers processed markers removed once their event was gone
+ * @param compactions compaction transactions performed
+ */
+public record CorrelationEventStats(
+    long retainedEvents,
+    long expiredEvents,
+    long evictedEvents,
+    long purgedMarkers,
+    long compactions) {}
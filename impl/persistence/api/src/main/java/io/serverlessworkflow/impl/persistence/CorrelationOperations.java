@@ -30,4 +30,15 @@ public interface CorrelationOperations {
   default void clearProcessed() {}
 
   default void removeCloudEvents(Map<String, String> ids) {}
+
+  /** Removes the given events of the registration, together with their processed markers */
+  default void removeEvents(String regId, Collection<String> ids) {}
+
+  /**
+   * Removes up to {@code limit} processed markers of the registration whose event is no longer
+   * stored, returning how many were removed
+   */
+  default int purgeProcessed(String regId, int limit) {
+    return 0;
+  }
 }
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2020-Present The Serverless Workflow Specification Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.serverlessworkflow.impl.persistence;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * How long the stored events of a registration wait to be correlated. Events are removed once
+ * {@code timeToLive} has elapsed since their time attribute (or since they were received, if they
+ * have none) and, beyond {@code maxCount} pending events, the oldest ones are removed.
+ *
+ * @param timeToLive null to keep the events until they are correlated
+ */
+public record CorrelationRetention(Duration timeToLive, int maxCount) {
+
+  private static final CorrelationRetention UNBOUNDED =
+      new CorrelationRetention(null, Integer.MAX_VALUE);
+
+  public CorrelationRetention {
+    if (timeToLive != null && (timeToLive.isNegative() || timeToLive.isZero())) {
+      throw new IllegalArgumentException("Time to live must be positive: " + timeToLive);
+    }
+    if (maxCount < 1) {
+      throw new IllegalArgumentException("Max count must be positive: " + maxCount);
+    }
+  }
+
+  public static CorrelationRetention unbounded() {
+    return UNBOUNDED;
+  }
+
+  public static CorrelationRetention timeToLive(Duration timeToLive) {
+    return new CorrelationRetention(timeToLive, Integer.MAX_VALUE);
+  }
+
+  public static CorrelationRetention maxCount(int maxCount) {
+    return new CorrelationRetention(null, maxCount);
+  }
+
+  boolean isExpired(Instant receivedAt, Instant now) {
+    return timeToLive != null && receivedAt.plus(timeToLive).isBefore(now);
+  }
+}
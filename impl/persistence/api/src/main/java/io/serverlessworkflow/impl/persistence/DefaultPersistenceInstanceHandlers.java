@@ -17,6 +17,7 @@ package io.serverlessworkflow.impl.persistence;
 
 import static io.serverlessworkflow.impl.WorkflowUtils.safeClose;
 
+import java.time.Duration;
 import java.util.concurrent.ExecutorService;
 
 public class DefaultPersistenceInstanceHandlers extends PersistenceInstanceHandlers {
@@ -25,6 +26,10 @@ public class DefaultPersistenceInstanceHandlers extends PersistenceInstanceHandl
 
     private final PersistenceInstanceStore store;
     private PersistenceExecutor executor;
+    private int maxBatchSize;
+    private Duration maxLatency;
+    private AsyncPersistenceInstanceStore asyncStore;
+    private boolean asyncWrites;
 
     private Builder(PersistenceInstanceStore store) {
       this.store = store;
@@ -40,12 +45,68 @@ public class DefaultPersistenceInstanceHandlers extends PersistenceInstanceHandl
       return this;
     }
 
+    /**
+     * Commits the writes in batches of up to {@code maxBatchSize} operations, waiting at most
+     * {@code maxLatency} for a batch to fill. See {@link WriteBehindPersistenceInstanceWriter}
+     *
+     * <p>Writes are committed by the writer's own thread, so this option cannot be combined with a
+     * persistence executor or with asynchronous writes.
+     */
+    public Builder withWriteBehind(int maxBatchSize, Duration maxLatency) {
+      this.maxBatchSize = maxBatchSize;
+      this.maxLatency = maxLatency;
+      return this;
+    }
+
+    /**
+     * Performs the writes through the given asynchronous store, reads still use the blocking one.
+     * The store performs its own I/O, so this option cannot be combined with a persistence
+     * executor. See {@link AsyncPersistenceInstanceWriter}
+     */
+    public Builder withAsyncStore(AsyncPersistenceInstanceStore asyncStore) {
+      this.asyncStore = asyncStore;
+      this.asyncWrites = false;
+      return this;
+    }
+
+    /**
+     * Performs the writes through the asynchronous SPI, adapting the blocking store with the
+     * persistence executor configured when {@link #build()} is called. See {@link
+     * AsyncPersistenceInstanceStore#from}
+     */
+    public Builder withAsyncWrites() {
+      this.asyncStore = null;
+      this.asyncWrites = true;
+      return this;
+    }
+
     public PersistenceInstanceHandlers build() {
+      if (maxLatency != null && executor != null) {
+        throw new IllegalStateException(
+            "Write behind commits from its own thread, it cannot use a persistence executor");
+      }
+      if (maxLatency != null && (asyncStore != null || asyncWrites)) {
+        throw new IllegalStateException("Write behind cannot be combined with asynchronous writes");
+      }
+      if (asyncStore != null && executor != null) {
+        throw new IllegalStateException(
+            "An asynchronous store performs its own I/O, it cannot use a persistence executor");
+      }
+      AsyncPersistenceInstanceStore asyncStore =
+          asyncWrites
+              ? AsyncPersistenceInstanceStore.from(
+                  store, executor == null ? new AsyncPersistenceExecutor() : executor)
+              : this.asyncStore;
       return new DefaultPersistenceInstanceHandlers(
-          new DefaultPersistenceInstanceWriter(
-              store, executor == null ? new AsyncPersistenceExecutor() : executor),
+          asyncStore != null
+              ? new AsyncPersistenceInstanceWriter(asyncStore)
+              : maxLatency == null
+                  ? new DefaultPersistenceInstanceWriter(
+                      store, executor == null ? new AsyncPersistenceExecutor() : executor)
+                  : new WriteBehindPersistenceInstanceWriter(store, maxBatchSize, maxLatency),
           new DefaultPersistenceInstanceReader(store),
-          store);
+          store,
+          asyncStore);
     }
   }
 
@@ -58,18 +119,24 @@ public class DefaultPersistenceInstanceHandlers extends PersistenceInstanceHandl
   }
 
   private final PersistenceInstanceStore store;
+  private final AsyncPersistenceInstanceStore asyncStore;
 
   private DefaultPersistenceInstanceHandlers(
       PersistenceInstanceWriter writer,
       PersistenceInstanceReader reader,
-      PersistenceInstanceStore store) {
+      PersistenceInstanceStore store,
+      AsyncPersistenceInstanceStore asyncStore) {
     super(writer, reader);
     this.store = store;
+    this.asyncStore = asyncStore;
   }
 
   @Override
   public void close() {
     super.close();
+    if (asyncStore != null && asyncStore != store) {
+      safeClose(asyncStore);
+    }
     safeClose(store);
   }
 }
@@ -17,6 +17,7 @@ package io.serverlessworkflow.impl.persistence;
 
 import io.serverlessworkflow.impl.WorkflowDefinition;
 import io.serverlessworkflow.impl.WorkflowInstance;
+import io.serverlessworkflow.impl.WorkflowStatus;
 import java.util.Optional;
 import java.util.stream.Stream;
 import org.slf4j.Logger;
@@ -56,4 +57,20 @@ public class DefaultPersistenceInstanceReader extends AbstractPersistenceInstanc
     return super.scanAll(transaction, definition, applicationId)
         .onClose(() -> transaction.commit(definition));
   }
+
+  @Override
+  public Stream<WorkflowInstance> scanByApplication(
+      WorkflowDefinition definition, String applicationId) {
+    PersistenceInstanceTransaction transaction = store.begin();
+    return super.scanByApplication(transaction, definition, applicationId)
+        .onClose(() -> transaction.commit(definition));
+  }
+
+  @Override
+  public Stream<WorkflowInstance> scanByStatus(
+      WorkflowDefinition definition, String applicationId, WorkflowStatus status) {
+    PersistenceInstanceTransaction transaction = store.begin();
+    return super.scanByStatus(transaction, definition, applicationId, status)
+        .onClose(() -> transaction.commit(definition));
+  }
 }
@@ -38,6 +38,13 @@ public class DefaultPersistenceInstanceWriter extends TransactedPersistenceInsta
   @Override
   protected void doTransaction(
       Consumer<PersistenceInstanceOperations> operation, WorkflowDefinitionData definition) {
+    runInTransaction(store, operation, definition);
+  }
+
+  static void runInTransaction(
+      PersistenceInstanceStore store,
+      Consumer<PersistenceInstanceOperations> operation,
+      WorkflowDefinitionData definition) {
     PersistenceInstanceTransaction transaction = store.begin();
     try {
       operation.accept(transaction);
@@ -34,6 +34,15 @@ public class OperationAllStrategyCorrelationInfo extends AbstractAllStrategyCorr
     this.operations = operations;
   }
 
+  OperationAllStrategyCorrelationInfo(
+      WorkflowDefinition definition,
+      PersistenceExecutor executor,
+      PersistenceInstanceOperations operations,
+      CorrelationCompactor compactor) {
+    super(definition, executor, compactor);
+    this.operations = operations;
+  }
+
   @Override
   protected Collection<Map<EventRegistrationBuilder, CloudEvent>> doTransaction(
       Function<CorrelationOperations, Collection<Map<EventRegistrationBuilder, CloudEvent>>>
@@ -17,22 +17,27 @@ package io.serverlessworkflow.impl.persistence;
 
 import io.serverlessworkflow.impl.WorkflowDefinition;
 import io.serverlessworkflow.impl.scheduler.AllStrategyCorrelationInfo;
-import io.serverlessworkflow.impl.scheduler.AllStrategyCorrelationInfoFactory;
 
 public class OperationAllStrategyCorrelationInfoFactory
-    implements AllStrategyCorrelationInfoFactory {
+    extends PersistenceAllStrategyCorrelationInfoFactory {
 
-  private final PersistenceExecutor executor;
   private final PersistenceInstanceOperations operations;
 
   public OperationAllStrategyCorrelationInfoFactory(
       PersistenceExecutor executor, PersistenceInstanceOperations operations) {
-    this.executor = executor;
+    this(executor, operations, CorrelationCompactor.unbounded());
+  }
+
+  OperationAllStrategyCorrelationInfoFactory(
+      PersistenceExecutor executor,
+      PersistenceInstanceOperations operations,
+      CorrelationCompactor compactor) {
+    super(executor, compactor);
     this.operations = operations;
   }
 
   @Override
   public AllStrategyCorrelationInfo apply(WorkflowDefinition definition) {
-    return new OperationAllStrategyCorrelationInfo(definition, executor, operations);
+    return new OperationAllStrategyCorrelationInfo(definition, executor, operations, compactor);
   }
 }
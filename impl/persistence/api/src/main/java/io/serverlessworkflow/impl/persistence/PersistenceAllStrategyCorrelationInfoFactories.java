@@ -15,12 +15,72 @@
  */
 package io.serverlessworkflow.impl.persistence;
 
+import io.serverlessworkflow.impl.events.EventRegistrationBuilder;
 import io.serverlessworkflow.impl.scheduler.AllStrategyCorrelationInfoFactory;
+import java.time.Duration;
+import java.util.function.Function;
 
 public class PersistenceAllStrategyCorrelationInfoFactories {
 
+  public static class Builder {
+
+    private final Function<CorrelationCompactor, PersistenceAllStrategyCorrelationInfoFactory>
+        factory;
+    private Function<EventRegistrationBuilder, CorrelationRetention> retention =
+        reg -> CorrelationRetention.unbounded();
+    private Duration compactionInterval;
+    private int batchSize = CorrelationCompactor.DEFAULT_BATCH_SIZE;
+
+    private Builder(
+        Function<CorrelationCompactor, PersistenceAllStrategyCorrelationInfoFactory> factory) {
+      this.factory = factory;
+    }
+
+    /** Retention of the stored events of every registration. Default is unbounded */
+    public Builder withRetention(CorrelationRetention retention) {
+      return withRetention(reg -> retention);
+    }
+
+    /** Retention of the stored events of each registration */
+    public Builder withRetention(
+        Function<EventRegistrationBuilder, CorrelationRetention> retention) {
+      this.retention = retention;
+      return this;
+    }
+
+    /**
+     * Every {@code interval}, removes the expired events and the processed markers whose event is
+     * gone, in transactions of at most {@code batchSize} removals. Without compaction, only the max
+     * count of the registrations is enforced, as events are received
+     */
+    public Builder withCompaction(Duration interval, int batchSize) {
+      if (interval.isNegative() || interval.isZero()) {
+        throw new IllegalArgumentException("Compaction interval must be positive: " + interval);
+      }
+      this.compactionInterval = interval;
+      this.batchSize = batchSize;
+      return this;
+    }
+
+    public PersistenceAllStrategyCorrelationInfoFactory build() {
+      return factory.apply(new CorrelationCompactor(retention, compactionInterval, batchSize));
+    }
+  }
+
   private PersistenceAllStrategyCorrelationInfoFactories() {}
 
+  public static Builder builder(PersistenceExecutor executor, PersistenceInstanceStore store) {
+    return new Builder(
+        compactor -> new StoreAllStrategyCorrelationInfoFactory(executor, store, compactor));
+  }
+
+  public static Builder builder(
+      PersistenceExecutor executor, PersistenceInstanceOperations operations) {
+    return new Builder(
+        compactor ->
+            new OperationAllStrategyCorrelationInfoFactory(executor, operations, compactor));
+  }
+
   public static AllStrategyCorrelationInfoFactory from(
       PersistenceExecutor executor, PersistenceInstanceStore store) {
     return new StoreAllStrategyCorrelationInfoFactory(executor, store);
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2020-Present The Serverless Workflow Specification Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.serverlessworkflow.impl.persistence;
+
+import io.serverlessworkflow.impl.scheduler.AllStrategyCorrelationInfoFactory;
+
+/**
+ * Factory of correlation infos backed by persistence, which share the retention settings and the
+ * compaction thread of the factory. See {@link PersistenceAllStrategyCorrelationInfoFactories}
+ */
+public abstract class PersistenceAllStrategyCorrelationInfoFactory
+    implements AllStrategyCorrelationInfoFactory, AutoCloseable {
+
+  protected final PersistenceExecutor executor;
+  final CorrelationCompactor compactor;
+
+  PersistenceAllStrategyCorrelationInfoFactory(
+      PersistenceExecutor executor, CorrelationCompactor compactor) {
+    this.executor = executor;
+    this.compactor = compactor;
+  }
+
+  public CorrelationEventStats stats() {
+    return compactor.stats();
+  }
+
+  @Override
+  public void close() {
+    compactor.close();
+  }
+}
@@ -31,13 +31,26 @@ public class PersistenceApplicationBuilder {
   }
 
   private final WorkflowApplication.Builder appBuilder;
+  private final PersistenceInstanceWriter writer;
+  private CheckpointPolicy checkpointPolicy = CheckpointPolicy.always();
 
   protected PersistenceApplicationBuilder(Builder appBuilder, PersistenceInstanceWriter writer) {
     this.appBuilder = appBuilder;
-    appBuilder.withListener(new WorkflowPersistenceListener(writer));
+    this.writer = writer;
+  }
+
+  /**
+   * Sets which completed tasks are persisted. Tasks not persisted are executed again when the
+   * instance is restored. Default is {@link CheckpointPolicy#always()}
+   */
+  public PersistenceApplicationBuilder withCheckpointPolicy(CheckpointPolicy checkpointPolicy) {
+    this.checkpointPolicy = checkpointPolicy;
+    return this;
   }
 
   public WorkflowApplication build() {
-    return appBuilder.build();
+    return appBuilder
+        .withListener(new WorkflowPersistenceListener(writer, checkpointPolicy))
+        .build();
   }
 }
@@ -15,6 +15,7 @@
  */
 package io.serverlessworkflow.impl.persistence;
 
+import io.serverlessworkflow.impl.WorkflowContextData;
 import io.serverlessworkflow.impl.WorkflowDefinitionData;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.Supplier;
@@ -24,5 +25,14 @@ public interface PersistenceExecutor extends AutoCloseable {
 
   CompletableFuture<Void> execute(Runnable runnable, WorkflowDefinitionData definition);
 
+  /** Executes an operation on the given instance, executors might use it to order operations */
+  default <T> CompletableFuture<T> execute(Supplier<T> runnable, WorkflowContextData context) {
+    return execute(runnable, context.definition());
+  }
+
+  default CompletableFuture<Void> execute(Runnable runnable, WorkflowContextData context) {
+    return execute(runnable, context.definition());
+  }
+
   default void close() {}
 }
@@ -19,6 +19,7 @@ import io.serverlessworkflow.impl.TaskContextData;
 import io.serverlessworkflow.impl.WorkflowContextData;
 import io.serverlessworkflow.impl.WorkflowDefinition;
 import io.serverlessworkflow.impl.WorkflowStatus;
+import java.util.List;
 import java.util.Optional;
 import java.util.stream.Stream;
 
@@ -37,6 +38,21 @@ public interface PersistenceInstanceOperations extends CorrelationOperations {
 
   Stream<PersistenceWorkflowInfo> scanAll(String applicationId, WorkflowDefinition definition);
 
+  /**
+   * Returns, in ascending order, at most {@code limit} ids of the stored instances of the
+   * application that follow {@code afterId}, or the first ones if {@code afterId} is null
+   */
+  List<String> scanIds(
+      String applicationId, WorkflowDefinition definition, String afterId, int limit);
+
+  /** Instances of the application, looked up in the application index */
+  Stream<PersistenceWorkflowInfo> scanByApplication(
+      String applicationId, WorkflowDefinition definition);
+
+  /** Instances of the application with the given status, looked up in the status index */
+  Stream<PersistenceWorkflowInfo> scanByStatus(
+      String applicationId, WorkflowStatus status, WorkflowDefinition definition);
+
   Optional<PersistenceWorkflowInfo> readWorkflowInfo(
       WorkflowDefinition definition, String instanceId);
 }
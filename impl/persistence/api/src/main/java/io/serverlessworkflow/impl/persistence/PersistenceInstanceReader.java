@@ -17,6 +17,7 @@ package io.serverlessworkflow.impl.persistence;
 
 import io.serverlessworkflow.impl.WorkflowDefinition;
 import io.serverlessworkflow.impl.WorkflowInstance;
+import io.serverlessworkflow.impl.WorkflowStatus;
 import java.util.Optional;
 import java.util.stream.Stream;
 
@@ -28,5 +29,24 @@ public interface PersistenceInstanceReader extends AutoCloseable {
 
   Stream<WorkflowInstance> scanAll(WorkflowDefinition definition, String applicationId);
 
+  /**
+   * Same instances than {@link #scanAll(WorkflowDefinition, String)}, looked up in the
+   * application index rather than by scanning every instance of the definition
+   */
+  default Stream<WorkflowInstance> scanByApplication(WorkflowDefinition definition) {
+    return scanByApplication(definition, definition.application().id());
+  }
+
+  Stream<WorkflowInstance> scanByApplication(WorkflowDefinition definition, String applicationId);
+
+  /** Instances with the given status, for example the suspended ones */
+  default Stream<WorkflowInstance> scanByStatus(
+      WorkflowDefinition definition, WorkflowStatus status) {
+    return scanByStatus(definition, definition.application().id(), status);
+  }
+
+  Stream<WorkflowInstance> scanByStatus(
+      WorkflowDefinition definition, String applicationId, WorkflowStatus status);
+
   Optional<WorkflowInstance> find(WorkflowDefinition definition, String instanceId);
 }
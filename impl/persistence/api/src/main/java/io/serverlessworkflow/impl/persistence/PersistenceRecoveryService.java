@@ -0,0 +1,273 @@
+/*
+ * Copyright 2020-Present The Serverless Workflow Specification Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.serverlessworkflow.impl.persistence;
+
+import io.serverlessworkflow.impl.WorkflowDefinition;
+import io.serverlessworkflow.impl.WorkflowStatus;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Restarts the persisted instances of a workflow definition, typically after a crash. Unlike
+ * {@link PersistenceInstanceReader#scanAll(WorkflowDefinition)}, which reads every instance within
+ * a single transaction, instances are processed in pages of bounded size: every page of ids is
+ * read in its own transaction, and every instance of the page is read, in its own transaction, and
+ * restarted by a pool of {@code concurrency} threads. The next page is not read until the current
+ * one has been restarted, so memory usage does not depend on the number of stored instances.
+ *
+ * <p>Pages follow the id order; an optional priority decides the restart order within a page.
+ */
+public class PersistenceRecoveryService implements AutoCloseable {
+
+  private static final Logger logger = LoggerFactory.getLogger(PersistenceRecoveryService.class);
+
+  public static final int DEFAULT_PAGE_SIZE = 256;
+
+  public static class Builder {
+
+    private final PersistenceInstanceStore store;
+    private int pageSize = DEFAULT_PAGE_SIZE;
+    private int concurrency = Runtime.getRuntime().availableProcessors();
+    private Comparator<PersistenceWorkflowInfo> priority;
+
+    private Builder(PersistenceInstanceStore store) {
+      this.store = store;
+    }
+
+    public Builder withPageSize(int pageSize) {
+      if (pageSize < 1) {
+        throw new IllegalArgumentException("Page size must be positive: " + pageSize);
+      }
+      this.pageSize = pageSize;
+      return this;
+    }
+
+    /** Maximum number of instances being read or restarted at the same time */
+    public Builder withConcurrency(int concurrency) {
+      if (concurrency < 1) {
+        throw new IllegalArgumentException("Concurrency must be positive: " + concurrency);
+      }
+      this.concurrency = concurrency;
+      return this;
+    }
+
+    /** Order in which the instances of a page are restarted, see {@link #byStatus} */
+    public Builder withPriority(Comparator<PersistenceWorkflowInfo> priority) {
+      this.priority = priority;
+      return this;
+    }
+
+    public PersistenceRecoveryService build() {
+      return new PersistenceRecoveryService(this);
+    }
+  }
+
+  public static Builder builder(PersistenceInstanceStore store) {
+    return new Builder(store);
+  }
+
+  /**
+   * Restarts first the instances with the given statuses, in the given order. A null status
+   * matches instances whose status was not stored
+   */
+  public static Comparator<PersistenceWorkflowInfo> byStatus(WorkflowStatus... statuses) {
+    List<WorkflowStatus> order = Arrays.asList(statuses);
+    return Comparator.comparingInt(
+        info -> {
+          int index = order.indexOf(info.status());
+          return index < 0 ? order.size() : index;
+        });
+  }
+
+  public static Comparator<PersistenceWorkflowInfo> oldestFirst() {
+    return Comparator.comparing(
+        PersistenceWorkflowInfo::startedAt, Comparator.nullsLast(Comparator.naturalOrder()));
+  }
+
+  private final PersistenceInstanceStore store;
+  private final int pageSize;
+  private final Comparator<PersistenceWorkflowInfo> priority;
+  private final ExecutorService executor;
+
+  private final Counters totals = new Counters(null);
+
+  private PersistenceRecoveryService(Builder builder) {
+    this.store = builder.store;
+    this.pageSize = builder.pageSize;
+    this.priority = builder.priority;
+    this.executor = Executors.newFixedThreadPool(builder.concurrency);
+  }
+
+  public CompletableFuture<PersistenceRecoveryStats> recover(WorkflowDefinition definition) {
+    return recover(definition, definition.application().id());
+  }
+
+  /**
+   * Returns a future completed, with the stats of this recovery only, once every instance has been
+   * restarted
+   */
+  public CompletableFuture<PersistenceRecoveryStats> recover(
+      WorkflowDefinition definition, String applicationId) {
+    Counters counters = new Counters(totals);
+    return recoverPage(definition, applicationId, null, counters).thenApply(v -> counters.stats());
+  }
+
+  /** Returns the stats of all the recoveries of this service, including the running ones */
+  public PersistenceRecoveryStats stats() {
+    return totals.stats();
+  }
+
+  private CompletableFuture<Void> recoverPage(
+      WorkflowDefinition definition, String applicationId, String afterId, Counters counters) {
+    return CompletableFuture.supplyAsync(
+            () ->
+                inTransaction(
+                    definition, t -> t.scanIds(applicationId, definition, afterId, pageSize)),
+            executor)
+        .thenCompose(
+            ids -> {
+              if (ids.isEmpty()) {
+                return CompletableFuture.completedFuture(null);
+              }
+              counters.page(ids.size());
+              List<CompletableFuture<Optional<PersistenceWorkflowInfo>>> reads =
+                  ids.stream().map(id -> read(definition, id, counters)).toList();
+              return CompletableFuture.allOf(reads.toArray(CompletableFuture[]::new))
+                  .thenCompose(v -> restart(definition, reads, counters))
+                  .thenCompose(
+                      v ->
+                          ids.size() < pageSize
+                              ? CompletableFuture.completedFuture(null)
+                              : recoverPage(
+                                  definition, applicationId, ids.get(ids.size() - 1), counters));
+            });
+  }
+
+  private CompletableFuture<Optional<PersistenceWorkflowInfo>> read(
+      WorkflowDefinition definition, String instanceId, Counters counters) {
+    return CompletableFuture.supplyAsync(
+            () -> inTransaction(definition, t -> t.readWorkflowInfo(definition, instanceId)),
+            executor)
+        .exceptionally(
+            ex -> {
+              counters.failed();
+              logger.warn("Persisted instance {} cannot be read", instanceId, ex);
+              return Optional.empty();
+            });
+  }
+
+  // starts are submitted in priority order, so the pool picks them up in that order
+  private CompletableFuture<Void> restart(
+      WorkflowDefinition definition,
+      List<CompletableFuture<Optional<PersistenceWorkflowInfo>>> reads,
+      Counters counters) {
+    List<PersistenceWorkflowInfo> infos = new ArrayList<>(reads.size());
+    reads.forEach(read -> read.join().ifPresent(infos::add));
+    if (priority != null) {
+      infos.sort(priority);
+    }
+    return CompletableFuture.allOf(
+        infos.stream()
+            .map(
+                info ->
+                    CompletableFuture.runAsync(() -> start(definition, info, counters), executor))
+            .toArray(CompletableFuture[]::new));
+  }
+
+  private void start(
+      WorkflowDefinition definition, PersistenceWorkflowInfo info, Counters counters) {
+    try {
+      WorkflowPersistenceInstance.of(definition, info).start();
+      counters.restarted();
+    } catch (RuntimeException ex) {
+      counters.failed();
+      logger.warn("Persisted instance {} cannot be restarted", info.id(), ex);
+    }
+  }
+
+  private <T> T inTransaction(
+      WorkflowDefinition definition, Function<PersistenceInstanceTransaction, T> operation) {
+    PersistenceInstanceTransaction transaction = store.begin();
+    try {
+      T result = operation.apply(transaction);
+      transaction.commit(definition);
+      return result;
+    } catch (RuntimeException ex) {
+      try {
+        transaction.rollback(definition);
+      } catch (RuntimeException rollEx) {
+        logger.warn("Exception during rollback. Ignoring it", rollEx);
+      }
+      throw ex;
+    }
+  }
+
+  @Override
+  public void close() {
+    executor.shutdown();
+  }
+
+  // every recovery counts its own progress and adds it to the totals of the service
+  private static class Counters {
+
+    private final Counters totals;
+    private final LongAdder pages = new LongAdder();
+    private final LongAdder scanned = new LongAdder();
+    private final LongAdder restarted = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    Counters(Counters totals) {
+      this.totals = totals;
+    }
+
+    void page(int size) {
+      pages.increment();
+      scanned.add(size);
+      if (totals != null) {
+        totals.page(size);
+      }
+    }
+
+    void restarted() {
+      restarted.increment();
+      if (totals != null) {
+        totals.restarted();
+      }
+    }
+
+    void failed() {
+      failed.increment();
+      if (totals != null) {
+        totals.failed();
+      }
+    }
+
+    PersistenceRecoveryStats stats() {
+      return new PersistenceRecoveryStats(
+          pages.sum(), scanned.sum(), restarted.sum(), failed.sum());
+    }
+  }
+}
@@ -0,0 +1,27 @@
+/*
+ * Copyright 2020-Present The Serverless Workflow Specification Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.serverlessworkflow.impl.persistence;
+
+/**
+ * Progress of a {@link PersistenceRecoveryService} recovery, or of all its recoveries when returned
+ * by {@link PersistenceRecoveryService#stats()}
+ *
+ * @param pages pages of instance ids read from the store
+ * @param scanned instance ids read from the store
+ * @param restarted instances successfully restarted
+ * @param failed instances that could not be read or restarted
+ */
+public record PersistenceRecoveryStats(long pages, long scanned, long restarted, long failed) {}
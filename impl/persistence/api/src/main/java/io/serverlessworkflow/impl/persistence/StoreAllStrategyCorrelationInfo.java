@@ -37,6 +37,15 @@ public class StoreAllStrategyCorrelationInfo extends AbstractAllStrategyCorrelat
     this.store = store;
   }
 
+  StoreAllStrategyCorrelationInfo(
+      WorkflowDefinition definition,
+      PersistenceExecutor executor,
+      PersistenceInstanceStore store,
+      CorrelationCompactor compactor) {
+    super(definition, executor, compactor);
+    this.store = store;
+  }
+
   @Override
   protected Collection<Map<EventRegistrationBuilder, CloudEvent>> doTransaction(
       Function<CorrelationOperations, Collection<Map<EventRegistrationBuilder, CloudEvent>>>
@@ -17,21 +17,26 @@ package io.serverlessworkflow.impl.persistence;
 
 import io.serverlessworkflow.impl.WorkflowDefinition;
 import io.serverlessworkflow.impl.scheduler.AllStrategyCorrelationInfo;
-import io.serverlessworkflow.impl.scheduler.AllStrategyCorrelationInfoFactory;
 
-class StoreAllStrategyCorrelationInfoFactory implements AllStrategyCorrelationInfoFactory {
+class StoreAllStrategyCorrelationInfoFactory extends PersistenceAllStrategyCorrelationInfoFactory {
 
-  private final PersistenceExecutor executor;
   private final PersistenceInstanceStore store;
 
   public StoreAllStrategyCorrelationInfoFactory(
       PersistenceExecutor executor, PersistenceInstanceStore store) {
-    this.executor = executor;
+    this(executor, store, CorrelationCompactor.unbounded());
+  }
+
+  StoreAllStrategyCorrelationInfoFactory(
+      PersistenceExecutor executor,
+      PersistenceInstanceStore store,
+      CorrelationCompactor compactor) {
+    super(executor, compactor);
     this.store = store;
   }
 
   @Override
   public AllStrategyCorrelationInfo apply(WorkflowDefinition definition) {
-    return new StoreAllStrategyCorrelationInfo(definition, executor, store);
+    return new StoreAllStrategyCorrelationInfo(definition, executor, store, compactor);
   }
 }
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2020-Present The Serverless Workflow Specification Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.serverlessworkflow.impl.persistence;
+
+import io.serverlessworkflow.impl.WorkflowContextData;
+import io.serverlessworkflow.impl.WorkflowDefinitionData;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Persistence executor with a fixed number of lanes, each one served by a single thread. All the
+ * operations of an instance are executed by the same lane, in submission order, while operations
+ * of different instances run in parallel across lanes.
+ *
+ * <p>Returned futures are completed on the application executor, so callers continuations never
+ * run on (and therefore never block) a lane thread.
+ */
+public class StripedPersistenceExecutor implements PersistenceExecutor {
+
+  private final Lane[] lanes;
+  private final AtomicInteger nextLane = new AtomicInteger();
+
+  public StripedPersistenceExecutor() {
+    this(Runtime.getRuntime().availableProcessors());
+  }
+
+  public StripedPersistenceExecutor(int laneCount) {
+    if (laneCount < 1) {
+      throw new IllegalArgumentException("Lane count must be positive: " + laneCount);
+    }
+    lanes = new Lane[laneCount];
+    for (int i = 0; i < laneCount; i++) {
+      lanes[i] = new Lane(i);
+    }
+  }
+
+  @Override
+  public <T> CompletableFuture<T> execute(Supplier<T> supplier, WorkflowContextData context) {
+    return lane(context.instanceData().id()).submit(supplier, context.definition());
+  }
+
+  @Override
+  public CompletableFuture<Void> execute(Runnable runnable, WorkflowContextData context) {
+    return execute(toSupplier(runnable), context);
+  }
+
+  /** Operations not bound to an instance are distributed among lanes in round robin */
+  @Override
+  public <T> CompletableFuture<T> execute(Supplier<T> supplier, WorkflowDefinitionData definition) {
+    return lanes[Math.floorMod(nextLane.getAndIncrement(), lanes.length)]
+        .submit(supplier, definition);
+  }
+
+  @Override
+  public CompletableFuture<Void> execute(Runnable runnable, WorkflowDefinitionData definition) {
+    return execute(toSupplier(runnable), definition);
+  }
+
+  public int laneCount() {
+    return lanes.length;
+  }
+
+  public List<PersistenceLaneStats> stats() {
+    List<PersistenceLaneStats> stats = new ArrayList<>(lanes.length);
+    for (int i = 0; i < lanes.length; i++) {
+      stats.add(lanes[i].stats());
+    }
+    return stats;
+  }
+
+  /** Waits for the already submitted operations to finish */
+  @Override
+  public void close() {
+    for (Lane lane : lanes) {
+      lane.executor.shutdown();
+    }
+    try {
+      for (Lane lane : lanes) {
+        lane.executor.awaitTermination(1, TimeUnit.MINUTES);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private Lane lane(String instanceId) {
+    return lanes[Math.floorMod(instanceId.hashCode(), lanes.length)];
+  }
+
+  private static Supplier<Void> toSupplier(Runnable runnable) {
+    return () -> {
+      runnable.run();
+      return null;
+    };
+  }
+
+  private static class Lane {
+    private final int index;
+    private final ExecutorService executor;
+    private final AtomicInteger depth = new AtomicInteger();
+    private final LongAccumulator maxDepth = new LongAccumulator(Math::max, 0);
+    private final LongAdder executed = new LongAdder();
+
+    Lane(int index) {
+      this.index = index;
+      this.executor =
+          Executors.newSingleThreadExecutor(r -> new Thread(r, "persistence-lane-" + index));
+    }
+
+    <T> CompletableFuture<T> submit(Supplier<T> supplier, WorkflowDefinitionData definition) {
+      maxDepth.accumulate(depth.incrementAndGet());
+      return CompletableFuture.supplyAsync(
+              () -> {
+                try {
+                  return supplier.get();
+                } finally {
+                  depth.decrementAndGet();
+                  executed.increment();
+                }
+              },
+              executor)
+          .thenApplyAsync(Function.identity(), definition.application().executorService());
+    }
+
+    PersistenceLaneStats stats() {
+      return new PersistenceLaneStats(index, depth.get(), maxDepth.get(), executed.sum());
+    }
+  }
+}
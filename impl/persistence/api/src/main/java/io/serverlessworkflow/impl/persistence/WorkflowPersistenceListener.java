@@ -30,9 +30,16 @@ import java.util.concurrent.CompletableFuture;
 public class WorkflowPersistenceListener implements WorkflowExecutionCompletableListener {
 
   private final PersistenceInstanceWriter persistenceWriter;
+  private final CheckpointPolicy checkpointPolicy;
 
   public WorkflowPersistenceListener(PersistenceInstanceWriter persistenceWriter) {
+    this(persistenceWriter, CheckpointPolicy.always());
+  }
+
+  public WorkflowPersistenceListener(
+      PersistenceInstanceWriter persistenceWriter, CheckpointPolicy checkpointPolicy) {
     this.persistenceWriter = persistenceWriter;
+    this.checkpointPolicy = checkpointPolicy;
   }
 
   @Override
@@ -72,7 +79,9 @@ public class WorkflowPersistenceListener implements WorkflowExecutionCompletable
 
   @Override
   public CompletableFuture<?> onTaskCompleted(TaskCompletedEvent ev) {
-    return persistenceWriter.taskCompleted(ev.workflowContext(), ev.taskContext());
+    return checkpointPolicy.isCheckpoint(ev.workflowContext(), ev.taskContext())
+        ? persistenceWriter.taskCompleted(ev.workflowContext(), ev.taskContext())
+        : CompletableFuture.completedFuture(null);
   }
 
   @Override
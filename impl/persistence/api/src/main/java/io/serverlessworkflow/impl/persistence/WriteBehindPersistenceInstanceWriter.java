@@ -0,0 +1,324 @@
+/*
+ * Copyright 2020-Present The Serverless Workflow Specification Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.serverlessworkflow.impl.persistence;
+
+import io.serverlessworkflow.impl.TaskContextData;
+import io.serverlessworkflow.impl.WorkflowContextData;
+import io.serverlessworkflow.impl.WorkflowDefinitionData;
+import io.serverlessworkflow.impl.WorkflowStatus;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writer that queues operations and commits them in batches, using a single store transaction
+ * for all the operations (of any instance) received within {@code maxLatency} of the first one,
+ * up to {@code maxBatchSize} operations. The future returned for an operation is completed once
+ * its batch is committed.
+ *
+ * <p>Within a batch, a task or status write is skipped when a later operation of the same batch
+ * overwrites it or removes the instance. If a batch fails, its operations are retried one
+ * transaction each, so only the failing ones are completed exceptionally.
+ */
+public class WriteBehindPersistenceInstanceWriter extends AbstractPersistenceInstanceWriter {
+
+  private static final Logger logger =
+      LoggerFactory.getLogger(WriteBehindPersistenceInstanceWriter.class);
+
+  private static final long POLL_TIMEOUT_MS = 100;
+
+  private record PendingOperation(
+      String instanceId,
+      String key,
+      boolean removal,
+      WorkflowDefinitionData definition,
+      Consumer<PersistenceInstanceOperations> operation,
+      CompletableFuture<Void> future) {}
+
+  private final PersistenceInstanceStore store;
+  private final int maxBatchSize;
+  private final long maxLatencyNanos;
+  private final BlockingQueue<PendingOperation> queue = new LinkedBlockingQueue<>();
+  private final ExecutorService flusher = Executors.newSingleThreadExecutor();
+  // enqueuing holds the read lock, so nothing is queued once closed is set under the write lock
+  private final ReadWriteLock closeLock = new ReentrantReadWriteLock();
+  private volatile boolean closed;
+
+  protected WriteBehindPersistenceInstanceWriter(
+      PersistenceInstanceStore store, int maxBatchSize, Duration maxLatency) {
+    if (maxBatchSize < 1) {
+      throw new IllegalArgumentException("Batch size must be positive: " + maxBatchSize);
+    }
+    this.store = store;
+    this.maxBatchSize = maxBatchSize;
+    this.maxLatencyNanos = maxLatency.toNanos();
+    flusher.execute(this::flushLoop);
+  }
+
+  @Override
+  public CompletableFuture<Void> taskRetried(
+      WorkflowContextData workflowContext, TaskContextData taskContext) {
+    return enqueue(
+        workflowContext,
+        taskKey(workflowContext, taskContext),
+        false,
+        t -> t.writeRetryTask(workflowContext, taskContext));
+  }
+
+  @Override
+  public CompletableFuture<Void> taskCompleted(
+      WorkflowContextData workflowContext, TaskContextData taskContext) {
+    return enqueue(
+        workflowContext,
+        taskKey(workflowContext, taskContext),
+        false,
+        t -> t.writeCompletedTask(workflowContext, taskContext));
+  }
+
+  @Override
+  public CompletableFuture<Void> suspended(WorkflowContextData workflowContext) {
+    return enqueue(
+        workflowContext,
+        statusKey(workflowContext),
+        false,
+        t -> t.writeStatus(workflowContext, WorkflowStatus.SUSPENDED));
+  }
+
+  @Override
+  public CompletableFuture<Void> resumed(WorkflowContextData workflowContext) {
+    return enqueue(
+        workflowContext, statusKey(workflowContext), false, t -> t.clearStatus(workflowContext));
+  }
+
+  @Override
+  protected CompletableFuture<Void> doCompleteInstance(
+      Consumer<PersistenceInstanceOperations> operation, WorkflowContextData workflowContext) {
+    return enqueue(workflowContext, null, true, operation);
+  }
+
+  @Override
+  protected CompletableFuture<Void> doTransaction(
+      Consumer<PersistenceInstanceOperations> operation, WorkflowContextData workflowContext) {
+    return enqueue(workflowContext, null, false, operation);
+  }
+
+  private static String taskKey(WorkflowContextData workflowContext, TaskContextData taskContext) {
+    return workflowContext.instanceData().id() + "/" + taskContext.position().jsonPointer();
+  }
+
+  private static String statusKey(WorkflowContextData workflowContext) {
+    return workflowContext.instanceData().id();
+  }
+
+  private CompletableFuture<Void> enqueue(
+      WorkflowContextData workflowContext,
+      String key,
+      boolean removal,
+      Consumer<PersistenceInstanceOperations> operation) {
+    CompletableFuture<Void> future = new CompletableFuture<>();
+    closeLock.readLock().lock();
+    try {
+      if (closed) {
+        future.completeExceptionally(closedException());
+      } else {
+        queue.add(
+            new PendingOperation(
+                workflowContext.instanceData().id(),
+                key,
+                removal,
+                workflowContext.definition(),
+                operation,
+                future));
+      }
+    } finally {
+      closeLock.readLock().unlock();
+    }
+    return future;
+  }
+
+  private void flushLoop() {
+    List<PendingOperation> batch = new ArrayList<>(maxBatchSize);
+    while (!closed || !queue.isEmpty()) {
+      try {
+        PendingOperation first = queue.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        if (first == null) {
+          continue;
+        }
+        batch.add(first);
+        long deadline = System.nanoTime() + maxLatencyNanos;
+        while (batch.size() < maxBatchSize) {
+          queue.drainTo(batch, maxBatchSize - batch.size());
+          long remaining = deadline - System.nanoTime();
+          if (batch.size() == maxBatchSize || remaining <= 0) {
+            break;
+          }
+          PendingOperation next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+          if (next == null) {
+            break;
+          }
+          batch.add(next);
+        }
+        flush(batch);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        failPending(batch, e);
+        break;
+      } catch (RuntimeException e) {
+        logger.error("Unexpected error flushing persistence operations", e);
+        failPending(batch, e);
+      } finally {
+        batch.clear();
+      }
+    }
+    // only reached before the queue is empty if interrupted, nothing can be queued afterwards
+    markClosed();
+    queue.drainTo(batch);
+    failPending(batch, closedException());
+  }
+
+  private void flush(List<PendingOperation> batch) {
+    List<PendingOperation> operations = coalesce(batch);
+    PersistenceInstanceTransaction transaction = store.begin();
+    // all the operations share the transaction, commit is done with the first definition
+    WorkflowDefinitionData definition = batch.get(0).definition();
+    try {
+      operations.forEach(op -> op.operation().accept(transaction));
+      transaction.commit(definition);
+    } catch (RuntimeException ex) {
+      rollback(transaction, definition);
+      logger.warn(
+          "Batch of {} persistence operations failed, retrying them one by one",
+          operations.size(),
+          ex);
+      flushOneByOne(batch, operations);
+      return;
+    }
+    batch.forEach(this::complete);
+  }
+
+  private void flushOneByOne(List<PendingOperation> batch, List<PendingOperation> operations) {
+    Set<String> failedInstances = new HashSet<>();
+    for (PendingOperation op : operations) {
+      PersistenceInstanceTransaction transaction = store.begin();
+      try {
+        op.operation().accept(transaction);
+        transaction.commit(op.definition());
+        complete(op);
+      } catch (RuntimeException ex) {
+        rollback(transaction, op.definition());
+        failedInstances.add(op.instanceId());
+        op.future().completeExceptionally(ex);
+      }
+    }
+    // skipped operations were overwritten by an applied one, share its outcome. Completion of the
+    // applied ones is asynchronous, so they are told apart by identity rather than by isDone
+    Set<PendingOperation> applied = Collections.newSetFromMap(new IdentityHashMap<>());
+    applied.addAll(operations);
+    for (PendingOperation op : batch) {
+      if (!applied.contains(op)) {
+        if (failedInstances.contains(op.instanceId())) {
+          op.future()
+              .completeExceptionally(
+                  new IllegalStateException(
+                      "Persistence of instance " + op.instanceId() + " failed"));
+        } else {
+          complete(op);
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns, in order, the operations of the batch that are not overwritten by a later
+   * operation on the same key or by the removal of their instance
+   */
+  private static List<PendingOperation> coalesce(List<PendingOperation> batch) {
+    List<PendingOperation> result = new ArrayList<>(batch.size());
+    Set<String> keys = new HashSet<>();
+    Set<String> removedInstances = new HashSet<>();
+    for (int i = batch.size() - 1; i >= 0; i--) {
+      PendingOperation op = batch.get(i);
+      if (op.removal()) {
+        removedInstances.add(op.instanceId());
+      } else if (op.key() != null
+          && (removedInstances.contains(op.instanceId()) || !keys.add(op.key()))) {
+        continue;
+      }
+      result.add(op);
+    }
+    Collections.reverse(result);
+    return result;
+  }
+
+  // callers continuation must not run in the flusher thread
+  private void complete(PendingOperation op) {
+    op.future().completeAsync(() -> null, op.definition().application().executorService());
+  }
+
+  private void rollback(PersistenceInstanceTransaction transaction, WorkflowDefinitionData def) {
+    try {
+      transaction.rollback(def);
+    } catch (Exception rollEx) {
+      logger.warn("Exception during rollback. Ignoring it", rollEx);
+    }
+  }
+
+  private void failPending(List<PendingOperation> batch, Exception ex) {
+    batch.forEach(op -> op.future().completeExceptionally(ex));
+  }
+
+  private static IllegalStateException closedException() {
+    return new IllegalStateException("Persistence writer is closed");
+  }
+
+  private void markClosed() {
+    closeLock.writeLock().lock();
+    try {
+      closed = true;
+    } finally {
+      closeLock.writeLock().unlock();
+    }
+  }
+
+  /** Flushes the queued operations, waiting for them to be committed */
+  @Override
+  public void close() {
+    markClosed();
+    flusher.shutdown();
+    try {
+      if (!flusher.awaitTermination(1, TimeUnit.MINUTES)) {
+        logger.warn("Persistence operations were not flushed in one minute");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -27,10 +27,16 @@ import io.serverlessworkflow.impl.persistence.PersistenceInstanceInfo;
 import io.serverlessworkflow.impl.persistence.PersistenceInstanceTransaction;
 import io.serverlessworkflow.impl.persistence.PersistenceTaskInfo;
 import io.serverlessworkflow.impl.persistence.PersistenceWorkflowInfo;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.SortedMap;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -40,10 +46,11 @@ public abstract class BigMapInstanceTransaction<V, T, S, A, C, P>
   @Override
   public void writeInstanceData(WorkflowContextData workflowContext) {
     String key = key(workflowContext);
-    instanceData(workflowContext.definition())
-        .put(key, marshallInstance(workflowContext.instanceData()));
-    applicationData()
-        .put(key, marshallApplicationId(workflowContext.definition().application().id()));
+    WorkflowDefinitionData definition = workflowContext.definition();
+    String applicationId = definition.application().id();
+    instanceData(definition).put(key, marshallInstance(workflowContext.instanceData()));
+    applicationData().put(key, marshallApplicationId(applicationId));
+    applicationIndex(definition, applicationId).put(key, indexValue());
   }
 
   @Override
@@ -73,7 +80,87 @@ public abstract class BigMapInstanceTransaction<V, T, S, A, C, P>
         .map(
             e ->
                 readPersistenceInfo(
-                    e.getKey(), e.getValue(), tasks(e.getKey()), status.get(e.getKey())));
+                    definition,
+                    e.getKey(),
+                    e.getValue(),
+                    tasks(e.getKey()),
+                    status.get(e.getKey())));
+  }
+
+  @Override
+  public List<String> scanIds(
+      String applicationId, WorkflowDefinition definition, String afterId, int limit) {
+    Map<String, A> applicationData = applicationData();
+    List<String> ids = new ArrayList<>(limit);
+    Iterator<String> iter = instanceIds(definition, afterId);
+    while (ids.size() < limit && iter.hasNext()) {
+      String key = iter.next();
+      if (testAppl(applicationData, key, applicationId)) {
+        ids.add(key);
+      }
+    }
+    return ids;
+  }
+
+  /**
+   * Iterates, in ascending order, over the instance ids greater than afterId (all if null).
+   * Implementations whose instance map is not sorted should override it to avoid sorting the
+   * whole key set on every call
+   */
+  protected Iterator<String> instanceIds(WorkflowDefinitionData definition, String afterId) {
+    Map<String, V> instances = instanceData(definition);
+    SortedMap<String, V> sorted =
+        instances instanceof SortedMap<String, V> sortedMap ? sortedMap : new TreeMap<>(instances);
+    // the lowest string greater than afterId
+    return (afterId == null ? sorted : sorted.tailMap(afterId + '\0')).keySet().iterator();
+  }
+
+  @Override
+  public Stream<PersistenceWorkflowInfo> scanByApplication(
+      String applicationId, WorkflowDefinition definition) {
+    return readIndexed(definition, applicationIndex(definition, applicationId).keySet().stream());
+  }
+
+  @Override
+  public Stream<PersistenceWorkflowInfo> scanByStatus(
+      String applicationId, WorkflowStatus status, WorkflowDefinition definition) {
+    Map<String, P> application = applicationIndex(definition, applicationId);
+    return readIndexed(
+        definition,
+        statusIndex(definition, status).keySet().stream().filter(application::containsKey));
+  }
+
+  private Stream<PersistenceWorkflowInfo> readIndexed(
+      WorkflowDefinition definition, Stream<String> keys) {
+    Map<String, V> instances = instanceData(definition);
+    Map<String, S> status = status(definition);
+    return keys.map(
+            key -> {
+              V instance = instances.get(key);
+              return instance == null
+                  ? null
+                  : readPersistenceInfo(definition, key, instance, tasks(key), status.get(key));
+            })
+        .filter(Objects::nonNull);
+  }
+
+  /**
+   * Adds the instances of the definition to the application and status indexes. Only needed for
+   * instances stored before the indexes were introduced
+   */
+  public void rebuildIndexes(WorkflowDefinitionData definition) {
+    Map<String, A> applicationData = applicationData();
+    Map<String, S> status = status(definition);
+    for (String key : instanceData(definition).keySet()) {
+      A applicationId = applicationData.get(key);
+      if (applicationId != null) {
+        applicationIndex(definition, unmarshallApplicationId(applicationId)).put(key, indexValue());
+      }
+      S statusData = status.get(key);
+      if (statusData != null) {
+        statusIndex(definition, unmarshallStatus(statusData)).put(key, indexValue());
+      }
+    }
   }
 
   private boolean testAppl(Map<String, A> applicationData, String key, String applicationId) {
@@ -87,13 +174,20 @@ public abstract class BigMapInstanceTransaction<V, T, S, A, C, P>
     Map<String, V> instances = instanceData(definition);
     return instances.containsKey(key)
         ? Optional.of(
-            readPersistenceInfo(key, instances.get(key), tasks(key), status(definition).get(key)))
+            readPersistenceInfo(
+                definition, key, instances.get(key), tasks(key), status(definition).get(key)))
         : Optional.empty();
   }
 
   @Override
   public void writeStatus(WorkflowContextData workflowContext, WorkflowStatus status) {
-    status(workflowContext.definition()).put(key(workflowContext), marshallStatus(status));
+    String key = key(workflowContext);
+    WorkflowDefinitionData definition = workflowContext.definition();
+    S previous = status(definition).put(key, marshallStatus(status));
+    if (previous != null) {
+      statusIndex(definition, unmarshallStatus(previous)).remove(key);
+    }
+    statusIndex(definition, status).put(key, indexValue());
   }
 
   @Override
@@ -101,6 +195,10 @@ public abstract class BigMapInstanceTransaction<V, T, S, A, C, P>
     String key = key(workflowContext);
     WorkflowDefinitionData definition = workflowContext.definition();
     instanceData(definition).remove(key);
+    A applicationId = applicationData().remove(key);
+    if (applicationId != null) {
+      applicationIndex(definition, unmarshallApplicationId(applicationId)).remove(key);
+    }
     clearStatus(definition, key);
     removeTasks(key);
   }
@@ -149,21 +247,57 @@ public abstract class BigMapInstanceTransaction<V, T, S, A, C, P>
     ids.forEach((k, v) -> cloudEvents(k).remove(v));
   }
 
+  @Override
+  public void removeEvents(String regId, Collection<String> ids) {
+    Map<String, C> events = cloudEvents(regId);
+    Map<String, P> processed = processedCloudEvents(regId);
+    for (String id : ids) {
+      events.remove(id);
+      processed.remove(id);
+    }
+  }
+
+  @Override
+  public int purgeProcessed(String regId, int limit) {
+    Map<String, C> events = cloudEvents(regId);
+    Map<String, P> processed = processedCloudEvents(regId);
+    List<String> orphans =
+        processed.keySet().stream().filter(id -> !events.containsKey(id)).limit(limit).toList();
+    orphans.forEach(processed::remove);
+    return orphans.size();
+  }
+
   private void clearStatus(WorkflowDefinitionData definition, String key) {
-    status(definition).remove(key);
+    S previous = status(definition).remove(key);
+    if (previous != null) {
+      statusIndex(definition, unmarshallStatus(previous)).remove(key);
+    }
   }
 
   protected PersistenceWorkflowInfo readPersistenceInfo(
-      String instanceId, V instanceData, Map<String, T> tasksData, S status) {
+      WorkflowDefinition definition,
+      String instanceId,
+      V instanceData,
+      Map<String, T> tasksData,
+      S status) {
     PersistenceInstanceInfo instanceInfo = unmarshallInstanceInfo(instanceData);
     return new PersistenceWorkflowInfo(
         instanceId,
         instanceInfo.startedAt(),
         instanceInfo.input(),
         status == null ? null : unmarshallStatus(status),
-        tasksData.entrySet().stream()
-            .collect(
-                Collectors.toMap(Entry::getKey, entry -> unmarshallTaskInfo(entry.getValue()))));
+        readTasks(definition, instanceId, tasksData));
+  }
+
+  protected Map<String, PersistenceTaskInfo> readTasks(
+      WorkflowDefinition definition, String instanceId, Map<String, T> tasksData) {
+    return tasksData.entrySet().stream()
+        .collect(Collectors.toMap(Entry::getKey, entry -> unmarshallTaskInfo(entry.getValue())));
+  }
+
+  /** Value of the index entries, only their keys are meaningful */
+  protected P indexValue() {
+    return processedValue();
   }
 
   private String key(WorkflowContextData workflowContext) {
@@ -178,6 +312,14 @@ public abstract class BigMapInstanceTransaction<V, T, S, A, C, P>
 
   protected abstract Map<String, T> tasks(String instanceId);
 
+  /** Index of the instances of the definition started by the application, keyed by instance id */
+  protected abstract Map<String, P> applicationIndex(
+      WorkflowDefinitionData definition, String applicationId);
+
+  /** Index of the instances of the definition with the given status, keyed by instance id */
+  protected abstract Map<String, P> statusIndex(
+      WorkflowDefinitionData definition, WorkflowStatus status);
+
   protected abstract Map<String, C> cloudEvents(String regId);
 
   protected abstract Map<String, P> processedCloudEvents(String regId);
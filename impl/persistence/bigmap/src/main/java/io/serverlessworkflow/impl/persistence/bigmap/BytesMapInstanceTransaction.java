@@ -20,8 +20,10 @@ import io.cloudevents.SpecVersion;
 import io.cloudevents.core.builder.CloudEventBuilder;
 import io.serverlessworkflow.impl.TaskContext;
 import io.serverlessworkflow.impl.WorkflowContextData;
+import io.serverlessworkflow.impl.WorkflowDefinition;
 import io.serverlessworkflow.impl.WorkflowInstanceData;
 import io.serverlessworkflow.impl.WorkflowModel;
+import io.serverlessworkflow.impl.WorkflowModelFactory;
 import io.serverlessworkflow.impl.WorkflowStatus;
 import io.serverlessworkflow.impl.executors.AbstractTaskExecutor;
 import io.serverlessworkflow.impl.executors.TransitionInfo;
@@ -34,12 +36,21 @@ import io.serverlessworkflow.impl.persistence.CompletedTaskInfo;
 import io.serverlessworkflow.impl.persistence.PersistenceInstanceInfo;
 import io.serverlessworkflow.impl.persistence.PersistenceTaskInfo;
 import io.serverlessworkflow.impl.persistence.RetriedTaskInfo;
+import io.serverlessworkflow.impl.persistence.bigmap.ContextCheckpoints.Checkpoint;
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.time.Instant;
 import java.time.OffsetDateTime;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
 
 public abstract class BytesMapInstanceTransaction
     extends BigMapInstanceTransaction<byte[], byte[], byte[], byte[], byte[], byte[]> {
@@ -47,64 +58,290 @@ public abstract class BytesMapInstanceTransaction
   private static final byte VERSION_0 = 0;
   private static final byte VERSION_1 = 1;
   private static final byte VERSION_2 = 2;
+  // same layout than version 2, written with the factory compact buffers
+  private static final byte VERSION_3 = 3;
+  // completed task whose context is stored in the context checkpoints map, compact buffers
+  private static final byte VERSION_4 = 4;
+  private static final byte CONTEXT_SNAPSHOT = 0;
+  private static final byte CONTEXT_DELTA = 1;
   private static final byte[] PROCESSED_VALUE = new byte[] {1};
 
   private final WorkflowBufferFactory factory;
+  private final ContextCheckpoints checkpoints;
+  private final RecordCompression compression;
+  private final Set<String> checkpointedInstances = new HashSet<>();
 
   protected BytesMapInstanceTransaction(WorkflowBufferFactory factory) {
+    this(factory, null);
+  }
+
+  /** @param checkpoints if not null, the context of completed tasks is stored incrementally */
+  protected BytesMapInstanceTransaction(
+      WorkflowBufferFactory factory, ContextCheckpoints checkpoints) {
+    this(factory, checkpoints, null);
+  }
+
+  /**
+   * @param checkpoints if not null, the context of completed tasks is stored incrementally
+   * @param compression if not null, records above its threshold are stored compressed
+   */
+  protected BytesMapInstanceTransaction(
+      WorkflowBufferFactory factory,
+      ContextCheckpoints checkpoints,
+      RecordCompression compression) {
     this.factory = factory;
+    this.checkpoints = checkpoints;
+    this.compression = compression;
   }
 
   @Override
   protected byte[] marshallTaskCompleted(WorkflowContextData contextData, TaskContext taskContext) {
+    if (checkpoints != null) {
+      long contextSeq = writeContext(contextData);
+      return factory.compactOutput(
+          writer -> {
+            writer.writeByte(VERSION_4);
+            writer.writeLong(contextSeq);
+            writer.writeEnum(TaskStatus.COMPLETED);
+            writer.writeInstant(taskContext.completedAt());
+            writeModel(writer, taskContext.output());
+            writeTransition(writer, taskContext);
+          },
+          this::toRecord);
+    }
+    return factory.compactOutput(
+        writer -> {
+          writer.writeByte(VERSION_3);
+          writer.writeEnum(TaskStatus.COMPLETED);
+          writer.writeInstant(taskContext.completedAt());
+          writeModel(writer, taskContext.output());
+          writeModel(writer, contextData.context());
+          writeTransition(writer, taskContext);
+        },
+        this::toRecord);
+  }
+
+  private void writeTransition(WorkflowOutputBuffer writer, TaskContext taskContext) {
+    TransitionInfo transition = taskContext.transition();
+    writer.writeBoolean(transition.isEndNode());
+    AbstractTaskExecutor<?> next = (AbstractTaskExecutor<?>) transition.next();
+    if (next == null) {
+      writer.writeBoolean(false);
+    } else {
+      writer.writeBoolean(true);
+      writer.writeString(next.position().jsonPointer());
+    }
+    writer.writeInt(taskContext.iteration());
+  }
 
-    try (ByteArrayOutputStream bytes = new ByteArrayOutputStream();
-        WorkflowOutputBuffer writer = factory.output(bytes)) {
-      writer.writeByte(VERSION_2);
-      writer.writeEnum(TaskStatus.COMPLETED);
-      writer.writeInstant(taskContext.completedAt());
-      writeModel(writer, taskContext.output());
-      writeModel(writer, contextData.context());
-      TransitionInfo transition = taskContext.transition();
-      writer.writeBoolean(transition.isEndNode());
-      AbstractTaskExecutor<?> next = (AbstractTaskExecutor<?>) transition.next();
-      if (next == null) {
-        writer.writeBoolean(false);
-      } else {
-        writer.writeBoolean(true);
-        writer.writeString(next.position().jsonPointer());
+  private long writeContext(WorkflowContextData contextData) {
+    String instanceId = contextData.instanceData().id();
+    Map<String, byte[]> contexts = contexts(instanceId);
+    WorkflowModel context = contextData.context();
+    checkpointedInstances.add(instanceId);
+    Checkpoint checkpoint =
+        checkpoints.next(instanceId, context.asJavaObject(), () -> lastContextSeq(contexts));
+    if (checkpoint.isSnapshot()) {
+      contexts.put(
+          contextKey(checkpoint.seq()),
+          factory.compactOutput(
+              writer -> {
+                writer.writeByte(CONTEXT_SNAPSHOT);
+                writeModel(writer, context);
+              },
+              this::toRecord));
+      compactContexts(instanceId, contexts, checkpoint.seq());
+    } else if (!checkpoint.patch().isEmpty()) {
+      WorkflowModelFactory modelFactory = contextData.definition().application().modelFactory();
+      contexts.put(
+          contextKey(checkpoint.seq()),
+          factory.compactOutput(
+              writer -> {
+                writer.writeByte(CONTEXT_DELTA);
+                writer.writeLong(checkpoint.seq() - 1);
+                ContextPatch.write(writer, modelFactory, checkpoint.patch());
+              },
+              this::toRecord));
+    }
+    return checkpoint.seq();
+  }
+
+  private static String contextKey(long seq) {
+    // fixed length hex, so lexicographic order of the keys is the sequence order
+    return String.format("%016x", seq);
+  }
+
+  private static long lastContextSeq(Map<String, byte[]> contexts) {
+    return contexts.keySet().stream()
+        .max(String::compareTo)
+        .map(k -> Long.parseUnsignedLong(k, 16))
+        .orElse(-1L);
+  }
+
+  /**
+   * Removes the checkpoints preceding the latest snapshot that is still needed to rebuild the
+   * context of the stored tasks. The previous snapshot interval is always kept, since tasks
+   * written by concurrent transactions might still refer to it.
+   */
+  private void compactContexts(String instanceId, Map<String, byte[]> contexts, long seq) {
+    String minKey = contextKey(seq - 1);
+    for (byte[] taskData : tasks(instanceId).values()) {
+      if (taskData.length > 0 && RecordCompression.version(taskData) == VERSION_4) {
+        String key = contextKey(readContextSeq(taskData));
+        if (key.compareTo(minKey) < 0) {
+          minKey = key;
+        }
       }
-      writer.writeInt(taskContext.iteration());
-      return bytes.toByteArray();
-    } catch (IOException e) {
-      throw new UncheckedIOException(e);
+    }
+    NavigableMap<String, byte[]> sorted = new TreeMap<>(contexts);
+    String baseKey = snapshotKey(sorted, minKey);
+    if (baseKey != null) {
+      sorted.headMap(baseKey).keySet().forEach(contexts::remove);
+    }
+  }
+
+  private static String snapshotKey(NavigableMap<String, byte[]> contexts, String key) {
+    for (Map.Entry<String, byte[]> entry : contexts.headMap(key, true).descendingMap().entrySet()) {
+      if (RecordCompression.version(entry.getValue()) == CONTEXT_SNAPSHOT) {
+        return entry.getKey();
+      }
+    }
+    return null;
+  }
+
+  private long readContextSeq(byte[] taskData) {
+    try (WorkflowInputBuffer buffer = input(taskData)) {
+      buffer.readByte();
+      return buffer.readLong();
     }
   }
 
   @Override
-  protected byte[] marshallStatus(WorkflowStatus status) {
-    try (ByteArrayOutputStream bytes = new ByteArrayOutputStream();
-        WorkflowOutputBuffer writer = factory.output(bytes)) {
-      writer.writeByte(VERSION_0);
-      writer.writeEnum(status);
-      return bytes.toByteArray();
-    } catch (IOException e) {
-      throw new UncheckedIOException(e);
+  protected Map<String, PersistenceTaskInfo> readTasks(
+      WorkflowDefinition definition, String instanceId, Map<String, byte[]> tasksData) {
+    Map<String, PersistenceTaskInfo> tasks = super.readTasks(definition, instanceId, tasksData);
+    Set<Long> seqs = new HashSet<>();
+    for (PersistenceTaskInfo task : tasks.values()) {
+      if (task instanceof IncrementalTaskInfo incremental) {
+        seqs.add(incremental.contextSeq());
+      }
+    }
+    if (!seqs.isEmpty()) {
+      Map<Long, WorkflowModel> contexts =
+          replayContexts(
+              instanceId, definition.application().modelFactory(), contexts(instanceId), seqs);
+      tasks.replaceAll(
+          (k, v) ->
+              v instanceof IncrementalTaskInfo incremental
+                  ? incremental.withContext(contexts.get(incremental.contextSeq()))
+                  : v);
+    }
+    return tasks;
+  }
+
+  /**
+   * Rebuilds the contexts with the given sequence numbers, replaying, in sequence order, the
+   * deltas stored after the latest snapshot preceding all of them
+   */
+  private Map<Long, WorkflowModel> replayContexts(
+      String instanceId,
+      WorkflowModelFactory modelFactory,
+      Map<String, byte[]> contextsData,
+      Set<Long> seqs) {
+    NavigableMap<String, byte[]> sorted = new TreeMap<>(contextsData);
+    String baseKey = snapshotKey(sorted, contextKey(Collections.min(seqs)));
+    Map<Long, WorkflowModel> result = new HashMap<>();
+    if (baseKey != null) {
+      Object context = null;
+      long previousSeq = -1;
+      boolean valid = false;
+      for (Map.Entry<String, byte[]> entry :
+          sorted.subMap(baseKey, true, contextKey(Collections.max(seqs)), true).entrySet()) {
+        long seq = Long.parseUnsignedLong(entry.getKey(), 16);
+        try (WorkflowInputBuffer buffer =
+            factory.compactInput(ByteBuffer.wrap(RecordCompression.decompress(entry.getValue())))) {
+          if (buffer.readByte() == CONTEXT_SNAPSHOT) {
+            context = ((WorkflowModel) buffer.readObject()).asJavaObject();
+            valid = true;
+          } else {
+            // a delta whose base is missing (rolled back) invalidates the chain until next snapshot
+            valid &= buffer.readLong() == previousSeq;
+            if (valid) {
+              context = ContextPatch.apply(context, ContextPatch.read(buffer));
+            }
+          }
+        }
+        previousSeq = seq;
+        if (valid && seqs.contains(seq)) {
+          result.put(seq, modelFactory.fromAny(context));
+        }
+      }
     }
+    if (result.size() < seqs.size()) {
+      throw new IllegalStateException(
+          "Context checkpoints "
+              + seqs.stream().filter(s -> !result.containsKey(s)).toList()
+              + " of instance "
+              + instanceId
+              + " cannot be rebuilt");
+    }
+    return result;
   }
 
   @Override
-  protected byte[] marshallInstance(WorkflowInstanceData instance) {
+  public void removeProcessInstance(WorkflowContextData workflowContext) {
+    super.removeProcessInstance(workflowContext);
+    String instanceId = workflowContext.instanceData().id();
+    removeContexts(instanceId);
+    if (checkpoints != null) {
+      checkpoints.invalidate(instanceId);
+    }
+  }
 
-    try (ByteArrayOutputStream bytes = new ByteArrayOutputStream();
-        WorkflowOutputBuffer writer = factory.output(bytes)) {
-      writer.writeByte(VERSION_0);
-      writer.writeInstant(instance.startedAt());
-      writeModel(writer, instance.input());
-      return bytes.toByteArray();
-    } catch (IOException e) {
-      throw new UncheckedIOException(e);
+  /**
+   * Discards the cached checkpoints of the instances written by this transaction. Must be called
+   * by implementations when the transaction is rolled back
+   */
+  protected void rollbackCheckpoints() {
+    if (checkpoints != null) {
+      checkpointedInstances.forEach(checkpoints::invalidate);
     }
+    checkpointedInstances.clear();
+  }
+
+  @Override
+  protected byte[] marshallStatus(WorkflowStatus status) {
+    return factory.compactOutput(
+        writer -> {
+          writer.writeByte(VERSION_3);
+          writer.writeEnum(status);
+        },
+        this::toRecord);
+  }
+
+  @Override
+  protected byte[] marshallInstance(WorkflowInstanceData instance) {
+
+    return factory.compactOutput(
+        writer -> {
+          writer.writeByte(VERSION_3);
+          writer.writeInstant(instance.startedAt());
+          writeModel(writer, instance.input());
+        },
+        this::toRecord);
+  }
+
+  private byte[] toRecord(ByteBuffer buffer) {
+    ByteBuffer compressed = compression == null ? null : compression.compress(buffer);
+    return toValue(compressed == null ? buffer : compressed);
+  }
+
+  /**
+   * Converts the marshalled record, held in a pooled buffer that is reused once this method
+   * returns, into the stored value
+   */
+  protected byte[] toValue(ByteBuffer buffer) {
+    return MarshallingUtils.toByteArray(buffer);
   }
 
   protected void writeModel(WorkflowOutputBuffer writer, WorkflowModel model) {
@@ -122,18 +359,18 @@ public abstract class BytesMapInstanceTransaction
   @Override
   protected byte[] marshallTaskRetried(
       WorkflowContextData workflowContext, TaskContext taskContext) {
-    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
-    try (WorkflowOutputBuffer writer = factory.output(bytes)) {
-      writer.writeByte(VERSION_1);
-      writer.writeEnum(TaskStatus.RETRIED);
-      writer.writeShort(taskContext.retryAttempt());
-    }
-    return bytes.toByteArray();
+    return factory.compactOutput(
+        writer -> {
+          writer.writeByte(VERSION_3);
+          writer.writeEnum(TaskStatus.RETRIED);
+          writer.writeShort(taskContext.retryAttempt());
+        },
+        this::toRecord);
   }
 
   @Override
   protected PersistenceTaskInfo unmarshallTaskInfo(byte[] taskData) {
-    try (WorkflowInputBuffer buffer = factory.input(new ByteArrayInputStream(taskData))) {
+    try (WorkflowInputBuffer buffer = input(taskData)) {
       byte version = buffer.readByte();
       switch (version) {
         case VERSION_0:
@@ -141,7 +378,10 @@ public abstract class BytesMapInstanceTransaction
         case VERSION_1:
           return readVersion1(buffer);
         case VERSION_2:
+        case VERSION_3:
           return readVersion2(buffer);
+        case VERSION_4:
+          return readVersion4(buffer);
       }
       throw new UnsupportedOperationException("Unknown version " + version);
     }
@@ -164,6 +404,31 @@ public abstract class BytesMapInstanceTransaction
     throw new UnsupportedOperationException("Unknown status " + taskStatus);
   }
 
+  private PersistenceTaskInfo readVersion4(WorkflowInputBuffer buffer) {
+    long contextSeq = buffer.readLong();
+    buffer.readEnum(TaskStatus.class);
+    return new IncrementalTaskInfo(
+        contextSeq,
+        buffer.readInstant(),
+        (WorkflowModel) buffer.readObject(),
+        buffer.readBoolean(),
+        buffer.readBoolean() ? buffer.readString() : null,
+        buffer.readInt());
+  }
+
+  private record IncrementalTaskInfo(
+      long contextSeq,
+      Instant instant,
+      WorkflowModel model,
+      Boolean isEndNode,
+      String nextPosition,
+      int iteration)
+      implements PersistenceTaskInfo {
+    CompletedTaskInfo withContext(WorkflowModel context) {
+      return new CompletedTaskInfo(instant, model, context, isEndNode, nextPosition, iteration);
+    }
+  }
+
   private PersistenceTaskInfo readVersion1(WorkflowInputBuffer buffer) {
     TaskStatus taskStatus = buffer.readEnum(TaskStatus.class);
     switch (taskStatus) {
@@ -186,7 +451,7 @@ public abstract class BytesMapInstanceTransaction
 
   @Override
   protected PersistenceInstanceInfo unmarshallInstanceInfo(byte[] instanceData) {
-    try (WorkflowInputBuffer buffer = factory.input(new ByteArrayInputStream(instanceData))) {
+    try (WorkflowInputBuffer buffer = input(instanceData)) {
       buffer.readByte(); // version byte not used at the moment
       return new PersistenceInstanceInfo(buffer.readInstant(), (WorkflowModel) buffer.readObject());
     }
@@ -194,29 +459,36 @@ public abstract class BytesMapInstanceTransaction
 
   @Override
   protected WorkflowStatus unmarshallStatus(byte[] statusData) {
-    try (WorkflowInputBuffer buffer = factory.input(new ByteArrayInputStream(statusData))) {
+    try (WorkflowInputBuffer buffer = input(statusData)) {
       buffer.readByte(); // version byte not used at the moment
       return buffer.readEnum(WorkflowStatus.class);
     }
   }
 
+  // the version byte is encoded as is by every buffer, so it can be used to pick the proper one
+  private WorkflowInputBuffer input(byte[] data) {
+    data = RecordCompression.decompress(data);
+    ByteBuffer bytes = ByteBuffer.wrap(data);
+    return data.length > 0 && (data[0] == VERSION_3 || data[0] == VERSION_4)
+        ? factory.compactInput(bytes)
+        : factory.input(bytes);
+  }
+
   protected byte[] marshallCloudEvent(CloudEvent event) {
-    try (ByteArrayOutputStream bytes = new ByteArrayOutputStream();
-        WorkflowOutputBuffer writer = factory.output(bytes)) {
-      writer.writeEnum(event.getSpecVersion());
-      writer.writeString(event.getId());
-      writer.writeString(event.getType());
-      writer.writeURI(event.getSource());
-      writer.writeObject(event.getTime());
-      writer.writeObject(event.getSubject());
-      writer.writeObject(event.getDataSchema());
-      writer.writeObject(event.getDataContentType());
-      writer.writeObject(event.getData() == null ? null : event.getData().toBytes());
-      MarshallingUtils.writeCloudEventExtensions(writer, event);
-      return bytes.toByteArray();
-    } catch (IOException e) {
-      throw new UncheckedIOException(e);
-    }
+    return factory.output(
+        writer -> {
+          writer.writeEnum(event.getSpecVersion());
+          writer.writeString(event.getId());
+          writer.writeString(event.getType());
+          writer.writeURI(event.getSource());
+          writer.writeObject(event.getTime());
+          writer.writeObject(event.getSubject());
+          writer.writeObject(event.getDataSchema());
+          writer.writeObject(event.getDataContentType());
+          writer.writeObject(event.getData() == null ? null : event.getData().toBytes());
+          MarshallingUtils.writeCloudEventExtensions(writer, event);
+        },
+        this::toValue);
   }
 
   protected CloudEvent unmarshallCloudEvent(byte[] eventData) {
@@ -239,6 +511,11 @@ public abstract class BytesMapInstanceTransaction
     }
   }
 
+  /** Map holding the context checkpoints of the instance, keyed by sequence number */
+  protected abstract Map<String, byte[]> contexts(String instanceId);
+
+  protected abstract void removeContexts(String instanceId);
+
   protected byte[] processedValue() {
     return PROCESSED_VALUE;
   }
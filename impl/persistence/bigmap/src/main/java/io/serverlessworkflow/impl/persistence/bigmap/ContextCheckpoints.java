@@ -0,0 +1,84 @@
+/*
+ * Copyright 2020-Present The Serverless Workflow Specification Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.serverlessworkflow.impl.persistence.bigmap;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Keeps, per workflow instance, the last context checkpoint written by {@link
+ * BytesMapInstanceTransaction}. When an instance of this class is provided to the transaction,
+ * the workflow context of every completed task is stored as a delta against the previous
+ * checkpoint, with a full snapshot every {@code snapshotInterval} checkpoints.
+ *
+ * <p>The same instance must be shared by all the transactions of a store.
+ */
+public class ContextCheckpoints {
+
+  public static final int DEFAULT_SNAPSHOT_INTERVAL = 32;
+
+  private final int snapshotInterval;
+  private final Map<String, Checkpoint> checkpoints = new ConcurrentHashMap<>();
+
+  public ContextCheckpoints() {
+    this(DEFAULT_SNAPSHOT_INTERVAL);
+  }
+
+  public ContextCheckpoints(int snapshotInterval) {
+    if (snapshotInterval < 1) {
+      throw new IllegalArgumentException("Snapshot interval must be positive: " + snapshotInterval);
+    }
+    this.snapshotInterval = snapshotInterval;
+  }
+
+  /**
+   * @param patch null for a snapshot, empty if the context did not change since the previous
+   *     checkpoint (and therefore sequence number is reused)
+   */
+  record Checkpoint(long seq, Object context, int deltas, List<ContextPatch> patch) {
+    boolean isSnapshot() {
+      return patch == null;
+    }
+  }
+
+  /**
+   * Computes the checkpoint for the given context. If the instance is not known (first write
+   * or after a restart or a rollback), a snapshot following the last stored sequence number is
+   * returned.
+   */
+  Checkpoint next(String instanceId, Object context, LongSupplier lastSeq) {
+    return checkpoints.compute(
+        instanceId,
+        (k, previous) -> {
+          if (previous == null) {
+            return new Checkpoint(lastSeq.getAsLong() + 1, context, 0, null);
+          }
+          List<ContextPatch> patch = ContextPatch.diff(previous.context(), context);
+          if (patch.isEmpty()) {
+            return new Checkpoint(previous.seq(), previous.context(), previous.deltas(), patch);
+          }
+          return previous.deltas() + 1 >= snapshotInterval
+              ? new Checkpoint(previous.seq() + 1, context, 0, null)
+              : new Checkpoint(previous.seq() + 1, context, previous.deltas() + 1, patch);
+        });
+  }
+
+  void invalidate(String instanceId) {
+    checkpoints.remove(instanceId);
+  }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2020-Present The Serverless Workflow Specification Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.serverlessworkflow.impl.persistence.bigmap;
+
+import io.serverlessworkflow.impl.WorkflowModel;
+import io.serverlessworkflow.impl.WorkflowModelFactory;
+import io.serverlessworkflow.impl.marshaller.WorkflowInputBuffer;
+import io.serverlessworkflow.impl.marshaller.WorkflowOutputBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * JSON-patch-style operation over the java representation of a workflow model. Objects are
+ * compared property by property, any other value (including arrays) is replaced as a whole.
+ */
+record ContextPatch(List<String> path, boolean remove, Object value) {
+
+  static List<ContextPatch> diff(Object previous, Object current) {
+    List<ContextPatch> patch = new ArrayList<>();
+    diff(new ArrayList<>(), previous, current, patch);
+    return patch;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static void diff(
+      List<String> path, Object previous, Object current, List<ContextPatch> patch) {
+    if (previous instanceof Map && current instanceof Map) {
+      Map<String, Object> previousMap = (Map<String, Object>) previous;
+      Map<String, Object> currentMap = (Map<String, Object>) current;
+      for (String key : previousMap.keySet()) {
+        if (!currentMap.containsKey(key)) {
+          path.add(key);
+          patch.add(new ContextPatch(List.copyOf(path), true, null));
+          path.remove(path.size() - 1);
+        }
+      }
+      for (Map.Entry<String, Object> entry : currentMap.entrySet()) {
+        path.add(entry.getKey());
+        if (!previousMap.containsKey(entry.getKey())) {
+          patch.add(new ContextPatch(List.copyOf(path), false, entry.getValue()));
+        } else {
+          diff(path, previousMap.get(entry.getKey()), entry.getValue(), patch);
+        }
+        path.remove(path.size() - 1);
+      }
+    } else if (!Objects.equals(previous, current)) {
+      patch.add(new ContextPatch(List.copyOf(path), false, current));
+    }
+  }
+
+  /**
+   * Returns the result of applying the patch to the given value. The value is not modified, only
+   * the objects along the patched paths are copied, so the result shares the rest with it.
+   */
+  static Object apply(Object base, List<ContextPatch> patch) {
+    Set<Object> copies = Collections.newSetFromMap(new IdentityHashMap<>());
+    for (ContextPatch operation : patch) {
+      base = operation.apply(base, 0, copies);
+    }
+    return base;
+  }
+
+  @SuppressWarnings("unchecked")
+  private Object apply(Object target, int index, Set<Object> copies) {
+    if (index == path.size()) {
+      return value;
+    }
+    Map<String, Object> map;
+    if (copies.contains(target)) {
+      map = (Map<String, Object>) target;
+    } else {
+      map =
+          target instanceof Map
+              ? new LinkedHashMap<>((Map<String, Object>) target)
+              : new LinkedHashMap<>();
+      copies.add(map);
+    }
+    String key = path.get(index);
+    if (remove && index == path.size() - 1) {
+      map.remove(key);
+    } else {
+      map.put(key, apply(map.get(key), index + 1, copies));
+    }
+    return map;
+  }
+
+  static void write(
+      WorkflowOutputBuffer writer, WorkflowModelFactory modelFactory, List<ContextPatch> patch) {
+    writer.writeInt(patch.size());
+    for (ContextPatch operation : patch) {
+      writer.writeInt(operation.path.size());
+      operation.path.forEach(writer::writeString);
+      writer.writeBoolean(operation.remove);
+      if (!operation.remove) {
+        // values are written as models, so any number type is handled by the model marshaller
+        writer.writeObject(modelFactory.fromAny(operation.value));
+      }
+    }
+  }
+
+  static List<ContextPatch> read(WorkflowInputBuffer reader) {
+    int size = reader.readInt();
+    List<ContextPatch> patch = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      int pathSize = reader.readInt();
+      List<String> path = new ArrayList<>(pathSize);
+      for (int j = 0; j < pathSize; j++) {
+        path.add(reader.readString());
+      }
+      boolean remove = reader.readBoolean();
+      patch.add(
+          new ContextPatch(
+              path, remove, remove ? null : ((WorkflowModel) reader.readObject()).asJavaObject()));
+    }
+    return patch;
+  }
+}
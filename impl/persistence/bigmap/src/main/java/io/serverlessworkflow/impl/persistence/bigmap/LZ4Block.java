@@ -0,0 +1,168 @@
+/*
+ * Copyright 2020-Present The Serverless Workflow Specification Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.serverlessworkflow.impl.persistence.bigmap;
+
+/**
+ * Pure java implementation of the LZ4 block format (greedy matching over a single hash table), so
+ * data compressed here can be decompressed by any LZ4 block decoder and the other way round.
+ */
+class LZ4Block {
+
+  private LZ4Block() {}
+
+  private static final int MIN_MATCH = 4;
+  // the last 5 bytes are always literals and the last match starts at least 12 bytes before end
+  private static final int LAST_LITERALS = 5;
+  private static final int MF_LIMIT = 12;
+  private static final int MAX_OFFSET = 0xFFFF;
+  private static final int HASH_LOG = 12;
+  private static final int SKIP_TRIGGER = 6;
+
+  static int maxCompressedLength(int length) {
+    return length + length / 255 + 16;
+  }
+
+  /** Returns the number of bytes written into dst, which must hold maxCompressedLength bytes */
+  static int compress(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff) {
+    int srcEnd = srcOff + srcLen;
+    int matchLimit = srcEnd - LAST_LITERALS;
+    int mfLimit = srcEnd - MF_LIMIT;
+    int anchor = srcOff;
+    int ip = srcOff;
+    int op = dstOff;
+    if (srcLen > MF_LIMIT) {
+      // positions are stored plus one, so zero means empty
+      int[] table = new int[1 << HASH_LOG];
+      while (ip < mfLimit) {
+        int sequence = readInt(src, ip);
+        int h = hash(sequence);
+        int ref = table[h] - 1;
+        table[h] = ip + 1;
+        if (ref < 0 || ip - ref > MAX_OFFSET || readInt(src, ref) != sequence) {
+          // skip faster over data that does not compress
+          ip += 1 + ((ip - anchor) >>> SKIP_TRIGGER);
+          continue;
+        }
+        int matchLength = MIN_MATCH;
+        while (ip + matchLength < matchLimit && src[ref + matchLength] == src[ip + matchLength]) {
+          matchLength++;
+        }
+        int tokenPos = op;
+        op = writeLiterals(src, anchor, ip - anchor, dst, op);
+        dst[op++] = (byte) (ip - ref);
+        dst[op++] = (byte) ((ip - ref) >>> 8);
+        int extraMatch = matchLength - MIN_MATCH;
+        if (extraMatch >= 0x0F) {
+          dst[tokenPos] |= 0x0F;
+          op = writeExtraLength(dst, op, extraMatch - 0x0F);
+        } else {
+          dst[tokenPos] |= (byte) extraMatch;
+        }
+        ip += matchLength;
+        anchor = ip;
+      }
+    }
+    op = writeLiterals(src, anchor, srcEnd - anchor, dst, op);
+    return op - dstOff;
+  }
+
+  /** Decompresses exactly dstLen bytes into dst */
+  static void decompress(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff, int dstLen) {
+    int srcEnd = srcOff + srcLen;
+    int ip = srcOff;
+    int op = dstOff;
+    try {
+      while (true) {
+        int token = src[ip++] & 0xFF;
+        int literalLength = token >>> 4;
+        if (literalLength == 0x0F) {
+          int b;
+          do {
+            b = src[ip++] & 0xFF;
+            literalLength += b;
+          } while (b == 0xFF);
+        }
+        System.arraycopy(src, ip, dst, op, literalLength);
+        ip += literalLength;
+        op += literalLength;
+        if (ip >= srcEnd) {
+          break;
+        }
+        int offset = (src[ip++] & 0xFF) | ((src[ip++] & 0xFF) << 8);
+        int matchLength = token & 0x0F;
+        if (matchLength == 0x0F) {
+          int b;
+          do {
+            b = src[ip++] & 0xFF;
+            matchLength += b;
+          } while (b == 0xFF);
+        }
+        matchLength += MIN_MATCH;
+        int ref = op - offset;
+        if (offset == 0 || ref < dstOff) {
+          throw new IllegalStateException("Invalid LZ4 match offset " + offset);
+        }
+        if (offset >= matchLength) {
+          System.arraycopy(dst, ref, dst, op, matchLength);
+        } else {
+          // overlapping copy, repeats the last offset bytes
+          for (int i = 0; i < matchLength; i++) {
+            dst[op + i] = dst[ref + i];
+          }
+        }
+        op += matchLength;
+      }
+    } catch (IndexOutOfBoundsException e) {
+      throw new IllegalStateException("Corrupted LZ4 block", e);
+    }
+    if (op != dstOff + dstLen) {
+      throw new IllegalStateException(
+          "LZ4 block decompressed into " + (op - dstOff) + " bytes, expected " + dstLen);
+    }
+  }
+
+  /** Writes the token, with the literal length in its high nibble, followed by the literals */
+  private static int writeLiterals(byte[] src, int literalOff, int literalLen, byte[] dst, int op) {
+    if (literalLen >= 0x0F) {
+      dst[op++] = (byte) 0xF0;
+      op = writeExtraLength(dst, op, literalLen - 0x0F);
+    } else {
+      dst[op++] = (byte) (literalLen << 4);
+    }
+    System.arraycopy(src, literalOff, dst, op, literalLen);
+    return op + literalLen;
+  }
+
+  private static int writeExtraLength(byte[] dst, int op, int length) {
+    while (length >= 0xFF) {
+      dst[op++] = (byte) 0xFF;
+      length -= 0xFF;
+    }
+    dst[op++] = (byte) length;
+    return op;
+  }
+
+  private static int readInt(byte[] buffer, int offset) {
+    return (buffer[offset] & 0xFF)
+        | (buffer[offset + 1] & 0xFF) << 8
+        | (buffer[offset + 2] & 0xFF) << 16
+        | (buffer[offset + 3] & 0xFF) << 24;
+  }
+
+  private static int hash(int sequence) {
+    return (sequence * -1640531535) >>> (32 - HASH_LOG);
+  }
+}
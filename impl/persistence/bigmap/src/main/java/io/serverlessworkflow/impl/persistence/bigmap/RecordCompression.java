@@ -0,0 +1,184 @@
+/*
+ * Copyright 2020-Present The Serverless Workflow Specification Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.serverlessworkflow.impl.persistence.bigmap;
+
+import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compression of the records written by {@link BytesMapInstanceTransaction} whose size is above a
+ * threshold. A compressed record keeps its version byte, flagged with {@link #COMPRESSED_FLAG},
+ * followed by the codec id, the length of the rest of the record and the rest of the record
+ * compressed, so compressed and uncompressed records can be mixed in the same store.
+ */
+public class RecordCompression {
+
+  public enum Codec {
+    /** Fast LZ4 block compression, pure java */
+    LZ4(1),
+    /** Raw deflate at best speed, slower than LZ4 but with a better ratio */
+    DEFLATE(2);
+
+    private final byte id;
+
+    Codec(int id) {
+      this.id = (byte) id;
+    }
+
+    private static Codec fromId(byte id) {
+      for (Codec codec : values()) {
+        if (codec.id == id) {
+          return codec;
+        }
+      }
+      throw new IllegalStateException("Unknown compression codec " + id);
+    }
+  }
+
+  public static final int DEFAULT_THRESHOLD = 512;
+
+  static final byte COMPRESSED_FLAG = (byte) 0x80;
+  private static final int HEADER_SIZE = 6;
+
+  private final Codec codec;
+  private final int threshold;
+
+  public static RecordCompression lz4() {
+    return lz4(DEFAULT_THRESHOLD);
+  }
+
+  public static RecordCompression lz4(int threshold) {
+    return new RecordCompression(Codec.LZ4, threshold);
+  }
+
+  public static RecordCompression deflate() {
+    return deflate(DEFAULT_THRESHOLD);
+  }
+
+  public static RecordCompression deflate(int threshold) {
+    return new RecordCompression(Codec.DEFLATE, threshold);
+  }
+
+  /** @param threshold minimum size in bytes of the records to be compressed */
+  public RecordCompression(Codec codec, int threshold) {
+    if (threshold < HEADER_SIZE) {
+      throw new IllegalArgumentException("Compression threshold must be at least " + HEADER_SIZE);
+    }
+    this.codec = codec;
+    this.threshold = threshold;
+  }
+
+  public Codec codec() {
+    return codec;
+  }
+
+  public int threshold() {
+    return threshold;
+  }
+
+  /**
+   * Returns the compressed record or null if the record is below the threshold or does not get
+   * smaller once compressed
+   */
+  ByteBuffer compress(ByteBuffer record) {
+    int length = record.remaining();
+    if (length < threshold) {
+      return null;
+    }
+    byte[] src;
+    int srcOff;
+    if (record.hasArray()) {
+      src = record.array();
+      srcOff = record.arrayOffset() + record.position();
+    } else {
+      src = new byte[length];
+      record.duplicate().get(src);
+      srcOff = 0;
+    }
+    int bodyLength = length - 1;
+    byte[] dst = new byte[HEADER_SIZE + LZ4Block.maxCompressedLength(bodyLength)];
+    int compressedLength =
+        switch (codec) {
+          case LZ4 -> LZ4Block.compress(src, srcOff + 1, bodyLength, dst, HEADER_SIZE);
+          case DEFLATE -> deflate(src, srcOff + 1, bodyLength, dst, HEADER_SIZE);
+        };
+    if (compressedLength < 0 || HEADER_SIZE + compressedLength >= length) {
+      return null;
+    }
+    dst[0] = (byte) (src[srcOff] | COMPRESSED_FLAG);
+    dst[1] = codec.id;
+    ByteBuffer.wrap(dst, 2, 4).putInt(bodyLength);
+    return ByteBuffer.wrap(dst, 0, HEADER_SIZE + compressedLength);
+  }
+
+  static boolean isCompressed(byte[] data) {
+    return data.length > 0 && (data[0] & COMPRESSED_FLAG) != 0;
+  }
+
+  /** Version byte of a record, whether it is compressed or not */
+  static byte version(byte[] data) {
+    return (byte) (data[0] & ~COMPRESSED_FLAG);
+  }
+
+  /** Returns the record with its original version byte, decompressing it if needed */
+  static byte[] decompress(byte[] data) {
+    if (!isCompressed(data)) {
+      return data;
+    }
+    int bodyLength = ByteBuffer.wrap(data, 2, 4).getInt();
+    byte[] result = new byte[bodyLength + 1];
+    result[0] = version(data);
+    switch (Codec.fromId(data[1])) {
+      case LZ4 ->
+          LZ4Block.decompress(
+              data, HEADER_SIZE, data.length - HEADER_SIZE, result, 1, bodyLength);
+      case DEFLATE -> inflate(data, HEADER_SIZE, data.length - HEADER_SIZE, result, 1, bodyLength);
+    }
+    return result;
+  }
+
+  // returns -1 if the compressed data does not fit into dst
+  private static int deflate(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff) {
+    Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+    try {
+      deflater.setInput(src, srcOff, srcLen);
+      deflater.finish();
+      int length = deflater.deflate(dst, dstOff, dst.length - dstOff);
+      return deflater.finished() ? length : -1;
+    } finally {
+      deflater.end();
+    }
+  }
+
+  private static void inflate(
+      byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff, int dstLen) {
+    Inflater inflater = new Inflater(true);
+    try {
+      inflater.setInput(src, srcOff, srcLen);
+      int length = inflater.inflate(dst, dstOff, dstLen);
+      if (length != dstLen) {
+        throw new IllegalStateException(
+            "Deflated record inflated into " + length + " bytes, expected " + dstLen);
+      }
+    } catch (DataFormatException e) {
+      throw new IllegalStateException("Corrupted deflated record", e);
+    } finally {
+      inflater.end();
+    }
+  }
+}
@@ -0,0 +1,422 @@
+/*
+ * Copyright 2020-Present The Serverless Workflow Specification Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.serverlessworkflow.impl.persistence.jdbc;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+
+/**
+ * Changes of a transaction, kept in memory, coalesced by key, and written on commit as one
+ * statement batch per kind of change and table. Reads see these changes on top of the rows
+ * committed to the database
+ */
+class JdbcChanges {
+
+  private static class PendingMap {
+    // null values are removals
+    private final NavigableMap<String, byte[]> entries = new TreeMap<>();
+    private boolean removed;
+  }
+
+  private static class PendingTable {
+    private final Map<List<String>, PendingMap> maps = new HashMap<>();
+    private boolean removed;
+  }
+
+  private final Connection connection;
+  private final Map<JdbcTable, JdbcTableSql> sql;
+  private final int batchSize;
+  private final int fetchSize;
+  private final Map<JdbcTable, PendingTable> tables = new EnumMap<>(JdbcTable.class);
+  private final Map<String, PreparedStatement> statements = new HashMap<>();
+
+  JdbcChanges(
+      Connection connection, Map<JdbcTable, JdbcTableSql> sql, int batchSize, int fetchSize) {
+    this.connection = connection;
+    this.sql = sql;
+    this.batchSize = batchSize;
+    this.fetchSize = fetchSize;
+  }
+
+  Connection connection() {
+    return connection;
+  }
+
+  byte[] get(JdbcTable table, List<String> scope, String key) {
+    PendingTable pendingTable = tables.get(table);
+    if (pendingTable != null) {
+      PendingMap pending = pendingTable.maps.get(scope);
+      if (pending != null && pending.entries.containsKey(key)) {
+        return pending.entries.get(key);
+      } else if (pendingTable.removed || pending != null && pending.removed) {
+        return null;
+      }
+    }
+    return select(table, scope, key);
+  }
+
+  byte[] put(JdbcTable table, List<String> scope, String key, byte[] value) {
+    byte[] previous = table.previousValue() ? get(table, scope, key) : null;
+    pending(table, scope).entries.put(key, value);
+    return previous;
+  }
+
+  byte[] remove(JdbcTable table, List<String> scope, String key) {
+    byte[] previous = table.previousValue() ? get(table, scope, key) : null;
+    pending(table, scope).entries.put(key, null);
+    return previous;
+  }
+
+  void removeMap(JdbcTable table, List<String> scope) {
+    PendingMap pending = pending(table, scope);
+    pending.entries.clear();
+    pending.removed = true;
+  }
+
+  void removeAll(JdbcTable table) {
+    PendingTable pendingTable = tables.computeIfAbsent(table, k -> new PendingTable());
+    pendingTable.maps.clear();
+    pendingTable.removed = true;
+  }
+
+  private PendingMap pending(JdbcTable table, List<String> scope) {
+    PendingTable pendingTable = tables.computeIfAbsent(table, k -> new PendingTable());
+    return pendingTable.maps.computeIfAbsent(scope, k -> new PendingMap());
+  }
+
+  /**
+   * Iterates, in key order, over the entries whose key is greater than after (all if null). If
+   * values is false, committed values are only read when requested
+   */
+  Iterator<Map.Entry<String, byte[]>> entries(
+      JdbcTable table, List<String> scope, String after, boolean values) {
+    PendingTable pendingTable = tables.get(table);
+    PendingMap pending = pendingTable == null ? null : pendingTable.maps.get(scope);
+    boolean removed =
+        pendingTable != null && pendingTable.removed || pending != null && pending.removed;
+    return new MergeIterator(
+        removed ? Collections.emptyIterator() : new PageIterator(table, scope, after, values),
+        pending == null
+            ? Collections.emptyIterator()
+            : (after == null ? pending.entries : pending.entries.tailMap(after, false))
+                .entrySet()
+                .iterator());
+  }
+
+  /**
+   * Writes the pending changes: removed tables, removed maps, removed keys and then upserts. Each
+   * kind of change is completely written before the next one, since batches may be executed as
+   * rows are added
+   */
+  void flush() throws SQLException {
+    for (Map.Entry<JdbcTable, PendingTable> entry : tables.entrySet()) {
+      JdbcTableSql tableSql = sql.get(entry.getKey());
+      PendingTable pendingTable = entry.getValue();
+      if (pendingTable.removed) {
+        statement(tableSql.deleteAll()).executeUpdate();
+      } else {
+        Batch deleteScopes = new Batch(tableSql.deleteScope());
+        Batch deletes = new Batch(tableSql.delete());
+        pendingTable.maps.forEach(
+            (scope, pending) -> {
+              if (pending.removed) {
+                deleteScopes.add(scope, null, null);
+              }
+            });
+        deleteScopes.execute();
+        pendingTable.maps.forEach(
+            (scope, pending) -> {
+              if (!pending.removed) {
+                pending.entries.forEach(
+                    (key, value) -> {
+                      if (value == null) {
+                        deletes.add(scope, key, null);
+                      }
+                    });
+              }
+            });
+        deletes.execute();
+      }
+      Batch upserts = new Batch(tableSql.upsert());
+      pendingTable.maps.forEach(
+          (scope, pending) ->
+              pending.entries.forEach(
+                  (key, value) -> {
+                    if (value != null) {
+                      upserts.add(scope, key, value);
+                    }
+                  }));
+      upserts.execute();
+    }
+    clear();
+  }
+
+  void clear() {
+    tables.clear();
+  }
+
+  void close() throws SQLException {
+    SQLException exception = null;
+    for (PreparedStatement statement : statements.values()) {
+      try {
+        statement.close();
+      } catch (SQLException ex) {
+        exception = ex;
+      }
+    }
+    statements.clear();
+    connection.close();
+    if (exception != null) {
+      throw exception;
+    }
+  }
+
+  private PreparedStatement statement(String query) throws SQLException {
+    PreparedStatement statement = statements.get(query);
+    if (statement == null) {
+      statement = connection.prepareStatement(query);
+      statements.put(query, statement);
+    }
+    return statement;
+  }
+
+  private static int setScope(PreparedStatement statement, List<String> scope)
+      throws SQLException {
+    int index = 1;
+    for (String value : scope) {
+      statement.setString(index++, value);
+    }
+    return index;
+  }
+
+  private byte[] select(JdbcTable table, List<String> scope, String key) {
+    try {
+      PreparedStatement statement = statement(sql.get(table).select());
+      statement.setString(setScope(statement, scope), key);
+      try (ResultSet rs = statement.executeQuery()) {
+        return rs.next() ? rs.getBytes(1) : null;
+      }
+    } catch (SQLException ex) {
+      throw new JdbcPersistenceException("Error reading key " + key + " of " + table, ex);
+    }
+  }
+
+  private List<Map.Entry<String, byte[]>> page(
+      JdbcTable table, List<String> scope, String after, boolean values) {
+    try {
+      PreparedStatement statement = statement(sql.get(table).page(values, after != null));
+      int index = setScope(statement, scope);
+      if (after != null) {
+        statement.setString(index++, after);
+      }
+      statement.setInt(index, fetchSize);
+      List<Map.Entry<String, byte[]>> entries = new ArrayList<>(fetchSize);
+      try (ResultSet rs = statement.executeQuery()) {
+        while (rs.next()) {
+          entries.add(new RowEntry(table, scope, rs.getString(1), values ? rs.getBytes(2) : null));
+        }
+      }
+      return entries;
+    } catch (SQLException ex) {
+      throw new JdbcPersistenceException("Error reading " + table, ex);
+    }
+  }
+
+  /** Statement executed in batches of at most batchSize rows */
+  private class Batch {
+
+    private final String query;
+    private PreparedStatement statement;
+    private int count;
+
+    Batch(String query) {
+      this.query = query;
+    }
+
+    void add(List<String> scope, String key, byte[] value) {
+      try {
+        if (statement == null) {
+          statement = statement(query);
+        }
+        int index = setScope(statement, scope);
+        if (key != null) {
+          statement.setString(index++, key);
+        }
+        if (value != null) {
+          statement.setBytes(index, value);
+        }
+        statement.addBatch();
+        if (++count % batchSize == 0) {
+          statement.executeBatch();
+        }
+      } catch (SQLException ex) {
+        throw new JdbcPersistenceException("Error executing " + query, ex);
+      }
+    }
+
+    void execute() throws SQLException {
+      if (count % batchSize != 0) {
+        statement.executeBatch();
+      }
+    }
+  }
+
+  /** Committed rows of a map, read in pages of fetchSize rows */
+  private class PageIterator implements Iterator<Map.Entry<String, byte[]>> {
+
+    private final JdbcTable table;
+    private final List<String> scope;
+    private final boolean values;
+    private String last;
+    private Iterator<Map.Entry<String, byte[]>> page = Collections.emptyIterator();
+    private boolean exhausted;
+
+    PageIterator(JdbcTable table, List<String> scope, String after, boolean values) {
+      this.table = table;
+      this.scope = scope;
+      this.last = after;
+      this.values = values;
+    }
+
+    @Override
+    public boolean hasNext() {
+      if (!page.hasNext() && !exhausted) {
+        List<Map.Entry<String, byte[]>> entries = page(table, scope, last, values);
+        exhausted = entries.size() < fetchSize;
+        page = entries.iterator();
+      }
+      return page.hasNext();
+    }
+
+    @Override
+    public Map.Entry<String, byte[]> next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      Map.Entry<String, byte[]> entry = page.next();
+      last = entry.getKey();
+      return entry;
+    }
+  }
+
+  /** Committed row, whose value is read when requested if it was not fetched with the key */
+  private class RowEntry implements Map.Entry<String, byte[]> {
+
+    private final JdbcTable table;
+    private final List<String> scope;
+    private final String key;
+    private byte[] value;
+
+    RowEntry(JdbcTable table, List<String> scope, String key, byte[] value) {
+      this.table = table;
+      this.scope = scope;
+      this.key = key;
+      this.value = value;
+    }
+
+    @Override
+    public String getKey() {
+      return key;
+    }
+
+    @Override
+    public byte[] getValue() {
+      if (value == null) {
+        value = select(table, scope, key);
+      }
+      return value;
+    }
+
+    @Override
+    public byte[] setValue(byte[] value) {
+      throw new UnsupportedOperationException();
+    }
+  }
+
+  private static class MergeIterator implements Iterator<Map.Entry<String, byte[]>> {
+
+    private final Iterator<Map.Entry<String, byte[]>> committed;
+    private final Iterator<Map.Entry<String, byte[]>> pending;
+    private Map.Entry<String, byte[]> nextCommitted;
+    private Map.Entry<String, byte[]> nextPending;
+    private Map.Entry<String, byte[]> next;
+
+    MergeIterator(
+        Iterator<Map.Entry<String, byte[]>> committed,
+        Iterator<Map.Entry<String, byte[]>> pending) {
+      this.committed = committed;
+      this.pending = pending;
+      this.nextCommitted = advance(committed);
+      this.nextPending = advance(pending);
+      this.next = computeNext();
+    }
+
+    private static Map.Entry<String, byte[]> advance(Iterator<Map.Entry<String, byte[]>> iter) {
+      return iter.hasNext() ? iter.next() : null;
+    }
+
+    private Map.Entry<String, byte[]> computeNext() {
+      while (nextCommitted != null || nextPending != null) {
+        int cmp =
+            nextCommitted == null
+                ? 1
+                : nextPending == null ? -1 : nextCommitted.getKey().compareTo(nextPending.getKey());
+        if (cmp < 0) {
+          Map.Entry<String, byte[]> result = nextCommitted;
+          nextCommitted = advance(committed);
+          return result;
+        }
+        // pending changes override the committed row with the same key
+        Map.Entry<String, byte[]> entry = nextPending;
+        nextPending = advance(pending);
+        if (cmp == 0) {
+          nextCommitted = advance(committed);
+        }
+        if (entry.getValue() != null) {
+          return Map.entry(entry.getKey(), entry.getValue());
+        }
+      }
+      return null;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return next != null;
+    }
+
+    @Override
+    public Map.Entry<String, byte[]> next() {
+      if (next == null) {
+        throw new NoSuchElementException();
+      }
+      Map.Entry<String, byte[]> result = next;
+      next = computeNext();
+      return result;
+    }
+  }
+}
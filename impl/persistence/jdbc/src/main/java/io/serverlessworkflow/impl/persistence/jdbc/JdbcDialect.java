@@ -0,0 +1,85 @@
+/*
+ * Copyright 2020-Present The Serverless Workflow Specification Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.serverlessworkflow.impl.persistence.jdbc;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/** Database specific SQL used by {@link JdbcPersistenceStore} */
+public enum JdbcDialect {
+  H2("VARBINARY", "") {
+    @Override
+    String upsert(String table, List<String> columns, List<String> keyColumns) {
+      return "MERGE INTO "
+          + table
+          + " ("
+          + String.join(", ", columns)
+          + ") KEY ("
+          + String.join(", ", keyColumns)
+          + ") VALUES ("
+          + parameters(columns.size())
+          + ")";
+    }
+  },
+  // the default collation depends on the database locale, "C" compares keys by code point, as
+  // String.compareTo does for characters up to U+FFFF
+  POSTGRESQL("BYTEA", " COLLATE \"C\"") {
+    @Override
+    String upsert(String table, List<String> columns, List<String> keyColumns) {
+      return "INSERT INTO "
+          + table
+          + " ("
+          + String.join(", ", columns)
+          + ") VALUES ("
+          + parameters(columns.size())
+          + ") ON CONFLICT ("
+          + String.join(", ", keyColumns)
+          + ") DO UPDATE SET "
+          + columns.stream()
+              .filter(c -> !keyColumns.contains(c))
+              .map(c -> c + " = EXCLUDED." + c)
+              .collect(Collectors.joining(", "));
+    }
+  };
+
+  private final String binaryType;
+  private final String keyCollation;
+
+  JdbcDialect(String binaryType, String keyCollation) {
+    this.binaryType = binaryType;
+    this.keyCollation = keyCollation;
+  }
+
+  String binaryType() {
+    return binaryType;
+  }
+
+  /**
+   * Type of the key columns. Maps are read in key order, which must be the order of {@link
+   * String#compareTo}
+   */
+  String keyType(int length) {
+    return "VARCHAR(" + length + ")" + keyCollation;
+  }
+
+  /** Inserts a row or, if a row with the same key columns exists, replaces its other columns */
+  abstract String upsert(String table, List<String> columns, List<String> keyColumns);
+
+  private static String parameters(int count) {
+    return String.join(", ", Collections.nCopies(count, "?"));
+  }
+}
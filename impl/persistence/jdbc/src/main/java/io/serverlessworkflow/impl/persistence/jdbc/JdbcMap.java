@@ -0,0 +1,121 @@
+/*
+ * Copyright 2020-Present The Serverless Workflow Specification Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.serverlessworkflow.impl.persistence.jdbc;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/** Rows of a table sharing the same scope values, as seen by a transaction */
+class JdbcMap extends AbstractMap<String, byte[]> {
+
+  private final JdbcChanges changes;
+  private final JdbcTable table;
+  private final List<String> scope;
+
+  JdbcMap(JdbcChanges changes, JdbcTable table, List<String> scope) {
+    this.changes = changes;
+    this.table = table;
+    this.scope = scope;
+  }
+
+  @Override
+  public byte[] get(Object key) {
+    return key instanceof String str ? changes.get(table, scope, str) : null;
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return get(key) != null;
+  }
+
+  /** Returns the previous value only for the tables flagged to do so, null otherwise */
+  @Override
+  public byte[] put(String key, byte[] value) {
+    return changes.put(table, scope, key, value);
+  }
+
+  /** Returns the previous value only for the tables flagged to do so, null otherwise */
+  @Override
+  public byte[] remove(Object key) {
+    return key instanceof String str ? changes.remove(table, scope, str) : null;
+  }
+
+  @Override
+  public void clear() {
+    changes.removeMap(table, scope);
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return !changes.entries(table, scope, null, false).hasNext();
+  }
+
+  @Override
+  public Set<String> keySet() {
+    return new AbstractSet<>() {
+      @Override
+      public Iterator<String> iterator() {
+        return keysAfter(null);
+      }
+
+      @Override
+      public int size() {
+        return JdbcMap.this.size();
+      }
+    };
+  }
+
+  @Override
+  public Set<Map.Entry<String, byte[]>> entrySet() {
+    return new AbstractSet<>() {
+      @Override
+      public Iterator<Map.Entry<String, byte[]>> iterator() {
+        return changes.entries(table, scope, null, true);
+      }
+
+      @Override
+      public int size() {
+        int size = 0;
+        for (Iterator<?> iter = changes.entries(table, scope, null, false);
+            iter.hasNext();
+            iter.next()) {
+          size++;
+        }
+        return size;
+      }
+    };
+  }
+
+  /** Keys greater than after (all if null), in ascending order */
+  Iterator<String> keysAfter(String after) {
+    Iterator<Map.Entry<String, byte[]>> entries = changes.entries(table, scope, after, false);
+    return new Iterator<>() {
+      @Override
+      public boolean hasNext() {
+        return entries.hasNext();
+      }
+
+      @Override
+      public String next() {
+        return entries.next().getKey();
+      }
+    };
+  }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2020-Present The Serverless Workflow Specification Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.serverlessworkflow.impl.persistence.jdbc;
+
+import io.serverlessworkflow.impl.marshaller.DefaultBufferFactory;
+import io.serverlessworkflow.impl.marshaller.WorkflowBufferFactory;
+import io.serverlessworkflow.impl.persistence.PersistenceInstanceStore;
+import io.serverlessworkflow.impl.persistence.bigmap.ContextCheckpoints;
+import io.serverlessworkflow.impl.persistence.bigmap.RecordCompression;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import javax.sql.DataSource;
+
+/**
+ * Stores the workflow instances in relational tables, one per kind of big map, holding the
+ * marshalled records in binary columns. Writes of a transaction are buffered and sent on commit
+ * as statement batches, using upserts, so a transaction takes a few round trips whatever the
+ * number of tasks it persists. A pooled data source is expected, since every transaction borrows
+ * a connection
+ */
+public class JdbcPersistenceStore implements PersistenceInstanceStore {
+
+  public static class Builder {
+
+    private final DataSource dataSource;
+    private WorkflowBufferFactory factory = DefaultBufferFactory.factory();
+    private ContextCheckpoints checkpoints;
+    private RecordCompression compression;
+    private JdbcDialect dialect = JdbcDialect.H2;
+    private String tablePrefix = "SWF_";
+    private int batchSize = 500;
+    private int fetchSize = 256;
+    private boolean createTables = true;
+
+    private Builder(DataSource dataSource) {
+      this.dataSource = dataSource;
+    }
+
+    public Builder withBufferFactory(WorkflowBufferFactory factory) {
+      this.factory = factory;
+      return this;
+    }
+
+    /** See {@link ContextCheckpoints} */
+    public Builder withContextCheckpoints(ContextCheckpoints checkpoints) {
+      this.checkpoints = checkpoints;
+      return this;
+    }
+
+    /** See {@link RecordCompression} */
+    public Builder withRecordCompression(RecordCompression compression) {
+      this.compression = compression;
+      return this;
+    }
+
+    public Builder withDialect(JdbcDialect dialect) {
+      this.dialect = dialect;
+      return this;
+    }
+
+    public Builder withTablePrefix(String tablePrefix) {
+      this.tablePrefix = tablePrefix;
+      return this;
+    }
+
+    /** Maximum number of rows sent in a single statement batch */
+    public Builder withBatchSize(int batchSize) {
+      if (batchSize <= 0) {
+        throw new IllegalArgumentException("Batch size must be positive");
+      }
+      this.batchSize = batchSize;
+      return this;
+    }
+
+    /** Number of rows read per query when iterating a map */
+    public Builder withFetchSize(int fetchSize) {
+      if (fetchSize <= 0) {
+        throw new IllegalArgumentException("Fetch size must be positive");
+      }
+      this.fetchSize = fetchSize;
+      return this;
+    }
+
+    /** If true (the default), missing tables are created when the store is built */
+    public Builder withCreateTables(boolean createTables) {
+      this.createTables = createTables;
+      return this;
+    }
+
+    public JdbcPersistenceStore build() {
+      return new JdbcPersistenceStore(this);
+    }
+  }
+
+  public static Builder builder(DataSource dataSource) {
+    return new Builder(dataSource);
+  }
+
+  private final DataSource dataSource;
+  private final WorkflowBufferFactory factory;
+  private final ContextCheckpoints checkpoints;
+  private final RecordCompression compression;
+  private final int batchSize;
+  private final int fetchSize;
+  private final Map<JdbcTable, JdbcTableSql> sql;
+
+  public JdbcPersistenceStore(DataSource dataSource) {
+    this(builder(dataSource));
+  }
+
+  private JdbcPersistenceStore(Builder builder) {
+    this.dataSource = builder.dataSource;
+    this.factory = builder.factory;
+    this.checkpoints = builder.checkpoints;
+    this.compression = builder.compression;
+    this.batchSize = builder.batchSize;
+    this.fetchSize = builder.fetchSize;
+    Map<JdbcTable, JdbcTableSql> tables = new EnumMap<>(JdbcTable.class);
+    for (JdbcTable table : JdbcTable.values()) {
+      tables.put(table, new JdbcTableSql(table, builder.tablePrefix, builder.dialect));
+    }
+    this.sql = Collections.unmodifiableMap(tables);
+    if (builder.createTables) {
+      createTables();
+    }
+  }
+
+  private void createTables() {
+    try (Connection connection = dataSource.getConnection();
+        Statement statement = connection.createStatement()) {
+      for (JdbcTableSql tableSql : sql.values()) {
+        statement.execute(tableSql.create());
+      }
+    } catch (SQLException ex) {
+      throw new JdbcPersistenceException("Error creating tables", ex);
+    }
+  }
+
+  @Override
+  public JdbcTransaction begin() {
+    Connection connection = null;
+    try {
+      connection = dataSource.getConnection();
+      connection.setAutoCommit(false);
+      return new JdbcTransaction(
+          new JdbcChanges(connection, sql, batchSize, fetchSize),
+          factory,
+          checkpoints,
+          compression);
+    } catch (SQLException ex) {
+      if (connection != null) {
+        try {
+          connection.close();
+        } catch (SQLException closeEx) {
+          ex.addSuppressed(closeEx);
+        }
+      }
+      throw new JdbcPersistenceException("Error starting transaction", ex);
+    }
+  }
+}
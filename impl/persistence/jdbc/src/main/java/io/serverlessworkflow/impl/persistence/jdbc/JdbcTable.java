@@ -0,0 +1,63 @@
+/*
+ * Copyright 2020-Present The Serverless Workflow Specification Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.serverlessworkflow.impl.persistence.jdbc;
+
+import java.util.List;
+
+/**
+ * Tables the big map layout is stored into. Every map is the set of rows of a table sharing the
+ * values of the scope columns, keyed by the key column; the primary key, scope columns first,
+ * serves both key lookups and ordered scans of a map
+ */
+enum JdbcTable {
+  INSTANCES(List.of("DEFINITION_ID"), "INSTANCE_ID", false),
+  STATUS(List.of("DEFINITION_ID"), "INSTANCE_ID", true),
+  STATUS_INDEX(List.of("DEFINITION_ID", "STATUS"), "INSTANCE_ID", false),
+  APPLICATION_INDEX(List.of("DEFINITION_ID", "APPLICATION_ID"), "INSTANCE_ID", false),
+  APPLICATION(List.of(), "INSTANCE_ID", true),
+  TASKS(List.of("INSTANCE_ID"), "POSITION", false),
+  CONTEXTS(List.of("INSTANCE_ID"), "SEQ", false),
+  CLOUD_EVENTS(List.of("REGISTRATION_ID"), "EVENT_ID", false),
+  PROCESSED_EVENTS(List.of("REGISTRATION_ID"), "EVENT_ID", false);
+
+  static final String DATA_COLUMN = "DATA";
+
+  private final List<String> scopeColumns;
+  private final String keyColumn;
+  private final boolean previousValue;
+
+  /**
+   * @param previousValue if the previous value is returned by put and remove. It is only needed
+   *     where the transaction uses it, elsewhere it would cost a query per write
+   */
+  JdbcTable(List<String> scopeColumns, String keyColumn, boolean previousValue) {
+    this.scopeColumns = scopeColumns;
+    this.keyColumn = keyColumn;
+    this.previousValue = previousValue;
+  }
+
+  List<String> scopeColumns() {
+    return scopeColumns;
+  }
+
+  String keyColumn() {
+    return keyColumn;
+  }
+
+  boolean previousValue() {
+    return previousValue;
+  }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2020-Present The Serverless Workflow Specification Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.serverlessworkflow.impl.persistence.jdbc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/** SQL of a table, for a given dialect and table name prefix */
+class JdbcTableSql {
+
+  private final String create;
+  private final String select;
+  private final String[] pages = new String[4];
+  private final String upsert;
+  private final String delete;
+  private final String deleteScope;
+  private final String deleteAll;
+
+  JdbcTableSql(JdbcTable table, String prefix, JdbcDialect dialect) {
+    String name = prefix + table.name();
+    List<String> keyColumns = new ArrayList<>(table.scopeColumns());
+    keyColumns.add(table.keyColumn());
+    List<String> columns = new ArrayList<>(keyColumns);
+    columns.add(JdbcTable.DATA_COLUMN);
+    this.create =
+        "CREATE TABLE IF NOT EXISTS "
+            + name
+            + " ("
+            + table.scopeColumns().stream()
+                .map(c -> c + " " + dialect.keyType(255) + " NOT NULL, ")
+                .collect(Collectors.joining())
+            + table.keyColumn()
+            + " "
+            + dialect.keyType(1024)
+            + " NOT NULL, "
+            + JdbcTable.DATA_COLUMN
+            + " "
+            + dialect.binaryType()
+            + ", PRIMARY KEY ("
+            + String.join(", ", keyColumns)
+            + "))";
+    List<String> scope = table.scopeColumns().stream().map(c -> c + " = ?").toList();
+    this.select =
+        "SELECT "
+            + JdbcTable.DATA_COLUMN
+            + " FROM "
+            + name
+            + where(scope, table.keyColumn() + " = ?");
+    for (int i = 0; i < pages.length; i++) {
+      boolean values = (i & 1) != 0;
+      boolean after = (i & 2) != 0;
+      pages[i] =
+          "SELECT "
+              + table.keyColumn()
+              + (values ? ", " + JdbcTable.DATA_COLUMN : "")
+              + " FROM "
+              + name
+              + where(scope, after ? table.keyColumn() + " > ?" : null)
+              + " ORDER BY "
+              + table.keyColumn()
+              + " LIMIT ?";
+    }
+    this.upsert = dialect.upsert(name, columns, keyColumns);
+    this.delete = "DELETE FROM " + name + where(scope, table.keyColumn() + " = ?");
+    this.deleteScope = "DELETE FROM " + name + where(scope, null);
+    this.deleteAll = "DELETE FROM " + name;
+  }
+
+  private static String where(List<String> scope, String condition) {
+    List<String> conditions = new ArrayList<>(scope);
+    if (condition != null) {
+      conditions.add(condition);
+    }
+    return conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+  }
+
+  String create() {
+    return create;
+  }
+
+  /** Value of a key. Parameters: scope values and key */
+  String select() {
+    return select;
+  }
+
+  /**
+   * Keys, and values if requested, of a map in ascending order. Parameters: scope values, the key
+   * to start after (if after is true) and the page size
+   */
+  String page(boolean values, boolean after) {
+    return pages[(values ? 1 : 0) | (after ? 2 : 0)];
+  }
+
+  /** Parameters: scope values, key and value */
+  String upsert() {
+    return upsert;
+  }
+
+  /** Parameters: scope values and key */
+  String delete() {
+    return delete;
+  }
+
+  /** Parameters: scope values */
+  String deleteScope() {
+    return deleteScope;
+  }
+
+  String deleteAll() {
+    return deleteAll;
+  }
+}
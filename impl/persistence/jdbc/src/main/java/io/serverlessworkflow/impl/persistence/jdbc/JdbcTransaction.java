@@ -0,0 +1,169 @@
+/*
+ * Copyright 2020-Present The Serverless Workflow Specification Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.serverlessworkflow.impl.persistence.jdbc;
+
+import io.serverlessworkflow.api.types.Document;
+import io.serverlessworkflow.impl.WorkflowDefinitionData;
+import io.serverlessworkflow.impl.WorkflowStatus;
+import io.serverlessworkflow.impl.marshaller.WorkflowBufferFactory;
+import io.serverlessworkflow.impl.persistence.bigmap.BytesMapInstanceTransaction;
+import io.serverlessworkflow.impl.persistence.bigmap.ContextCheckpoints;
+import io.serverlessworkflow.impl.persistence.bigmap.RecordCompression;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Transaction bound to its own connection, which is released on commit or rollback. Changes are
+ * only sent to the database on commit
+ */
+public class JdbcTransaction extends BytesMapInstanceTransaction {
+
+  private static final Logger logger = LoggerFactory.getLogger(JdbcTransaction.class);
+
+  private final JdbcChanges changes;
+  private boolean closed;
+
+  JdbcTransaction(
+      JdbcChanges changes,
+      WorkflowBufferFactory factory,
+      ContextCheckpoints checkpoints,
+      RecordCompression compression) {
+    super(factory, checkpoints, compression);
+    this.changes = changes;
+  }
+
+  private static String definitionId(WorkflowDefinitionData definition) {
+    Document document = definition.workflow().getDocument();
+    return document.getNamespace() + ":" + document.getName() + ":" + document.getVersion();
+  }
+
+  private JdbcMap map(JdbcTable table, String... scope) {
+    return new JdbcMap(changes, table, List.of(scope));
+  }
+
+  @Override
+  public Map<String, byte[]> instanceData(WorkflowDefinitionData workflowContext) {
+    return map(JdbcTable.INSTANCES, definitionId(workflowContext));
+  }
+
+  @Override
+  protected Iterator<String> instanceIds(WorkflowDefinitionData definition, String afterId) {
+    return map(JdbcTable.INSTANCES, definitionId(definition)).keysAfter(afterId);
+  }
+
+  @Override
+  protected Map<String, byte[]> applicationIndex(
+      WorkflowDefinitionData definition, String applicationId) {
+    return map(JdbcTable.APPLICATION_INDEX, definitionId(definition), applicationId);
+  }
+
+  @Override
+  protected Map<String, byte[]> statusIndex(
+      WorkflowDefinitionData definition, WorkflowStatus status) {
+    return map(JdbcTable.STATUS_INDEX, definitionId(definition), status.name());
+  }
+
+  @Override
+  public Map<String, byte[]> tasks(String instanceId) {
+    return map(JdbcTable.TASKS, instanceId);
+  }
+
+  @Override
+  public Map<String, byte[]> status(WorkflowDefinitionData workflowContext) {
+    return map(JdbcTable.STATUS, definitionId(workflowContext));
+  }
+
+  @Override
+  public void removeTasks(String instanceId) {
+    changes.removeMap(JdbcTable.TASKS, List.of(instanceId));
+  }
+
+  @Override
+  protected Map<String, byte[]> contexts(String instanceId) {
+    return map(JdbcTable.CONTEXTS, instanceId);
+  }
+
+  @Override
+  protected void removeContexts(String instanceId) {
+    changes.removeMap(JdbcTable.CONTEXTS, List.of(instanceId));
+  }
+
+  @Override
+  protected Map<String, byte[]> applicationData() {
+    return map(JdbcTable.APPLICATION);
+  }
+
+  @Override
+  protected Map<String, byte[]> cloudEvents(String regId) {
+    return map(JdbcTable.CLOUD_EVENTS, regId);
+  }
+
+  @Override
+  protected Map<String, byte[]> processedCloudEvents(String regId) {
+    return map(JdbcTable.PROCESSED_EVENTS, regId);
+  }
+
+  @Override
+  protected void deleteAllProcessedMaps() {
+    changes.removeAll(JdbcTable.PROCESSED_EVENTS);
+  }
+
+  @Override
+  public void commit(WorkflowDefinitionData definition) {
+    if (closed) {
+      return;
+    }
+    try {
+      changes.flush();
+      changes.connection().commit();
+    } catch (SQLException ex) {
+      rollback(definition);
+      throw new JdbcPersistenceException("Error committing transaction", ex);
+    } catch (RuntimeException ex) {
+      rollback(definition);
+      throw ex;
+    }
+    close();
+  }
+
+  @Override
+  public void rollback(WorkflowDefinitionData definition) {
+    changes.clear();
+    rollbackCheckpoints();
+    if (closed) {
+      return;
+    }
+    try {
+      changes.connection().rollback();
+    } catch (SQLException ex) {
+      logger.warn("Error rolling back transaction", ex);
+    }
+    close();
+  }
+
+  private void close() {
+    closed = true;
+    try {
+      changes.close();
+    } catch (SQLException ex) {
+      logger.warn("Error releasing connection", ex);
+    }
+  }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2020-Present The Serverless Workflow Specification Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.serverlessworkflow.impl.persistence.jdbc;
+
+import io.serverlessworkflow.impl.persistence.PersistenceInstanceStore;
+import io.serverlessworkflow.impl.persistence.test.AbstractThroughputBenchmark;
+import java.sql.SQLException;
+import org.junit.jupiter.api.AfterEach;
+
+class JdbcThroughputBenchmark extends AbstractThroughputBenchmark {
+
+  private H2Database database;
+
+  @Override
+  protected PersistenceInstanceStore persistenceStore() {
+    try {
+      database = new H2Database();
+    } catch (SQLException e) {
+      throw new IllegalStateException(e);
+    }
+    return new JdbcPersistenceStore(database.dataSource());
+  }
+
+  @AfterEach
+  void destroy() throws SQLException {
+    database.close();
+  }
+}
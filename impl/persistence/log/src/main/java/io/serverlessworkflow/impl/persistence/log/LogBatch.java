@@ -0,0 +1,144 @@
+/*
+ * Copyright 2020-Present The Serverless Workflow Specification Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.serverlessworkflow.impl.persistence.log;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Operations committed by a transaction, written to a segment as a single record: payload length,
+ * payload checksum and payload. A record whose checksum does not match was not completely written
+ * and ends the log
+ */
+class LogBatch {
+
+  static final int HEADER = Integer.BYTES * 2;
+
+  interface Visitor {
+    void visit(byte type, String map, String key, int valueOffset, int valueLength, int size);
+  }
+
+  private final byte[] data;
+  private final int[] valueOffsets;
+  private final int[] sizes;
+
+  private LogBatch(byte[] data, int[] valueOffsets, int[] sizes) {
+    this.data = data;
+    this.valueOffsets = valueOffsets;
+    this.sizes = sizes;
+  }
+
+  static LogBatch encode(List<LogOperation> operations) {
+    int[] valueOffsets = new int[operations.size()];
+    int[] sizes = new int[operations.size()];
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      out.writeLong(0); // header, filled once the payload is known
+      out.writeInt(operations.size());
+      for (int i = 0; i < valueOffsets.length; i++) {
+        LogOperation operation = operations.get(i);
+        int start = out.size();
+        out.writeByte(operation.type());
+        out.writeUTF(operation.map());
+        if (operation.type() != LogOperation.REMOVE_MAP) {
+          out.writeUTF(operation.key());
+        }
+        if (operation.type() == LogOperation.PUT) {
+          out.writeInt(operation.value().length);
+          valueOffsets[i] = out.size();
+          out.write(operation.value());
+        }
+        sizes[i] = out.size() - start;
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    byte[] data = bytes.toByteArray();
+    ByteBuffer buffer = ByteBuffer.wrap(data);
+    buffer.putInt(0, data.length - HEADER);
+    buffer.putInt(Integer.BYTES, checksum(buffer, HEADER, data.length - HEADER));
+    return new LogBatch(data, valueOffsets, sizes);
+  }
+
+  byte[] data() {
+    return data;
+  }
+
+  /** Offset of the value of the operation, relative to the start of the record */
+  int valueOffset(int index) {
+    return valueOffsets[index];
+  }
+
+  int size(int index) {
+    return sizes[index];
+  }
+
+  /**
+   * Visits the operations of the record starting at position. Returns the length of the record,
+   * zero if there is no record at that position or -1 if the record is corrupted
+   */
+  static int read(ByteBuffer buffer, int position, Visitor visitor) {
+    int available = buffer.capacity() - position - HEADER;
+    if (available < 0) {
+      return 0;
+    }
+    int length = buffer.getInt(position);
+    if (length == 0) {
+      return 0;
+    }
+    if (length < 0
+        || length > available
+        || buffer.getInt(position + Integer.BYTES) != checksum(buffer, position + HEADER, length)) {
+      return -1;
+    }
+    byte[] payload = new byte[length];
+    buffer.get(position + HEADER, payload);
+    int base = position + HEADER + length;
+    try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+      int count = in.readInt();
+      for (int i = 0; i < count; i++) {
+        int start = in.available();
+        byte type = in.readByte();
+        String map = in.readUTF();
+        String key = type == LogOperation.REMOVE_MAP ? null : in.readUTF();
+        int valueOffset = -1;
+        int valueLength = 0;
+        if (type == LogOperation.PUT) {
+          valueLength = in.readInt();
+          valueOffset = base - in.available();
+          in.skipNBytes(valueLength);
+        }
+        visitor.visit(type, map, key, valueOffset, valueLength, start - in.available());
+      }
+    } catch (IOException e) {
+      return -1;
+    }
+    return HEADER + length;
+  }
+
+  private static int checksum(ByteBuffer buffer, int offset, int length) {
+    CRC32 crc = new CRC32();
+    crc.update(buffer.slice(offset, length));
+    return (int) crc.getValue();
+  }
+}
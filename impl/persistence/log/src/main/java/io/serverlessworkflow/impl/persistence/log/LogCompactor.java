@@ -0,0 +1,68 @@
+/*
+ * Copyright 2020-Present The Serverless Workflow Specification Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.serverlessworkflow.impl.persistence.log;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/** Periodically removes the oldest segments whose live rate is below the configured one */
+class LogCompactor implements AutoCloseable {
+
+  private static final Logger logger = LoggerFactory.getLogger(LogCompactor.class);
+
+  private final SegmentLog log;
+  private final int maxLiveRate;
+  private final ScheduledExecutorService service;
+  // the compactor thread is never interrupted, an interrupted file channel is closed
+  private volatile boolean stopped;
+
+  LogCompactor(SegmentLog log, Duration interval, int maxLiveRate) {
+    this.log = log;
+    this.maxLiveRate = maxLiveRate;
+    this.service =
+        Executors.newSingleThreadScheduledExecutor(
+            r -> {
+              Thread thread = new Thread(r, "log-compactor");
+              thread.setDaemon(true);
+              return thread;
+            });
+    long millis = interval.toMillis();
+    service.scheduleWithFixedDelay(this::compact, millis, millis, TimeUnit.MILLISECONDS);
+  }
+
+  void compact() {
+    try {
+      while (!stopped && log.compact(maxLiveRate)) {}
+    } catch (RuntimeException ex) {
+      logger.warn("Compaction of the log failed, it will be retried", ex);
+    }
+  }
+
+  @Override
+  public void close() {
+    stopped = true;
+    service.shutdown();
+    try {
+      service.awaitTermination(10, TimeUnit.SECONDS);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
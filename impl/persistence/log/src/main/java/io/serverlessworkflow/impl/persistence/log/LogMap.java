@@ -0,0 +1,99 @@
+/*
+ * Copyright 2020-Present The Serverless Workflow Specification Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.serverlessworkflow.impl.persistence.log;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/** Named map, as seen by a transaction */
+class LogMap extends AbstractMap<String, byte[]> {
+
+  private final PendingChanges changes;
+  private final String name;
+
+  LogMap(PendingChanges changes, String name) {
+    this.changes = changes;
+    this.name = name;
+  }
+
+  @Override
+  public byte[] get(Object key) {
+    return key instanceof String str ? changes.get(name, str) : null;
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return get(key) != null;
+  }
+
+  @Override
+  public byte[] put(String key, byte[] value) {
+    return changes.put(name, key, value);
+  }
+
+  @Override
+  public byte[] remove(Object key) {
+    return key instanceof String str ? changes.remove(name, str) : null;
+  }
+
+  @Override
+  public void clear() {
+    changes.removeMap(name);
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return !changes.entries(name, null).hasNext();
+  }
+
+  @Override
+  public Set<Map.Entry<String, byte[]>> entrySet() {
+    return new AbstractSet<>() {
+      @Override
+      public Iterator<Map.Entry<String, byte[]>> iterator() {
+        return changes.entries(name, null);
+      }
+
+      @Override
+      public int size() {
+        int size = 0;
+        for (Iterator<?> iter = iterator(); iter.hasNext(); iter.next()) {
+          size++;
+        }
+        return size;
+      }
+    };
+  }
+
+  /** Keys greater than after (all if null), in ascending order */
+  Iterator<String> keysAfter(String after) {
+    Iterator<Map.Entry<String, byte[]>> entries = changes.entries(name, after);
+    return new Iterator<>() {
+      @Override
+      public boolean hasNext() {
+        return entries.hasNext();
+      }
+
+      @Override
+      public String next() {
+        return entries.next().getKey();
+      }
+    };
+  }
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2020-Present The Serverless Workflow Specification Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.serverlessworkflow.impl.persistence.log;
+
+/** Change of a named map, as buffered by a transaction and written to the log */
+record LogOperation(byte type, String map, String key, byte[] value) {
+
+  static final byte PUT = 1;
+  static final byte REMOVE = 2;
+  static final byte REMOVE_MAP = 3;
+
+  static LogOperation put(String map, String key, byte[] value) {
+    return new LogOperation(PUT, map, key, value);
+  }
+
+  static LogOperation remove(String map, String key) {
+    return new LogOperation(REMOVE, map, key, null);
+  }
+
+  static LogOperation removeMap(String map) {
+    return new LogOperation(REMOVE_MAP, map, null, null);
+  }
+}
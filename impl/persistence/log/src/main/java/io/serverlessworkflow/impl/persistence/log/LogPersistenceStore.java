@@ -0,0 +1,162 @@
+/*
+ * Copyright 2020-Present The Serverless Workflow Specification Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.serverlessworkflow.impl.persistence.log;
+
+import io.serverlessworkflow.impl.marshaller.DefaultBufferFactory;
+import io.serverlessworkflow.impl.marshaller.WorkflowBufferFactory;
+import io.serverlessworkflow.impl.persistence.PersistenceInstanceStore;
+import io.serverlessworkflow.impl.persistence.bigmap.ContextCheckpoints;
+import io.serverlessworkflow.impl.persistence.bigmap.RecordCompression;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Stores the workflow instances as an append only log of segment files, keeping in memory only
+ * the location of the live records. Removed records, as those of completed instances, are dropped
+ * when their segment is compacted
+ */
+public class LogPersistenceStore implements PersistenceInstanceStore {
+
+  public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+  public static class Builder {
+
+    private final Path directory;
+    private WorkflowBufferFactory factory = DefaultBufferFactory.factory();
+    private ContextCheckpoints checkpoints;
+    private RecordCompression compression;
+    private int segmentSize = DEFAULT_SEGMENT_SIZE;
+    private boolean groupSync = true;
+    private Duration compactionInterval = Duration.ofMinutes(1);
+    private int compactionLiveRate = 50;
+
+    private Builder(Path directory) {
+      this.directory = directory;
+    }
+
+    public Builder withBufferFactory(WorkflowBufferFactory factory) {
+      this.factory = factory;
+      return this;
+    }
+
+    /** See {@link ContextCheckpoints} */
+    public Builder withContextCheckpoints(ContextCheckpoints checkpoints) {
+      this.checkpoints = checkpoints;
+      return this;
+    }
+
+    /** See {@link RecordCompression} */
+    public Builder withRecordCompression(RecordCompression compression) {
+      this.compression = compression;
+      return this;
+    }
+
+    /** Size in bytes of the segment files */
+    public Builder withSegmentSize(int segmentSize) {
+      if (segmentSize <= 0) {
+        throw new IllegalArgumentException("Segment size must be positive");
+      }
+      this.segmentSize = segmentSize;
+      return this;
+    }
+
+    /**
+     * If true (the default), commits wait until their changes are forced to disk. Commits issued
+     * concurrently share a single force
+     */
+    public Builder withGroupSync(boolean groupSync) {
+      this.groupSync = groupSync;
+      return this;
+    }
+
+    /**
+     * Checks every interval if the oldest segment has less than liveRate percent of live bytes, in
+     * which case its live records are copied to the newest segment and the file is deleted. A null
+     * interval disables background compaction
+     */
+    public Builder withCompaction(Duration interval, int liveRate) {
+      if (liveRate < 0 || liveRate > 100) {
+        throw new IllegalArgumentException("Live rate must be a percentage");
+      }
+      this.compactionInterval = interval;
+      this.compactionLiveRate = liveRate;
+      return this;
+    }
+
+    public LogPersistenceStore build() {
+      return new LogPersistenceStore(this);
+    }
+  }
+
+  public static Builder builder(Path directory) {
+    return new Builder(directory);
+  }
+
+  private final SegmentLog log;
+  private final WorkflowBufferFactory factory;
+  private final ContextCheckpoints checkpoints;
+  private final RecordCompression compression;
+  private final int compactionLiveRate;
+  private final LogCompactor compactor;
+
+  public LogPersistenceStore(Path directory) {
+    this(builder(directory));
+  }
+
+  private LogPersistenceStore(Builder builder) {
+    try {
+      this.log = new SegmentLog(builder.directory, builder.segmentSize, builder.groupSync);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    this.factory = builder.factory;
+    this.checkpoints = builder.checkpoints;
+    this.compression = builder.compression;
+    this.compactionLiveRate = builder.compactionLiveRate;
+    this.compactor =
+        builder.compactionInterval == null
+            ? null
+            : new LogCompactor(log, builder.compactionInterval, compactionLiveRate);
+  }
+
+  /** Compacts the oldest segments right away, returns the number of deleted segments */
+  public int compact() {
+    int count = 0;
+    while (log.compact(compactionLiveRate)) {
+      count++;
+    }
+    return count;
+  }
+
+  public LogStoreStats stats() {
+    return log.stats();
+  }
+
+  @Override
+  public void close() {
+    if (compactor != null) {
+      compactor.close();
+    }
+    log.close();
+  }
+
+  @Override
+  public LogTransaction begin() {
+    return new LogTransaction(log, factory, checkpoints, compression);
+  }
+}
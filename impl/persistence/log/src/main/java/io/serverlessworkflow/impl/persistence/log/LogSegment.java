@@ -0,0 +1,137 @@
+/*
+ * Copyright 2020-Present The Serverless Workflow Specification Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.serverlessworkflow.impl.persistence.log;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Preallocated log file, memory mapped for both appends and reads. Appends are serialized by the
+ * owning {@link SegmentLog}, reads use absolute positions so they can run concurrently
+ */
+class LogSegment {
+
+  static final String SUFFIX = ".log";
+
+  private final long id;
+  private final Path path;
+  private final MappedByteBuffer buffer;
+  private final AtomicLong liveBytes = new AtomicLong();
+  private volatile int position;
+
+  private LogSegment(long id, Path path, MappedByteBuffer buffer) {
+    this.id = id;
+    this.path = path;
+    this.buffer = buffer;
+  }
+
+  static LogSegment create(Path directory, long id, int capacity) throws IOException {
+    Path path = directory.resolve(String.format("%016x", id) + SUFFIX);
+    try (FileChannel channel =
+        FileChannel.open(
+            path,
+            StandardOpenOption.CREATE_NEW,
+            StandardOpenOption.READ,
+            StandardOpenOption.WRITE)) {
+      return new LogSegment(id, path, channel.map(MapMode.READ_WRITE, 0, capacity));
+    }
+  }
+
+  static LogSegment open(Path path) throws IOException {
+    String name = path.getFileName().toString();
+    long id = Long.parseUnsignedLong(name.substring(0, name.length() - SUFFIX.length()), 16);
+    try (FileChannel channel =
+        FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      return new LogSegment(id, path, channel.map(MapMode.READ_WRITE, 0, channel.size()));
+    }
+  }
+
+  static boolean isSegment(Path path) {
+    return path.getFileName().toString().endsWith(SUFFIX);
+  }
+
+  long id() {
+    return id;
+  }
+
+  MappedByteBuffer buffer() {
+    return buffer;
+  }
+
+  int position() {
+    return position;
+  }
+
+  void position(int position) {
+    this.position = position;
+  }
+
+  int remaining() {
+    return buffer.capacity() - position;
+  }
+
+  /** Returns the offset the data was written at */
+  int append(byte[] data) {
+    int start = position;
+    buffer.put(start, data);
+    position = start + data.length;
+    return start;
+  }
+
+  byte[] read(int offset, int length) {
+    byte[] data = new byte[length];
+    buffer.get(offset, data);
+    return data;
+  }
+
+  /** Zeroes a discarded region, so it is not taken as written data when the log is reopened */
+  void clear(int from, int to) {
+    buffer.put(from, new byte[to - from]);
+  }
+
+  void addLive(int size) {
+    liveBytes.addAndGet(size);
+  }
+
+  long liveBytes() {
+    return liveBytes.get();
+  }
+
+  /** Percentage of the written bytes that belong to live records */
+  int liveRate() {
+    int used = position;
+    return used == 0 ? 0 : (int) (liveBytes.get() * 100 / used);
+  }
+
+  void force() {
+    buffer.force();
+  }
+
+  void delete() throws IOException {
+    Files.deleteIfExists(path);
+  }
+
+  @Override
+  public String toString() {
+    return path.toString();
+  }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2020-Present The Serverless Workflow Specification Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.serverlessworkflow.impl.persistence.log;
+
+/**
+ * Health of a {@link LogPersistenceStore}. Counters are accumulated since the store was opened
+ *
+ * @param segments number of segment files
+ * @param usedBytes bytes written to the segment files
+ * @param liveBytes written bytes that belong to live records
+ * @param syncs forces to disk, each one shared by all the commits waiting for it
+ * @param compactions segments removed by compaction
+ * @param reclaimedBytes written bytes of the removed segments. Their files are deleted at once,
+ *     but the disk space is only released when their memory mapping is garbage collected
+ */
+public record LogStoreStats(
+    int segments,
+    long usedBytes,
+    long liveBytes,
+    long commits,
+    long syncs,
+    long compactions,
+    long reclaimedBytes) {
+
+  /** Percentage of the written bytes that belong to live records */
+  public int liveRate() {
+    return usedBytes == 0 ? 100 : (int) (liveBytes * 100 / usedBytes);
+  }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2020-Present The Serverless Workflow Specification Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.serverlessworkflow.impl.persistence.log;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Group commit: a single thread forces the log to disk on behalf of every commit that requested
+ * it since the previous force, so concurrent commits share the cost of one fsync
+ */
+class LogSyncer implements AutoCloseable {
+
+  private final Runnable force;
+  private final Thread thread;
+  private final LongAdder syncs = new LongAdder();
+  private List<CompletableFuture<Void>> pending = new ArrayList<>();
+  private boolean closed;
+
+  LogSyncer(Runnable force) {
+    this.force = force;
+    this.thread = new Thread(this::run, "log-syncer");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /** Returns a future completed once the data appended before this call is on disk */
+  synchronized CompletableFuture<Void> request() {
+    if (closed) {
+      throw new IllegalStateException("Log syncer is closed");
+    }
+    CompletableFuture<Void> future = new CompletableFuture<>();
+    pending.add(future);
+    notifyAll();
+    return future;
+  }
+
+  long syncs() {
+    return syncs.sum();
+  }
+
+  private void run() {
+    List<CompletableFuture<Void>> batch;
+    while ((batch = next()) != null) {
+      try {
+        force.run();
+        syncs.increment();
+        batch.forEach(f -> f.complete(null));
+      } catch (RuntimeException ex) {
+        batch.forEach(f -> f.completeExceptionally(ex));
+      }
+    }
+  }
+
+  private synchronized List<CompletableFuture<Void>> next() {
+    while (pending.isEmpty()) {
+      if (closed) {
+        return null;
+      }
+      try {
+        wait();
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        return null;
+      }
+    }
+    List<CompletableFuture<Void>> batch = pending;
+    pending = new ArrayList<>();
+    return batch;
+  }
+
+  @Override
+  public void close() {
+    synchronized (this) {
+      closed = true;
+      notifyAll();
+    }
+    try {
+      thread.join();
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
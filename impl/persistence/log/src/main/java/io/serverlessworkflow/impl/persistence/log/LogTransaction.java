@@ -0,0 +1,136 @@
+/*
+ * Copyright 2020-Present The Serverless Workflow Specification Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.serverlessworkflow.impl.persistence.log;
+
+import io.serverlessworkflow.api.types.Document;
+import io.serverlessworkflow.impl.WorkflowDefinitionData;
+import io.serverlessworkflow.impl.WorkflowStatus;
+import io.serverlessworkflow.impl.marshaller.WorkflowBufferFactory;
+import io.serverlessworkflow.impl.persistence.bigmap.BytesMapInstanceTransaction;
+import io.serverlessworkflow.impl.persistence.bigmap.ContextCheckpoints;
+import io.serverlessworkflow.impl.persistence.bigmap.RecordCompression;
+import java.util.Iterator;
+import java.util.Map;
+
+public class LogTransaction extends BytesMapInstanceTransaction {
+
+  private static final String ID_SEPARATOR = "-";
+  private static final String PROCESSED_PREFIX = "PROCESSED" + ID_SEPARATOR;
+
+  private final PendingChanges changes;
+
+  LogTransaction(
+      SegmentLog log,
+      WorkflowBufferFactory factory,
+      ContextCheckpoints checkpoints,
+      RecordCompression compression) {
+    super(factory, checkpoints, compression);
+    this.changes = new PendingChanges(log);
+  }
+
+  @Override
+  public Map<String, byte[]> instanceData(WorkflowDefinitionData workflowContext) {
+    return openMap(workflowContext, "instances");
+  }
+
+  @Override
+  protected Iterator<String> instanceIds(WorkflowDefinitionData definition, String afterId) {
+    return openMap(definition, "instances").keysAfter(afterId);
+  }
+
+  @Override
+  protected Map<String, byte[]> applicationIndex(
+      WorkflowDefinitionData definition, String applicationId) {
+    return openMap(definition, "application" + ID_SEPARATOR + applicationId);
+  }
+
+  @Override
+  protected Map<String, byte[]> statusIndex(
+      WorkflowDefinitionData definition, WorkflowStatus status) {
+    return openMap(definition, "status" + ID_SEPARATOR + status.name());
+  }
+
+  @Override
+  public Map<String, byte[]> tasks(String instanceId) {
+    return new LogMap(changes, instanceId + ID_SEPARATOR + "tasks");
+  }
+
+  @Override
+  public Map<String, byte[]> status(WorkflowDefinitionData workflowContext) {
+    return openMap(workflowContext, "status");
+  }
+
+  @Override
+  public void removeTasks(String instanceId) {
+    changes.removeMap(instanceId + ID_SEPARATOR + "tasks");
+  }
+
+  @Override
+  protected Map<String, byte[]> contexts(String instanceId) {
+    return new LogMap(changes, instanceId + ID_SEPARATOR + "contexts");
+  }
+
+  @Override
+  protected void removeContexts(String instanceId) {
+    changes.removeMap(instanceId + ID_SEPARATOR + "contexts");
+  }
+
+  private LogMap openMap(WorkflowDefinitionData workflowDefinition, String suffix) {
+    Document document = workflowDefinition.workflow().getDocument();
+    return new LogMap(
+        changes,
+        document.getNamespace()
+            + ID_SEPARATOR
+            + document.getName()
+            + ID_SEPARATOR
+            + document.getVersion()
+            + ID_SEPARATOR
+            + suffix);
+  }
+
+  @Override
+  public void commit(WorkflowDefinitionData definition) {
+    changes.commit();
+  }
+
+  @Override
+  public void rollback(WorkflowDefinitionData definition) {
+    changes.clear();
+    rollbackCheckpoints();
+  }
+
+  @Override
+  protected Map<String, byte[]> applicationData() {
+    return new LogMap(changes, "APPLICATION");
+  }
+
+  @Override
+  protected Map<String, byte[]> cloudEvents(String regId) {
+    return new LogMap(changes, "CLOUDEVENTS" + ID_SEPARATOR + regId);
+  }
+
+  @Override
+  protected Map<String, byte[]> processedCloudEvents(String regId) {
+    return new LogMap(changes, PROCESSED_PREFIX + regId);
+  }
+
+  @Override
+  protected void deleteAllProcessedMaps() {
+    changes.mapNames().stream()
+        .filter(s -> s.startsWith(PROCESSED_PREFIX))
+        .forEach(changes::removeMap);
+  }
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright 2020-Present The Serverless Workflow Specification Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.serverlessworkflow.impl.persistence.log;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Changes of a transaction, kept in memory until commit, when they are appended to the log as a
+ * single record. Reads see these changes on top of the committed maps
+ */
+class PendingChanges {
+
+  private static class PendingMap {
+    // null values are removals
+    private final NavigableMap<String, byte[]> entries = new TreeMap<>();
+    private boolean removed;
+  }
+
+  private final SegmentLog log;
+  private final Map<String, PendingMap> maps = new HashMap<>();
+  private final List<LogOperation> operations = new ArrayList<>();
+
+  PendingChanges(SegmentLog log) {
+    this.log = log;
+  }
+
+  byte[] get(String map, String key) {
+    PendingMap pending = maps.get(map);
+    if (pending != null) {
+      if (pending.entries.containsKey(key)) {
+        return pending.entries.get(key);
+      } else if (pending.removed) {
+        return null;
+      }
+    }
+    return log.get(map, key);
+  }
+
+  byte[] put(String map, String key, byte[] value) {
+    byte[] previous = get(map, key);
+    pending(map).entries.put(key, value);
+    operations.add(LogOperation.put(map, key, value));
+    return previous;
+  }
+
+  byte[] remove(String map, String key) {
+    byte[] previous = get(map, key);
+    if (previous != null) {
+      pending(map).entries.put(key, null);
+      operations.add(LogOperation.remove(map, key));
+    }
+    return previous;
+  }
+
+  void removeMap(String map) {
+    PendingMap pending = maps.get(map);
+    if (log.map(map) != null || pending != null && !pending.entries.isEmpty()) {
+      pending = pending(map);
+      pending.entries.clear();
+      pending.removed = true;
+      operations.add(LogOperation.removeMap(map));
+    }
+  }
+
+  Set<String> mapNames() {
+    Set<String> names = new HashSet<>(log.mapNames());
+    maps.forEach(
+        (name, pending) -> {
+          if (pending.removed && pending.entries.isEmpty()) {
+            names.remove(name);
+          } else {
+            names.add(name);
+          }
+        });
+    return names;
+  }
+
+  /** Iterates, in key order, over the entries whose key is greater than after (all if null) */
+  Iterator<Map.Entry<String, byte[]>> entries(String map, String after) {
+    PendingMap pending = maps.get(map);
+    NavigableMap<String, RecordLocation> committed =
+        pending != null && pending.removed ? null : log.map(map);
+    return new MergeIterator(
+        committed == null
+            ? Collections.emptyIterator()
+            : tail(committed, after).entrySet().iterator(),
+        pending == null
+            ? Collections.emptyIterator()
+            : tail(pending.entries, after).entrySet().iterator());
+  }
+
+  private static <V> NavigableMap<String, V> tail(NavigableMap<String, V> map, String after) {
+    return after == null ? map : map.tailMap(after, false);
+  }
+
+  private PendingMap pending(String map) {
+    return maps.computeIfAbsent(map, k -> new PendingMap());
+  }
+
+  void commit() {
+    try {
+      log.commit(operations);
+    } finally {
+      clear();
+    }
+  }
+
+  void clear() {
+    maps.clear();
+    operations.clear();
+  }
+
+  private static class MergeIterator implements Iterator<Map.Entry<String, byte[]>> {
+
+    private final Iterator<Map.Entry<String, RecordLocation>> committed;
+    private final Iterator<Map.Entry<String, byte[]>> pending;
+    private Map.Entry<String, RecordLocation> nextCommitted;
+    private Map.Entry<String, byte[]> nextPending;
+    private Map.Entry<String, byte[]> next;
+
+    MergeIterator(
+        Iterator<Map.Entry<String, RecordLocation>> committed,
+        Iterator<Map.Entry<String, byte[]>> pending) {
+      this.committed = committed;
+      this.pending = pending;
+      this.nextCommitted = advance(committed);
+      this.nextPending = advance(pending);
+      this.next = computeNext();
+    }
+
+    private static <V> Map.Entry<String, V> advance(Iterator<Map.Entry<String, V>> iter) {
+      return iter.hasNext() ? iter.next() : null;
+    }
+
+    private Map.Entry<String, byte[]> computeNext() {
+      while (nextCommitted != null || nextPending != null) {
+        int cmp =
+            nextCommitted == null
+                ? 1
+                : nextPending == null ? -1 : nextCommitted.getKey().compareTo(nextPending.getKey());
+        if (cmp < 0) {
+          Map.Entry<String, byte[]> result = new LocationEntry(nextCommitted);
+          nextCommitted = advance(committed);
+          return result;
+        }
+        // pending changes override the committed entry with the same key
+        Map.Entry<String, byte[]> entry = nextPending;
+        nextPending = advance(pending);
+        if (cmp == 0) {
+          nextCommitted = advance(committed);
+        }
+        if (entry.getValue() != null) {
+          return Map.entry(entry.getKey(), entry.getValue());
+        }
+      }
+      return null;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return next != null;
+    }
+
+    @Override
+    public Map.Entry<String, byte[]> next() {
+      if (next == null) {
+        throw new NoSuchElementException();
+      }
+      Map.Entry<String, byte[]> result = next;
+      next = computeNext();
+      return result;
+    }
+  }
+
+  /** Committed entry, whose value is only read from the segment if requested */
+  private static class LocationEntry implements Map.Entry<String, byte[]> {
+
+    private final String key;
+    private final RecordLocation location;
+
+    LocationEntry(Map.Entry<String, RecordLocation> entry) {
+      this.key = entry.getKey();
+      this.location = entry.getValue();
+    }
+
+    @Override
+    public String getKey() {
+      return key;
+    }
+
+    @Override
+    public byte[] getValue() {
+      return location.read();
+    }
+
+    @Override
+    public byte[] setValue(byte[] value) {
+      throw new UnsupportedOperationException();
+    }
+  }
+}
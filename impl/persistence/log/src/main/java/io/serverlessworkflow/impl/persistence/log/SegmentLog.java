@@ -0,0 +1,306 @@
+/*
+ * Copyright 2020-Present The Serverless Workflow Specification Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.serverlessworkflow.impl.persistence.log;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Named maps stored as an append only log split in segments. Only the location of the live
+ * values is kept in memory; the whole log is replayed when opened to rebuild it.
+ *
+ * <p>Segments are compacted oldest first, so a removal can be dropped together with its segment:
+ * the values it removed were written to older segments, which have been deleted already. For the
+ * same reason, a mostly live oldest segment is copied forward when that lets sparse newer segments
+ * be deleted afterwards, so long waiting instances do not prevent reclaiming the rest of the log.
+ */
+class SegmentLog implements AutoCloseable {
+
+  private static final Logger logger = LoggerFactory.getLogger(SegmentLog.class);
+
+  private final Path directory;
+  private final int segmentSize;
+  private final ConcurrentNavigableMap<Long, LogSegment> segments = new ConcurrentSkipListMap<>();
+  private final Map<String, ConcurrentNavigableMap<String, RecordLocation>> maps =
+      new ConcurrentHashMap<>();
+  private final Lock lock = new ReentrantLock();
+  private final LogSyncer syncer;
+  private volatile LogSegment active;
+
+  private final LongAdder commits = new LongAdder();
+  private final LongAdder compactions = new LongAdder();
+  private final LongAdder reclaimedBytes = new LongAdder();
+
+  /**
+   * @param segmentSize capacity of the segment files, a commit larger than it gets a segment of
+   *     its own
+   * @param groupSync if true, commits return once their changes have been forced to disk
+   */
+  SegmentLog(Path directory, int segmentSize, boolean groupSync) throws IOException {
+    this.directory = Files.createDirectories(directory);
+    this.segmentSize = segmentSize;
+    try (Stream<Path> files = Files.list(directory)) {
+      for (Path path : files.filter(LogSegment::isSegment).toList()) {
+        LogSegment segment = LogSegment.open(path);
+        segments.put(segment.id(), segment);
+      }
+    }
+    segments.values().forEach(this::replay);
+    this.active =
+        segments.isEmpty() ? addSegment(0, segmentSize) : segments.lastEntry().getValue();
+    this.syncer = groupSync ? new LogSyncer(() -> active.force()) : null;
+  }
+
+  private void replay(LogSegment segment) {
+    LogBatch.Visitor visitor =
+        (type, map, key, offset, length, size) ->
+            apply(type, map, key, segment, offset, length, size);
+    int position = 0;
+    int length = LogBatch.read(segment.buffer(), position, visitor);
+    while (length > 0) {
+      position += length;
+      length = LogBatch.read(segment.buffer(), position, visitor);
+    }
+    if (length < 0) {
+      logger.warn("Discarding incomplete record at offset {} of segment {}", position, segment);
+      int capacity = segment.buffer().capacity();
+      int recordLength = segment.buffer().getInt(position);
+      segment.clear(
+          position,
+          recordLength > 0 && recordLength <= capacity - position - LogBatch.HEADER
+              ? position + LogBatch.HEADER + recordLength
+              : capacity);
+    }
+    segment.position(position);
+  }
+
+  NavigableMap<String, RecordLocation> map(String name) {
+    return maps.get(name);
+  }
+
+  Set<String> mapNames() {
+    return maps.keySet();
+  }
+
+  byte[] get(String map, String key) {
+    NavigableMap<String, RecordLocation> locations = maps.get(map);
+    RecordLocation location = locations == null ? null : locations.get(key);
+    return location == null ? null : location.read();
+  }
+
+  /** Appends the operations as a single record and applies them to the index */
+  void commit(List<LogOperation> operations) {
+    if (operations.isEmpty()) {
+      return;
+    }
+    LogBatch batch = LogBatch.encode(operations);
+    CompletableFuture<Void> synced = null;
+    lock.lock();
+    try {
+      append(batch, operations);
+      if (syncer != null) {
+        synced = syncer.request();
+      }
+    } finally {
+      lock.unlock();
+    }
+    commits.increment();
+    if (synced != null) {
+      synced.join();
+    }
+  }
+
+  private void append(LogBatch batch, List<LogOperation> operations) {
+    LogSegment segment = segmentFor(batch.data().length);
+    int start = segment.append(batch.data());
+    for (int i = 0; i < operations.size(); i++) {
+      LogOperation operation = operations.get(i);
+      apply(
+          operation.type(),
+          operation.map(),
+          operation.key(),
+          segment,
+          start + batch.valueOffset(i),
+          operation.value() == null ? 0 : operation.value().length,
+          batch.size(i));
+    }
+  }
+
+  private LogSegment segmentFor(int length) {
+    if (active.remaining() < length) {
+      // a segment is on disk before any later one is written, so replay never skips a record
+      active.force();
+      active = addSegment(active.id() + 1, Math.max(segmentSize, length));
+    }
+    return active;
+  }
+
+  private LogSegment addSegment(long id, int capacity) {
+    try {
+      LogSegment segment = LogSegment.create(directory, id, capacity);
+      segments.put(id, segment);
+      return segment;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private void apply(
+      byte type, String map, String key, LogSegment segment, int offset, int length, int size) {
+    switch (type) {
+      case LogOperation.PUT -> {
+        segment.addLive(size);
+        release(
+            maps.computeIfAbsent(map, k -> new ConcurrentSkipListMap<>())
+                .put(key, new RecordLocation(segment, offset, length, size)));
+      }
+      case LogOperation.REMOVE -> {
+        NavigableMap<String, RecordLocation> locations = maps.get(map);
+        if (locations != null) {
+          release(locations.remove(key));
+        }
+      }
+      case LogOperation.REMOVE_MAP -> {
+        NavigableMap<String, RecordLocation> locations = maps.remove(map);
+        if (locations != null) {
+          locations.values().forEach(this::release);
+        }
+      }
+      default -> throw new IllegalStateException("Unknown log operation " + type);
+    }
+  }
+
+  private void release(RecordLocation location) {
+    if (location != null) {
+      location.segment().addLive(-location.size());
+    }
+  }
+
+  /**
+   * Copies the live records of the oldest segment to the active one and deletes it, if the
+   * percentage of live bytes of the oldest segments, up to any of them but the active one, is
+   * lower than maxLiveRate. Returns true if a segment was deleted
+   */
+  synchronized boolean compact(int maxLiveRate) {
+    LogSegment oldest = segments.firstEntry().getValue();
+    if (oldest == active || !isCompactable(maxLiveRate)) {
+      return false;
+    }
+    List<LogOperation> copies = new ArrayList<>();
+    List<RecordLocation> sources = new ArrayList<>();
+    maps.forEach(
+        (name, locations) ->
+            locations.forEach(
+                (key, location) -> {
+                  if (location.segment() == oldest) {
+                    copies.add(LogOperation.put(name, key, location.read()));
+                    sources.add(location);
+                  }
+                }));
+    lock.lock();
+    try {
+      List<LogOperation> live = new ArrayList<>(copies.size());
+      for (int i = 0; i < copies.size(); i++) {
+        // records changed since they were collected are not copied
+        NavigableMap<String, RecordLocation> locations = maps.get(copies.get(i).map());
+        if (locations != null && locations.get(copies.get(i).key()) == sources.get(i)) {
+          live.add(copies.get(i));
+        }
+      }
+      if (!live.isEmpty()) {
+        append(LogBatch.encode(live), live);
+      }
+      active.force();
+      segments.remove(oldest.id());
+    } finally {
+      lock.unlock();
+    }
+    // the segment is no longer referenced, except by reads already in progress, so its mapping,
+    // which keeps the disk blocks of the deleted file allocated, is released once it is collected
+    try {
+      oldest.delete();
+    } catch (IOException e) {
+      logger.warn("Compacted segment {} cannot be deleted", oldest, e);
+    }
+    compactions.increment();
+    reclaimedBytes.add(oldest.position());
+    return true;
+  }
+
+  /**
+   * Copying the live bytes of a prefix of the log is worth it when they are less than maxLiveRate
+   * of its written bytes, so the whole log never takes more than liveBytes * 100 / maxLiveRate
+   */
+  private boolean isCompactable(int maxLiveRate) {
+    long usedBytes = 0;
+    long liveBytes = 0;
+    for (LogSegment segment : segments.headMap(active.id()).values()) {
+      usedBytes += segment.position();
+      liveBytes += segment.liveBytes();
+      if (liveBytes * 100 < usedBytes * maxLiveRate) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  LogStoreStats stats() {
+    long usedBytes = 0;
+    long liveBytes = 0;
+    for (LogSegment segment : segments.values()) {
+      usedBytes += segment.position();
+      liveBytes += segment.liveBytes();
+    }
+    return new LogStoreStats(
+        segments.size(),
+        usedBytes,
+        liveBytes,
+        commits.sum(),
+        syncer == null ? 0 : syncer.syncs(),
+        compactions.sum(),
+        reclaimedBytes.sum());
+  }
+
+  @Override
+  public void close() {
+    if (syncer != null) {
+      syncer.close();
+    }
+    lock.lock();
+    try {
+      active.force();
+    } finally {
+      lock.unlock();
+    }
+  }
+}
@@ -0,0 +1,31 @@
+/*
+ * Copyright 2020-Present The Serverless Workflow Specification Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.serverlessworkflow.impl.persistence.log;
+
+import io.serverlessworkflow.impl.persistence.PersistenceInstanceStore;
+import io.serverlessworkflow.impl.persistence.test.AbstractStoreCorrelationPersistenceTest;
+import java.nio.file.Path;
+import org.junit.jupiter.api.io.TempDir;
+
+public class LogCorrelationTest extends AbstractStoreCorrelationPersistenceTest {
+
+  @TempDir private Path directory;
+
+  @Override
+  protected PersistenceInstanceStore persistenceStore() {
+    return new LogPersistenceStore(directory);
+  }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2020-Present The Serverless Workflow Specification Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.serverlessworkflow.impl.persistence.log;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SegmentLogTest {
+
+  private static final int SEGMENT_SIZE = 4096;
+
+  @TempDir private Path directory;
+
+  @Test
+  void testReopen() throws IOException {
+    try (SegmentLog log = new SegmentLog(directory, SEGMENT_SIZE, true)) {
+      for (int i = 0; i < 100; i++) {
+        commit(log, LogOperation.put("map", key(i), new byte[100]));
+      }
+      commit(log, LogOperation.remove("map", key(0)), LogOperation.put("map", key(1), value(1)));
+      commit(log, LogOperation.put("other", "key", value(2)), LogOperation.removeMap("other"));
+      assertThat(log.stats().segments()).isGreaterThan(1);
+    }
+    try (SegmentLog log = new SegmentLog(directory, SEGMENT_SIZE, true)) {
+      assertThat(log.map("map")).hasSize(99).doesNotContainKey(key(0));
+      assertThat(log.get("map", key(1))).isEqualTo(value(1));
+      assertThat(log.map("other")).isNull();
+    }
+  }
+
+  @Test
+  void testIncompleteRecordIsDiscarded() throws IOException {
+    try (SegmentLog log = new SegmentLog(directory, SEGMENT_SIZE, false)) {
+      commit(log, LogOperation.put("map", "first", value(1)));
+      commit(log, LogOperation.put("map", "second", value(2)));
+    }
+    corruptLastRecord();
+    try (SegmentLog log = new SegmentLog(directory, SEGMENT_SIZE, false)) {
+      assertThat(log.map("map")).containsOnlyKeys("first");
+      commit(log, LogOperation.put("map", "third", value(3)));
+    }
+    try (SegmentLog log = new SegmentLog(directory, SEGMENT_SIZE, false)) {
+      assertThat(log.map("map")).containsOnlyKeys("first", "third");
+      assertThat(log.get("map", "third")).isEqualTo(value(3));
+    }
+  }
+
+  @Test
+  void testCompactionDropsRemovedRecords() throws IOException {
+    try (SegmentLog log = new SegmentLog(directory, SEGMENT_SIZE, false)) {
+      commit(log, LogOperation.put("live", "key", value(1)));
+      for (int i = 0; i < 200; i++) {
+        commit(log, LogOperation.put(key(i), "task", new byte[100]));
+        commit(log, LogOperation.removeMap(key(i)));
+      }
+      int segments = log.stats().segments();
+      int compacted = 0;
+      while (log.compact(50)) {
+        compacted++;
+      }
+      LogStoreStats stats = log.stats();
+      assertThat(compacted).isPositive();
+      assertThat(stats.segments()).isEqualTo(segments - compacted);
+      assertThat(stats.compactions()).isEqualTo(compacted);
+      assertThat(segmentFiles()).hasSize(stats.segments());
+      assertThat(log.get("live", "key")).isEqualTo(value(1));
+    }
+    try (SegmentLog log = new SegmentLog(directory, SEGMENT_SIZE, false)) {
+      assertThat(log.mapNames()).containsExactly("live");
+      assertThat(log.get("live", "key")).isEqualTo(value(1));
+    }
+  }
+
+  @Test
+  void testMostlyLiveOldestSegmentIsCopiedForward() throws IOException {
+    try (SegmentLog log = new SegmentLog(directory, SEGMENT_SIZE, false)) {
+      for (int i = 0; i < 35; i++) {
+        commit(log, LogOperation.put("live", key(i), new byte[100]));
+      }
+      for (int i = 0; i < 200; i++) {
+        commit(log, LogOperation.put(key(i), "task", new byte[100]));
+        commit(log, LogOperation.removeMap(key(i)));
+      }
+      int segments = log.stats().segments();
+      int compacted = 0;
+      while (log.compact(50)) {
+        compacted++;
+      }
+      assertThat(compacted).isGreaterThan(segments / 2);
+      assertThat(log.map("live")).hasSize(35);
+    }
+    try (SegmentLog log = new SegmentLog(directory, SEGMENT_SIZE, false)) {
+      assertThat(log.mapNames()).containsExactly("live");
+      assertThat(log.map("live")).hasSize(35);
+      assertThat(log.get("live", key(0))).hasSize(100);
+    }
+  }
+
+  @Test
+  void testGroupSync() throws IOException {
+    try (SegmentLog log = new SegmentLog(directory, SEGMENT_SIZE * 64, true)) {
+      IntStream.range(0, 200)
+          .parallel()
+          .forEach(i -> commit(log, LogOperation.put("map", key(i), value(i))));
+      LogStoreStats stats = log.stats();
+      assertThat(stats.commits()).isEqualTo(200);
+      assertThat(stats.syncs()).isBetween(1L, 200L);
+      assertThat(log.map("map")).hasSize(200);
+    }
+  }
+
+  private void corruptLastRecord() throws IOException {
+    Path last = segmentFiles().get(segmentFiles().size() - 1);
+    try (FileChannel channel =
+        FileChannel.open(last, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      var buffer = channel.map(MapMode.READ_WRITE, 0, channel.size());
+      int position = 0;
+      int previous = 0;
+      while (buffer.getInt(position) != 0) {
+        previous = position;
+        position += LogBatch.HEADER + buffer.getInt(position);
+      }
+      int offset = previous + LogBatch.HEADER + Integer.BYTES;
+      buffer.put(offset, (byte) (buffer.get(offset) ^ 1));
+      buffer.force();
+    }
+  }
+
+  private List<Path> segmentFiles() throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.filter(LogSegment::isSegment).sorted().toList();
+    }
+  }
+
+  private static void commit(SegmentLog log, LogOperation... operations) {
+    log.commit(List.of(operations));
+  }
+
+  private static String key(int i) {
+    return String.format("key-%03d", i);
+  }
+
+  private static byte[] value(int i) {
+    return new byte[] {(byte) i, (byte) (i >> 8)};
+  }
+}
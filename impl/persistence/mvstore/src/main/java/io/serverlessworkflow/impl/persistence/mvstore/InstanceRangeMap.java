@@ -0,0 +1,108 @@
+/*
+ * Copyright 2020-Present The Serverless Workflow Specification Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.serverlessworkflow.impl.persistence.mvstore;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.h2.mvstore.tx.TransactionMap;
+
+/**
+ * View of the entries of an instance within a map shared by all instances, whose keys are the
+ * instance id followed by {@link #SEPARATOR} and the key within the instance. Since the separator
+ * sorts before any other character, the entries of an instance are a contiguous key range.
+ */
+class InstanceRangeMap extends AbstractMap<String, byte[]> {
+
+  static final char SEPARATOR = '\0';
+
+  private final TransactionMap<String, byte[]> map;
+  private final String from;
+  private final String to;
+
+  InstanceRangeMap(TransactionMap<String, byte[]> map, String instanceId) {
+    this.map = map;
+    this.from = instanceId + SEPARATOR;
+    // no key is equal to it, so the inclusive upper bound does not matter
+    this.to = instanceId + (char) (SEPARATOR + 1);
+  }
+
+  static String key(String instanceId, String key) {
+    return instanceId + SEPARATOR + key;
+  }
+
+  @Override
+  public byte[] get(Object key) {
+    return map.get(from + key);
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return map.containsKey(from + key);
+  }
+
+  @Override
+  public byte[] put(String key, byte[] value) {
+    return map.put(from + key, value);
+  }
+
+  @Override
+  public byte[] remove(Object key) {
+    return map.remove(from + key);
+  }
+
+  @Override
+  public void clear() {
+    List<String> keys = new ArrayList<>();
+    map.keyIterator(from, to).forEachRemaining(keys::add);
+    keys.forEach(map::remove);
+  }
+
+  @Override
+  public Set<Entry<String, byte[]>> entrySet() {
+    return new AbstractSet<>() {
+      @Override
+      public Iterator<Entry<String, byte[]>> iterator() {
+        Iterator<Entry<String, byte[]>> iter = map.entryIterator(from, to);
+        return new Iterator<>() {
+          @Override
+          public boolean hasNext() {
+            return iter.hasNext();
+          }
+
+          @Override
+          public Entry<String, byte[]> next() {
+            Entry<String, byte[]> entry = iter.next();
+            return Map.entry(entry.getKey().substring(from.length()), entry.getValue());
+          }
+        };
+      }
+
+      @Override
+      public int size() {
+        int size = 0;
+        for (Iterator<String> iter = map.keyIterator(from, to); iter.hasNext(); iter.next()) {
+          size++;
+        }
+        return size;
+      }
+    };
+  }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2020-Present The Serverless Workflow Specification Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.serverlessworkflow.impl.persistence.mvstore;
+
+import java.time.Duration;
+
+/**
+ * Background compaction settings of a {@link MVStorePersistenceStore}. Every {@code interval},
+ * while the chunks fill rate is below {@code targetFillRate}, partially full chunks are rewritten,
+ * at least {@code rewriteBytes} per step, until the target is reached or {@code timeBudget} is
+ * exhausted.
+ *
+ * @param targetFillRate percentage of live data in the chunks, between 1 and 100
+ */
+public record MVStoreCompactionPolicy(
+    Duration interval, int targetFillRate, int rewriteBytes, Duration timeBudget) {
+
+  public MVStoreCompactionPolicy {
+    if (interval.isNegative() || interval.isZero()) {
+      throw new IllegalArgumentException("Compaction interval must be positive: " + interval);
+    }
+    if (targetFillRate < 1 || targetFillRate > 100) {
+      throw new IllegalArgumentException(
+          "Target fill rate must be a percentage: " + targetFillRate);
+    }
+    if (rewriteBytes < 1) {
+      throw new IllegalArgumentException("Rewrite bytes must be positive: " + rewriteBytes);
+    }
+  }
+
+  public static MVStoreCompactionPolicy defaults() {
+    return new MVStoreCompactionPolicy(
+        Duration.ofMinutes(1), 80, 16 * 1024 * 1024, Duration.ofSeconds(1));
+  }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2020-Present The Serverless Workflow Specification Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.serverlessworkflow.impl.persistence.mvstore;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.h2.mvstore.FileStore;
+import org.h2.mvstore.MVStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/** Periodically rewrites partially full chunks, see {@link MVStoreCompactionPolicy} */
+class MVStoreCompactor implements AutoCloseable {
+
+  private static final Logger logger = LoggerFactory.getLogger(MVStoreCompactor.class);
+
+  private final MVStore store;
+  private final MVStoreCompactionPolicy policy;
+  private final ScheduledExecutorService service;
+
+  private final LongAdder runs = new LongAdder();
+  private final LongAdder rewrites = new LongAdder();
+  private final LongAdder nanos = new LongAdder();
+  // the compactor thread is never interrupted, MVStore closes its file channel on interruption
+  private volatile boolean stopped;
+
+  MVStoreCompactor(MVStore store, MVStoreCompactionPolicy policy) {
+    this.store = store;
+    this.policy = policy;
+    this.service =
+        Executors.newSingleThreadScheduledExecutor(
+            r -> {
+              Thread thread = new Thread(r, "mvstore-compactor");
+              thread.setDaemon(true);
+              return thread;
+            });
+    long interval = policy.interval().toMillis();
+    service.scheduleWithFixedDelay(this::compact, interval, interval, TimeUnit.MILLISECONDS);
+  }
+
+  void compact() {
+    FileStore<?> fileStore = store.getFileStore();
+    if (stopped || fileStore == null || store.isClosed()) {
+      return;
+    }
+    long start = System.nanoTime();
+    long deadline = start + policy.timeBudget().toNanos();
+    boolean rewritten = false;
+    try {
+      while (!stopped
+          && fileStore.getChunksFillRate() < policy.targetFillRate()
+          && System.nanoTime() < deadline
+          && store.compact(policy.targetFillRate(), policy.rewriteBytes())) {
+        rewrites.increment();
+        rewritten = true;
+      }
+      if (rewritten) {
+        store.commit();
+      }
+    } catch (RuntimeException ex) {
+      logger.warn("Compaction of the store failed, it will be retried", ex);
+    } finally {
+      runs.increment();
+      nanos.add(System.nanoTime() - start);
+    }
+  }
+
+  long runs() {
+    return runs.sum();
+  }
+
+  long rewrites() {
+    return rewrites.sum();
+  }
+
+  long nanos() {
+    return nanos.sum();
+  }
+
+  @Override
+  public void close() {
+    stopped = true;
+    service.shutdown();
+    try {
+      service.awaitTermination(policy.timeBudget().toMillis() + 1000, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -15,35 +15,217 @@
  */
 package io.serverlessworkflow.impl.persistence.mvstore;
 
+import io.serverlessworkflow.impl.WorkflowDefinitionData;
 import io.serverlessworkflow.impl.marshaller.DefaultBufferFactory;
 import io.serverlessworkflow.impl.marshaller.WorkflowBufferFactory;
 import io.serverlessworkflow.impl.persistence.PersistenceInstanceStore;
-import io.serverlessworkflow.impl.persistence.bigmap.BigMapInstanceTransaction;
+import io.serverlessworkflow.impl.persistence.bigmap.ContextCheckpoints;
+import io.serverlessworkflow.impl.persistence.bigmap.RecordCompression;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import org.h2.mvstore.FileStore;
+import org.h2.mvstore.MVMap;
 import org.h2.mvstore.MVStore;
 import org.h2.mvstore.tx.TransactionStore;
 
 public class MVStorePersistenceStore implements PersistenceInstanceStore {
+
+  private static final String CHUNK_PREFIX = "chunk.";
+
+  public static class Builder {
+
+    private final String dbName;
+    private WorkflowBufferFactory factory = DefaultBufferFactory.factory();
+    private ContextCheckpoints checkpoints;
+    private RecordCompression compression;
+    private MVStoreTaskLayout taskLayout = MVStoreTaskLayout.MAP_PER_INSTANCE;
+    private Duration autoCommitDelay;
+    private int autoCommitBufferSize;
+    private int cacheSize;
+    private MVStoreCompactionPolicy compaction;
+
+    private Builder(String dbName) {
+      this.dbName = dbName;
+    }
+
+    public Builder withBufferFactory(WorkflowBufferFactory factory) {
+      this.factory = factory;
+      return this;
+    }
+
+    /** See {@link ContextCheckpoints} */
+    public Builder withContextCheckpoints(ContextCheckpoints checkpoints) {
+      this.checkpoints = checkpoints;
+      return this;
+    }
+
+    /** See {@link RecordCompression} */
+    public Builder withRecordCompression(RecordCompression compression) {
+      this.compression = compression;
+      return this;
+    }
+
+    /** See {@link MVStoreTaskLayout} */
+    public Builder withTaskLayout(MVStoreTaskLayout taskLayout) {
+      this.taskLayout = taskLayout;
+      return this;
+    }
+
+    /** Maximum delay before changes are written to disk. Zero disables auto commit */
+    public Builder withAutoCommitDelay(Duration autoCommitDelay) {
+      this.autoCommitDelay = autoCommitDelay;
+      return this;
+    }
+
+    /** Size in KB of the unsaved changes that triggers an auto commit */
+    public Builder withAutoCommitBufferSize(int autoCommitBufferSize) {
+      this.autoCommitBufferSize = autoCommitBufferSize;
+      return this;
+    }
+
+    /** Read cache size in MB */
+    public Builder withCacheSize(int cacheSize) {
+      this.cacheSize = cacheSize;
+      return this;
+    }
+
+    /** Compacts the store in background, see {@link MVStoreCompactionPolicy} */
+    public Builder withCompaction(MVStoreCompactionPolicy compaction) {
+      this.compaction = compaction;
+      return this;
+    }
+
+    public MVStorePersistenceStore build() {
+      return new MVStorePersistenceStore(this);
+    }
+  }
+
+  public static Builder builder(String dbName) {
+    return new Builder(dbName);
+  }
+
   private final TransactionStore transactionStore;
   private final MVStore mvStore;
   private WorkflowBufferFactory factory;
+  private final ContextCheckpoints checkpoints;
+  private final RecordCompression compression;
+  private final MVStoreTaskLayout taskLayout;
+  private final MVStoreCompactor compactor;
+
+  private final LongAdder commits = new LongAdder();
+  private final LongAdder commitNanos = new LongAdder();
+  private final LongAccumulator maxCommitNanos = new LongAccumulator(Math::max, 0);
 
   public MVStorePersistenceStore(String dbName) {
     this(dbName, DefaultBufferFactory.factory());
   }
 
   public MVStorePersistenceStore(String dbName, WorkflowBufferFactory factory) {
-    this.mvStore = MVStore.open(dbName);
+    this(dbName, factory, null);
+  }
+
+  /**
+   * @param checkpoints if not null, the workflow context of completed tasks is stored as a delta
+   *     against the previous checkpoint, see {@link ContextCheckpoints}
+   */
+  public MVStorePersistenceStore(
+      String dbName, WorkflowBufferFactory factory, ContextCheckpoints checkpoints) {
+    this(dbName, factory, checkpoints, null);
+  }
+
+  /**
+   * @param compression if not null, task, instance and context records above its threshold are
+   *     stored compressed, see {@link RecordCompression}
+   */
+  public MVStorePersistenceStore(
+      String dbName,
+      WorkflowBufferFactory factory,
+      ContextCheckpoints checkpoints,
+      RecordCompression compression) {
+    this(
+        builder(dbName)
+            .withBufferFactory(factory)
+            .withContextCheckpoints(checkpoints)
+            .withRecordCompression(compression));
+  }
+
+  private MVStorePersistenceStore(Builder builder) {
+    this.mvStore = open(builder);
+    this.compactor =
+        builder.compaction == null ? null : new MVStoreCompactor(mvStore, builder.compaction);
     this.transactionStore = new TransactionStore(mvStore);
-    this.factory = factory;
+    this.factory = builder.factory;
+    this.checkpoints = builder.checkpoints;
+    this.compression = builder.compression;
+    this.taskLayout = builder.taskLayout;
+  }
+
+  private static MVStore open(Builder builder) {
+    MVStore.Builder storeBuilder = new MVStore.Builder().fileName(builder.dbName);
+    if (builder.autoCommitBufferSize > 0) {
+      storeBuilder.autoCommitBufferSize(builder.autoCommitBufferSize);
+    }
+    if (builder.cacheSize > 0) {
+      storeBuilder.cacheSize(builder.cacheSize);
+    }
+    MVStore store = storeBuilder.open();
+    if (builder.autoCommitDelay != null) {
+      store.setAutoCommitDelay((int) builder.autoCommitDelay.toMillis());
+    }
+    return store;
+  }
+
+  public MVStoreStats stats() {
+    FileStore<?> fileStore = mvStore.getFileStore();
+    return new MVStoreStats(
+        fileStore == null ? 0 : fileStore.size(),
+        fileStore == null ? 0 : fileStore.getFillRate(),
+        fileStore == null ? 0 : fileStore.getChunksFillRate(),
+        chunkCount(),
+        commits.sum(),
+        commitNanos.sum(),
+        maxCommitNanos.get(),
+        compactor == null ? 0 : compactor.runs(),
+        compactor == null ? 0 : compactor.rewrites(),
+        compactor == null ? 0 : compactor.nanos());
+  }
+
+  // chunks are registered in the layout map under the chunk prefix, next to the map roots
+  private int chunkCount() {
+    MVMap<String, String> layout = mvStore.getLayoutMap();
+    int count = 0;
+    if (layout != null) {
+      Iterator<String> iter = layout.keyIterator(CHUNK_PREFIX);
+      while (iter.hasNext() && iter.next().startsWith(CHUNK_PREFIX)) {
+        count++;
+      }
+    }
+    return count;
   }
 
   @Override
   public void close() {
+    if (compactor != null) {
+      compactor.close();
+    }
     mvStore.close();
   }
 
   @Override
-  public BigMapInstanceTransaction<byte[], byte[], byte[], byte[], byte[], byte[]> begin() {
-    return new MVStoreTransaction(mvStore, transactionStore.begin(), factory);
+  public MVStoreTransaction begin() {
+    return new MVStoreTransaction(
+        mvStore, transactionStore.begin(), factory, checkpoints, compression, taskLayout) {
+      @Override
+      public void commit(WorkflowDefinitionData definition) {
+        long start = System.nanoTime();
+        super.commit(definition);
+        long elapsed = System.nanoTime() - start;
+        commits.increment();
+        commitNanos.add(elapsed);
+        maxCommitNanos.accumulate(elapsed);
+      }
+    };
   }
 }
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2020-Present The Serverless Workflow Specification Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.serverlessworkflow.impl.persistence.mvstore;
+
+/**
+ * Health of a {@link MVStorePersistenceStore}. Commit and compaction counters are accumulated
+ * since the store was opened
+ *
+ * @param fileSize size of the store file in bytes
+ * @param fillRate percentage of the file used by live data
+ * @param chunksFillRate percentage of the chunks used by live data
+ * @param chunkCount number of chunks of the file
+ * @param compactionRewrites compaction steps that rewrote chunks
+ */
+public record MVStoreStats(
+    long fileSize,
+    int fillRate,
+    int chunksFillRate,
+    int chunkCount,
+    long commits,
+    long totalCommitNanos,
+    long maxCommitNanos,
+    long compactionRuns,
+    long compactionRewrites,
+    long compactionNanos) {
+
+  public long averageCommitNanos() {
+    return commits == 0 ? 0 : totalCommitNanos / commits;
+  }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2020-Present The Serverless Workflow Specification Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.serverlessworkflow.impl.persistence.mvstore;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import org.h2.mvstore.MVStore;
+import org.h2.mvstore.tx.Transaction;
+import org.h2.mvstore.tx.TransactionMap;
+import org.h2.mvstore.tx.TransactionStore;
+
+/**
+ * Converts a store written with {@link MVStoreTaskLayout#MAP_PER_INSTANCE} into {@link
+ * MVStoreTaskLayout#SINGLE_MAP}, moving the task and context records of every instance into the
+ * shared maps, one transaction per instance map. Only the maps of instances listed by a
+ * definition are moved, so definition maps that happen to share the suffix, such as the index of
+ * an application whose id ends with it, are left alone. It must be run while no application is
+ * using the store, and can be run again if interrupted.
+ */
+public class MVStoreTaskLayoutMigration {
+
+  private MVStoreTaskLayoutMigration() {}
+
+  public static void main(String[] args) {
+    if (args.length != 1) {
+      System.err.println("Usage: MVStoreTaskLayoutMigration <db file>");
+      System.exit(1);
+    }
+    MVStore store = MVStore.open(args[0]);
+    try {
+      System.out.println("Migrated " + migrate(store) + " instance maps");
+    } finally {
+      store.close();
+    }
+  }
+
+  /** Returns the number of instance maps that were moved into the shared maps */
+  public static int migrate(MVStore store) {
+    TransactionStore transactionStore = new TransactionStore(store);
+    Set<String> instanceIds = instanceIds(store, transactionStore);
+    int count = 0;
+    for (String name : store.getMapNames()) {
+      if (isInstanceMap(name, MVStoreTransaction.TASKS_SUFFIX, instanceIds)) {
+        migrate(
+            transactionStore, name, MVStoreTransaction.TASKS_SUFFIX, MVStoreTransaction.TASKS_MAP);
+        count++;
+      } else if (isInstanceMap(name, MVStoreTransaction.CONTEXTS_SUFFIX, instanceIds)) {
+        migrate(
+            transactionStore,
+            name,
+            MVStoreTransaction.CONTEXTS_SUFFIX,
+            MVStoreTransaction.CONTEXTS_MAP);
+        count++;
+      }
+    }
+    return count;
+  }
+
+  private static Set<String> instanceIds(MVStore store, TransactionStore transactionStore) {
+    Set<String> instanceIds = new HashSet<>();
+    Transaction transaction = transactionStore.begin();
+    try {
+      for (String name : store.getMapNames()) {
+        if (name.endsWith(MVStoreTransaction.INSTANCES_SUFFIX)) {
+          TransactionMap<String, byte[]> instances = transaction.openMap(name);
+          instanceIds.addAll(instances.keySet());
+        }
+      }
+    } finally {
+      transaction.rollback();
+    }
+    return instanceIds;
+  }
+
+  private static boolean isInstanceMap(String name, String suffix, Set<String> instanceIds) {
+    return name.endsWith(suffix)
+        && instanceIds.contains(name.substring(0, name.length() - suffix.length()));
+  }
+
+  private static void migrate(
+      TransactionStore transactionStore, String name, String suffix, String sharedName) {
+    String instanceId = name.substring(0, name.length() - suffix.length());
+    Transaction transaction = transactionStore.begin();
+    try {
+      TransactionMap<String, byte[]> source = transaction.openMap(name);
+      TransactionMap<String, byte[]> target = transaction.openMap(sharedName);
+      for (Map.Entry<String, byte[]> entry : source.entrySet()) {
+        target.put(InstanceRangeMap.key(instanceId, entry.getKey()), entry.getValue());
+      }
+      transaction.removeMap(source);
+      transaction.commit();
+    } catch (RuntimeException ex) {
+      transaction.rollback();
+      throw ex;
+    }
+  }
+}
@@ -18,8 +18,12 @@ package io.serverlessworkflow.impl.persistence.mvstore;
 import io.serverlessworkflow.api.types.Document;
 import io.serverlessworkflow.api.types.Workflow;
 import io.serverlessworkflow.impl.WorkflowDefinitionData;
+import io.serverlessworkflow.impl.WorkflowStatus;
 import io.serverlessworkflow.impl.marshaller.WorkflowBufferFactory;
 import io.serverlessworkflow.impl.persistence.bigmap.BytesMapInstanceTransaction;
+import io.serverlessworkflow.impl.persistence.bigmap.ContextCheckpoints;
+import io.serverlessworkflow.impl.persistence.bigmap.RecordCompression;
+import java.util.Iterator;
 import java.util.Map;
 import org.h2.mvstore.MVStore;
 import org.h2.mvstore.tx.Transaction;
@@ -29,14 +33,48 @@ public class MVStoreTransaction extends BytesMapInstanceTransaction {
 
   protected static final String ID_SEPARATOR = "-";
   private static final String PROCESSED_PREFIX = "PROCESSED" + ID_SEPARATOR;
+  static final String TASKS_SUFFIX = ID_SEPARATOR + "tasks";
+  static final String CONTEXTS_SUFFIX = ID_SEPARATOR + "contexts";
+  static final String TASKS_MAP = "TASKS";
+  static final String CONTEXTS_MAP = "CONTEXTS";
+  static final String INSTANCES_SUFFIX = ID_SEPARATOR + "instances";
 
   private final Transaction transaction;
   private final MVStore store;
+  private final MVStoreTaskLayout layout;
 
   public MVStoreTransaction(MVStore store, Transaction transaction, WorkflowBufferFactory factory) {
-    super(factory);
+    this(store, transaction, factory, null);
+  }
+
+  public MVStoreTransaction(
+      MVStore store,
+      Transaction transaction,
+      WorkflowBufferFactory factory,
+      ContextCheckpoints checkpoints) {
+    this(store, transaction, factory, checkpoints, null);
+  }
+
+  public MVStoreTransaction(
+      MVStore store,
+      Transaction transaction,
+      WorkflowBufferFactory factory,
+      ContextCheckpoints checkpoints,
+      RecordCompression compression) {
+    this(store, transaction, factory, checkpoints, compression, MVStoreTaskLayout.MAP_PER_INSTANCE);
+  }
+
+  public MVStoreTransaction(
+      MVStore store,
+      Transaction transaction,
+      WorkflowBufferFactory factory,
+      ContextCheckpoints checkpoints,
+      RecordCompression compression,
+      MVStoreTaskLayout layout) {
+    super(factory, checkpoints, compression);
     this.transaction = transaction;
     this.store = store;
+    this.layout = layout;
   }
 
   protected static String identifier(Workflow workflow, String sep) {
@@ -46,12 +84,30 @@ public class MVStoreTransaction extends BytesMapInstanceTransaction {
 
   @Override
   public Map<String, byte[]> instanceData(WorkflowDefinitionData workflowContext) {
-    return openMap(workflowContext, "instances");
+    return instancesMap(workflowContext);
+  }
+
+  @Override
+  protected Iterator<String> instanceIds(WorkflowDefinitionData definition, String afterId) {
+    // keys are kept sorted by the store, start right after afterId
+    return instancesMap(definition).keyIterator(afterId == null ? null : afterId + '\0');
+  }
+
+  @Override
+  protected Map<String, byte[]> applicationIndex(
+      WorkflowDefinitionData definition, String applicationId) {
+    return openMap(definition, "application" + ID_SEPARATOR + applicationId);
+  }
+
+  @Override
+  protected Map<String, byte[]> statusIndex(
+      WorkflowDefinitionData definition, WorkflowStatus status) {
+    return openMap(definition, "status" + ID_SEPARATOR + status.name());
   }
 
   @Override
   public Map<String, byte[]> tasks(String instanceId) {
-    return taskMap(instanceId);
+    return instanceMap(instanceId, TASKS_SUFFIX, TASKS_MAP);
   }
 
   @Override
@@ -61,20 +117,47 @@ public class MVStoreTransaction extends BytesMapInstanceTransaction {
 
   @Override
   public void removeTasks(String instanceId) {
-    transaction.removeMap(taskMap(instanceId));
+    removeInstanceMap(instanceId, TASKS_SUFFIX, TASKS_MAP);
   }
 
-  private TransactionMap<String, byte[]> taskMap(String instanceId) {
-    return transaction.openMap(mapTaskName(instanceId));
+  @Override
+  protected Map<String, byte[]> contexts(String instanceId) {
+    return instanceMap(instanceId, CONTEXTS_SUFFIX, CONTEXTS_MAP);
   }
 
-  private Map<String, byte[]> openMap(WorkflowDefinitionData workflowDefinition, String suffix) {
+  @Override
+  protected void removeContexts(String instanceId) {
+    removeInstanceMap(instanceId, CONTEXTS_SUFFIX, CONTEXTS_MAP);
+  }
+
+  private Map<String, byte[]> instanceMap(String instanceId, String suffix, String sharedName) {
+    return switch (layout) {
+      case MAP_PER_INSTANCE -> transaction.openMap(instanceId + suffix);
+      case SINGLE_MAP -> new InstanceRangeMap(transaction.openMap(sharedName), instanceId);
+    };
+  }
+
+  private void removeInstanceMap(String instanceId, String suffix, String sharedName) {
+    switch (layout) {
+      case MAP_PER_INSTANCE -> {
+        String name = instanceId + suffix;
+        if (store.hasMap(name)) {
+          transaction.removeMap(transaction.openMap(name));
+        }
+      }
+      case SINGLE_MAP -> instanceMap(instanceId, suffix, sharedName).clear();
+    }
+  }
+
+  private TransactionMap<String, byte[]> instancesMap(WorkflowDefinitionData workflowDefinition) {
     return transaction.openMap(
-        identifier(workflowDefinition.workflow(), ID_SEPARATOR) + ID_SEPARATOR + suffix);
+        identifier(workflowDefinition.workflow(), ID_SEPARATOR) + INSTANCES_SUFFIX);
   }
 
-  private String mapTaskName(String instanceId) {
-    return instanceId + ID_SEPARATOR + "tasks";
+  private TransactionMap<String, byte[]> openMap(
+      WorkflowDefinitionData workflowDefinition, String suffix) {
+    return transaction.openMap(
+        identifier(workflowDefinition.workflow(), ID_SEPARATOR) + ID_SEPARATOR + suffix);
   }
 
   @Override
@@ -85,6 +168,7 @@ public class MVStoreTransaction extends BytesMapInstanceTransaction {
   @Override
   public void rollback(WorkflowDefinitionData definition) {
     transaction.rollback();
+    rollbackCheckpoints();
   }
 
   @Override
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2020-Present The Serverless Workflow Specification Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.serverlessworkflow.impl.persistence.mvstore;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.serverlessworkflow.impl.TaskContextData;
+import io.serverlessworkflow.impl.persistence.AsyncPersistenceInstanceStore;
+import io.serverlessworkflow.impl.persistence.AsyncPersistenceInstanceTransaction;
+import io.serverlessworkflow.impl.persistence.DefaultPersistenceInstanceHandlers;
+import io.serverlessworkflow.impl.persistence.PersistenceInstanceHandlers;
+import io.serverlessworkflow.impl.persistence.PersistenceInstanceStore;
+import io.serverlessworkflow.impl.persistence.PersistenceInstanceTransaction;
+import io.serverlessworkflow.impl.persistence.PersistenceLaneStats;
+import io.serverlessworkflow.impl.persistence.StripedPersistenceExecutor;
+import io.serverlessworkflow.impl.persistence.test.AbstractPersistenceTest;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class MVStoreAsyncPersistenceTest extends AbstractPersistenceTest {
+
+  private static final String DB_NAME = "dbasync.db";
+
+  @Override
+  protected PersistenceInstanceHandlers getPersistenceHandlers() {
+    return DefaultPersistenceInstanceHandlers.builder(persistenceStore())
+        .withPersistenceExecutor(new StripedPersistenceExecutor(4))
+        .withAsyncWrites()
+        .build();
+  }
+
+  @Override
+  protected PersistenceInstanceStore persistenceStore() {
+    return new MVStorePersistenceStore(DB_NAME);
+  }
+
+  @AfterEach
+  void destroy() throws IOException {
+    Files.delete(Path.of(DB_NAME));
+  }
+
+  @Test
+  void testFailedStageRollsBack() {
+    AsyncPersistenceInstanceTransaction transaction =
+        mock(AsyncPersistenceInstanceTransaction.class);
+    when(transaction.writeCompletedTask(any(), any()))
+        .thenReturn(CompletableFuture.failedStage(new IllegalStateException("Failing write")));
+    when(transaction.rollback(any())).thenReturn(CompletableFuture.completedStage(null));
+    assertThat(taskCompleted(transaction))
+        .failsWithin(Duration.ofSeconds(5))
+        .withThrowableOfType(ExecutionException.class)
+        .withCauseInstanceOf(IllegalStateException.class);
+    verify(transaction, never()).commit(any());
+    verify(transaction).rollback(any());
+  }
+
+  @Test
+  void testFailedCommitRollsBack() {
+    AsyncPersistenceInstanceTransaction transaction =
+        mock(AsyncPersistenceInstanceTransaction.class);
+    when(transaction.writeCompletedTask(any(), any()))
+        .thenReturn(CompletableFuture.completedStage(null));
+    when(transaction.commit(any()))
+        .thenReturn(CompletableFuture.failedStage(new IllegalStateException("Failing commit")));
+    when(transaction.rollback(any())).thenReturn(CompletableFuture.completedStage(null));
+    assertThat(taskCompleted(transaction)).failsWithin(Duration.ofSeconds(5));
+    verify(transaction).rollback(any());
+  }
+
+  @Test
+  void testExecutorIsResolvedOnBuild() {
+    StripedPersistenceExecutor executor = new StripedPersistenceExecutor(2);
+    try (PersistenceInstanceHandlers handlers =
+        DefaultPersistenceInstanceHandlers.builder(
+                () -> mock(PersistenceInstanceTransaction.class))
+            .withAsyncWrites()
+            .withPersistenceExecutor(executor)
+            .build()) {
+      handlers.writer().taskCompleted(workflowContext, mock(TaskContextData.class)).join();
+      assertThat(executor.stats().stream().mapToLong(PersistenceLaneStats::executed).sum())
+          .isOne();
+    }
+  }
+
+  private CompletableFuture<Void> taskCompleted(AsyncPersistenceInstanceTransaction transaction) {
+    AsyncPersistenceInstanceStore store = mock(AsyncPersistenceInstanceStore.class);
+    when(store.begin()).thenReturn(CompletableFuture.completedStage(transaction));
+    try (PersistenceInstanceHandlers handlers =
+        DefaultPersistenceInstanceHandlers.builder(() -> mock(PersistenceInstanceTransaction.class))
+            .withAsyncStore(store)
+            .build()) {
+      return handlers.writer().taskCompleted(workflowContext, mock(TaskContextData.class));
+    }
+  }
+}
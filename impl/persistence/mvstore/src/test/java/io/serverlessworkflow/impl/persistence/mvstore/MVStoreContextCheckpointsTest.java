@@ -0,0 +1,174 @@
+/*
+ * Copyright 2020-Present The Serverless Workflow Specification Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.serverlessworkflow.impl.persistence.mvstore;
+
+import static io.serverlessworkflow.api.WorkflowReader.readWorkflowFromClasspath;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.serverlessworkflow.impl.TaskContext;
+import io.serverlessworkflow.impl.WorkflowApplication;
+import io.serverlessworkflow.impl.WorkflowContext;
+import io.serverlessworkflow.impl.WorkflowDefinition;
+import io.serverlessworkflow.impl.WorkflowInstance;
+import io.serverlessworkflow.impl.WorkflowPosition;
+import io.serverlessworkflow.impl.executors.TransitionInfo;
+import io.serverlessworkflow.impl.marshaller.DefaultBufferFactory;
+import io.serverlessworkflow.impl.persistence.CompletedTaskInfo;
+import io.serverlessworkflow.impl.persistence.PersistenceWorkflowInfo;
+import io.serverlessworkflow.impl.persistence.bigmap.ContextCheckpoints;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class MVStoreContextCheckpointsTest {
+
+  private static final String DB_NAME = "dbcontexts.db";
+
+  private static final List<Map<String, Object>> CONTEXTS =
+      List.of(
+          Map.of("counter", 0, "nested", Map.of("a", "x")),
+          Map.of("counter", 1, "nested", Map.of("a", "x")),
+          Map.of("counter", 1, "nested", Map.of("a", "y", "b", List.of(1, 2))),
+          Map.of("counter", 1, "nested", Map.of("a", "y", "b", List.of(1, 2))),
+          Map.of("counter", 2, "nested", Map.of("b", List.of(3))),
+          Map.of("other", "z"),
+          Map.of("other", "z", "counter", 6));
+
+  private static WorkflowApplication app;
+  private static WorkflowDefinition definition;
+
+  private MVStorePersistenceStore store;
+  private WorkflowContext workflowContext;
+
+  @BeforeAll
+  static void init() throws IOException {
+    app = WorkflowApplication.builder().build();
+    definition = app.workflowDefinition(readWorkflowFromClasspath("simple-expression.yaml"));
+  }
+
+  @AfterAll
+  static void cleanup() {
+    app.close();
+  }
+
+  @BeforeEach
+  void setup() {
+    store = openStore();
+    WorkflowInstance instance = mock(WorkflowInstance.class);
+    when(instance.id()).thenReturn(app.idFactory().get());
+    when(instance.startedAt()).thenReturn(Instant.now());
+    when(instance.input()).thenReturn(app.modelFactory().fromNull());
+    workflowContext = mock(WorkflowContext.class);
+    when(workflowContext.definition()).thenReturn(definition);
+    when(workflowContext.instanceData()).thenReturn(instance);
+    MVStoreTransaction transaction = store.begin();
+    transaction.writeInstanceData(workflowContext);
+    transaction.commit(definition);
+  }
+
+  @AfterEach
+  void destroy() throws IOException {
+    store.close();
+    Files.delete(Path.of(DB_NAME));
+  }
+
+  @Test
+  void testReplay() {
+    for (int i = 0; i < CONTEXTS.size(); i++) {
+      completeTask(position(i), CONTEXTS.get(i));
+    }
+    assertContexts(CONTEXTS.size());
+    // after a restart, the next checkpoint is a snapshot following the stored ones
+    restart();
+    assertContexts(CONTEXTS.size());
+    completeTask(position(CONTEXTS.size()), Map.of("restarted", true));
+    assertThat(context(readInfo(), position(CONTEXTS.size())))
+        .isEqualTo(Map.of("restarted", true));
+    assertContexts(CONTEXTS.size());
+  }
+
+  @Test
+  void testCompaction() {
+    WorkflowPosition position = position(0);
+    for (int i = 0; i < 20; i++) {
+      completeTask(position, Map.of("counter", i, "constant", "value"));
+    }
+    MVStoreTransaction transaction = store.begin();
+    assertThat(transaction.contexts(workflowContext.instanceData().id()).size()).isLessThan(8);
+    transaction.commit(definition);
+    restart();
+    assertThat(context(readInfo(), position)).isEqualTo(Map.of("counter", 19, "constant", "value"));
+  }
+
+  private void assertContexts(int count) {
+    PersistenceWorkflowInfo info = readInfo();
+    for (int i = 0; i < count; i++) {
+      assertThat(context(info, position(i))).isEqualTo(CONTEXTS.get(i));
+    }
+  }
+
+  private Object context(PersistenceWorkflowInfo info, WorkflowPosition position) {
+    return ((CompletedTaskInfo) info.tasks().get(position.jsonPointer())).context().asJavaObject();
+  }
+
+  private PersistenceWorkflowInfo readInfo() {
+    MVStoreTransaction transaction = store.begin();
+    try {
+      return transaction
+          .readWorkflowInfo(definition, workflowContext.instanceData().id())
+          .orElseThrow();
+    } finally {
+      transaction.commit(definition);
+    }
+  }
+
+  private void completeTask(WorkflowPosition position, Map<String, Object> context) {
+    when(workflowContext.context()).thenReturn(app.modelFactory().from(context));
+    TaskContext taskContext = mock(TaskContext.class);
+    when(taskContext.position()).thenReturn(position);
+    when(taskContext.completedAt()).thenReturn(Instant.now());
+    when(taskContext.output()).thenReturn(app.modelFactory().fromNull());
+    when(taskContext.transition()).thenReturn(new TransitionInfo(null, false));
+    when(taskContext.iteration()).thenReturn(1);
+    MVStoreTransaction transaction = store.begin();
+    transaction.writeCompletedTask(workflowContext, taskContext);
+    transaction.commit(definition);
+  }
+
+  private void restart() {
+    store.close();
+    store = openStore();
+  }
+
+  private static MVStorePersistenceStore openStore() {
+    return new MVStorePersistenceStore(
+        DB_NAME, DefaultBufferFactory.factory(), new ContextCheckpoints(3));
+  }
+
+  private static WorkflowPosition position(int index) {
+    return app.positionFactory().get().addProperty("do").addIndex(index).addProperty("task");
+  }
+}
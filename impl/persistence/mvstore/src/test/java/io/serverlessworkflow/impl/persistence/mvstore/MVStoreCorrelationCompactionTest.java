@@ -0,0 +1,103 @@
+/*
+ * Copyright 2020-Present The Serverless Workflow Specification Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.serverlessworkflow.impl.persistence.mvstore;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.cloudevents.CloudEvent;
+import io.cloudevents.core.builder.CloudEventBuilder;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class MVStoreCorrelationCompactionTest {
+
+  private static final String DB_NAME = "dbcorrelation.db";
+  private static final String REG_ID = "ns:def:1";
+
+  @AfterEach
+  void destroy() throws IOException {
+    Files.delete(Path.of(DB_NAME));
+  }
+
+  @Test
+  void testRemoveEventsAndPurgeProcessed() {
+    try (MVStorePersistenceStore store = new MVStorePersistenceStore(DB_NAME)) {
+      MVStoreTransaction transaction = store.begin();
+      for (int i = 1; i <= 4; i++) {
+        transaction.storeEvent(REG_ID, cloudEvent("e" + i));
+      }
+      transaction.markAsProcessed(Map.of(REG_ID, List.of("e1", "e2", "e3")));
+      // instances started by e1 and e2 remove their events, leaving their markers behind
+      transaction.removeCloudEvents(Map.of(REG_ID, "e1"));
+      transaction.removeCloudEvents(Map.of(REG_ID, "e2"));
+      transaction.commit(null);
+
+      transaction = store.begin();
+      assertThat(transaction.purgeProcessed(REG_ID, 1)).isEqualTo(1);
+      assertThat(transaction.purgeProcessed(REG_ID, 10)).isEqualTo(1);
+      assertThat(transaction.purgeProcessed(REG_ID, 10)).isZero();
+      transaction.removeEvents(REG_ID, List.of("e3", "e4"));
+      transaction.commit(null);
+
+      transaction = store.begin();
+      // e3 marker was removed with its event, so nothing is left to purge or retrieve
+      assertThat(transaction.purgeProcessed(REG_ID, 10)).isZero();
+      transaction.clearProcessed();
+      assertThat(retrieveEvents(transaction)).isEmpty();
+      transaction.commit(null);
+    }
+  }
+
+  @Test
+  void testPurgeKeepsMarkersOfStoredEvents() {
+    try (MVStorePersistenceStore store = new MVStorePersistenceStore(DB_NAME)) {
+      MVStoreTransaction transaction = store.begin();
+      transaction.storeEvent(REG_ID, cloudEvent("e1"));
+      transaction.storeEvent(REG_ID, cloudEvent("e2"));
+      transaction.markAsProcessed(Map.of(REG_ID, List.of("e1")));
+      transaction.commit(null);
+
+      transaction = store.begin();
+      assertThat(transaction.purgeProcessed(REG_ID, 10)).isZero();
+      assertThat(retrieveEvents(transaction)).extracting(CloudEvent::getId).containsExactly("e2");
+      transaction.commit(null);
+    }
+  }
+
+  private static Collection<CloudEvent> retrieveEvents(MVStoreTransaction transaction) {
+    Map<String, Collection<CloudEvent>> events = new HashMap<>();
+    events.put(REG_ID, new ArrayList<>());
+    transaction.retrieveEvents(events);
+    return events.get(REG_ID);
+  }
+
+  private static CloudEvent cloudEvent(String id) {
+    return CloudEventBuilder.v1()
+        .withId(id)
+        .withType("com.example.correlation")
+        .withSource(URI.create("http://www.example.com"))
+        .build();
+  }
+}
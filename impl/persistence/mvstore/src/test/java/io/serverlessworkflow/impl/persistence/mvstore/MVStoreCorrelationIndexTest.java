@@ -0,0 +1,182 @@
+/*
+ * Copyright 2020-Present The Serverless Workflow Specification Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.serverlessworkflow.impl.persistence.mvstore;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.when;
+
+import io.cloudevents.CloudEvent;
+import io.cloudevents.core.builder.CloudEventBuilder;
+import io.serverlessworkflow.impl.WorkflowDefinition;
+import io.serverlessworkflow.impl.WorkflowDefinitionData;
+import io.serverlessworkflow.impl.WorkflowDefinitionId;
+import io.serverlessworkflow.impl.events.EventRegistrationBuilder;
+import io.serverlessworkflow.impl.persistence.PersistenceExecutor;
+import io.serverlessworkflow.impl.persistence.PersistenceInstanceStore;
+import io.serverlessworkflow.impl.persistence.StoreAllStrategyCorrelationInfo;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class MVStoreCorrelationIndexTest {
+
+  private static final String DB_NAME = "dbcorrelationindex.db";
+  private static final WorkflowDefinitionId DEFINITION_ID =
+      WorkflowDefinitionId.fromName("correlation");
+  // registration ids are generated in init order
+  private static final String FIRST_REG_ID = DEFINITION_ID.toString(":") + ":1";
+  private static final String SECOND_REG_ID = DEFINITION_ID.toString(":") + ":2";
+
+  // runs correlation steps on the caller thread, so every step is done once its call returns
+  private static final PersistenceExecutor CALLER_EXECUTOR =
+      new PersistenceExecutor() {
+        @Override
+        public <T> CompletableFuture<T> execute(
+            Supplier<T> supplier, WorkflowDefinitionData definition) {
+          return CompletableFuture.supplyAsync(supplier, Runnable::run);
+        }
+
+        @Override
+        public CompletableFuture<Void> execute(
+            Runnable runnable, WorkflowDefinitionData definition) {
+          return CompletableFuture.runAsync(runnable, Runnable::run);
+        }
+      };
+
+  private final EventRegistrationBuilder first = new EventRegistrationBuilder() {};
+  private final EventRegistrationBuilder second = new EventRegistrationBuilder() {};
+  private final List<Map<EventRegistrationBuilder, CloudEvent>> started =
+      new CopyOnWriteArrayList<>();
+  private final AtomicBoolean failNextStore = new AtomicBoolean();
+
+  private MVStorePersistenceStore mvStore;
+  private StoreAllStrategyCorrelationInfo correlationInfo;
+
+  @BeforeEach
+  void setup() {
+    mvStore = new MVStorePersistenceStore(DB_NAME);
+    WorkflowDefinition definition = mock(WorkflowDefinition.class);
+    when(definition.id()).thenReturn(DEFINITION_ID);
+    PersistenceInstanceStore store =
+        () -> {
+          MVStoreTransaction transaction = mvStore.begin();
+          if (failNextStore.getAndSet(false)) {
+            // the event reaches the transaction before the failure, so it has to be rolled back
+            transaction = spy(transaction);
+            doAnswer(
+                    invocation -> {
+                      invocation.callRealMethod();
+                      throw new IllegalStateException("Failing store");
+                    })
+                .when(transaction)
+                .storeEvent(any(), any());
+          }
+          return transaction;
+        };
+    correlationInfo = new StoreAllStrategyCorrelationInfo(definition, CALLER_EXECUTOR, store);
+  }
+
+  @AfterEach
+  void destroy() throws IOException {
+    correlationInfo.close();
+    mvStore.close();
+    Files.delete(Path.of(DB_NAME));
+  }
+
+  @Test
+  void testStartupLoadThenIncrementalMatching() {
+    MVStoreTransaction transaction = mvStore.begin();
+    transaction.storeEvent(FIRST_REG_ID, cloudEvent("e1"));
+    transaction.storeEvent(FIRST_REG_ID, cloudEvent("e2"));
+    transaction.storeEvent(SECOND_REG_ID, cloudEvent("e3"));
+    transaction.commit(null);
+
+    correlationInfo.init(List.of(first, second), started::add);
+    assertThat(startedIds()).containsExactly("e1+e3");
+
+    correlationInfo.correlate(second, cloudEvent("e4"));
+    correlationInfo.correlate(second, cloudEvent("e5"));
+    assertThat(startedIds()).containsExactly("e1+e3", "e2+e4");
+
+    correlationInfo.correlate(first, cloudEvent("e6"));
+    assertThat(startedIds()).containsExactly("e1+e3", "e2+e4", "e6+e5");
+  }
+
+  @Test
+  void testFailedTransactionReloadsIndex() {
+    correlationInfo.init(List.of(first, second), started::add);
+    correlationInfo.correlate(first, cloudEvent("e1"));
+
+    failNextStore.set(true);
+    correlationInfo.correlate(second, cloudEvent("e2"));
+    assertThat(started).isEmpty();
+
+    // e2 was rolled back, so it must not be matched from a stale index
+    correlationInfo.correlate(second, cloudEvent("e3"));
+    assertThat(startedIds()).containsExactly("e1+e3");
+  }
+
+  @Test
+  void testDuplicateEventsAreCountedOnce() {
+    MVStoreTransaction transaction = mvStore.begin();
+    transaction.storeEvent(FIRST_REG_ID, cloudEvent("e1"));
+    transaction.commit(null);
+
+    correlationInfo.init(List.of(first, second), started::add);
+    // redeliveries, with a different time, of an event loaded on startup and of a received one
+    OffsetDateTime redeliveredAt = OffsetDateTime.now();
+    correlationInfo.correlate(first, eventBuilder("e1").withTime(redeliveredAt).build());
+    correlationInfo.correlate(first, eventBuilder("e2").build());
+    correlationInfo.correlate(first, eventBuilder("e2").withTime(redeliveredAt).build());
+
+    correlationInfo.correlate(second, cloudEvent("e3"));
+    correlationInfo.correlate(second, cloudEvent("e4"));
+    correlationInfo.correlate(second, cloudEvent("e5"));
+    assertThat(startedIds()).containsExactly("e1+e3", "e2+e4");
+  }
+
+  private List<String> startedIds() {
+    return started.stream()
+        .map(row -> row.get(first).getId() + "+" + row.get(second).getId())
+        .toList();
+  }
+
+  private static CloudEvent cloudEvent(String id) {
+    return eventBuilder(id).build();
+  }
+
+  private static CloudEventBuilder eventBuilder(String id) {
+    return CloudEventBuilder.v1()
+        .withId(id)
+        .withType("com.example.correlation")
+        .withSource(URI.create("http://www.example.com"));
+  }
+}
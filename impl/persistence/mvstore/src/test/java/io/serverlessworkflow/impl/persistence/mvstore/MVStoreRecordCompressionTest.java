@@ -0,0 +1,198 @@
+/*
+ * Copyright 2020-Present The Serverless Workflow Specification Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.serverlessworkflow.impl.persistence.mvstore;
+
+import static io.serverlessworkflow.api.WorkflowReader.readWorkflowFromClasspath;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.serverlessworkflow.impl.TaskContext;
+import io.serverlessworkflow.impl.WorkflowApplication;
+import io.serverlessworkflow.impl.WorkflowContext;
+import io.serverlessworkflow.impl.WorkflowDefinition;
+import io.serverlessworkflow.impl.WorkflowInstance;
+import io.serverlessworkflow.impl.WorkflowPosition;
+import io.serverlessworkflow.impl.executors.TransitionInfo;
+import io.serverlessworkflow.impl.marshaller.DefaultBufferFactory;
+import io.serverlessworkflow.impl.persistence.CompletedTaskInfo;
+import io.serverlessworkflow.impl.persistence.PersistenceWorkflowInfo;
+import io.serverlessworkflow.impl.persistence.bigmap.ContextCheckpoints;
+import io.serverlessworkflow.impl.persistence.bigmap.RecordCompression;
+import io.serverlessworkflow.impl.persistence.bigmap.RecordCompression.Codec;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+class MVStoreRecordCompressionTest {
+
+  private static final String DB_NAME = "dbcompression.db";
+
+  private static WorkflowApplication app;
+  private static WorkflowDefinition definition;
+
+  private MVStorePersistenceStore store;
+  private WorkflowContext workflowContext;
+
+  @BeforeAll
+  static void init() throws IOException {
+    app = WorkflowApplication.builder().build();
+    definition = app.workflowDefinition(readWorkflowFromClasspath("simple-expression.yaml"));
+  }
+
+  @AfterAll
+  static void cleanup() {
+    app.close();
+  }
+
+  @BeforeEach
+  void setup() {
+    WorkflowInstance instance = mock(WorkflowInstance.class);
+    when(instance.id()).thenReturn(app.idFactory().get());
+    when(instance.startedAt()).thenReturn(Instant.now());
+    when(instance.input()).thenReturn(app.modelFactory().fromNull());
+    workflowContext = mock(WorkflowContext.class);
+    when(workflowContext.definition()).thenReturn(definition);
+    when(workflowContext.instanceData()).thenReturn(instance);
+  }
+
+  @AfterEach
+  void destroy() throws IOException {
+    store.close();
+    Files.delete(Path.of(DB_NAME));
+  }
+
+  @ParameterizedTest
+  @EnumSource(Codec.class)
+  void testMixedRecords(Codec codec) {
+    store = new MVStorePersistenceStore(DB_NAME);
+    writeInstance();
+    completeTask(position(0), context(0));
+    completeTask(position(1), Map.of("small", true));
+    reopen(null, new RecordCompression(codec, RecordCompression.DEFAULT_THRESHOLD));
+    completeTask(position(2), context(2));
+    assertThat(compressed(position(0))).isFalse();
+    assertThat(compressed(position(1))).isFalse();
+    assertThat(compressed(position(2))).isTrue();
+    assertContexts();
+    // compressed records are readable whatever the configuration
+    reopen(null, null);
+    assertContexts();
+  }
+
+  @ParameterizedTest
+  @EnumSource(Codec.class)
+  void testCompressedCheckpoints(Codec codec) {
+    reopen(new ContextCheckpoints(3), new RecordCompression(codec, 64));
+    writeInstance();
+    for (int i = 0; i < 5; i++) {
+      completeTask(position(i), context(i));
+    }
+    reopen(new ContextCheckpoints(3), null);
+    PersistenceWorkflowInfo info = readInfo();
+    for (int i = 0; i < 5; i++) {
+      assertThat(context(info, position(i))).isEqualTo(context(i));
+    }
+  }
+
+  private void assertContexts() {
+    PersistenceWorkflowInfo info = readInfo();
+    assertThat(context(info, position(0))).isEqualTo(context(0));
+    assertThat(context(info, position(1))).isEqualTo(Map.of("small", true));
+    assertThat(context(info, position(2))).isEqualTo(context(2));
+  }
+
+  // json like context, big and repetitive enough to be compressed
+  private static Map<String, Object> context(int seed) {
+    List<Map<String, Object>> items = new ArrayList<>();
+    for (int i = 0; i < 50; i++) {
+      items.add(Map.of("sku", "item-" + (i % 7), "quantity", i + seed, "status", "pending"));
+    }
+    Map<String, Object> context = new HashMap<>();
+    context.put("seed", seed);
+    context.put("items", items);
+    return context;
+  }
+
+  private boolean compressed(WorkflowPosition position) {
+    MVStoreTransaction transaction = store.begin();
+    try {
+      byte[] data =
+          transaction.tasks(workflowContext.instanceData().id()).get(position.jsonPointer());
+      return (data[0] & 0x80) != 0;
+    } finally {
+      transaction.commit(definition);
+    }
+  }
+
+  private Object context(PersistenceWorkflowInfo info, WorkflowPosition position) {
+    return ((CompletedTaskInfo) info.tasks().get(position.jsonPointer())).context().asJavaObject();
+  }
+
+  private PersistenceWorkflowInfo readInfo() {
+    MVStoreTransaction transaction = store.begin();
+    try {
+      return transaction
+          .readWorkflowInfo(definition, workflowContext.instanceData().id())
+          .orElseThrow();
+    } finally {
+      transaction.commit(definition);
+    }
+  }
+
+  private void writeInstance() {
+    MVStoreTransaction transaction = store.begin();
+    transaction.writeInstanceData(workflowContext);
+    transaction.commit(definition);
+  }
+
+  private void completeTask(WorkflowPosition position, Map<String, Object> context) {
+    when(workflowContext.context()).thenReturn(app.modelFactory().from(context));
+    TaskContext taskContext = mock(TaskContext.class);
+    when(taskContext.position()).thenReturn(position);
+    when(taskContext.completedAt()).thenReturn(Instant.now());
+    when(taskContext.output()).thenReturn(app.modelFactory().fromNull());
+    when(taskContext.transition()).thenReturn(new TransitionInfo(null, false));
+    when(taskContext.iteration()).thenReturn(1);
+    MVStoreTransaction transaction = store.begin();
+    transaction.writeCompletedTask(workflowContext, taskContext);
+    transaction.commit(definition);
+  }
+
+  private void reopen(ContextCheckpoints checkpoints, RecordCompression compression) {
+    if (store != null) {
+      store.close();
+    }
+    store =
+        new MVStorePersistenceStore(
+            DB_NAME, DefaultBufferFactory.factory(), checkpoints, compression);
+  }
+
+  private static WorkflowPosition position(int index) {
+    return app.positionFactory().get().addProperty("do").addIndex(index).addProperty("task");
+  }
+}
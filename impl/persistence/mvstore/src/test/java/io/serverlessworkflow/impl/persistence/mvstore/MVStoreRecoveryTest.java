@@ -0,0 +1,124 @@
+/*
+ * Copyright 2020-Present The Serverless Workflow Specification Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.serverlessworkflow.impl.persistence.mvstore;
+
+import static io.serverlessworkflow.api.WorkflowReader.readWorkflowFromClasspath;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.serverlessworkflow.impl.WorkflowApplication;
+import io.serverlessworkflow.impl.WorkflowContext;
+import io.serverlessworkflow.impl.WorkflowDefinition;
+import io.serverlessworkflow.impl.WorkflowInstance;
+import io.serverlessworkflow.impl.persistence.PersistenceRecoveryService;
+import io.serverlessworkflow.impl.persistence.PersistenceRecoveryStats;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class MVStoreRecoveryTest {
+
+  private static final String DB_NAME = "dbrecovery.db";
+  private static final int INSTANCES = 10;
+
+  private static WorkflowApplication app;
+  private static WorkflowDefinition definition;
+
+  private MVStorePersistenceStore store;
+  private List<String> ids;
+
+  @BeforeAll
+  static void init() throws IOException {
+    app = WorkflowApplication.builder().build();
+    definition = app.workflowDefinition(readWorkflowFromClasspath("simple-expression.yaml"));
+  }
+
+  @AfterAll
+  static void cleanup() {
+    app.close();
+  }
+
+  @BeforeEach
+  void setup() {
+    store = new MVStorePersistenceStore(DB_NAME);
+    ids = new ArrayList<>();
+    MVStoreTransaction transaction = store.begin();
+    for (int i = 0; i < INSTANCES; i++) {
+      String id = app.idFactory().get();
+      WorkflowInstance instance = mock(WorkflowInstance.class);
+      when(instance.id()).thenReturn(id);
+      when(instance.startedAt()).thenReturn(Instant.now());
+      when(instance.input()).thenReturn(app.modelFactory().from(Map.of("index", i)));
+      WorkflowContext workflowContext = mock(WorkflowContext.class);
+      when(workflowContext.definition()).thenReturn(definition);
+      when(workflowContext.instanceData()).thenReturn(instance);
+      transaction.writeInstanceData(workflowContext);
+      ids.add(id);
+    }
+    transaction.commit(definition);
+    ids.sort(String::compareTo);
+  }
+
+  @AfterEach
+  void destroy() throws IOException {
+    store.close();
+    Files.delete(Path.of(DB_NAME));
+  }
+
+  @Test
+  void testScanIds() {
+    MVStoreTransaction transaction = store.begin();
+    List<String> scanned = new ArrayList<>();
+    String afterId = null;
+    List<String> page;
+    do {
+      page = transaction.scanIds(app.id(), definition, afterId, 4);
+      assertThat(page).hasSizeLessThanOrEqualTo(4);
+      scanned.addAll(page);
+      afterId = page.isEmpty() ? null : page.get(page.size() - 1);
+    } while (page.size() == 4);
+    assertThat(scanned).isEqualTo(ids);
+    assertThat(transaction.scanIds("other", definition, null, 4)).isEmpty();
+    transaction.commit(definition);
+  }
+
+  @Test
+  void testRecover() {
+    try (PersistenceRecoveryService recovery =
+        PersistenceRecoveryService.builder(store)
+            .withPageSize(3)
+            .withConcurrency(2)
+            .withPriority(PersistenceRecoveryService.oldestFirst())
+            .build()) {
+      PersistenceRecoveryStats stats = new PersistenceRecoveryStats(4, INSTANCES, INSTANCES, 0);
+      assertThat(recovery.recover(definition).join()).isEqualTo(stats);
+      // every recovery reports its own progress, the service keeps the totals
+      assertThat(recovery.recover(definition, "other").join())
+          .isEqualTo(new PersistenceRecoveryStats(0, 0, 0, 0));
+      assertThat(recovery.stats()).isEqualTo(stats);
+    }
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2020-Present The Serverless Workflow Specification Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.serverlessworkflow.impl.persistence.mvstore;
+
+import static io.serverlessworkflow.api.WorkflowReader.readWorkflowFromClasspath;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.serverlessworkflow.impl.WorkflowApplication;
+import io.serverlessworkflow.impl.WorkflowContext;
+import io.serverlessworkflow.impl.WorkflowDefinition;
+import io.serverlessworkflow.impl.WorkflowInstance;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class MVStoreStatsTest {
+
+  private static final String DB_NAME = "dbstats.db";
+
+  private static WorkflowApplication app;
+  private static WorkflowDefinition definition;
+
+  @BeforeAll
+  static void init() throws IOException {
+    app = WorkflowApplication.builder().build();
+    definition = app.workflowDefinition(readWorkflowFromClasspath("simple-expression.yaml"));
+  }
+
+  @AfterAll
+  static void cleanup() {
+    app.close();
+  }
+
+  @AfterEach
+  void destroy() throws IOException {
+    Files.delete(Path.of(DB_NAME));
+  }
+
+  @Test
+  void testStatsAndCompaction() {
+    try (MVStorePersistenceStore store =
+        MVStorePersistenceStore.builder(DB_NAME)
+            .withAutoCommitDelay(Duration.ofMillis(10))
+            .withCompaction(
+                new MVStoreCompactionPolicy(
+                    Duration.ofMillis(50), 90, 64 * 1024, Duration.ofMillis(200)))
+            .build()) {
+      // delete heavy workload, every instance is removed once written
+      for (int i = 0; i < 200; i++) {
+        WorkflowContext workflowContext = workflowContext(i);
+        MVStoreTransaction transaction = store.begin();
+        transaction.writeInstanceData(workflowContext);
+        transaction.commit(definition);
+        transaction = store.begin();
+        transaction.removeProcessInstance(workflowContext);
+        transaction.commit(definition);
+      }
+      await()
+          .atMost(Duration.ofSeconds(5))
+          .untilAsserted(
+              () -> {
+                MVStoreStats stats = store.stats();
+                assertThat(stats.fileSize()).isPositive();
+                assertThat(stats.chunkCount()).isPositive();
+                assertThat(stats.compactionRuns()).isPositive();
+              });
+      MVStoreStats stats = store.stats();
+      assertThat(stats.commits()).isEqualTo(400);
+      assertThat(stats.maxCommitNanos()).isPositive();
+      assertThat(stats.averageCommitNanos()).isBetween(1L, stats.maxCommitNanos());
+    }
+  }
+
+  private static WorkflowContext workflowContext(int index) {
+    WorkflowInstance instance = mock(WorkflowInstance.class);
+    when(instance.id()).thenReturn(app.idFactory().get());
+    when(instance.startedAt()).thenReturn(Instant.now());
+    when(instance.input()).thenReturn(app.modelFactory().from(Map.of("index", index)));
+    WorkflowContext workflowContext = mock(WorkflowContext.class);
+    when(workflowContext.definition()).thenReturn(definition);
+    when(workflowContext.instanceData()).thenReturn(instance);
+    return workflowContext;
+  }
+}
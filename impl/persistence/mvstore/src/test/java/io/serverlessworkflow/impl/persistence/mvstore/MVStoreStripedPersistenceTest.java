@@ -0,0 +1,150 @@
+/*
+ * Copyright 2020-Present The Serverless Workflow Specification Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.serverlessworkflow.impl.persistence.mvstore;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.serverlessworkflow.impl.WorkflowContextData;
+import io.serverlessworkflow.impl.WorkflowInstanceData;
+import io.serverlessworkflow.impl.persistence.DefaultPersistenceInstanceHandlers;
+import io.serverlessworkflow.impl.persistence.PersistenceInstanceHandlers;
+import io.serverlessworkflow.impl.persistence.PersistenceInstanceStore;
+import io.serverlessworkflow.impl.persistence.StripedPersistenceExecutor;
+import io.serverlessworkflow.impl.persistence.test.AbstractPersistenceTest;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class MVStoreStripedPersistenceTest extends AbstractPersistenceTest {
+
+  private static final String DB_NAME = "dbstriped.db";
+
+  @Override
+  protected PersistenceInstanceHandlers getPersistenceHandlers() {
+    return DefaultPersistenceInstanceHandlers.builder(persistenceStore())
+        .withPersistenceExecutor(new StripedPersistenceExecutor(4))
+        .build();
+  }
+
+  @Override
+  protected PersistenceInstanceStore persistenceStore() {
+    return new MVStorePersistenceStore(DB_NAME);
+  }
+
+  @AfterEach
+  void destroy() throws IOException {
+    Files.delete(Path.of(DB_NAME));
+  }
+
+  @Test
+  void testOperationsOfAnInstanceAreOrdered() {
+    Map<String, List<Integer>> executed = new ConcurrentHashMap<>();
+    Map<String, Set<String>> threads = new ConcurrentHashMap<>();
+    List<CompletableFuture<Void>> futures = new ArrayList<>();
+    StripedPersistenceExecutor executor = new StripedPersistenceExecutor(4);
+    try {
+      for (int i = 0; i < 1000; i++) {
+        WorkflowContextData context = instanceContext("instance" + i % 10);
+        String id = context.instanceData().id();
+        int sequence = i;
+        futures.add(
+            executor.execute(
+                () -> {
+                  executed.computeIfAbsent(id, k -> new CopyOnWriteArrayList<>()).add(sequence);
+                  threads
+                      .computeIfAbsent(id, k -> ConcurrentHashMap.newKeySet())
+                      .add(Thread.currentThread().getName());
+                },
+                context));
+      }
+      CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+    } finally {
+      executor.close();
+    }
+    assertThat(executed).hasSize(10);
+    executed.values().forEach(sequences -> assertThat(sequences).hasSize(100).isSorted());
+    threads
+        .values()
+        .forEach(
+            names -> assertThat(names).singleElement().asString().startsWith("persistence-lane-"));
+  }
+
+  @Test
+  void testStatsReportQueueDepth() throws InterruptedException {
+    CountDownLatch release = new CountDownLatch(1);
+    StripedPersistenceExecutor executor = new StripedPersistenceExecutor(4);
+    try {
+      WorkflowContextData context = instanceContext("blocked");
+      List<CompletableFuture<Void>> futures = new ArrayList<>();
+      futures.add(
+          executor.execute(
+              () -> {
+                try {
+                  release.await();
+                } catch (InterruptedException e) {
+                  Thread.currentThread().interrupt();
+                }
+              },
+              context));
+      futures.add(executor.execute(() -> {}, context));
+      futures.add(executor.execute(() -> {}, context));
+      assertThat(executor.stats())
+          .hasSize(4)
+          .filteredOn(stats -> stats.queueDepth() > 0)
+          .singleElement()
+          .satisfies(
+              stats -> {
+                assertThat(stats.queueDepth()).isEqualTo(3);
+                assertThat(stats.maxQueueDepth()).isEqualTo(3);
+              });
+      release.countDown();
+      CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+      assertThat(executor.stats())
+          .allSatisfy(stats -> assertThat(stats.queueDepth()).isZero())
+          .filteredOn(stats -> stats.executed() > 0)
+          .singleElement()
+          .satisfies(
+              stats -> {
+                assertThat(stats.executed()).isEqualTo(3);
+                assertThat(stats.maxQueueDepth()).isEqualTo(3);
+              });
+    } finally {
+      release.countDown();
+      executor.close();
+    }
+  }
+
+  private WorkflowContextData instanceContext(String id) {
+    WorkflowInstanceData instance = mock(WorkflowInstanceData.class);
+    when(instance.id()).thenReturn(id);
+    WorkflowContextData context = mock(WorkflowContextData.class);
+    when(context.instanceData()).thenReturn(instance);
+    when(context.definition()).thenReturn(workflowContext.definition());
+    return context;
+  }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2020-Present The Serverless Workflow Specification Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.serverlessworkflow.impl.persistence.mvstore;
+
+import static io.serverlessworkflow.api.WorkflowReader.readWorkflowFromClasspath;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.serverlessworkflow.impl.TaskContext;
+import io.serverlessworkflow.impl.WorkflowApplication;
+import io.serverlessworkflow.impl.WorkflowContext;
+import io.serverlessworkflow.impl.WorkflowDefinition;
+import io.serverlessworkflow.impl.WorkflowInstance;
+import io.serverlessworkflow.impl.WorkflowPosition;
+import io.serverlessworkflow.impl.executors.TransitionInfo;
+import io.serverlessworkflow.impl.persistence.CompletedTaskInfo;
+import io.serverlessworkflow.impl.persistence.PersistenceWorkflowInfo;
+import io.serverlessworkflow.impl.persistence.bigmap.ContextCheckpoints;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.h2.mvstore.MVStore;
+import org.h2.mvstore.tx.Transaction;
+import org.h2.mvstore.tx.TransactionStore;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class MVStoreTaskLayoutMigrationTest {
+
+  private static final String DB_NAME = "dbmigration.db";
+  private static final int INSTANCES = 3;
+  private static final int TASKS = 4;
+
+  private static WorkflowApplication app;
+  private static WorkflowDefinition definition;
+
+  @BeforeAll
+  static void init() throws IOException {
+    app = WorkflowApplication.builder().build();
+    definition = app.workflowDefinition(readWorkflowFromClasspath("simple-expression.yaml"));
+  }
+
+  @AfterAll
+  static void cleanup() {
+    app.close();
+  }
+
+  @AfterEach
+  void destroy() throws IOException {
+    Files.delete(Path.of(DB_NAME));
+  }
+
+  @Test
+  void testMigration() {
+    List<String> ids = new ArrayList<>();
+    try (MVStorePersistenceStore store = openStore(MVStoreTaskLayout.MAP_PER_INSTANCE)) {
+      for (int i = 0; i < INSTANCES; i++) {
+        ids.add(writeInstance(store));
+      }
+    }
+
+    MVStore mvStore = MVStore.open(DB_NAME);
+    try {
+      // a definition map sharing the suffix of the instance maps must be left untouched
+      String indexName =
+          MVStoreTransaction.identifier(definition.workflow(), "-")
+              + "-application-batch"
+              + MVStoreTransaction.TASKS_SUFFIX;
+      Transaction transaction = new TransactionStore(mvStore).begin();
+      transaction.<String, byte[]>openMap(indexName).put(ids.get(0), new byte[0]);
+      transaction.commit();
+
+      assertThat(MVStoreTaskLayoutMigration.migrate(mvStore)).isEqualTo(INSTANCES * 2);
+      assertThat(mvStore.getMapNames())
+          .contains(indexName)
+          .noneMatch(name -> ids.stream().anyMatch(name::startsWith));
+      assertThat(new TransactionStore(mvStore).begin().openMap(indexName).keySet())
+          .containsExactly(ids.get(0));
+    } finally {
+      mvStore.close();
+    }
+
+    try (MVStorePersistenceStore store = openStore(MVStoreTaskLayout.SINGLE_MAP)) {
+      for (String id : ids) {
+        MVStoreTransaction transaction = store.begin();
+        PersistenceWorkflowInfo info = transaction.readWorkflowInfo(definition, id).orElseThrow();
+        assertThat(info.tasks()).hasSize(TASKS);
+        for (int i = 0; i < TASKS; i++) {
+          assertThat(
+                  ((CompletedTaskInfo) info.tasks().get(position(i).jsonPointer()))
+                      .context()
+                      .asJavaObject())
+              .isEqualTo(Map.of("id", id, "counter", i));
+        }
+        // removal deletes the instance range only
+        WorkflowContext workflowContext = workflowContext(id);
+        transaction.removeProcessInstance(workflowContext);
+        assertThat(transaction.tasks(id)).isEmpty();
+        transaction.commit(definition);
+      }
+    }
+  }
+
+  private String writeInstance(MVStorePersistenceStore store) {
+    String id = app.idFactory().get();
+    WorkflowContext workflowContext = workflowContext(id);
+    MVStoreTransaction transaction = store.begin();
+    transaction.writeInstanceData(workflowContext);
+    for (int i = 0; i < TASKS; i++) {
+      when(workflowContext.context())
+          .thenReturn(app.modelFactory().from(Map.of("id", id, "counter", i)));
+      TaskContext taskContext = mock(TaskContext.class);
+      when(taskContext.position()).thenReturn(position(i));
+      when(taskContext.completedAt()).thenReturn(Instant.now());
+      when(taskContext.output()).thenReturn(app.modelFactory().fromNull());
+      when(taskContext.transition()).thenReturn(new TransitionInfo(null, false));
+      when(taskContext.iteration()).thenReturn(1);
+      transaction.writeCompletedTask(workflowContext, taskContext);
+    }
+    transaction.commit(definition);
+    return id;
+  }
+
+  private static WorkflowContext workflowContext(String id) {
+    WorkflowInstance instance = mock(WorkflowInstance.class);
+    when(instance.id()).thenReturn(id);
+    when(instance.startedAt()).thenReturn(Instant.now());
+    when(instance.input()).thenReturn(app.modelFactory().fromNull());
+    WorkflowContext workflowContext = mock(WorkflowContext.class);
+    when(workflowContext.definition()).thenReturn(definition);
+    when(workflowContext.instanceData()).thenReturn(instance);
+    return workflowContext;
+  }
+
+  private static MVStorePersistenceStore openStore(MVStoreTaskLayout layout) {
+    return MVStorePersistenceStore.builder(DB_NAME)
+        .withContextCheckpoints(new ContextCheckpoints(2))
+        .withTaskLayout(layout)
+        .build();
+  }
+
+  private static WorkflowPosition position(int index) {
+    return app.positionFactory().get().addProperty("do").addIndex(index).addProperty("task");
+  }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2020-Present The Serverless Workflow Specification Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.serverlessworkflow.impl.persistence.mvstore;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import io.serverlessworkflow.impl.TaskContextData;
+import io.serverlessworkflow.impl.WorkflowPosition;
+import io.serverlessworkflow.impl.persistence.DefaultPersistenceInstanceHandlers;
+import io.serverlessworkflow.impl.persistence.PersistenceExecutor;
+import io.serverlessworkflow.impl.persistence.PersistenceInstanceHandlers;
+import io.serverlessworkflow.impl.persistence.PersistenceInstanceStore;
+import io.serverlessworkflow.impl.persistence.PersistenceInstanceTransaction;
+import io.serverlessworkflow.impl.persistence.PersistenceInstanceWriter;
+import io.serverlessworkflow.impl.persistence.test.AbstractPersistenceTest;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class MVStoreWriteBehindPersistenceTest extends AbstractPersistenceTest {
+
+  private static final String DB_NAME = "dbwritebehind.db";
+
+  // batches are only flushed once full, so every test controls its batch boundaries
+  private static final Duration LATENCY = Duration.ofMinutes(1);
+
+  @Override
+  protected PersistenceInstanceHandlers getPersistenceHandlers() {
+    return DefaultPersistenceInstanceHandlers.builder(persistenceStore())
+        .withWriteBehind(64, Duration.ofMillis(5))
+        .build();
+  }
+
+  @Override
+  protected PersistenceInstanceStore persistenceStore() {
+    return new MVStorePersistenceStore(DB_NAME);
+  }
+
+  @AfterEach
+  void destroy() throws IOException {
+    Files.delete(Path.of(DB_NAME));
+  }
+
+  @Test
+  void testOverwrittenTaskIsCoalesced() {
+    PersistenceInstanceTransaction transaction = mock(PersistenceInstanceTransaction.class);
+    TaskContextData first = completedTaskContext(position(0), Map.of("value", 1));
+    TaskContextData second = completedTaskContext(position(0), Map.of("value", 2));
+    TaskContextData other = completedTaskContext(position(1), Map.of("value", 3));
+    try (PersistenceInstanceHandlers handlers =
+        DefaultPersistenceInstanceHandlers.builder(() -> transaction)
+            .withWriteBehind(3, LATENCY)
+            .build()) {
+      PersistenceInstanceWriter writer = handlers.writer();
+      CompletableFuture.allOf(
+              writer.taskCompleted(workflowContext, first),
+              writer.taskCompleted(workflowContext, second),
+              writer.taskCompleted(workflowContext, other))
+          .join();
+    }
+    verify(transaction, never()).writeCompletedTask(workflowContext, first);
+    verify(transaction).writeCompletedTask(workflowContext, second);
+    verify(transaction).writeCompletedTask(workflowContext, other);
+    verify(transaction).commit(any());
+  }
+
+  @Test
+  void testRemovalDropsEarlierWrites() {
+    PersistenceInstanceTransaction transaction = mock(PersistenceInstanceTransaction.class);
+    PersistenceInstanceWriter writer;
+    try (PersistenceInstanceHandlers handlers =
+        DefaultPersistenceInstanceHandlers.builder(() -> transaction)
+            .withWriteBehind(3, LATENCY)
+            .build()) {
+      writer = handlers.writer();
+      CompletableFuture.allOf(
+              writer.taskCompleted(
+                  workflowContext, completedTaskContext(position(0), Map.of("value", 1))),
+              writer.suspended(workflowContext),
+              writer.completed(workflowContext))
+          .join();
+    }
+    verify(transaction, never()).writeCompletedTask(any(), any());
+    verify(transaction, never()).writeStatus(any(), any());
+    verify(transaction).removeProcessInstance(workflowContext);
+    verify(transaction).commit(any());
+    assertThat(writer.completed(workflowContext)).isCompletedExceptionally();
+  }
+
+  @Test
+  void testFailedBatchIsRetriedOneByOne() {
+    TaskContextData failing = completedTaskContext(position(1), Map.of("value", 2));
+    List<PersistenceInstanceTransaction> transactions = new CopyOnWriteArrayList<>();
+    PersistenceInstanceStore store =
+        () -> {
+          PersistenceInstanceTransaction transaction = mock(PersistenceInstanceTransaction.class);
+          doThrow(new IllegalStateException("Failing write"))
+              .when(transaction)
+              .writeCompletedTask(any(), eq(failing));
+          transactions.add(transaction);
+          return transaction;
+        };
+    try (PersistenceInstanceHandlers handlers =
+        DefaultPersistenceInstanceHandlers.builder(store).withWriteBehind(3, LATENCY).build()) {
+      PersistenceInstanceWriter writer = handlers.writer();
+      CompletableFuture<Void> before =
+          writer.taskCompleted(
+              workflowContext, completedTaskContext(position(0), Map.of("value", 1)));
+      CompletableFuture<Void> failed = writer.taskCompleted(workflowContext, failing);
+      CompletableFuture<Void> after =
+          writer.taskCompleted(
+              workflowContext, completedTaskContext(position(2), Map.of("value", 3)));
+      assertThat(before).succeedsWithin(Duration.ofSeconds(5));
+      assertThat(after).succeedsWithin(Duration.ofSeconds(5));
+      assertThat(failed).failsWithin(Duration.ofSeconds(5));
+    }
+    // the batch transaction and then one transaction per operation
+    assertThat(transactions).hasSize(4);
+    verify(transactions.get(0)).rollback(any());
+    verify(transactions.get(0), never()).commit(any());
+    verify(transactions.get(1)).commit(any());
+    verify(transactions.get(2)).rollback(any());
+    verify(transactions.get(2), never()).commit(any());
+    verify(transactions.get(3)).commit(any());
+  }
+
+  @Test
+  void testConflictingOptionsAreRejected() {
+    assertThatThrownBy(
+            () ->
+                DefaultPersistenceInstanceHandlers.builder(() -> null)
+                    .withPersistenceExecutor(mock(PersistenceExecutor.class))
+                    .withWriteBehind(3, LATENCY)
+                    .build())
+        .isInstanceOf(IllegalStateException.class);
+    assertThatThrownBy(
+            () ->
+                DefaultPersistenceInstanceHandlers.builder(() -> null)
+                    .withWriteBehind(3, LATENCY)
+                    .withAsyncWrites()
+                    .build())
+        .isInstanceOf(IllegalStateException.class);
+  }
+
+  private WorkflowPosition position(int index) {
+    return workflowContext
+        .definition()
+        .application()
+        .positionFactory()
+        .get()
+        .addProperty("do")
+        .addIndex(index);
+  }
+}
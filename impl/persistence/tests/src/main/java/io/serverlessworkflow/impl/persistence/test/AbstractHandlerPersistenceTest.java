@@ -34,12 +34,14 @@ import io.serverlessworkflow.impl.WorkflowInstanceData;
 import io.serverlessworkflow.impl.WorkflowModel;
 import io.serverlessworkflow.impl.WorkflowMutablePosition;
 import io.serverlessworkflow.impl.WorkflowPosition;
+import io.serverlessworkflow.impl.WorkflowStatus;
 import io.serverlessworkflow.impl.executors.TransitionInfo;
 import io.serverlessworkflow.impl.persistence.PersistenceInstanceHandlers;
 import io.serverlessworkflow.impl.persistence.WorkflowPersistenceInstance;
 import java.io.IOException;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Stream;
@@ -190,4 +192,31 @@ public abstract class AbstractHandlerPersistenceTest {
       assertThat(stream.count()).isEqualTo(0);
     }
   }
+
+  @Test
+  void testIndexedScans() {
+    handlers.writer().started(workflowContext).join();
+    assertThat(ids(handlers.reader().scanByApplication(definition)))
+        .containsExactly(workflowInstance.id());
+    assertThat(ids(handlers.reader().scanByApplication(definition, "other"))).isEmpty();
+    assertThat(ids(handlers.reader().scanByStatus(definition, WorkflowStatus.SUSPENDED))).isEmpty();
+
+    handlers.writer().suspended(workflowContext).join();
+    assertThat(ids(handlers.reader().scanByStatus(definition, WorkflowStatus.SUSPENDED)))
+        .containsExactly(workflowInstance.id());
+    assertThat(ids(handlers.reader().scanByStatus(definition, "other", WorkflowStatus.SUSPENDED)))
+        .isEmpty();
+
+    handlers.writer().resumed(workflowContext).join();
+    assertThat(ids(handlers.reader().scanByStatus(definition, WorkflowStatus.SUSPENDED))).isEmpty();
+
+    handlers.writer().completed(workflowContext).join();
+    assertThat(ids(handlers.reader().scanByApplication(definition))).isEmpty();
+  }
+
+  private static List<String> ids(Stream<WorkflowInstance> instances) {
+    try (instances) {
+      return instances.map(WorkflowInstance::id).toList();
+    }
+  }
 }
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2020-Present The Serverless Workflow Specification Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.serverlessworkflow.impl.persistence.test;
+
+import static io.serverlessworkflow.api.WorkflowReader.readWorkflowFromClasspath;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.serverlessworkflow.impl.TaskContext;
+import io.serverlessworkflow.impl.WorkflowApplication;
+import io.serverlessworkflow.impl.WorkflowContext;
+import io.serverlessworkflow.impl.WorkflowDefinition;
+import io.serverlessworkflow.impl.WorkflowInstance;
+import io.serverlessworkflow.impl.executors.TransitionInfo;
+import io.serverlessworkflow.impl.persistence.DefaultPersistenceInstanceHandlers;
+import io.serverlessworkflow.impl.persistence.PersistenceInstanceHandlers;
+import io.serverlessworkflow.impl.persistence.PersistenceInstanceStore;
+import io.serverlessworkflow.impl.persistence.PersistenceInstanceWriter;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Measures the persistence operations per second of a store, running concurrently the life cycle
+ * of many instances: start, completion of every task and completion of the instance. Only runs
+ * when the persistence.benchmark system property is true; instances, tasks per instance and
+ * threads can be set through persistence.benchmark.instances, persistence.benchmark.tasks and
+ * persistence.benchmark.threads
+ */
+@EnabledIfSystemProperty(named = "persistence.benchmark", matches = "true")
+public abstract class AbstractThroughputBenchmark {
+
+  private static final Logger logger = LoggerFactory.getLogger(AbstractThroughputBenchmark.class);
+
+  private static final int INSTANCES = Integer.getInteger("persistence.benchmark.instances", 2000);
+  private static final int TASKS = Integer.getInteger("persistence.benchmark.tasks", 10);
+  private static final int THREADS = Integer.getInteger("persistence.benchmark.threads", 4);
+
+  protected abstract PersistenceInstanceStore persistenceStore();
+
+  @Test
+  void testThroughput() throws IOException {
+    try (WorkflowApplication app = WorkflowApplication.builder().build();
+        PersistenceInstanceHandlers handlers =
+            DefaultPersistenceInstanceHandlers.builder(persistenceStore()).build()) {
+      WorkflowDefinition definition =
+          app.workflowDefinition(readWorkflowFromClasspath("simple-expression.yaml"));
+      List<TaskContext> tasks = new ArrayList<>(TASKS);
+      for (int i = 0; i < TASKS; i++) {
+        tasks.add(completedTask(app, i));
+      }
+      List<WorkflowContext> contexts =
+          IntStream.range(0, INSTANCES).mapToObj(i -> workflowContext(app, definition)).toList();
+      PersistenceInstanceWriter writer = handlers.writer();
+      ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+      try {
+        long start = System.nanoTime();
+        CompletableFuture.allOf(
+                contexts.stream()
+                    .map(c -> CompletableFuture.runAsync(() -> run(writer, c, tasks), executor))
+                    .toArray(CompletableFuture[]::new))
+            .join();
+        long elapsed = System.nanoTime() - start;
+        long operations = (long) INSTANCES * (TASKS + 2);
+        logger.info(
+            "{}: {} operations by {} threads in {} ms, {} operations per second",
+            getClass().getSimpleName(),
+            operations,
+            THREADS,
+            elapsed / 1_000_000,
+            operations * 1_000_000_000L / elapsed);
+      } finally {
+        executor.shutdown();
+      }
+      try (Stream<WorkflowInstance> stream = handlers.reader().scanAll(definition)) {
+        assertThat(stream.count()).isZero();
+      }
+    }
+  }
+
+  private static void run(
+      PersistenceInstanceWriter writer, WorkflowContext context, List<TaskContext> tasks) {
+    writer.started(context).join();
+    for (TaskContext task : tasks) {
+      writer.taskCompleted(context, task).join();
+    }
+    writer.completed(context).join();
+  }
+
+  private static WorkflowContext workflowContext(
+      WorkflowApplication app, WorkflowDefinition definition) {
+    WorkflowContext workflowContext = mock(WorkflowContext.class);
+    WorkflowInstance instance = mock(WorkflowInstance.class);
+    when(workflowContext.context()).thenReturn(app.modelFactory().fromNull());
+    when(workflowContext.definition()).thenReturn(definition);
+    when(workflowContext.instanceData()).thenReturn(instance);
+    when(instance.id()).thenReturn(app.idFactory().get());
+    when(instance.startedAt()).thenReturn(Instant.now());
+    when(instance.input()).thenReturn(app.modelFactory().from(Map.of("name", "Javierito")));
+    return workflowContext;
+  }
+
+  private static TaskContext completedTask(WorkflowApplication app, int index) {
+    TaskContext taskContext = mock(TaskContext.class);
+    when(taskContext.position())
+        .thenReturn(
+            app.positionFactory().get().addProperty("do").addIndex(index).addProperty("set"));
+    when(taskContext.completedAt()).thenReturn(Instant.now());
+    when(taskContext.output()).thenReturn(app.modelFactory().from(Map.of("index", index)));
+    when(taskContext.transition()).thenReturn(new TransitionInfo(null, false));
+    when(taskContext.iteration()).thenReturn(1);
+    return taskContext;
+  }
+}
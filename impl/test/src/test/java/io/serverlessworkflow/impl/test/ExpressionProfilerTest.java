@@ -0,0 +1,86 @@
+/*
+ * Copyright 2020-Present The Serverless Workflow Specification Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.serverlessworkflow.impl.test;
+
+import static io.serverlessworkflow.api.WorkflowReader.readWorkflowFromClasspath;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.serverlessworkflow.impl.WorkflowApplication;
+import io.serverlessworkflow.impl.WorkflowDefinition;
+import io.serverlessworkflow.impl.expressions.ExpressionProfile;
+import io.serverlessworkflow.impl.expressions.ExpressionProfileKey;
+import io.serverlessworkflow.impl.expressions.ExpressionProfiler;
+import java.io.IOException;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+public class ExpressionProfilerTest {
+
+  @Test
+  void testIfFilterIsProfiled() throws IOException {
+    ExpressionProfiler profiler = new ExpressionProfiler();
+    try (WorkflowApplication appl =
+        WorkflowApplication.builder().withExpressionProfiler(profiler).build()) {
+      WorkflowDefinition definition =
+          appl.workflowDefinition(
+              readWorkflowFromClasspath("workflows-samples/conditional-set.yaml"));
+      definition.instance(Map.of("enabled", true)).start().join();
+      definition.instance(Map.of("enabled", false)).start().join();
+
+      Map<ExpressionProfileKey, ExpressionProfile> snapshot = profiler.snapshot(definition.id());
+      Map.Entry<ExpressionProfileKey, ExpressionProfile> entry =
+          snapshot.entrySet().stream()
+              .filter(e -> e.getKey().expression().equals(".enabled"))
+              .findFirst()
+              .orElseThrow();
+      assertThat(entry.getKey().position()).isEqualTo("do/0/conditionalExpression");
+      assertThat(entry.getValue().invocations()).isEqualTo(2);
+      assertThat(entry.getValue().maxNanos()).isLessThanOrEqualTo(entry.getValue().totalNanos());
+
+      profiler.reset();
+      assertThat(profiler.snapshot()).isEmpty();
+    }
+  }
+
+  @Test
+  void testSharedIfFiltersAreProfiled() throws IOException {
+    ExpressionProfiler profiler = new ExpressionProfiler();
+    try (WorkflowApplication appl =
+        WorkflowApplication.builder().withExpressionProfiler(profiler).build()) {
+      WorkflowDefinition definition =
+          appl.workflowDefinition(
+              readWorkflowFromClasspath("workflows-samples/conditional-sequence.yaml"));
+      definition.instance(Map.of("priority", "high")).start().join();
+
+      Map<ExpressionProfileKey, ExpressionProfile> snapshot = profiler.snapshot(definition.id());
+      for (String priority : new String[] {"low", "medium", "high"}) {
+        assertThat(snapshot)
+            .anySatisfy(
+                (k, v) -> {
+                  assertThat(k.expression()).isEqualTo(".priority == \"" + priority + "\"");
+                  assertThat(v.invocations()).isEqualTo(1);
+                });
+      }
+    }
+  }
+
+  @Test
+  void testProfilingIsOptIn() {
+    try (WorkflowApplication appl = WorkflowApplication.builder().build()) {
+      assertThat(appl.expressionProfiler()).isEmpty();
+    }
+  }
+}
@@ -17,27 +17,42 @@ package io.serverlessworkflow.impl.test;
 
 import static io.serverlessworkflow.api.WorkflowReader.readWorkflowFromClasspath;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 
+import io.serverlessworkflow.api.types.TaskBase;
+import io.serverlessworkflow.api.types.WaitTask;
+import io.serverlessworkflow.impl.TaskContextData;
 import io.serverlessworkflow.impl.WorkflowApplication;
 import io.serverlessworkflow.impl.WorkflowDefinition;
 import io.serverlessworkflow.impl.WorkflowInstance;
 import io.serverlessworkflow.impl.WorkflowStatus;
 import io.serverlessworkflow.impl.lifecycle.TraceExecutionListener;
+import io.serverlessworkflow.impl.persistence.CheckpointPolicy;
 import io.serverlessworkflow.impl.persistence.DefaultPersistenceInstanceHandlers;
 import io.serverlessworkflow.impl.persistence.PersistenceApplicationBuilder;
 import io.serverlessworkflow.impl.persistence.PersistenceInstanceHandlers;
+import io.serverlessworkflow.impl.persistence.PersistenceInstanceWriter;
 import io.serverlessworkflow.impl.persistence.mvstore.MVStorePersistenceStore;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Duration;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.stream.Stream;
+import mockwebserver3.MockResponse;
+import mockwebserver3.MockWebServer;
+import okhttp3.Headers;
 import org.awaitility.Awaitility;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 
 public class MvStorePersistenceTest {
 
@@ -87,6 +102,99 @@ public class MvStorePersistenceTest {
     }
   }
 
+  @Test
+  void testCheckpointPolicy() throws IOException {
+    assertThat(checkpointedTasks("wait-set.yaml", Map.of(), CheckpointPolicy.sideEffects()))
+        .singleElement()
+        .isInstanceOf(WaitTask.class);
+    Map<String, Object> input = Map.of("input", List.of(1, 2, 3, 4));
+    int completed = checkpointedTasks("for-sum.yaml", input, CheckpointPolicy.always()).size();
+    assertThat(checkpointedTasks("for-sum.yaml", input, CheckpointPolicy.everyTasks(2)))
+        .hasSize(completed / 2);
+  }
+
+  private List<TaskBase> checkpointedTasks(
+      String workflow, Map<String, Object> input, CheckpointPolicy policy) throws IOException {
+    PersistenceInstanceWriter writer =
+        mock(
+            PersistenceInstanceWriter.class,
+            invocation ->
+                invocation.getMethod().getReturnType() == CompletableFuture.class
+                    ? CompletableFuture.completedFuture(null)
+                    : null);
+    try (WorkflowApplication application =
+        PersistenceApplicationBuilder.builder(WorkflowApplication.builder(), writer)
+            .withCheckpointPolicy(policy)
+            .build()) {
+      application
+          .workflowDefinition(readWorkflowFromClasspath("workflows-samples/" + workflow))
+          .instance(input)
+          .start()
+          .join();
+    }
+    ArgumentCaptor<TaskContextData> tasks = ArgumentCaptor.forClass(TaskContextData.class);
+    verify(writer, atLeast(0)).taskCompleted(any(), tasks.capture());
+    return tasks.getAllValues().stream().map(TaskContextData::task).toList();
+  }
+
+  @Test
+  void testCheckpointPolicyRestore() throws IOException {
+    for (CheckpointPolicy policy :
+        List.of(CheckpointPolicy.sideEffects(), CheckpointPolicy.everyTasks(100))) {
+      final String dbName = "db-samples/checkpoint.db";
+      try (MockWebServer mockServer = new MockWebServer()) {
+        mockServer.start(9876);
+        // enough responses for the calls to be executed again, so a failure does not block
+        for (int i = 0; i < 6; i++) {
+          mockServer.enqueue(
+              new MockResponse(200, Headers.of("Content-Type", "application/json"), "{}"));
+        }
+        try (PersistenceInstanceHandlers handlers =
+                DefaultPersistenceInstanceHandlers.from(new MVStorePersistenceStore(dbName));
+            WorkflowApplication application =
+                PersistenceApplicationBuilder.builder(
+                        WorkflowApplication.builder(), handlers.writer())
+                    .withCheckpointPolicy(policy)
+                    .build()) {
+          WorkflowInstance instance =
+              application
+                  .workflowDefinition(
+                      readWorkflowFromClasspath("workflows-samples/for-call-listen.yaml"))
+                  .instance(Map.of("items", List.of(1, 2, 3)));
+          instance.start();
+          Awaitility.await()
+              .atMost(Duration.ofSeconds(5))
+              .until(() -> instance.status() == WorkflowStatus.WAITING);
+        }
+        assertThat(mockServer.getRequestCount()).isEqualTo(3);
+
+        try (PersistenceInstanceHandlers handlers =
+                DefaultPersistenceInstanceHandlers.from(new MVStorePersistenceStore(dbName));
+            WorkflowApplication application =
+                PersistenceApplicationBuilder.builder(
+                        WorkflowApplication.builder(), handlers.writer())
+                    .withCheckpointPolicy(policy)
+                    .build();
+            Stream<WorkflowInstance> stream =
+                handlers
+                    .reader()
+                    .scanAll(
+                        application.workflowDefinition(
+                            readWorkflowFromClasspath("workflows-samples/for-call-listen.yaml")))) {
+          WorkflowInstance instance = stream.findFirst().orElseThrow();
+          instance.start();
+          Awaitility.await()
+              .atMost(Duration.ofSeconds(5))
+              .until(() -> instance.status() == WorkflowStatus.WAITING);
+        }
+        // the completed for task is restored, so the calls within it are not executed again
+        assertThat(mockServer.getRequestCount()).isEqualTo(3);
+      } finally {
+        Files.deleteIfExists(Path.of(dbName));
+      }
+    }
+  }
+
   @Test
   void testRestoreWaitingInstanceV0() throws IOException {
     runIt("db-samples/running.db", WorkflowStatus.WAITING);
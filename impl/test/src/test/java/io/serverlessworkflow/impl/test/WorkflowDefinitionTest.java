@@ -100,6 +100,14 @@ public class WorkflowDefinitionTest {
             "workflows-samples/conditional-set.yaml",
             Map.of("enabled", false),
             WorkflowDefinitionTest::checkDisableCondition),
+        args(
+            "workflows-samples/conditional-sequence.yaml",
+            Map.of("priority", "high"),
+            o -> assertThat(o).isEqualTo(Map.of("queue", "fast"))),
+        args(
+            "workflows-samples/conditional-sequence.yaml",
+            Map.of("priority", "urgent"),
+            o -> assertThat(o).isEqualTo(Map.of("queue", "default"))),
         args(
             "workflows-samples/raise-inline.yaml",
             WorkflowDefinitionTest::checkWorkflowException,